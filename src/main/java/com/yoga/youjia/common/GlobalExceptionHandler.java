@@ -3,9 +3,13 @@ package com.yoga.youjia.common;
 import com.yoga.youjia.common.enums.ErrorCode;
 import com.yoga.youjia.common.exception.BusinessException;
 import com.yoga.youjia.common.exception.DataConflictException;
+import com.yoga.youjia.common.exception.RateLimitExceededException;
 import com.yoga.youjia.common.exception.ResourceNotFoundException;
+import com.yoga.youjia.common.utils.RequestIdGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.security.access.AccessDeniedException;
@@ -23,7 +27,6 @@ import org.springframework.web.HttpMediaTypeNotSupportedException;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolationException;
-import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
@@ -86,6 +89,23 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(errorCode.getHttpStatus()).body(response);
     }
 
+    /**
+     * 处理请求限流异常
+     */
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<ApiResponse<Object>> handleRateLimitExceededException(
+            RateLimitExceededException e, HttpServletRequest request) {
+        String traceId = generateTraceId();
+        logger.warn("请求限流 [{}]: {} - 请求路径: {}", traceId, e.getMessage(), request.getRequestURI());
+        
+        ApiResponse<Object> response = ApiResponse.error(ErrorCode.RATE_LIMIT_EXCEEDED, e.getErrorMessage())
+                .withTraceId(traceId);
+        
+        return ResponseEntity.status(ErrorCode.RATE_LIMIT_EXCEEDED.getHttpStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(response);
+    }
+
     // ========== 安全相关异常处理 ==========
     
     /**
@@ -309,9 +329,10 @@ public class GlobalExceptionHandler {
     // ========== 工具方法 ==========
     
     /**
-     * 生成跟踪ID
+     * 生成跟踪ID，请求日志拦截器已生成请求ID时直接使用，便于和访问日志对应
      */
     private String generateTraceId() {
-        return UUID.randomUUID().toString().replace("-", "").substring(0, 16);
+        String requestId = MDC.get("requestId");
+        return requestId != null ? requestId : RequestIdGenerator.next();
     }
 }
\ No newline at end of file
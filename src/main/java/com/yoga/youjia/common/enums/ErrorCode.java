@@ -69,6 +69,8 @@ public enum ErrorCode {
     TEST_CASE_NOT_FOUND("3000", "测试用例不存在", HttpStatus.NOT_FOUND),
     TEST_MODULE_NOT_FOUND("3001", "测试模块不存在", HttpStatus.NOT_FOUND),
     TEST_CASE_CANNOT_DELETE("3002", "测试用例无法删除", HttpStatus.BAD_REQUEST),
+    TEST_STEP_STORAGE_MODE_UNSUPPORTED("3003", "当前步骤存储模式不支持该操作", HttpStatus.CONFLICT),
+    TEST_STEP_STORAGE_MIGRATION_RUNNING("3004", "步骤存储模式迁移正在进行", HttpStatus.CONFLICT),
     
     // ========== 测试执行相关错误 4000-4999 ==========
     TEST_PLAN_NOT_FOUND("4000", "测试计划不存在", HttpStatus.NOT_FOUND),
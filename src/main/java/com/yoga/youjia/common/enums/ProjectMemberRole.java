@@ -102,6 +102,13 @@ public enum ProjectMemberRole {
         return this.level < other.level; // 级别数字越小，权限越高
     }
     
+    /**
+     * 检查角色级别是否不低于要求的角色
+     */
+    public boolean isAtLeast(ProjectMemberRole required) {
+        return this.level <= required.level;
+    }
+    
     /**
      * 根据code获取枚举
      */
@@ -119,6 +126,23 @@ public enum ProjectMemberRole {
         throw new IllegalArgumentException("未知的项目成员角色代码: " + code);
     }
     
+    /**
+     * 根据级别获取枚举（JWT令牌中以级别作为角色的紧凑编码）
+     */
+    public static ProjectMemberRole fromLevel(Integer level) {
+        if (level == null) {
+            return null;
+        }
+        
+        for (ProjectMemberRole role : values()) {
+            if (role.level.equals(level)) {
+                return role;
+            }
+        }
+        
+        throw new IllegalArgumentException("未知的项目成员角色级别: " + level);
+    }
+    
     @Override
     public String toString() {
         return displayName;
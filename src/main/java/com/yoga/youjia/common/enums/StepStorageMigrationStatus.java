@@ -0,0 +1,37 @@
+package com.yoga.youjia.common.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 步骤存储模式迁移状态枚举
+ */
+@Getter
+@AllArgsConstructor
+public enum StepStorageMigrationStatus {
+    
+    /**
+     * 迁移中：项目开关已切换，存量用例正在后台分批转换
+     */
+    RUNNING("RUNNING", "迁移中"),
+    
+    /**
+     * 已完成：存量用例全部转换为目标模式
+     */
+    COMPLETED("COMPLETED", "已完成"),
+    
+    /**
+     * 失败：某一批转换失败，已转换的批次保留，重新切换即可继续
+     */
+    FAILED("FAILED", "失败");
+    
+    /**
+     * 状态代码
+     */
+    private final String code;
+    
+    /**
+     * 状态名称
+     */
+    private final String name;
+}
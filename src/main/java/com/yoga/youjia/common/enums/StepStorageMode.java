@@ -0,0 +1,51 @@
+package com.yoga.youjia.common.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 测试步骤存储模式枚举
+ * 
+ * 定义项目下测试用例步骤的存储方式
+ */
+@Getter
+@AllArgsConstructor
+public enum StepStorageMode {
+    
+    /**
+     * 行存储：每个步骤单独一行保存在 test_steps 表
+     */
+    ROW("ROW", "行存储", "每个步骤单独保存为一行，支持按步骤单独编辑"),
+    
+    /**
+     * 文档存储：全部步骤序列化后保存在 test_cases 表的 steps_document 列
+     */
+    DOCUMENT("DOCUMENT", "文档存储", "步骤序列化后随用例一起保存，读取和编辑用例只涉及一行");
+    
+    /**
+     * 模式代码
+     */
+    private final String code;
+    
+    /**
+     * 模式名称
+     */
+    private final String name;
+    
+    /**
+     * 模式描述
+     */
+    private final String description;
+    
+    /**
+     * 根据代码获取存储模式
+     */
+    public static StepStorageMode fromCode(String code) {
+        for (StepStorageMode mode : StepStorageMode.values()) {
+            if (mode.getCode().equals(code)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("未知的步骤存储模式代码: " + code);
+    }
+}
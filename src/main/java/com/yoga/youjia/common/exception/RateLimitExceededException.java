@@ -0,0 +1,37 @@
+package com.yoga.youjia.common.exception;
+
+import com.yoga.youjia.common.enums.ErrorCode;
+
+/**
+ * 请求限流异常
+ * 
+ * 当请求超出处理能力或频率限制时抛出此异常，响应状态码为429
+ */
+public class RateLimitExceededException extends BusinessException {
+
+    /**
+     * 建议客户端等待的秒数，用于 Retry-After 响应头
+     */
+    private final long retryAfterSeconds;
+
+    // ========== 基础构造函数 ==========
+    
+    /**
+     * 使用自定义消息构造异常
+     */
+    public RateLimitExceededException(String message) {
+        this(message, 1);
+    }
+    
+    /**
+     * 使用自定义消息和建议等待时间构造异常
+     */
+    public RateLimitExceededException(String message, long retryAfterSeconds) {
+        super(ErrorCode.RATE_LIMIT_EXCEEDED, message);
+        this.retryAfterSeconds = Math.max(retryAfterSeconds, 1);
+    }
+    
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,122 @@
+package com.yoga.youjia.common.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 哈希时间轮
+ *
+ * 把到期时间按固定刻度映射到环形槽位上，每个键最多挂一个定时；调度、取消都是 O(1)，
+ * 推进时只扫描经过的槽位，到期时间超过一圈的键按记录的到期刻度判断，留在槽位中等下一圈。
+ * 不是线程安全的，由调用方加锁
+ *
+ * @param <K> 定时的键
+ */
+public final class HashedTimingWheel<K> {
+
+    private final long tickMillis;
+
+    private final int mask;
+
+    /**
+     * 槽位：键 -> 到期刻度
+     */
+    private final List<Map<K, Long>> wheel;
+
+    /**
+     * 键 -> 到期刻度，用于取消和重新调度
+     */
+    private final Map<K, Long> deadlines = new HashMap<>();
+
+    /**
+     * 下一个待处理的刻度
+     */
+    private long currentTick;
+
+    /**
+     * @param wheelSize 槽位数量，向上取整为2的幂
+     * @param tickMillis 刻度长度（毫秒）
+     * @param startMillis 起始时间（毫秒）
+     */
+    public HashedTimingWheel(int wheelSize, long tickMillis, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+        this.tickMillis = tickMillis;
+        this.mask = size - 1;
+        this.wheel = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            wheel.add(new HashMap<>());
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * 调度键在指定时间到期，已有定时时替换；时间已过去的键在下一次推进时到期
+     */
+    public void schedule(K key, long deadlineMillis) {
+        cancel(key);
+        long tick = Math.max(deadlineMillis / tickMillis, currentTick);
+        wheel.get((int) (tick & mask)).put(key, tick);
+        deadlines.put(key, tick);
+    }
+
+    /**
+     * 取消键的定时
+     *
+     * @return 键原来是否有定时
+     */
+    public boolean cancel(K key) {
+        Long tick = deadlines.remove(key);
+        if (tick == null) {
+            return false;
+        }
+        wheel.get((int) (tick & mask)).remove(key);
+        return true;
+    }
+
+    /**
+     * 推进到指定时间，返回到期的键（已从时间轮移除）
+     */
+    public List<K> advance(long nowMillis) {
+        long nowTick = nowMillis / tickMillis;
+        List<K> expired = new ArrayList<>();
+        if (nowTick < currentTick) {
+            return expired;
+        }
+        // 经过的刻度超过一圈时每个槽位只需扫描一次
+        long ticks = Math.min(nowTick - currentTick + 1, wheel.size());
+        for (long i = 0; i < ticks; i++) {
+            Iterator<Map.Entry<K, Long>> iterator = wheel.get((int) ((currentTick + i) & mask)).entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<K, Long> entry = iterator.next();
+                if (entry.getValue() <= nowTick) {
+                    expired.add(entry.getKey());
+                    deadlines.remove(entry.getKey());
+                    iterator.remove();
+                }
+            }
+        }
+        currentTick = nowTick + 1;
+        return expired;
+    }
+
+    /**
+     * 当前挂起的定时数量
+     */
+    public int size() {
+        return deadlines.size();
+    }
+
+    /**
+     * 清空全部定时
+     */
+    public void clear() {
+        wheel.forEach(Map::clear);
+        deadlines.clear();
+    }
+}
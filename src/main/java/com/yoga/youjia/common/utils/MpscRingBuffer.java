@@ -0,0 +1,120 @@
+package com.yoga.youjia.common.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * 多生产者、单消费者的有界无锁环形队列
+ *
+ * 每个槽位记录一个序号：生产者用 CAS 抢占写入位置，写完后发布序号；消费者按序号判断槽位是否可读，
+ * 读完后把序号推进一圈，槽位交还给生产者。队列满时 offer 直接返回 false，生产者不会阻塞也不会自旋等待消费者。
+ * poll 和 drain 只能由同一个线程调用
+ *
+ * @param <E> 元素类型
+ */
+public final class MpscRingBuffer<E> {
+
+    private final int mask;
+
+    private final AtomicReferenceArray<E> elements;
+
+    /**
+     * 槽位序号：等于写入位置时可写，等于写入位置 + 1 时可读
+     */
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong producerIndex = new AtomicLong();
+
+    /**
+     * 只有消费者线程写入，volatile 供 size() 在其他线程读取
+     */
+    private volatile long consumerIndex;
+
+    /**
+     * @param capacity 容量，向上取整为2的幂
+     */
+    public MpscRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        int size = capacity == 1 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 加入元素，队列已满时返回false
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("element");
+        }
+        while (true) {
+            long index = producerIndex.get();
+            int slot = (int) (index & mask);
+            long sequence = sequences.get(slot);
+            if (sequence == index) {
+                if (producerIndex.compareAndSet(index, index + 1)) {
+                    elements.lazySet(slot, element);
+                    sequences.set(slot, index + 1);
+                    return true;
+                }
+            } else if (sequence < index) {
+                // 槽位还没被消费者读走，队列已满
+                return false;
+            }
+            // 其他生产者已抢占该位置，重新读取写入位置
+        }
+    }
+
+    /**
+     * 取出一个元素，队列为空或下一个元素尚未写完时返回null
+     */
+    public E poll() {
+        long index = consumerIndex;
+        int slot = (int) (index & mask);
+        if (sequences.get(slot) != index + 1) {
+            return null;
+        }
+        E element = elements.get(slot);
+        elements.lazySet(slot, null);
+        sequences.set(slot, index + mask + 1);
+        consumerIndex = index + 1;
+        return element;
+    }
+
+    /**
+     * 依次取出最多 limit 个元素交给 consumer
+     *
+     * @return 取出的数量
+     */
+    public int drain(Consumer<E> consumer, int limit) {
+        int count = 0;
+        E element;
+        while (count < limit && (element = poll()) != null) {
+            consumer.accept(element);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 当前元素数量的近似值
+     */
+    public int size() {
+        return (int) Math.max(0, producerIndex.get() - consumerIndex);
+    }
+
+    /**
+     * 容量
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+}
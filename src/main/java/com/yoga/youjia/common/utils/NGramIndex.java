@@ -0,0 +1,401 @@
+package com.yoga.youjia.common.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 内存 N-gram 子串索引
+ *
+ * 每个文档有若干个字段（按权重从高到低排列），字段转小写后加上首尾标记，切成二元组和三元组建立倒排表。
+ * 查询时取查询串中最稀有的一个 N-gram 的倒排表作为候选，逐个用子串匹配确认并打分，
+ * 只保留得分最高的前 K 个：完全匹配 > 字段前缀 > 词首（分隔符之后）> 其他位置，同级按字段权重和字段长度排序。
+ * 一个字符的查询只匹配字段前缀。候选不超过 maxCandidates 个时全部检查；超过时依次检查可能完全匹配的候选
+ * （同时含首尾标记 N-gram）、可能前缀匹配的候选和全部候选，每轮最多 maxCandidates 个，
+ * 截断只影响排在后面的匹配，结果数和耗时都有上界。
+ * 每个文档记录自己在各倒排表中的位置，删除时用末尾元素填补空位并更新被移动文档的位置，不扫描倒排表。
+ * 读写锁保护，查询可以并发
+ */
+public final class NGramIndex {
+
+    private static final char START = '\u0002';
+
+    private static final char END = '\u0003';
+
+    private static final int MAX_FIELD_LENGTH = 200;
+
+    private static final int MAX_QUERY_LENGTH = 64;
+
+    private static final Comparator<Match> WORST_FIRST = Comparator.comparingInt(Match::score)
+            .thenComparing(Comparator.comparingLong(Match::id).reversed());
+
+    private final int maxCandidates;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * N-gram -> 包含它的文档槽位
+     */
+    private final Map<Long, IntList> postings = new HashMap<>();
+
+    /**
+     * 文档ID -> 槽位
+     */
+    private final Map<Long, Integer> slots = new HashMap<>();
+
+    private final IntList freeSlots = new IntList();
+
+    private Doc[] docs = new Doc[1024];
+
+    private int nextSlot;
+
+    /**
+     * @param maxCandidates 单次查询最多检查的候选文档数
+     */
+    public NGramIndex(int maxCandidates) {
+        this.maxCandidates = maxCandidates;
+    }
+
+    /**
+     * 加入或替换文档
+     *
+     * @param id 文档ID
+     * @param fields 字段值，按权重从高到低，可以为null
+     */
+    public void put(long id, String... fields) {
+        String[] normalized = new String[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            normalized[i] = normalize(fields[i], MAX_FIELD_LENGTH);
+        }
+
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.get(id);
+            if (slot != null) {
+                if (Arrays.equals(docs[slot].fields(), normalized)) {
+                    return;
+                }
+                removePostings(slot, docs[slot]);
+            } else {
+                slot = allocateSlot();
+                slots.put(id, slot);
+            }
+            long[] grams = grams(normalized);
+            int[] positions = new int[grams.length];
+            for (int i = 0; i < grams.length; i++) {
+                IntList list = postings.computeIfAbsent(grams[i], key -> new IntList());
+                positions[i] = list.size();
+                list.add(slot);
+            }
+            docs[slot] = new Doc(id, normalized, grams, positions);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 移除文档
+     */
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.remove(id);
+            if (slot == null) {
+                return;
+            }
+            removePostings(slot, docs[slot]);
+            docs[slot] = null;
+            freeSlots.add(slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 文档数量
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 查询包含关键词的文档，按得分从高到低返回文档ID
+     *
+     * @param query 关键词，空白时返回空列表
+     * @param limit 最多返回的数量
+     */
+    public List<Long> search(String query, int limit) {
+        String q = normalize(query, MAX_QUERY_LENGTH);
+        if (q.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        PriorityQueue<Match> top = new PriorityQueue<>(limit + 1, WORST_FIRST);
+        lock.readLock().lock();
+        try {
+            IntList candidates = rarestPosting(q);
+            if (candidates == null) {
+                return List.of();
+            }
+            if (candidates.size() <= maxCandidates) {
+                examine(candidates, q, limit, top, null);
+            } else {
+                // 候选被截断时先检查可能完全匹配和前缀匹配的候选，保证排在前面的匹配不会被截掉
+                IntList prefix = rarer(candidates, postings.get(startGram(q)));
+                IntList exact = rarer(prefix, postings.get(endGram(q)));
+                BitSet seen = new BitSet(nextSlot);
+                examine(exact, q, limit, top, seen);
+                if (prefix != exact) {
+                    examine(prefix, q, limit, top, seen);
+                }
+                if (candidates != prefix) {
+                    examine(candidates, q, limit, top, seen);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Match> matches = new ArrayList<>(top);
+        matches.sort(WORST_FIRST.reversed());
+        List<Long> ids = new ArrayList<>(matches.size());
+        matches.forEach(match -> ids.add(match.id()));
+        return ids;
+    }
+
+    // ========== 私有方法 ==========
+
+    private int allocateSlot() {
+        if (freeSlots.size() > 0) {
+            return freeSlots.removeLast();
+        }
+        if (nextSlot == docs.length) {
+            docs = Arrays.copyOf(docs, docs.length * 2);
+        }
+        return nextSlot++;
+    }
+
+    private void removePostings(int slot, Doc doc) {
+        long[] grams = doc.grams();
+        for (int i = 0; i < grams.length; i++) {
+            IntList list = postings.get(grams[i]);
+            int position = doc.positions()[i];
+            int moved = list.removeAt(position);
+            if (moved >= 0) {
+                // 末尾的文档移到了空位上，更新它记录的位置
+                Doc movedDoc = docs[moved];
+                movedDoc.positions()[Arrays.binarySearch(movedDoc.grams(), grams[i])] = position;
+            } else if (list.size() == 0) {
+                postings.remove(grams[i]);
+            }
+        }
+    }
+
+    /**
+     * 检查倒排表中前 maxCandidates 个候选并把匹配的文档放入前 K 个结果
+     *
+     * @param seen 已检查过的槽位，只检查一轮时为null
+     */
+    private void examine(IntList candidates, String q, int limit, PriorityQueue<Match> top, BitSet seen) {
+        if (candidates == null) {
+            return;
+        }
+        int examined = Math.min(candidates.size(), maxCandidates);
+        for (int i = 0; i < examined; i++) {
+            int slot = candidates.get(i);
+            if (seen != null) {
+                if (seen.get(slot)) {
+                    continue;
+                }
+                seen.set(slot);
+            }
+            Doc doc = docs[slot];
+            int score = score(doc.fields(), q);
+            if (score > 0) {
+                top.offer(new Match(doc.id(), score));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+        }
+    }
+
+    /**
+     * 查询串中倒排表最短的 N-gram；任何一个 N-gram 不存在时不可能有匹配，返回null
+     */
+    private IntList rarestPosting(String q) {
+        if (q.length() == 1) {
+            return postings.get(bigram(START, q.charAt(0)));
+        }
+        if (q.length() == 2) {
+            return postings.get(bigram(q.charAt(0), q.charAt(1)));
+        }
+        IntList rarest = null;
+        for (int i = 0; i + 2 < q.length(); i++) {
+            IntList list = postings.get(trigram(q.charAt(i), q.charAt(i + 1), q.charAt(i + 2)));
+            if (list == null) {
+                return null;
+            }
+            if (rarest == null || list.size() < rarest.size()) {
+                rarest = list;
+            }
+        }
+        return rarest;
+    }
+
+    /**
+     * 较短的倒排表；other 不存在时说明没有文档含有该 N-gram，返回null
+     */
+    private static IntList rarer(IntList list, IntList other) {
+        if (list == null || other == null) {
+            return null;
+        }
+        return other.size() < list.size() ? other : list;
+    }
+
+    /**
+     * 字段以查询串开头时必然含有的首部 N-gram
+     */
+    private static long startGram(String q) {
+        return q.length() == 1 ? bigram(START, q.charAt(0)) : trigram(START, q.charAt(0), q.charAt(1));
+    }
+
+    /**
+     * 字段以查询串结尾时必然含有的尾部 N-gram
+     */
+    private static long endGram(String q) {
+        int n = q.length();
+        return n == 1 ? bigram(q.charAt(0), END) : trigram(q.charAt(n - 2), q.charAt(n - 1), END);
+    }
+
+    private static int score(String[] fields, String q) {
+        int best = 0;
+        for (int i = 0; i < fields.length; i++) {
+            String field = fields[i];
+            int index = field.indexOf(q);
+            if (index < 0) {
+                continue;
+            }
+            int level;
+            if (field.length() == q.length()) {
+                level = 4;
+            } else if (index == 0) {
+                level = 3;
+            } else if (!Character.isLetterOrDigit(field.charAt(index - 1))) {
+                level = 2;
+            } else {
+                level = 1;
+            }
+            int score = level * 100_000 - i * 1_000 - Math.min(field.length(), 999);
+            best = Math.max(best, score);
+        }
+        return best;
+    }
+
+    /**
+     * 字段的全部 N-gram，去重后升序排列
+     */
+    private static long[] grams(String[] fields) {
+        Set<Long> grams = new HashSet<>();
+        for (String field : fields) {
+            if (field.isEmpty()) {
+                continue;
+            }
+            String padded = START + field + END;
+            for (int i = 0; i + 1 < padded.length(); i++) {
+                grams.add(bigram(padded.charAt(i), padded.charAt(i + 1)));
+                if (i + 2 < padded.length()) {
+                    grams.add(trigram(padded.charAt(i), padded.charAt(i + 1), padded.charAt(i + 2)));
+                }
+            }
+        }
+        long[] sorted = grams.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private static long bigram(char a, char b) {
+        return (1L << 48) | ((long) a << 16) | b;
+    }
+
+    private static long trigram(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    private static String normalize(String value, int maxLength) {
+        if (value == null) {
+            return "";
+        }
+        String normalized = value.trim().toLowerCase(Locale.ROOT);
+        return normalized.length() > maxLength ? normalized.substring(0, maxLength) : normalized;
+    }
+
+    /**
+     * 文档
+     *
+     * @param grams 文档的 N-gram，升序
+     * @param positions 文档槽位在对应 N-gram 倒排表中的下标
+     */
+    private record Doc(long id, String[] fields, long[] grams, int[] positions) {
+    }
+
+    private record Match(long id, int score) {
+    }
+
+    /**
+     * 可增长的 int 数组，删除时用末尾元素填补空位
+     */
+    private static final class IntList {
+
+        private int[] values = new int[4];
+
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int removeLast() {
+            return values[--size];
+        }
+
+        /**
+         * 删除指定下标的元素，用末尾元素填补
+         *
+         * @return 移到该下标的元素；删除的就是末尾元素时返回-1
+         */
+        int removeAt(int index) {
+            int last = values[--size];
+            if (index == size) {
+                return -1;
+            }
+            values[index] = last;
+            return last;
+        }
+    }
+}
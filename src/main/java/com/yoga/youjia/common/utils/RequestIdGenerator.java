@@ -0,0 +1,37 @@
+package com.yoga.youjia.common.utils;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 请求ID生成器
+ *
+ * 生成16位十六进制字符串：高24位是进程启动时随机生成的前缀，用于区分不同节点和重启前后的进程；
+ * 低40位是进程内递增的计数器。只有一次原子自增和一次定长格式化，不需要像 UUID 那样读取安全随机数
+ */
+public final class RequestIdGenerator {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final long PREFIX = (long) ThreadLocalRandom.current().nextInt(1 << 24) << 40;
+
+    private static final long COUNTER_MASK = (1L << 40) - 1;
+
+    private static final AtomicLong COUNTER = new AtomicLong(ThreadLocalRandom.current().nextLong(COUNTER_MASK));
+
+    private RequestIdGenerator() {
+    }
+
+    /**
+     * 生成下一个请求ID
+     */
+    public static String next() {
+        long value = PREFIX | (COUNTER.getAndIncrement() & COUNTER_MASK);
+        char[] chars = new char[16];
+        for (int i = 15; i >= 0; i--) {
+            chars[i] = HEX[(int) (value & 0xf)];
+            value >>>= 4;
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,172 @@
+package com.yoga.youjia.common.utils;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.yoga.youjia.entity.TestStep;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 测试步骤文档编解码工具类
+ * 
+ * 文档模式下，用例的全部步骤以紧凑 JSON 保存在 test_cases.steps_document 列中：
+ * <pre>
+ * {"v":1,"n":1,"steps":[{"o":1,"d":"打开登录页","td":"...","er":"显示登录表单","r":"...","k":true,"a":false,"ac":"...","t":30}]}
+ * </pre>
+ * 字段名使用缩写，空值不写出；"v" 为格式版本号，解码时按版本解析，便于以后演进格式；
+ * "n" 为步骤数量，写在步骤数组之前，统计步骤数时读到它即可返回，不需要解析整个文档。
+ * 引用共享步骤的内容在编码时展开，文档本身不依赖共享步骤库
+ */
+public final class StepDocumentCodec {
+    
+    /**
+     * 当前文档格式版本
+     */
+    public static final int CURRENT_VERSION = 1;
+    
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+    
+    private StepDocumentCodec() {
+    }
+    
+    /**
+     * 将步骤列表编码为文档
+     */
+    public static String encode(List<TestStep> steps) {
+        ObjectNode root = MAPPER.createObjectNode();
+        root.put("v", CURRENT_VERSION);
+        root.put("n", steps != null ? steps.size() : 0);
+        ArrayNode stepNodes = root.putArray("steps");
+        
+        if (steps != null) {
+            int order = 0;
+            for (TestStep step : steps) {
+                order++;
+                ObjectNode node = stepNodes.addObject();
+                node.put("o", step.getStepOrder() != null ? step.getStepOrder() : order);
+                putIfNotNull(node, "d", step.getEffectiveStepDescription());
+                putIfNotNull(node, "td", step.getEffectiveTestData());
+                putIfNotNull(node, "er", step.getEffectiveExpectedResult());
+                putIfNotNull(node, "r", step.getRemark());
+                if (Boolean.TRUE.equals(step.getIsKeyStep())) {
+                    node.put("k", true);
+                }
+                if (Boolean.TRUE.equals(step.getAutomated())) {
+                    node.put("a", true);
+                }
+                putIfNotNull(node, "ac", step.getEffectiveAutomationCode());
+                if (step.getEstimatedTime() != null) {
+                    node.put("t", step.getEstimatedTime());
+                }
+            }
+        }
+        
+        try {
+            return MAPPER.writeValueAsString(root);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("测试步骤文档编码失败", e);
+        }
+    }
+    
+    /**
+     * 将文档解码为步骤列表（步骤不含ID，按序号排序）
+     *
+     * @param document 步骤文档，为空时返回空列表
+     * @param testCaseId 所属测试用例ID
+     */
+    public static List<TestStep> decode(String document, Long testCaseId) {
+        if (document == null || document.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        JsonNode root;
+        try {
+            root = MAPPER.readTree(document);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("测试步骤文档格式错误: testCaseId=" + testCaseId, e);
+        }
+        
+        int version = root.path("v").asInt(0);
+        if (version != CURRENT_VERSION) {
+            throw new IllegalStateException("不支持的测试步骤文档版本: " + version);
+        }
+        
+        List<TestStep> steps = new ArrayList<>();
+        for (JsonNode node : root.path("steps")) {
+            steps.add(TestStep.builder()
+                    .testCaseId(testCaseId)
+                    .stepOrder(node.path("o").asInt())
+                    .stepDescription(textOrNull(node, "d"))
+                    .testData(textOrNull(node, "td"))
+                    .expectedResult(textOrNull(node, "er"))
+                    .remark(textOrNull(node, "r"))
+                    .isKeyStep(node.path("k").asBoolean(false))
+                    .automated(node.path("a").asBoolean(false))
+                    .automationCode(textOrNull(node, "ac"))
+                    .estimatedTime(node.has("t") ? node.get("t").asInt() : null)
+                    .enabled(true)
+                    .build());
+        }
+        steps.sort((a, b) -> Integer.compare(a.getStepOrder(), b.getStepOrder()));
+        return steps;
+    }
+    
+    /**
+     * 统计文档中的步骤数量
+     *
+     * 流式读取文档，读到 "n" 字段即返回，不构造步骤对象；没有该字段的旧文档逐个跳过步骤计数
+     *
+     * @param document 步骤文档，为空时返回0
+     */
+    public static int countSteps(String document) {
+        if (document == null || document.isEmpty()) {
+            return 0;
+        }
+        
+        try (JsonParser parser = MAPPER.getFactory().createParser(document)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalStateException("测试步骤文档格式错误");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("n".equals(field)) {
+                    return parser.getIntValue();
+                }
+                if ("steps".equals(field) && value == JsonToken.START_ARRAY) {
+                    int count = 0;
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        parser.skipChildren();
+                        count++;
+                    }
+                    return count;
+                }
+                parser.skipChildren();
+            }
+            return 0;
+        } catch (IOException e) {
+            throw new IllegalStateException("测试步骤文档格式错误", e);
+        }
+    }
+    
+    private static void putIfNotNull(ObjectNode node, String field, String value) {
+        if (value != null) {
+            node.put(field, value);
+        }
+    }
+    
+    private static String textOrNull(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+}
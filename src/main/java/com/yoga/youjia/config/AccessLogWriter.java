@@ -0,0 +1,180 @@
+package com.yoga.youjia.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.yoga.youjia.common.utils.MpscRingBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 访问日志异步写入器
+ *
+ * 请求线程只把 {@link Entry} 放入无锁环形队列，由一个后台线程批量格式化成一行 JSON 写入 ACCESS_LOG 日志，
+ * 请求线程不再参与格式化，也不再竞争日志输出器的锁。队列满时丢弃新记录并计数，不阻塞请求。
+ * 失败（状态码 >= 500 或抛出异常）、客户端错误和慢请求全部记录，其余成功请求按采样率记录
+ */
+@Component
+public class AccessLogWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessLogWriter.class);
+
+    private static final Logger accessLog = LoggerFactory.getLogger("ACCESS_LOG");
+
+    private static final int DRAIN_BATCH_SIZE = 256;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${request-log.enabled:true}")
+    private boolean enabled;
+
+    @Value("${request-log.sample-rate:0.1}")
+    private double sampleRate; // 成功且不慢的请求的采样率，0 到 1
+
+    @Value("${request-log.slow-threshold-ms:1000}")
+    private long slowThresholdMillis; // 超过该耗时的请求全部记录
+
+    @Value("${request-log.buffer-size:8192}")
+    private int bufferSize; // 队列容量
+
+    @Value("${request-log.idle-park-ms:20}")
+    private long idleParkMillis; // 队列为空时后台线程的等待时间
+
+    private MpscRingBuffer<Entry> buffer;
+
+    private ObjectWriter entryWriter;
+
+    private Counter droppedCounter;
+
+    private Thread writerThread;
+
+    private volatile boolean running;
+
+    /**
+     * 一次请求的访问日志
+     *
+     * @param timestamp 请求完成时间（毫秒）
+     * @param query 查询串，只在失败或慢请求时记录
+     * @param error 异常信息，没有异常时为null
+     * @param sqlStatements 执行的 SQL 语句数
+     * @param sqlRows 读取的结果行数
+     * @param sqlTimeMs SQL 执行耗时合计
+     * @param repeatedSql 重复执行超过阈值的 SQL，没有时为null
+     * @param repeatedSqlCount 该 SQL 的执行次数
+     */
+    public record Entry(long timestamp, String requestId, String method, String path, String query,
+                        int status, long durationMs, String clientIp, String error,
+                        int sqlStatements, long sqlRows, long sqlTimeMs,
+                        String repeatedSql, Integer repeatedSqlCount) {
+    }
+
+    /**
+     * 写入 ACCESS_LOG 的 JSON 结构
+     */
+    record Line(String time, String requestId, String method, String path, String query,
+                int status, long durationMs, String clientIp, String error,
+                int sqlStatements, long sqlRows, long sqlTimeMs,
+                String repeatedSql, Integer repeatedSqlCount) {
+    }
+
+    @PostConstruct
+    public void start() {
+        buffer = new MpscRingBuffer<>(bufferSize);
+        entryWriter = objectMapper.writerFor(Line.class);
+        droppedCounter = Counter.builder("request.log.dropped")
+                .description("访问日志队列已满时丢弃的记录数")
+                .register(meterRegistry);
+        Gauge.builder("request.log.queue.size", buffer, MpscRingBuffer::size)
+                .description("访问日志队列中等待写入的记录数")
+                .register(meterRegistry);
+
+        running = true;
+        writerThread = new Thread(this::runWriter, "access-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * 是否需要记录该请求：失败、客户端错误和慢请求总是记录，其余按采样率
+     */
+    public boolean shouldLog(int status, long durationMs, boolean failed) {
+        if (!enabled) {
+            return false;
+        }
+        if (failed || status >= 400 || durationMs >= slowThresholdMillis) {
+            return true;
+        }
+        return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    /**
+     * 是否为需要记录详细信息（查询串）的请求
+     */
+    public boolean isNotable(int status, long durationMs, boolean failed) {
+        return failed || status >= 500 || durationMs >= slowThresholdMillis;
+    }
+
+    /**
+     * 提交一条访问日志，队列已满时丢弃
+     */
+    public void submit(Entry entry) {
+        if (!buffer.offer(entry)) {
+            droppedCounter.increment();
+        }
+    }
+
+    // ========== 私有方法 ==========
+
+    private void runWriter() {
+        long parkNanos = TimeUnit.MILLISECONDS.toNanos(idleParkMillis);
+        while (running) {
+            if (buffer.drain(this::write, DRAIN_BATCH_SIZE) == 0) {
+                LockSupport.parkNanos(this, parkNanos);
+            }
+        }
+        // 关闭前写完剩余记录
+        while (buffer.drain(this::write, DRAIN_BATCH_SIZE) > 0) {
+            // 继续写入
+        }
+    }
+
+    private void write(Entry entry) {
+        Line line = new Line(Instant.ofEpochMilli(entry.timestamp()).toString(), entry.requestId(),
+                entry.method(), entry.path(), entry.query(), entry.status(), entry.durationMs(),
+                entry.clientIp(), entry.error(), entry.sqlStatements(), entry.sqlRows(), entry.sqlTimeMs(),
+                entry.repeatedSql(), entry.repeatedSqlCount());
+        try {
+            if (entry.error() != null || entry.status() >= 500 || entry.repeatedSql() != null) {
+                accessLog.warn(entryWriter.writeValueAsString(line));
+            } else {
+                accessLog.info(entryWriter.writeValueAsString(line));
+            }
+        } catch (JsonProcessingException | RuntimeException e) {
+            logger.warn("访问日志写入失败: requestId={}, error={}", entry.requestId(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.yoga.youjia.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 接口限流配置
+ *
+ * 按路径模式配置令牌桶规则，请求按配置顺序匹配第一条规则，未匹配的请求不限流。
+ * 已登录请求按用户ID计数，未登录请求按客户端IP计数
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "security.rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * 是否启用限流
+     */
+    private boolean enabled = true;
+
+    /**
+     * 令牌桶最大数量，超出后淘汰最久未使用的桶
+     */
+    private long maximumBuckets = 100000;
+
+    /**
+     * 按客户端统计拒绝次数的指标最多保留的客户端数量
+     */
+    private int maximumMetricKeys = 1000;
+
+    /**
+     * 限流规则
+     */
+    private List<Rule> rules = new ArrayList<>();
+
+    /**
+     * 单条限流规则
+     */
+    @Data
+    public static class Rule {
+
+        /**
+         * 规则名称，用于指标标签
+         */
+        private String name;
+
+        /**
+         * Ant 风格的路径模式，如 /api/projects/{@literal *}/test-cases/search
+         */
+        private String pattern;
+
+        /**
+         * HTTP 方法，为空时匹配所有方法
+         */
+        private String method;
+
+        /**
+         * 桶容量，即允许的突发请求数
+         */
+        private int capacity = 10;
+
+        /**
+         * 每个补充周期补充的令牌数
+         */
+        private int refillTokens = 10;
+
+        /**
+         * 补充周期
+         */
+        private Duration refillPeriod = Duration.ofSeconds(1);
+    }
+}
@@ -1,65 +1,93 @@
 package com.yoga.youjia.config;
 
+import com.yoga.youjia.common.utils.RequestIdGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
 
-import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 请求日志拦截器
  * 
- * 用于记录所有HTTP请求的详细信息，包括：
- * - 请求路径和方法
- * - 请求参数
- * - 响应状态码
- * - 请求耗时
+ * 为每个请求生成请求ID放入MDC，请求完成后生成一条结构化访问日志交给 {@link AccessLogWriter} 异步写入，
+ * 包括：
+ * - 请求ID、请求路径和方法
+ * - 响应状态码和请求耗时
  * - 客户端IP地址
+ * - 失败或慢请求的查询参数和异常信息
+ * - SQL 语句数、读取行数、数据库耗时，以及重复执行的 SQL
+ *
+ * SQL 统计同时按接口发布到 Micrometer。同一条 SQL 执行次数超过阈值的请求视为可能的 N+1 查询，
+ * 访问日志不采样、带上该 SQL，并计入 http.server.requests.sql.repeated
  */
 @Component
-public class RequestLogInterceptor implements HandlerInterceptor {
+public class RequestLogInterceptor implements AsyncHandlerInterceptor {
 
-    private static final Logger logger = LoggerFactory.getLogger(RequestLogInterceptor.class);
     private static final String REQUEST_ID_KEY = "requestId";
     private static final String START_TIME_KEY = "startTime";
+    private static final String SQL_STATISTICS_KEY = "sqlStatistics";
+
+    /**
+     * 访问日志中 SQL 文本的最大长度
+     */
+    private static final int MAX_SQL_LENGTH = 500;
+
+    @Autowired(required = false)
+    private AccessLogWriter accessLogWriter;
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Value("${sql.statistics.repeat-threshold:10}")
+    private int repeatThreshold; // 同一条 SQL 在一次请求中执行超过该次数视为 N+1
 
     /**
      * 请求处理前调用
+     *
+     * 异步请求再次分派时沿用第一次分派的请求ID、开始时间和 SQL 统计
      */
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
-        // 生成请求ID
-        String requestId = UUID.randomUUID().toString().replace("-", "").substring(0, 16);
-        
+        String requestId = (String) request.getAttribute(REQUEST_ID_KEY);
+        if (requestId == null) {
+            // 生成请求ID，记录请求开始时间
+            requestId = RequestIdGenerator.next();
+            request.setAttribute(REQUEST_ID_KEY, requestId);
+            request.setAttribute(START_TIME_KEY, System.nanoTime());
+        }
+
         // 将请求ID放入MDC，用于日志追踪
         MDC.put(REQUEST_ID_KEY, requestId);
-        
-        // 记录请求开始时间
-        request.setAttribute(START_TIME_KEY, System.currentTimeMillis());
-        
-        // 获取客户端IP地址
-        String clientIp = getClientIpAddress(request);
-        
-        // 记录请求信息
-        logger.info("请求开始 [{}] {} {} - 客户端IP: {}, User-Agent: {}", 
-                   requestId, 
-                   request.getMethod(), 
-                   request.getRequestURI(),
-                   clientIp,
-                   request.getHeader("User-Agent"));
-        
-        // 记录请求参数
-        if (request.getQueryString() != null) {
-            logger.info("请求参数 [{}]: {}", requestId, request.getQueryString());
+
+        SqlStatementStatistics statistics = (SqlStatementStatistics) request.getAttribute(SQL_STATISTICS_KEY);
+        if (statistics == null) {
+            request.setAttribute(SQL_STATISTICS_KEY, SqlStatementStatistics.begin());
+        } else {
+            SqlStatementStatistics.attach(statistics);
         }
-        
         return true;
     }
 
+    /**
+     * 异步请求的第一次分派结束，请求线程归还前解绑
+     */
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        SqlStatementStatistics.detach();
+        MDC.clear();
+    }
+
     /**
      * 请求处理完成后调用
      */
@@ -67,39 +95,99 @@ public class RequestLogInterceptor implements HandlerInterceptor {
     public void afterCompletion(HttpServletRequest request, HttpServletResponse response, 
                               Object handler, Exception ex) {
         try {
-            String requestId = MDC.get(REQUEST_ID_KEY);
             Long startTime = (Long) request.getAttribute(START_TIME_KEY);
-            
-            if (startTime != null) {
-                long duration = System.currentTimeMillis() - startTime;
-                
-                if (ex != null) {
-                    logger.error("请求异常 [{}] {} {} - 状态码: {}, 耗时: {}ms, 异常: {}", 
-                               requestId,
-                               request.getMethod(),
-                               request.getRequestURI(),
-                               response.getStatus(),
-                               duration,
-                               ex.getMessage());
-                } else {
-                    logger.info("请求完成 [{}] {} {} - 状态码: {}, 耗时: {}ms", 
-                               requestId,
-                               request.getMethod(),
-                               request.getRequestURI(),
-                               response.getStatus(),
-                               duration);
-                }
+            if (startTime == null) {
+                return;
             }
+
+            long duration = (System.nanoTime() - startTime) / 1_000_000;
+            int status = response.getStatus();
+            boolean failed = ex != null;
+            SqlStatementStatistics statistics = (SqlStatementStatistics) request.getAttribute(SQL_STATISTICS_KEY);
+            boolean repeated = statistics != null && statistics.getMostRepeatedCount() > repeatThreshold;
+            if (statistics != null) {
+                recordSqlMetrics(request, statistics, repeated);
+            }
+
+            if (accessLogWriter == null
+                    || !(repeated || accessLogWriter.shouldLog(status, duration, failed))) {
+                return;
+            }
+
+            boolean notable = repeated || accessLogWriter.isNotable(status, duration, failed);
+            accessLogWriter.submit(new AccessLogWriter.Entry(
+                    System.currentTimeMillis(),
+                    (String) request.getAttribute(REQUEST_ID_KEY),
+                    request.getMethod(),
+                    request.getRequestURI(),
+                    notable ? request.getQueryString() : null,
+                    status,
+                    duration,
+                    getClientIpAddress(request),
+                    failed ? ex.getClass().getSimpleName() + ": " + ex.getMessage() : null,
+                    statistics != null ? statistics.getStatements() : 0,
+                    statistics != null ? statistics.getRows() : 0,
+                    statistics != null ? TimeUnit.NANOSECONDS.toMillis(statistics.getDbTimeNanos()) : 0,
+                    repeated ? truncate(statistics.getMostRepeatedSql()) : null,
+                    repeated ? statistics.getMostRepeatedCount() : null));
         } finally {
-            // 清理MDC
+            // 解绑SQL统计，清理MDC
+            SqlStatementStatistics.detach();
             MDC.clear();
         }
     }
 
+    /**
+     * 按接口（方法 + 路径模板）记录语句数、读取行数和数据库耗时的分布
+     */
+    private void recordSqlMetrics(HttpServletRequest request, SqlStatementStatistics statistics, boolean repeated) {
+        if (meterRegistry == null) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String method = request.getMethod();
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+
+        DistributionSummary.builder("http.server.requests.sql.statements")
+                .description("每个请求执行的SQL语句数")
+                .tags("method", method, "uri", uri)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(statistics.getStatements());
+        DistributionSummary.builder("http.server.requests.sql.rows")
+                .description("每个请求读取的结果行数")
+                .tags("method", method, "uri", uri)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(statistics.getRows());
+        Timer.builder("http.server.requests.sql.time")
+                .description("每个请求的SQL执行耗时")
+                .tags("method", method, "uri", uri)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(statistics.getDbTimeNanos(), TimeUnit.NANOSECONDS);
+        if (repeated) {
+            Counter.builder("http.server.requests.sql.repeated")
+                    .description("同一条SQL重复执行超过阈值的请求数")
+                    .tags("method", method, "uri", uri)
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    private static String truncate(String sql) {
+        if (sql == null || sql.length() <= MAX_SQL_LENGTH) {
+            return sql;
+        }
+        return sql.substring(0, MAX_SQL_LENGTH) + "...";
+    }
+
     /**
      * 获取客户端真实IP地址
+     *
+     * 依次读取代理转发头，都没有时使用连接的远端地址；限流等需要按客户端区分的地方也使用此方法
      */
-    private String getClientIpAddress(HttpServletRequest request) {
+    public static String getClientIpAddress(HttpServletRequest request) {
         String ip = request.getHeader("X-Forwarded-For");
         
         if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
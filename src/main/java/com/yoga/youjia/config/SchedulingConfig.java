@@ -0,0 +1,14 @@
+package com.yoga.youjia.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 定时任务配置类
+ * 
+ * 启用 @Scheduled 定时任务，用于登录记录批量写入等后台任务
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,135 @@
+package com.yoga.youjia.config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 一次请求内的 SQL 执行统计
+ *
+ * 记录语句数、读取的行数、数据库耗时，以及每条 SQL 文本的执行次数；同一条 SQL 执行次数最多的一条
+ * 单独记下，用于发现 N+1 查询。统计对象绑定在当前线程上，由 {@link RequestLogInterceptor} 在请求开始时绑定、
+ * 结束时解绑，{@link SqlStatisticsDataSourcePostProcessor} 包装的数据源在执行语句时累加。
+ * 测试中可以用 {@link #begin()} 和 {@link #detach()} 包住一段代码，检查其中执行的 SQL。
+ * 只在绑定的线程上读写，不是线程安全的
+ */
+public final class SqlStatementStatistics {
+
+    private static final ThreadLocal<SqlStatementStatistics> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+
+    private long rows;
+
+    private long dbTimeNanos;
+
+    /**
+     * SQL 文本 -> 执行次数
+     */
+    private final Map<String, Integer> executions = new HashMap<>();
+
+    private String mostRepeatedSql;
+
+    private int mostRepeatedCount;
+
+    /**
+     * 创建统计并绑定到当前线程
+     */
+    public static SqlStatementStatistics begin() {
+        SqlStatementStatistics statistics = new SqlStatementStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * 把已有的统计重新绑定到当前线程，用于异步请求再次分派时继续累加
+     */
+    public static void attach(SqlStatementStatistics statistics) {
+        CURRENT.set(statistics);
+    }
+
+    /**
+     * 当前线程绑定的统计，没有时返回null
+     */
+    public static SqlStatementStatistics current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 解绑当前线程的统计
+     *
+     * @return 解绑前的统计，没有时返回null
+     */
+    public static SqlStatementStatistics detach() {
+        SqlStatementStatistics statistics = CURRENT.get();
+        CURRENT.remove();
+        return statistics;
+    }
+
+    /**
+     * 记录一次语句执行，在语句执行前调用，超过阈值的语句可以不再执行
+     *
+     * @param sql SQL 文本，未知时为null
+     * @return 这条 SQL 在本次统计中的执行次数（包括本次）
+     */
+    int recordStatement(String sql) {
+        statements++;
+        if (sql == null) {
+            return 1;
+        }
+        int count = executions.merge(sql, 1, Integer::sum);
+        if (count > mostRepeatedCount) {
+            mostRepeatedCount = count;
+            mostRepeatedSql = sql;
+        }
+        return count;
+    }
+
+    /**
+     * 累加一次语句执行的耗时，在语句执行后调用
+     */
+    void recordElapsed(long elapsedNanos) {
+        dbTimeNanos += elapsedNanos;
+    }
+
+    /**
+     * 记录读取了一行结果
+     */
+    void recordRow() {
+        rows++;
+    }
+
+    /**
+     * 执行的语句数
+     */
+    public int getStatements() {
+        return statements;
+    }
+
+    /**
+     * 读取的结果行数
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * 语句执行耗时合计（纳秒），不包括读取结果集的时间
+     */
+    public long getDbTimeNanos() {
+        return dbTimeNanos;
+    }
+
+    /**
+     * 执行次数最多的 SQL
+     */
+    public String getMostRepeatedSql() {
+        return mostRepeatedSql;
+    }
+
+    /**
+     * 执行次数最多的 SQL 的执行次数
+     */
+    public int getMostRepeatedCount() {
+        return mostRepeatedCount;
+    }
+}
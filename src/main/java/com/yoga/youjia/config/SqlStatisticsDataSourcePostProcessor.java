@@ -0,0 +1,202 @@
+package com.yoga.youjia.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * SQL 执行统计数据源包装
+ *
+ * 用 JDK 动态代理包装容器中的 DataSource，连接、语句和结果集逐层代理，JPA 和 JdbcTemplate 的语句都会经过。
+ * 当前线程绑定了 {@link SqlStatementStatistics} 时记录每条语句的执行耗时和读取的行数，没有绑定时直接调用原对象。
+ * 同一条 SQL 在一次统计中的执行次数超过阈值且开启了 fail-on-repeat 时，语句不再执行，直接抛出 SQLException，
+ * 测试环境开启后，带 N+1 查询的用例会失败
+ */
+@Component
+public class SqlStatisticsDataSourcePostProcessor implements BeanPostProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlStatisticsDataSourcePostProcessor.class);
+
+    @Value("${sql.statistics.enabled:true}")
+    private boolean enabled;
+
+    @Value("${sql.statistics.repeat-threshold:10}")
+    private int repeatThreshold; // 同一条 SQL 在一次请求中执行超过该次数视为 N+1
+
+    @Value("${sql.statistics.fail-on-repeat:false}")
+    private boolean failOnRepeat; // 超过阈值时让语句失败，只在测试中开启
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!enabled || !(bean instanceof DataSource dataSource) || Proxy.isProxyClass(bean.getClass())) {
+            return bean;
+        }
+        logger.info("SQL执行统计已启用: dataSource={}, repeatThreshold={}, failOnRepeat={}",
+                    beanName, repeatThreshold, failOnRepeat);
+        // 连接池实现了 AutoCloseable，保留该接口，容器关闭时才能推断出 close 方法关闭连接池
+        Class<?>[] interfaces = dataSource instanceof AutoCloseable
+                ? new Class<?>[]{DataSource.class, AutoCloseable.class}
+                : new Class<?>[]{DataSource.class};
+        return Proxy.newProxyInstance(getClass().getClassLoader(), interfaces, new DataSourceHandler(dataSource));
+    }
+
+    // ========== 代理 ==========
+
+    private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(SqlStatisticsDataSourcePostProcessor.class.getClassLoader(),
+                                                new Class<?>[]{type}, handler));
+    }
+
+    /**
+     * 转发到原对象，equals 和 hashCode 按代理对象自身计算，Hibernate 会把语句放进 HashMap
+     */
+    private abstract static class ForwardingHandler implements InvocationHandler {
+
+        private final Object target;
+
+        ForwardingHandler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return handle(method, args);
+            }
+        }
+
+        abstract Object handle(Method method, Object[] args) throws Throwable;
+
+        Object forward(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private final class DataSourceHandler extends ForwardingHandler {
+
+        DataSourceHandler(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            Object result = forward(method, args);
+            if (result instanceof Connection connection && "getConnection".equals(method.getName())) {
+                return proxy(Connection.class, connection, new ConnectionHandler(connection));
+            }
+            return result;
+        }
+    }
+
+    private final class ConnectionHandler extends ForwardingHandler {
+
+        ConnectionHandler(Connection target) {
+            super(target);
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            Object result = forward(method, args);
+            if (result instanceof CallableStatement statement) {
+                return proxy(CallableStatement.class, statement, new StatementHandler(statement, (String) args[0]));
+            }
+            if (result instanceof PreparedStatement statement) {
+                return proxy(PreparedStatement.class, statement, new StatementHandler(statement, (String) args[0]));
+            }
+            if (result instanceof Statement statement) {
+                return proxy(Statement.class, statement, new StatementHandler(statement, null));
+            }
+            return result;
+        }
+    }
+
+    private final class StatementHandler extends ForwardingHandler {
+
+        /**
+         * 预编译语句的 SQL，普通语句为null，执行时从参数中取
+         */
+        private final String preparedSql;
+
+        StatementHandler(Statement target, String preparedSql) {
+            super(target);
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            SqlStatementStatistics statistics = SqlStatementStatistics.current();
+            if (statistics == null) {
+                return forward(method, args);
+            }
+
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                String sql = preparedSql != null ? preparedSql
+                        : args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                // 先计数再执行，超过阈值的语句不会到达数据库，写语句不会在报错前已经生效
+                int count = statistics.recordStatement(sql);
+                if (failOnRepeat && count > repeatThreshold) {
+                    throw new SQLException(String.format("检测到N+1查询: 同一条SQL执行了%d次（阈值%d）: %s",
+                                                         count, repeatThreshold, sql));
+                }
+                long startTime = System.nanoTime();
+                Object result = forward(method, args);
+                statistics.recordElapsed(System.nanoTime() - startTime);
+                return wrapResultSet(result, statistics);
+            }
+            if ("getResultSet".equals(name)) {
+                return wrapResultSet(forward(method, args), statistics);
+            }
+            return forward(method, args);
+        }
+
+        private Object wrapResultSet(Object result, SqlStatementStatistics statistics) {
+            if (result instanceof ResultSet resultSet) {
+                return proxy(ResultSet.class, resultSet, new ResultSetHandler(resultSet, statistics));
+            }
+            return result;
+        }
+    }
+
+    private static final class ResultSetHandler extends ForwardingHandler {
+
+        private final SqlStatementStatistics statistics;
+
+        ResultSetHandler(ResultSet target, SqlStatementStatistics statistics) {
+            super(target);
+            this.statistics = statistics;
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            Object result = forward(method, args);
+            if (Boolean.TRUE.equals(result) && "next".equals(method.getName())) {
+                statistics.recordRow();
+            }
+            return result;
+        }
+    }
+}
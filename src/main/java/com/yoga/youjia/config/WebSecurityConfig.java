@@ -1,6 +1,7 @@
 package com.yoga.youjia.config;
 
 import com.yoga.youjia.security.filter.JWTAuthenticationFilter;
+import com.yoga.youjia.security.filter.RateLimitFilter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -36,6 +37,14 @@ public class WebSecurityConfig {
     @Autowired
     private JWTAuthenticationFilter jwtAuthenticationFilter;
 
+    /**
+     * 接口限流过滤器
+     *
+     * 放在JWT认证过滤器之后，已登录请求按用户ID限流
+     */
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
     /**
      * 安全过滤链 Bean
      *
@@ -89,7 +98,10 @@ public class WebSecurityConfig {
             )
 
             // 添加JWT认证过滤器，在用户名密码认证过滤器之前执行
-            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+
+            // 添加接口限流过滤器，在JWT认证过滤器之后执行
+            .addFilterAfter(rateLimitFilter, JWTAuthenticationFilter.class);
 
         return http.build();
     }
@@ -8,8 +8,12 @@ import com.yoga.youjia.dto.request.RegisterRequestDTO;
 import com.yoga.youjia.dto.response.LoginResponseDTO;
 import com.yoga.youjia.dto.response.UserResponseDTO;
 import com.yoga.youjia.entity.User;
+import com.yoga.youjia.security.authentication.ProjectRoleClaims;
 import com.yoga.youjia.security.service.JWTService;
+import com.yoga.youjia.security.service.TokenRevocationService;
 import com.yoga.youjia.service.AuthService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -18,7 +22,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 认证控制器
@@ -28,6 +32,8 @@ import java.util.UUID;
  * 采用RESTful设计规范：
  * - POST /api/auth/register - 用户注册
  * - POST /api/auth/login - 用户登录
+ * - POST /api/auth/logout - 退出登录（吊销当前令牌）
+ * - POST /api/auth/logout-all - 退出全部设备（吊销当前用户已签发的全部令牌）
  */
 @Tag(name = "用户认证", description = "用户注册、登录等认证相关接口")
 @RestController
@@ -42,15 +48,21 @@ public class AuthController {
     @Autowired
     private JWTService jwtService;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     /**
      * 用户注册接口
      *
+     * 密码加密在专用线程池中异步执行，不占用请求线程；加密完成后的保存在应用任务线程池中执行，
+     * 不占用密码哈希线程；哈希队列已满时返回429
+     *
      * @param registerRequestDTO 注册请求数据
      * @return 注册结果
      */
     @Operation(summary = "用户注册", description = "处理用户注册请求，创建新用户账户")
     @PostMapping("/register")
-    public ApiResponse<UserResponseDTO> register(@Valid @RequestBody RegisterRequestDTO registerRequestDTO) {
+    public CompletableFuture<ApiResponse<UserResponseDTO>> register(@Valid @RequestBody RegisterRequestDTO registerRequestDTO) {
         logger.info("用户注册请求: username={}", registerRequestDTO.getUsername());
         
         // 验证密码和确认密码是否一致
@@ -65,29 +77,93 @@ public class AuthController {
         user.setEmail(registerRequestDTO.getEmail());
 
         // 调用AuthService处理注册逻辑
-        User registeredUser = authService.register(user);
-
-        // 转换为响应DTO
-        UserResponseDTO userResponseDTO = UserResponseDTO.from(registeredUser);
-        
-        logger.info("用户注册成功: userId={}, username={}", registeredUser.getId(), registeredUser.getUsername());
-        return ApiResponse.success(userResponseDTO, "注册成功");
+        return authService.registerAsync(user).thenApply(registeredUser -> {
+            // 转换为响应DTO
+            UserResponseDTO userResponseDTO = UserResponseDTO.from(registeredUser);
+            
+            logger.info("用户注册成功: userId={}, username={}", registeredUser.getId(), registeredUser.getUsername());
+            return ApiResponse.success(userResponseDTO, "注册成功");
+        });
     }
 
     /**
      * 用户登录接口
      *
+     * 密码校验在专用线程池中异步执行，不占用请求线程；校验完成后的登录记录和令牌生成在应用任务线程池中执行，
+     * 不占用密码哈希线程；哈希队列已满时返回429
+     *
      * @param loginRequestDTO 登录请求数据
      * @return 登录结果（包含JWT令牌）
      */
     @Operation(summary = "用户登录", description = "验证用户凭据并生成访问令牌")
     @PostMapping("/login")
-    public ApiResponse<LoginResponseDTO> login(@Valid @RequestBody LoginRequestDTO loginRequestDTO) {
+    public CompletableFuture<ApiResponse<LoginResponseDTO>> login(@Valid @RequestBody LoginRequestDTO loginRequestDTO) {
         logger.info("用户登录请求: username={}", loginRequestDTO.getUsername());
         
         // 验证用户登录凭据
-        User loginUser = authService.login(loginRequestDTO.getUsername(), loginRequestDTO.getPassword());
+        return authService.loginAsync(loginRequestDTO.getUsername(), loginRequestDTO.getPassword())
+                .thenApply(this::buildLoginResponse);
+    }
+
+    /**
+     * 退出登录接口
+     *
+     * 吊销当前请求携带的令牌，其他设备上的令牌不受影响
+     *
+     * @param authorization Authorization 请求头
+     * @return 退出结果
+     */
+    @Operation(summary = "退出登录", description = "吊销当前请求携带的访问令牌")
+    @PostMapping("/logout")
+    public ApiResponse<Void> logout(@RequestHeader(value = "Authorization", required = false) String authorization) {
+        Claims claims = verifyAuthorization(authorization);
+        tokenRevocationService.revokeToken(claims, ProjectRoleClaims.userIdOf(claims));
+
+        logger.info("用户退出登录: username={}", claims.getSubject());
+        return ApiResponse.success("退出成功");
+    }
+
+    /**
+     * 退出全部设备接口
+     *
+     * 吊销当前用户此前签发的全部令牌，需要重新登录
+     *
+     * @param authorization Authorization 请求头
+     * @return 退出结果
+     */
+    @Operation(summary = "退出全部设备", description = "吊销当前用户已签发的全部访问令牌")
+    @PostMapping("/logout-all")
+    public ApiResponse<Void> logoutAll(@RequestHeader(value = "Authorization", required = false) String authorization) {
+        Claims claims = verifyAuthorization(authorization);
+        tokenRevocationService.revokeAllForUser(claims.getSubject(), ProjectRoleClaims.userIdOf(claims));
+
+        logger.info("用户退出全部设备: username={}", claims.getSubject());
+        return ApiResponse.success("已退出全部设备");
+    }
+
+    /**
+     * 校验 Authorization 请求头中的令牌并返回其声明，已吊销的令牌视为无效
+     */
+    private Claims verifyAuthorization(String authorization) {
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            throw new BusinessException(ErrorCode.UNAUTHORIZED);
+        }
+        Claims claims;
+        try {
+            claims = jwtService.verify(authorization);
+        } catch (JwtException e) {
+            throw new BusinessException(ErrorCode.INVALID_TOKEN);
+        }
+        if (tokenRevocationService.isRevoked(claims)) {
+            throw new BusinessException(ErrorCode.INVALID_TOKEN, "令牌已吊销");
+        }
+        return claims;
+    }
 
+    /**
+     * 为登录成功的用户生成令牌并构建登录响应
+     */
+    private ApiResponse<LoginResponseDTO> buildLoginResponse(User loginUser) {
         // 生成JWT令牌
         String fullToken = jwtService.generateToken(loginUser.getUsername());
         
@@ -97,8 +173,8 @@ public class AuthController {
             pureToken = fullToken.substring(7);
         }
 
-        // 生成唯一的JWT ID
-        String jti = UUID.randomUUID().toString();
+        // 令牌ID，退出登录时按此吊销
+        String jti = jwtService.extractClaim(pureToken, Claims::getId);
 
         // 构建令牌响应DTO
         LoginResponseDTO.TokenDTO tokenDTO = LoginResponseDTO.TokenDTO.builder()
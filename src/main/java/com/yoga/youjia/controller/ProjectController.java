@@ -1,14 +1,21 @@
 package com.yoga.youjia.controller;
 
 import com.yoga.youjia.common.ApiResponse;
+import com.yoga.youjia.common.enums.ProjectMemberRole;
 import com.yoga.youjia.common.enums.ProjectStatus;
+import com.yoga.youjia.common.enums.StepStorageMode;
 import com.yoga.youjia.dto.request.CreateProjectRequestDTO;
 import com.yoga.youjia.dto.request.ProjectQueryRequestDTO;
 import com.yoga.youjia.dto.request.UpdateProjectRequestDTO;
 import com.yoga.youjia.dto.response.PageResponseDTO;
 import com.yoga.youjia.dto.response.ProjectResponseDTO;
+import com.yoga.youjia.dto.response.StepStorageMigrationResultDTO;
 import com.yoga.youjia.entity.Project;
+import com.yoga.youjia.security.annotation.RequireProjectRole;
+import com.yoga.youjia.security.service.CurrentUserResolver;
 import com.yoga.youjia.service.ProjectService;
+import com.yoga.youjia.service.ProjectStatisticsService;
+import com.yoga.youjia.service.TestStepStorageMigrationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -21,6 +28,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 
 /**
@@ -38,6 +46,15 @@ public class ProjectController {
     @Autowired
     private ProjectService projectService;
     
+    @Autowired
+    private TestStepStorageMigrationService testStepStorageMigrationService;
+    
+    @Autowired
+    private ProjectStatisticsService projectStatisticsService;
+
+    @Autowired
+    private CurrentUserResolver currentUserResolver;
+    
     // ========== 项目基本操作 ==========
     
     /**
@@ -66,8 +83,7 @@ public class ProjectController {
             project.setTagList(requestDTO.getTags());
         }
         
-        // TODO: 从安全上下文获取当前用户ID
-        Long currentUserId = 1L; // 临时硬编码，实际应从JWT中获取
+        Long currentUserId = currentUserResolver.getCurrentUserId();
         
         Project createdProject = projectService.createProject(project, currentUserId);
         ProjectResponseDTO responseDTO = ProjectResponseDTO.from(createdProject);
@@ -133,8 +149,7 @@ public class ProjectController {
             updateData.setTagList(requestDTO.getTags());
         }
         
-        // TODO: 从安全上下文获取当前用户ID
-        Long currentUserId = 1L; // 临时硬编码，实际应从JWT中获取
+        Long currentUserId = currentUserResolver.getCurrentUserId();
         
         Project updatedProject = projectService.updateProject(projectId, updateData, currentUserId);
         ProjectResponseDTO responseDTO = ProjectResponseDTO.from(updatedProject);
@@ -153,8 +168,7 @@ public class ProjectController {
             @Parameter(description = "新状态") @RequestParam ProjectStatus status) {
         logger.info("更新项目状态: projectId={}, status={}", projectId, status);
         
-        // TODO: 从安全上下文获取当前用户ID
-        Long currentUserId = 1L; // 临时硬编码，实际应从JWT中获取
+        Long currentUserId = currentUserResolver.getCurrentUserId();
         
         Project updatedProject = projectService.updateProjectStatus(projectId, status, currentUserId);
         ProjectResponseDTO responseDTO = ProjectResponseDTO.from(updatedProject);
@@ -173,8 +187,7 @@ public class ProjectController {
             @Parameter(description = "是否启用") @RequestParam Boolean enabled) {
         logger.info("{}项目: projectId={}", enabled ? "启用" : "禁用", projectId);
         
-        // TODO: 从安全上下文获取当前用户ID
-        Long currentUserId = 1L; // 临时硬编码，实际应从JWT中获取
+        Long currentUserId = currentUserResolver.getCurrentUserId();
         
         Project updatedProject = projectService.toggleProjectEnabled(projectId, enabled, currentUserId);
         ProjectResponseDTO responseDTO = ProjectResponseDTO.from(updatedProject);
@@ -183,6 +196,35 @@ public class ProjectController {
         return ApiResponse.success(responseDTO, String.format("项目%s成功", enabled ? "启用" : "禁用"));
     }
     
+    /**
+     * 切换测试步骤存储模式
+     */
+    @Operation(summary = "切换测试步骤存储模式", description = "切换项目的测试步骤存储模式，已有用例在后台迁移到目标模式")
+    @PutMapping("/{projectId}/step-storage-mode")
+    @RequireProjectRole(ProjectMemberRole.TEST_MANAGER)
+    public ApiResponse<StepStorageMigrationResultDTO> switchStepStorageMode(
+            @Parameter(description = "项目ID") @PathVariable Long projectId,
+            @Parameter(description = "目标存储模式") @RequestParam StepStorageMode mode) {
+        logger.info("切换测试步骤存储模式: projectId={}, mode={}", projectId, mode);
+        
+        StepStorageMigrationResultDTO result = testStepStorageMigrationService.switchStorageMode(projectId, mode);
+        
+        logger.info("测试步骤存储模式已切换，存量用例后台迁移中: projectId={}, mode={}", projectId, mode);
+        return ApiResponse.success(result, "测试步骤存储模式已切换，存量用例正在后台迁移");
+    }
+    
+    /**
+     * 查询测试步骤存储模式迁移进度
+     */
+    @Operation(summary = "查询步骤存储模式迁移进度", description = "查询项目最近一次步骤存储模式迁移的状态和已转换数量")
+    @GetMapping("/{projectId}/step-storage-mode/migration")
+    @RequireProjectRole
+    public ApiResponse<StepStorageMigrationResultDTO> getStepStorageMigrationStatus(
+            @Parameter(description = "项目ID") @PathVariable Long projectId) {
+        StepStorageMigrationResultDTO result = testStepStorageMigrationService.getMigrationStatus(projectId);
+        return ApiResponse.success(result, "查询成功");
+    }
+    
     /**
      * 删除项目
      */
@@ -192,8 +234,7 @@ public class ProjectController {
             @Parameter(description = "项目ID") @PathVariable Long projectId) {
         logger.info("删除项目: projectId={}", projectId);
         
-        // TODO: 从安全上下文获取当前用户ID
-        Long currentUserId = 1L; // 临时硬编码，实际应从JWT中获取
+        Long currentUserId = currentUserResolver.getCurrentUserId();
         
         projectService.deleteProject(projectId, currentUserId);
         
@@ -218,9 +259,7 @@ public class ProjectController {
             queryDTO.getStartDateFrom(), queryDTO.getEndDateFrom(),
             queryDTO.getPage(), queryDTO.getSize(), queryDTO.getSortBy(), queryDTO.getSortDir());
         
-        List<ProjectResponseDTO> projectDTOs = projectPage.getContent().stream()
-                .map(ProjectResponseDTO::from)
-                .collect(Collectors.toList());
+        List<ProjectResponseDTO> projectDTOs = toResponseDTOs(projectPage.getContent(), ProjectResponseDTO::from);
         
         PageResponseDTO<ProjectResponseDTO> pageResponse = PageResponseDTO.<ProjectResponseDTO>builder()
                 .content(projectDTOs)
@@ -245,14 +284,11 @@ public class ProjectController {
             @Parameter(description = "每页大小") @RequestParam(defaultValue = "20") int size) {
         logger.info("查询我参与的项目: page={}, size={}", page, size);
         
-        // TODO: 从安全上下文获取当前用户ID
-        Long currentUserId = 1L; // 临时硬编码，实际应从JWT中获取
+        Long currentUserId = currentUserResolver.getCurrentUserId();
         
         Page<Project> projectPage = projectService.getProjectsByUser(currentUserId, page, size);
         
-        List<ProjectResponseDTO> projectDTOs = projectPage.getContent().stream()
-                .map(ProjectResponseDTO::simple)
-                .collect(Collectors.toList());
+        List<ProjectResponseDTO> projectDTOs = toResponseDTOs(projectPage.getContent(), ProjectResponseDTO::simple);
         
         PageResponseDTO<ProjectResponseDTO> pageResponse = PageResponseDTO.<ProjectResponseDTO>builder()
                 .content(projectDTOs)
@@ -270,16 +306,15 @@ public class ProjectController {
     /**
      * 搜索项目
      */
-    @Operation(summary = "搜索项目", description = "根据关键词搜索项目")
+    @Operation(summary = "搜索项目", description = "根据关键词联想项目编码和名称，按匹配程度返回前若干条")
     @GetMapping("/search")
     public ApiResponse<List<ProjectResponseDTO>> searchProjects(
-            @Parameter(description = "搜索关键词") @RequestParam String keyword) {
-        logger.info("搜索项目: keyword={}", keyword);
+            @Parameter(description = "搜索关键词") @RequestParam String keyword,
+            @Parameter(description = "最多返回数量") @RequestParam(defaultValue = "20") int limit) {
+        logger.info("搜索项目: keyword={}, limit={}", keyword, limit);
         
-        List<Project> projects = projectService.searchProjectsByKeyword(keyword);
-        List<ProjectResponseDTO> projectDTOs = projects.stream()
-                .map(ProjectResponseDTO::simple)
-                .collect(Collectors.toList());
+        List<Project> projects = projectService.searchProjectsByKeyword(keyword, limit);
+        List<ProjectResponseDTO> projectDTOs = toResponseDTOs(projects, ProjectResponseDTO::simple);
         
         return ApiResponse.success(projectDTOs, "搜索成功");
     }
@@ -294,9 +329,7 @@ public class ProjectController {
         logger.info("查询即将到期的项目: days={}", days);
         
         List<Project> projects = projectService.getProjectsNearDeadline(days);
-        List<ProjectResponseDTO> projectDTOs = projects.stream()
-                .map(ProjectResponseDTO::simple)
-                .collect(Collectors.toList());
+        List<ProjectResponseDTO> projectDTOs = toResponseDTOs(projects, ProjectResponseDTO::simple);
         
         return ApiResponse.success(projectDTOs, "查询成功");
     }
@@ -310,9 +343,7 @@ public class ProjectController {
         logger.info("查询逾期的项目");
         
         List<Project> projects = projectService.getOverdueProjects();
-        List<ProjectResponseDTO> projectDTOs = projects.stream()
-                .map(ProjectResponseDTO::simple)
-                .collect(Collectors.toList());
+        List<ProjectResponseDTO> projectDTOs = toResponseDTOs(projects, ProjectResponseDTO::simple);
         
         return ApiResponse.success(projectDTOs, "查询成功");
     }
@@ -322,12 +353,12 @@ public class ProjectController {
     /**
      * 获取项目统计信息
      */
-    @Operation(summary = "获取项目统计信息", description = "获取项目的统计信息")
+    @Operation(summary = "获取项目统计信息", description = "获取项目的统计信息（内存快照，generatedAt 为快照生成时间）")
     @GetMapping("/statistics")
     public ApiResponse<Map<String, Object>> getProjectStatistics() {
         logger.info("获取项目统计信息");
         
-        Map<String, Object> statistics = projectService.getProjectStatistics();
+        Map<String, Object> statistics = projectStatisticsService.getProjectStatistics();
         
         return ApiResponse.success(statistics, "查询成功");
     }
@@ -340,11 +371,24 @@ public class ProjectController {
     public ApiResponse<Map<String, Object>> getMyProjectStatistics() {
         logger.info("获取我的项目统计信息");
         
-        // TODO: 从安全上下文获取当前用户ID
-        Long currentUserId = 1L; // 临时硬编码，实际应从JWT中获取
+        Long currentUserId = currentUserResolver.getCurrentUserId();
         
-        Map<String, Object> statistics = projectService.getUserProjectStatistics(currentUserId);
+        Map<String, Object> statistics = projectStatisticsService.getUserProjectStatistics(currentUserId);
         
         return ApiResponse.success(statistics, "查询成功");
     }
-}
\ No newline at end of file
+    
+    // ========== 私有方法 ==========
+    
+    /**
+     * 批量转换项目列表，成员数量一次查询获取，避免逐个加载成员集合
+     */
+    private List<ProjectResponseDTO> toResponseDTOs(List<Project> projects,
+                                                    BiFunction<Project, Integer, ProjectResponseDTO> factory) {
+        Map<Long, Integer> memberCounts = projectService.getMemberCounts(
+                projects.stream().map(Project::getId).collect(Collectors.toList()));
+        return projects.stream()
+                .map(project -> factory.apply(project, memberCounts.getOrDefault(project.getId(), 0)))
+                .collect(Collectors.toList());
+    }
+}
@@ -3,9 +3,14 @@ package com.yoga.youjia.controller;
 import com.yoga.youjia.common.ApiResponse;
 import com.yoga.youjia.common.enums.ProjectMemberRole;
 import com.yoga.youjia.dto.request.AddProjectMemberRequestDTO;
+import com.yoga.youjia.dto.request.BatchAddProjectMemberRequestDTO;
+import com.yoga.youjia.dto.response.BatchMemberOperationResultDTO;
 import com.yoga.youjia.dto.response.PageResponseDTO;
 import com.yoga.youjia.dto.response.ProjectMemberResponseDTO;
 import com.yoga.youjia.entity.ProjectMember;
+import com.yoga.youjia.security.annotation.RequireProjectRole;
+import com.yoga.youjia.security.annotation.RequireProjectRole;
+import com.yoga.youjia.security.service.CurrentUserResolver;
 import com.yoga.youjia.service.ProjectMemberService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -35,6 +40,9 @@ public class ProjectMemberController {
     
     @Autowired
     private ProjectMemberService projectMemberService;
+
+    @Autowired
+    private CurrentUserResolver currentUserResolver;
     
     // ========== 成员基本操作 ==========
     
@@ -43,14 +51,14 @@ public class ProjectMemberController {
      */
     @Operation(summary = "添加项目成员", description = "向项目中添加新成员")
     @PostMapping
+    @RequireProjectRole(ProjectMemberRole.TEST_MANAGER)
     public ApiResponse<ProjectMemberResponseDTO> addProjectMember(
             @Parameter(description = "项目ID") @PathVariable Long projectId,
             @Valid @RequestBody AddProjectMemberRequestDTO requestDTO) {
         logger.info("添加项目成员: projectId={}, userId={}, role={}", 
                    projectId, requestDTO.getUserId(), requestDTO.getRole());
         
-        // TODO: 从安全上下文获取当前用户ID
-        Long currentUserId = 1L; // 临时硬编码，实际应从JWT中获取
+        Long currentUserId = currentUserResolver.getCurrentUserId();
         
         ProjectMember member = projectMemberService.addProjectMember(
             projectId, requestDTO.getUserId(), requestDTO.getRole(), 
@@ -68,13 +76,13 @@ public class ProjectMemberController {
      */
     @Operation(summary = "移除项目成员", description = "从项目中移除成员")
     @DeleteMapping("/{userId}")
+    @RequireProjectRole(ProjectMemberRole.TEST_MANAGER)
     public ApiResponse<Void> removeProjectMember(
             @Parameter(description = "项目ID") @PathVariable Long projectId,
             @Parameter(description = "用户ID") @PathVariable Long userId) {
         logger.info("移除项目成员: projectId={}, userId={}", projectId, userId);
         
-        // TODO: 从安全上下文获取当前用户ID
-        Long currentUserId = 1L; // 临时硬编码，实际应从JWT中获取
+        Long currentUserId = currentUserResolver.getCurrentUserId();
         
         projectMemberService.removeProjectMember(projectId, userId, currentUserId);
         
@@ -87,14 +95,14 @@ public class ProjectMemberController {
      */
     @Operation(summary = "更新成员角色", description = "更新项目成员的角色")
     @PatchMapping("/{userId}/role")
+    @RequireProjectRole(ProjectMemberRole.TEST_MANAGER)
     public ApiResponse<ProjectMemberResponseDTO> updateMemberRole(
             @Parameter(description = "项目ID") @PathVariable Long projectId,
             @Parameter(description = "用户ID") @PathVariable Long userId,
             @Parameter(description = "新角色") @RequestParam ProjectMemberRole role) {
         logger.info("更新成员角色: projectId={}, userId={}, newRole={}", projectId, userId, role);
         
-        // TODO: 从安全上下文获取当前用户ID
-        Long currentUserId = 1L; // 临时硬编码，实际应从JWT中获取
+        Long currentUserId = currentUserResolver.getCurrentUserId();
         
         ProjectMember member = projectMemberService.updateMemberRole(projectId, userId, role, currentUserId);
         ProjectMemberResponseDTO responseDTO = ProjectMemberResponseDTO.from(member);
@@ -108,14 +116,14 @@ public class ProjectMemberController {
      */
     @Operation(summary = "更新成员备注", description = "更新项目成员的备注信息")
     @PatchMapping("/{userId}/remarks")
+    @RequireProjectRole(ProjectMemberRole.TEST_MANAGER)
     public ApiResponse<ProjectMemberResponseDTO> updateMemberRemarks(
             @Parameter(description = "项目ID") @PathVariable Long projectId,
             @Parameter(description = "用户ID") @PathVariable Long userId,
             @Parameter(description = "备注信息") @RequestParam String remarks) {
         logger.info("更新成员备注: projectId={}, userId={}", projectId, userId);
         
-        // TODO: 从安全上下文获取当前用户ID
-        Long currentUserId = 1L; // 临时硬编码，实际应从JWT中获取
+        Long currentUserId = currentUserResolver.getCurrentUserId();
         
         ProjectMember member = projectMemberService.updateMemberRemarks(projectId, userId, remarks, currentUserId);
         ProjectMemberResponseDTO responseDTO = ProjectMemberResponseDTO.from(member);
@@ -270,8 +278,7 @@ public class ProjectMemberController {
             @Parameter(description = "项目ID") @PathVariable Long projectId) {
         logger.info("获取我的权限: projectId={}", projectId);
         
-        // TODO: 从安全上下文获取当前用户ID
-        Long currentUserId = 1L; // 临时硬编码，实际应从JWT中获取
+        Long currentUserId = currentUserResolver.getCurrentUserId();
         
         Map<String, Boolean> permissions = projectMemberService.getUserPermissionsInProject(projectId, currentUserId);
         
@@ -297,42 +304,57 @@ public class ProjectMemberController {
     /**
      * 批量添加项目成员
      */
-    @Operation(summary = "批量添加成员", description = "批量向项目中添加成员")
+    @Operation(summary = "批量添加成员", description = "批量向项目中添加成员，已离开的成员重新加入，返回每个用户的处理结果")
     @PostMapping("/batch")
-    public ApiResponse<List<ProjectMemberResponseDTO>> addProjectMembersBatch(
+    @RequireProjectRole(ProjectMemberRole.TEST_MANAGER)
+    public ApiResponse<BatchMemberOperationResultDTO> addProjectMembersBatch(
             @Parameter(description = "项目ID") @PathVariable Long projectId,
-            @Parameter(description = "用户ID列表") @RequestParam List<Long> userIds,
-            @Parameter(description = "角色") @RequestParam ProjectMemberRole role) {
-        logger.info("批量添加项目成员: projectId={}, userCount={}, role={}", projectId, userIds.size(), role);
+            @Valid @RequestBody BatchAddProjectMemberRequestDTO requestDTO) {
+        logger.info("批量添加项目成员: projectId={}, userCount={}, role={}", 
+                   projectId, requestDTO.getUserIds().size(), requestDTO.getRole());
         
-        // TODO: 从安全上下文获取当前用户ID
-        Long currentUserId = 1L; // 临时硬编码，实际应从JWT中获取
+        Long currentUserId = currentUserResolver.getCurrentUserId();
         
-        List<ProjectMember> members = projectMemberService.addProjectMembers(projectId, userIds, role, currentUserId);
-        List<ProjectMemberResponseDTO> memberDTOs = members.stream()
-                .map(ProjectMemberResponseDTO::simple)
-                .collect(Collectors.toList());
+        BatchMemberOperationResultDTO result = projectMemberService.addProjectMembers(
+            projectId, requestDTO.getUserIds(), requestDTO.getRole(), requestDTO.getRemarks(), currentUserId);
         
-        logger.info("批量添加项目成员成功: projectId={}, addedCount={}", projectId, members.size());
-        return ApiResponse.success(memberDTOs, String.format("成功添加 %d 个成员", members.size()));
+        return ApiResponse.success(result, String.format("成功添加 %d 个成员", result.getChanged()));
     }
     
     /**
      * 批量移除项目成员
      */
-    @Operation(summary = "批量移除成员", description = "批量从项目中移除成员")
+    @Operation(summary = "批量移除成员", description = "批量从项目中移除成员，返回每个用户的处理结果")
     @DeleteMapping("/batch")
-    public ApiResponse<Void> removeProjectMembersBatch(
+    @RequireProjectRole(ProjectMemberRole.TEST_MANAGER)
+    public ApiResponse<BatchMemberOperationResultDTO> removeProjectMembersBatch(
             @Parameter(description = "项目ID") @PathVariable Long projectId,
             @Parameter(description = "用户ID列表") @RequestParam List<Long> userIds) {
         logger.info("批量移除项目成员: projectId={}, userCount={}", projectId, userIds.size());
         
-        // TODO: 从安全上下文获取当前用户ID
-        Long currentUserId = 1L; // 临时硬编码，实际应从JWT中获取
+        Long currentUserId = currentUserResolver.getCurrentUserId();
+        
+        BatchMemberOperationResultDTO result = projectMemberService.removeProjectMembers(projectId, userIds, currentUserId);
+        
+        return ApiResponse.success(result, String.format("成功移除 %d 个成员", result.getChanged()));
+    }
+    
+    /**
+     * 批量更新成员角色
+     */
+    @Operation(summary = "批量更新成员角色", description = "批量修改成员在项目中的角色，返回每个用户的处理结果")
+    @PatchMapping("/batch/role")
+    @RequireProjectRole(ProjectMemberRole.TEST_MANAGER)
+    public ApiResponse<BatchMemberOperationResultDTO> updateMemberRolesBatch(
+            @Parameter(description = "项目ID") @PathVariable Long projectId,
+            @Parameter(description = "用户ID列表") @RequestParam List<Long> userIds,
+            @Parameter(description = "新角色") @RequestParam ProjectMemberRole role) {
+        logger.info("批量更新成员角色: projectId={}, userCount={}, role={}", projectId, userIds.size(), role);
+        
+        Long currentUserId = currentUserResolver.getCurrentUserId();
         
-        projectMemberService.removeProjectMembers(projectId, userIds, currentUserId);
+        BatchMemberOperationResultDTO result = projectMemberService.updateMemberRoles(projectId, userIds, role, currentUserId);
         
-        logger.info("批量移除项目成员成功: projectId={}, userCount={}", projectId, userIds.size());
-        return ApiResponse.success(null, "批量移除成员成功");
+        return ApiResponse.success(result, String.format("成功更新 %d 个成员的角色", result.getChanged()));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,151 @@
+package com.yoga.youjia.controller;
+
+import com.yoga.youjia.common.ApiResponse;
+import com.yoga.youjia.common.enums.ProjectMemberRole;
+import com.yoga.youjia.dto.request.SharedStepBodyRequestDTO;
+import com.yoga.youjia.dto.response.PageResponseDTO;
+import com.yoga.youjia.dto.response.SharedStepBackfillResultDTO;
+import com.yoga.youjia.dto.response.SharedStepBodyResponseDTO;
+import com.yoga.youjia.dto.response.SharedStepStorageReportDTO;
+import com.yoga.youjia.entity.SharedStepBody;
+import com.yoga.youjia.security.annotation.RequireProjectRole;
+import com.yoga.youjia.security.service.CurrentUserResolver;
+import com.yoga.youjia.service.SharedStepBackfillService;
+import com.yoga.youjia.service.SharedStepLibraryService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * 共享步骤库控制器
+ *
+ * 管理项目内按内容去重的共享步骤，测试步骤通过 sharedBodyId 引用共享步骤
+ */
+@Tag(name = "共享步骤库", description = "项目内共享测试步骤的管理与去重")
+@RestController
+@RequestMapping("/api/projects/{projectId}/shared-steps")
+@Slf4j
+public class SharedStepController {
+
+    @Autowired
+    private SharedStepLibraryService sharedStepLibraryService;
+
+    @Autowired
+    private SharedStepBackfillService sharedStepBackfillService;
+
+    @Autowired
+    private CurrentUserResolver currentUserResolver;
+
+    /**
+     * 添加共享步骤
+     */
+    @Operation(summary = "添加共享步骤", description = "将步骤内容加入共享步骤库，内容相同时返回已有的共享步骤")
+    @PostMapping
+    @RequireProjectRole(ProjectMemberRole.TESTER)
+    public ApiResponse<SharedStepBodyResponseDTO> createSharedStep(
+            @Parameter(description = "项目ID", required = true) @PathVariable Long projectId,
+            @Parameter(description = "步骤内容", required = true) @Valid @RequestBody SharedStepBodyRequestDTO requestDTO) {
+
+        log.info("添加共享步骤: projectId={}", projectId);
+
+        Long currentUserId = currentUserResolver.getCurrentUserId();
+
+        SharedStepBody body = sharedStepLibraryService.internSharedStepBody(projectId, requestDTO, currentUserId);
+
+        return ApiResponse.success(sharedStepLibraryService.getSharedStepBodyDetail(projectId, body.getId()), "共享步骤添加成功");
+    }
+
+    /**
+     * 分页获取共享步骤
+     */
+    @Operation(summary = "分页获取共享步骤", description = "分页获取项目的共享步骤及其引用次数")
+    @GetMapping
+    public ApiResponse<PageResponseDTO<SharedStepBodyResponseDTO>> getSharedSteps(
+            @Parameter(description = "项目ID", required = true) @PathVariable Long projectId,
+            @Parameter(description = "页码（从0开始）") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "每页大小") @RequestParam(defaultValue = "20") int size) {
+
+        log.debug("分页获取共享步骤: projectId={}, page={}, size={}", projectId, page, size);
+
+        Page<SharedStepBodyResponseDTO> bodyPage = sharedStepLibraryService.getSharedStepBodies(projectId, page, size);
+        PageResponseDTO<SharedStepBodyResponseDTO> pageResponse = PageResponseDTO.<SharedStepBodyResponseDTO>builder()
+                .content(bodyPage.getContent())
+                .page(bodyPage.getNumber())
+                .size(bodyPage.getSize())
+                .totalElements(bodyPage.getTotalElements())
+                .totalPages(bodyPage.getTotalPages())
+                .first(bodyPage.isFirst())
+                .last(bodyPage.isLast())
+                .build();
+
+        return ApiResponse.success(pageResponse, "获取成功");
+    }
+
+    /**
+     * 获取共享步骤详情
+     */
+    @Operation(summary = "获取共享步骤详情", description = "根据ID获取共享步骤内容及引用次数")
+    @GetMapping("/{sharedStepId}")
+    public ApiResponse<SharedStepBodyResponseDTO> getSharedStep(
+            @Parameter(description = "项目ID", required = true) @PathVariable Long projectId,
+            @Parameter(description = "共享步骤ID", required = true) @PathVariable Long sharedStepId) {
+
+        log.debug("获取共享步骤详情: projectId={}, sharedStepId={}", projectId, sharedStepId);
+
+        return ApiResponse.success(sharedStepLibraryService.getSharedStepBodyDetail(projectId, sharedStepId), "获取成功");
+    }
+
+    /**
+     * 修改共享步骤
+     */
+    @Operation(summary = "修改共享步骤", description = "修改共享步骤内容，所有引用它的测试步骤立即生效")
+    @PutMapping("/{sharedStepId}")
+    @RequireProjectRole(ProjectMemberRole.LEAD_TESTER)
+    public ApiResponse<SharedStepBodyResponseDTO> updateSharedStep(
+            @Parameter(description = "项目ID", required = true) @PathVariable Long projectId,
+            @Parameter(description = "共享步骤ID", required = true) @PathVariable Long sharedStepId,
+            @Parameter(description = "步骤内容", required = true) @Valid @RequestBody SharedStepBodyRequestDTO requestDTO) {
+
+        log.info("修改共享步骤: projectId={}, sharedStepId={}", projectId, sharedStepId);
+
+        Long currentUserId = currentUserResolver.getCurrentUserId();
+
+        sharedStepLibraryService.updateSharedStepBody(projectId, sharedStepId, requestDTO, currentUserId);
+
+        return ApiResponse.success(sharedStepLibraryService.getSharedStepBodyDetail(projectId, sharedStepId), "共享步骤修改成功");
+    }
+
+    /**
+     * 回填共享步骤
+     */
+    @Operation(summary = "回填共享步骤", description = "将项目中内容相同的独立步骤归并为共享步骤引用")
+    @PostMapping("/backfill")
+    @RequireProjectRole(ProjectMemberRole.TEST_MANAGER)
+    public ApiResponse<SharedStepBackfillResultDTO> backfillSharedSteps(
+            @Parameter(description = "项目ID", required = true) @PathVariable Long projectId) {
+
+        log.info("回填共享步骤: projectId={}", projectId);
+
+        SharedStepBackfillResultDTO result = sharedStepBackfillService.backfill(projectId);
+
+        return ApiResponse.success(result, "共享步骤回填完成");
+    }
+
+    /**
+     * 获取共享步骤存储报告
+     */
+    @Operation(summary = "获取共享步骤存储报告", description = "统计共享步骤数量、引用次数以及节省的存储空间")
+    @GetMapping("/report")
+    public ApiResponse<SharedStepStorageReportDTO> getStorageReport(
+            @Parameter(description = "项目ID", required = true) @PathVariable Long projectId) {
+
+        log.debug("获取共享步骤存储报告: projectId={}", projectId);
+
+        return ApiResponse.success(sharedStepLibraryService.getStorageReport(projectId), "获取成功");
+    }
+}
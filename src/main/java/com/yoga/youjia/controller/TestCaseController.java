@@ -2,12 +2,15 @@ package com.yoga.youjia.controller;
 
 import com.yoga.youjia.common.ApiResponse;
 import com.yoga.youjia.common.enums.ErrorCode;
+import com.yoga.youjia.common.enums.ProjectMemberRole;
 import com.yoga.youjia.common.enums.TestCaseStatus;
 import com.yoga.youjia.dto.request.CreateTestCaseRequestDTO;
 import com.yoga.youjia.dto.request.TestCaseQueryRequestDTO;
 import com.yoga.youjia.dto.response.PageResponseDTO;
 import com.yoga.youjia.dto.response.TestCaseResponseDTO;
 import com.yoga.youjia.entity.TestCase;
+import com.yoga.youjia.security.annotation.RequireProjectRole;
+import com.yoga.youjia.security.service.CurrentUserResolver;
 import com.yoga.youjia.service.TestCaseService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -36,12 +39,16 @@ public class TestCaseController {
     
     @Autowired
     private TestCaseService testCaseService;
+
+    @Autowired
+    private CurrentUserResolver currentUserResolver;
     
     /**
      * 创建测试用例
      */
     @Operation(summary = "创建测试用例", description = "在指定项目下创建新的测试用例")
     @PostMapping
+    @RequireProjectRole(ProjectMemberRole.TESTER)
     public ApiResponse<TestCaseResponseDTO> createTestCase(
             @Parameter(description = "项目ID", required = true) @PathVariable Long projectId,
             @Parameter(description = "测试用例信息", required = true) @Valid @RequestBody CreateTestCaseRequestDTO requestDTO,
@@ -50,8 +57,7 @@ public class TestCaseController {
         log.info("创建测试用例请求: projectId={}, title={}, user={}", 
                 projectId, requestDTO.getTitle(), userDetails.getUsername());
         
-        // 获取当前用户ID（这里简化处理，实际项目中需要从UserDetails中获取）
-        Long currentUserId = 1L; // TODO: 从认证信息中获取真实用户ID
+        Long currentUserId = currentUserResolver.getCurrentUserId();
         
         TestCase testCase = testCaseService.createTestCase(requestDTO, projectId, currentUserId);
         TestCaseResponseDTO responseDTO = TestCaseResponseDTO.from(testCase);
@@ -139,6 +145,7 @@ public class TestCaseController {
      */
     @Operation(summary = "更新测试用例", description = "更新测试用例的基本信息和测试步骤")
     @PutMapping("/{testCaseId}")
+    @RequireProjectRole(ProjectMemberRole.TESTER)
     public ApiResponse<TestCaseResponseDTO> updateTestCase(
             @Parameter(description = "项目ID", required = true) @PathVariable Long projectId,
             @Parameter(description = "测试用例ID", required = true) @PathVariable Long testCaseId,
@@ -148,7 +155,7 @@ public class TestCaseController {
         log.info("更新测试用例: projectId={}, testCaseId={}, user={}", 
                 projectId, testCaseId, userDetails.getUsername());
         
-        Long currentUserId = 1L; // TODO: 从认证信息中获取真实用户ID
+        Long currentUserId = currentUserResolver.getCurrentUserId();
         
         TestCase testCase = testCaseService.updateTestCase(testCaseId, requestDTO, currentUserId);
         TestCaseResponseDTO responseDTO = TestCaseResponseDTO.from(testCase);
@@ -161,6 +168,7 @@ public class TestCaseController {
      */
     @Operation(summary = "删除测试用例", description = "软删除测试用例，不会物理删除数据")
     @DeleteMapping("/{testCaseId}")
+    @RequireProjectRole(ProjectMemberRole.TEST_MANAGER)
     public ApiResponse<Void> deleteTestCase(
             @Parameter(description = "项目ID", required = true) @PathVariable Long projectId,
             @Parameter(description = "测试用例ID", required = true) @PathVariable Long testCaseId,
@@ -169,7 +177,7 @@ public class TestCaseController {
         log.info("删除测试用例: projectId={}, testCaseId={}, user={}", 
                 projectId, testCaseId, userDetails.getUsername());
         
-        Long currentUserId = 1L; // TODO: 从认证信息中获取真实用户ID
+        Long currentUserId = currentUserResolver.getCurrentUserId();
         
         testCaseService.deleteTestCase(testCaseId, currentUserId);
         return ApiResponse.success(null, "测试用例删除成功");
@@ -180,6 +188,7 @@ public class TestCaseController {
      */
     @Operation(summary = "复制测试用例", description = "复制现有测试用例，创建一个新的副本")
     @PostMapping("/{testCaseId}/copy")
+    @RequireProjectRole(ProjectMemberRole.TESTER)
     public ApiResponse<TestCaseResponseDTO> copyTestCase(
             @Parameter(description = "项目ID", required = true) @PathVariable Long projectId,
             @Parameter(description = "源测试用例ID", required = true) @PathVariable Long testCaseId,
@@ -189,7 +198,7 @@ public class TestCaseController {
         log.info("复制测试用例: projectId={}, sourceId={}, newTitle={}, user={}", 
                 projectId, testCaseId, newTitle, userDetails.getUsername());
         
-        Long currentUserId = 1L; // TODO: 从认证信息中获取真实用户ID
+        Long currentUserId = currentUserResolver.getCurrentUserId();
         
         TestCase newTestCase = testCaseService.copyTestCase(testCaseId, newTitle, currentUserId);
         TestCaseResponseDTO responseDTO = TestCaseResponseDTO.from(newTestCase);
@@ -202,6 +211,7 @@ public class TestCaseController {
      */
     @Operation(summary = "提交测试用例审核", description = "将测试用例提交给审核人员进行审核")
     @PostMapping("/{testCaseId}/submit-review")
+    @RequireProjectRole(ProjectMemberRole.TESTER)
     public ApiResponse<TestCaseResponseDTO> submitForReview(
             @Parameter(description = "项目ID", required = true) @PathVariable Long projectId,
             @Parameter(description = "测试用例ID", required = true) @PathVariable Long testCaseId,
@@ -210,7 +220,7 @@ public class TestCaseController {
         log.info("提交测试用例审核: projectId={}, testCaseId={}, user={}", 
                 projectId, testCaseId, userDetails.getUsername());
         
-        Long currentUserId = 1L; // TODO: 从认证信息中获取真实用户ID
+        Long currentUserId = currentUserResolver.getCurrentUserId();
         
         TestCase testCase = testCaseService.submitForReview(testCaseId, currentUserId);
         TestCaseResponseDTO responseDTO = TestCaseResponseDTO.from(testCase);
@@ -223,6 +233,7 @@ public class TestCaseController {
      */
     @Operation(summary = "审核通过测试用例", description = "审核人员审核通过测试用例")
     @PostMapping("/{testCaseId}/approve")
+    @RequireProjectRole(ProjectMemberRole.LEAD_TESTER)
     public ApiResponse<TestCaseResponseDTO> approveTestCase(
             @Parameter(description = "项目ID", required = true) @PathVariable Long projectId,
             @Parameter(description = "测试用例ID", required = true) @PathVariable Long testCaseId,
@@ -232,7 +243,7 @@ public class TestCaseController {
         log.info("审核通过测试用例: projectId={}, testCaseId={}, reviewer={}", 
                 projectId, testCaseId, userDetails.getUsername());
         
-        Long currentUserId = 1L; // TODO: 从认证信息中获取真实用户ID
+        Long currentUserId = currentUserResolver.getCurrentUserId();
         
         TestCase testCase = testCaseService.approveTestCase(testCaseId, currentUserId, comment);
         TestCaseResponseDTO responseDTO = TestCaseResponseDTO.from(testCase);
@@ -245,6 +256,7 @@ public class TestCaseController {
      */
     @Operation(summary = "审核拒绝测试用例", description = "审核人员拒绝测试用例，需要修改后重新提交")
     @PostMapping("/{testCaseId}/reject")
+    @RequireProjectRole(ProjectMemberRole.LEAD_TESTER)
     public ApiResponse<TestCaseResponseDTO> rejectTestCase(
             @Parameter(description = "项目ID", required = true) @PathVariable Long projectId,
             @Parameter(description = "测试用例ID", required = true) @PathVariable Long testCaseId,
@@ -254,7 +266,7 @@ public class TestCaseController {
         log.info("审核拒绝测试用例: projectId={}, testCaseId={}, reviewer={}", 
                 projectId, testCaseId, userDetails.getUsername());
         
-        Long currentUserId = 1L; // TODO: 从认证信息中获取真实用户ID
+        Long currentUserId = currentUserResolver.getCurrentUserId();
         
         TestCase testCase = testCaseService.rejectTestCase(testCaseId, currentUserId, comment);
         TestCaseResponseDTO responseDTO = TestCaseResponseDTO.from(testCase);
@@ -267,6 +279,7 @@ public class TestCaseController {
      */
     @Operation(summary = "批量更新测试用例状态", description = "批量修改多个测试用例的状态")
     @PostMapping("/batch-update-status")
+    @RequireProjectRole(ProjectMemberRole.LEAD_TESTER)
     public ApiResponse<Void> batchUpdateStatus(
             @Parameter(description = "项目ID", required = true) @PathVariable Long projectId,
             @Parameter(description = "测试用例ID列表", required = true) @RequestParam List<Long> testCaseIds,
@@ -276,7 +289,7 @@ public class TestCaseController {
         log.info("批量更新测试用例状态: projectId={}, count={}, status={}, user={}", 
                 projectId, testCaseIds.size(), status, userDetails.getUsername());
         
-        Long currentUserId = 1L; // TODO: 从认证信息中获取真实用户ID
+        Long currentUserId = currentUserResolver.getCurrentUserId();
         
         testCaseService.batchUpdateStatus(testCaseIds, status, currentUserId);
         return ApiResponse.success(null, String.format("成功更新 %d 个测试用例状态", testCaseIds.size()));
@@ -2,19 +2,30 @@ package com.yoga.youjia.controller;
 
 import com.yoga.youjia.common.ApiResponse;
 import com.yoga.youjia.common.enums.ErrorCode;
+import com.yoga.youjia.common.enums.ProjectMemberRole;
 import com.yoga.youjia.dto.request.CreateTestModuleRequestDTO;
+import com.yoga.youjia.dto.response.PageResponseDTO;
 import com.yoga.youjia.dto.response.TestModuleResponseDTO;
+import com.yoga.youjia.dto.response.TestModuleTreeNodeDTO;
+import com.yoga.youjia.dto.response.TestModuleTreePathDTO;
 import com.yoga.youjia.entity.TestModule;
+import com.yoga.youjia.security.annotation.RequireProjectRole;
+import com.yoga.youjia.security.service.CurrentUserResolver;
 import com.yoga.youjia.service.TestModuleService;
+import com.yoga.youjia.service.TestModuleTreeExportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -33,11 +44,18 @@ public class TestModuleController {
     @Autowired
     private TestModuleService testModuleService;
     
+    @Autowired
+    private TestModuleTreeExportService testModuleTreeExportService;
+
+    @Autowired
+    private CurrentUserResolver currentUserResolver;
+    
     /**
      * 创建测试模块
      */
     @Operation(summary = "创建测试模块", description = "在指定项目下创建新的测试模块")
     @PostMapping
+    @RequireProjectRole(ProjectMemberRole.TESTER)
     public ApiResponse<TestModuleResponseDTO> createTestModule(
             @Parameter(description = "项目ID", required = true) @PathVariable Long projectId,
             @Parameter(description = "模块信息", required = true) @Valid @RequestBody CreateTestModuleRequestDTO requestDTO,
@@ -46,7 +64,7 @@ public class TestModuleController {
         log.info("创建测试模块: projectId={}, name={}, parentId={}, user={}", 
                 projectId, requestDTO.getName(), requestDTO.getParentId(), userDetails.getUsername());
         
-        Long currentUserId = 1L; // TODO: 从认证信息中获取真实用户ID
+        Long currentUserId = currentUserResolver.getCurrentUserId();
         
         TestModule testModule = testModuleService.createTestModule(requestDTO, projectId, currentUserId);
         TestModuleResponseDTO responseDTO = TestModuleResponseDTO.from(testModule);
@@ -72,6 +90,23 @@ public class TestModuleController {
         return ApiResponse.success(responseDTOs, "获取成功");
     }
     
+    /**
+     * 流式获取项目模块树
+     */
+    @Operation(summary = "流式获取项目模块树", description = "按先序遍历逐行读取模块并直接写出嵌套JSON，适用于导出等需要完整大树的场景")
+    @GetMapping(value = "/tree/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    @RequireProjectRole
+    public ResponseEntity<StreamingResponseBody> streamModuleTree(
+            @Parameter(description = "项目ID", required = true) @PathVariable Long projectId) {
+        
+        log.debug("流式获取项目模块树: projectId={}", projectId);
+        
+        StreamingResponseBody body = outputStream -> testModuleTreeExportService.writeModuleTree(projectId, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+    
     /**
      * 获取根模块列表
      */
@@ -109,6 +144,56 @@ public class TestModuleController {
         return ApiResponse.success(responseDTOs, "获取成功");
     }
     
+    /**
+     * 懒加载获取模块树
+     */
+    @Operation(summary = "懒加载获取模块树", description = "分页获取根模块，并附带每个根模块的第一层子模块")
+    @GetMapping("/tree/lazy")
+    public ApiResponse<PageResponseDTO<TestModuleTreeNodeDTO>> getLazyModuleTree(
+            @Parameter(description = "项目ID", required = true) @PathVariable Long projectId,
+            @Parameter(description = "页码") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "每页根模块数量") @RequestParam(defaultValue = "20") int size,
+            @Parameter(description = "每个根模块预加载的子模块数量") @RequestParam(defaultValue = "20") int childLimit) {
+        
+        log.debug("懒加载获取模块树: projectId={}, page={}, size={}, childLimit={}", projectId, page, size, childLimit);
+        
+        Page<TestModuleTreeNodeDTO> nodePage = testModuleService.getLazyModuleTree(projectId, page, size, childLimit);
+        return ApiResponse.success(toPageResponse(nodePage), "获取成功");
+    }
+    
+    /**
+     * 懒加载分页获取子模块
+     */
+    @Operation(summary = "懒加载获取子模块", description = "展开节点时分页获取指定模块的直接子模块")
+    @GetMapping("/tree/lazy/{moduleId}/children")
+    public ApiResponse<PageResponseDTO<TestModuleTreeNodeDTO>> getLazyChildNodes(
+            @Parameter(description = "项目ID", required = true) @PathVariable Long projectId,
+            @Parameter(description = "父模块ID", required = true) @PathVariable Long moduleId,
+            @Parameter(description = "页码") @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "每页大小") @RequestParam(defaultValue = "50") int size) {
+        
+        log.debug("懒加载获取子模块: projectId={}, parentId={}, page={}, size={}", projectId, moduleId, page, size);
+        
+        Page<TestModuleTreeNodeDTO> nodePage = testModuleService.getLazyChildNodes(projectId, moduleId, page, size);
+        return ApiResponse.success(toPageResponse(nodePage), "获取成功");
+    }
+    
+    /**
+     * 展开到指定模块
+     */
+    @Operation(summary = "展开到指定模块", description = "返回从根到指定模块的祖先链以及每一层的兄弟节点")
+    @GetMapping("/tree/lazy/{moduleId}/path")
+    public ApiResponse<TestModuleTreePathDTO> expandPathToModule(
+            @Parameter(description = "项目ID", required = true) @PathVariable Long projectId,
+            @Parameter(description = "目标模块ID", required = true) @PathVariable Long moduleId,
+            @Parameter(description = "每一层返回的兄弟节点数量") @RequestParam(defaultValue = "50") int siblingLimit) {
+        
+        log.debug("展开模块路径: projectId={}, moduleId={}, siblingLimit={}", projectId, moduleId, siblingLimit);
+        
+        TestModuleTreePathDTO pathDTO = testModuleService.expandPathToModule(projectId, moduleId, siblingLimit);
+        return ApiResponse.success(pathDTO, "获取成功");
+    }
+    
     /**
      * 获取模块详情
      */
@@ -136,6 +221,7 @@ public class TestModuleController {
      */
     @Operation(summary = "更新测试模块", description = "更新测试模块的基本信息")
     @PutMapping("/{moduleId}")
+    @RequireProjectRole(ProjectMemberRole.TESTER)
     public ApiResponse<TestModuleResponseDTO> updateTestModule(
             @Parameter(description = "项目ID", required = true) @PathVariable Long projectId,
             @Parameter(description = "模块ID", required = true) @PathVariable Long moduleId,
@@ -145,7 +231,7 @@ public class TestModuleController {
         log.info("更新测试模块: projectId={}, moduleId={}, name={}, user={}", 
                 projectId, moduleId, requestDTO.getName(), userDetails.getUsername());
         
-        Long currentUserId = 1L; // TODO: 从认证信息中获取真实用户ID
+        Long currentUserId = currentUserResolver.getCurrentUserId();
         
         TestModule testModule = testModuleService.updateTestModule(moduleId, requestDTO, currentUserId);
         TestModuleResponseDTO responseDTO = TestModuleResponseDTO.from(testModule);
@@ -158,6 +244,7 @@ public class TestModuleController {
      */
     @Operation(summary = "删除测试模块", description = "删除测试模块及其下的所有子模块和测试用例")
     @DeleteMapping("/{moduleId}")
+    @RequireProjectRole(ProjectMemberRole.TEST_MANAGER)
     public ApiResponse<Void> deleteTestModule(
             @Parameter(description = "项目ID", required = true) @PathVariable Long projectId,
             @Parameter(description = "模块ID", required = true) @PathVariable Long moduleId,
@@ -166,7 +253,7 @@ public class TestModuleController {
         log.info("删除测试模块: projectId={}, moduleId={}, user={}", 
                 projectId, moduleId, userDetails.getUsername());
         
-        Long currentUserId = 1L; // TODO: 从认证信息中获取真实用户ID
+        Long currentUserId = currentUserResolver.getCurrentUserId();
         
         testModuleService.deleteTestModule(moduleId, currentUserId);
         return ApiResponse.success(null, "测试模块删除成功");
@@ -177,6 +264,7 @@ public class TestModuleController {
      */
     @Operation(summary = "移动模块", description = "将模块移动到新的父模块下")
     @PostMapping("/{moduleId}/move")
+    @RequireProjectRole(ProjectMemberRole.TESTER)
     public ApiResponse<TestModuleResponseDTO> moveModule(
             @Parameter(description = "项目ID", required = true) @PathVariable Long projectId,
             @Parameter(description = "模块ID", required = true) @PathVariable Long moduleId,
@@ -186,7 +274,7 @@ public class TestModuleController {
         log.info("移动测试模块: projectId={}, moduleId={}, newParentId={}, user={}", 
                 projectId, moduleId, newParentId, userDetails.getUsername());
         
-        Long currentUserId = 1L; // TODO: 从认证信息中获取真实用户ID
+        Long currentUserId = currentUserResolver.getCurrentUserId();
         
         TestModule testModule = testModuleService.moveModule(moduleId, newParentId, currentUserId);
         TestModuleResponseDTO responseDTO = TestModuleResponseDTO.from(testModule);
@@ -199,6 +287,7 @@ public class TestModuleController {
      */
     @Operation(summary = "调整模块排序", description = "调整同级模块的排序顺序")
     @PostMapping("/{moduleId}/reorder")
+    @RequireProjectRole(ProjectMemberRole.TESTER)
     public ApiResponse<Void> reorderModule(
             @Parameter(description = "项目ID", required = true) @PathVariable Long projectId,
             @Parameter(description = "模块ID", required = true) @PathVariable Long moduleId,
@@ -208,7 +297,7 @@ public class TestModuleController {
         log.info("调整模块排序: projectId={}, moduleId={}, newOrder={}, user={}", 
                 projectId, moduleId, newOrder, userDetails.getUsername());
         
-        Long currentUserId = 1L; // TODO: 从认证信息中获取真实用户ID
+        Long currentUserId = currentUserResolver.getCurrentUserId();
         
         testModuleService.reorderModule(moduleId, newOrder, currentUserId);
         return ApiResponse.success(null, "排序调整成功");
@@ -228,4 +317,19 @@ public class TestModuleController {
         TestModuleService.ModuleStatistics statistics = testModuleService.getModuleStatistics(moduleId);
         return ApiResponse.success(statistics, "统计信息获取成功");
     }
-}
\ No newline at end of file
+    
+    /**
+     * 将分页结果转换为分页响应DTO
+     */
+    private PageResponseDTO<TestModuleTreeNodeDTO> toPageResponse(Page<TestModuleTreeNodeDTO> nodePage) {
+        return PageResponseDTO.<TestModuleTreeNodeDTO>builder()
+                .content(nodePage.getContent())
+                .page(nodePage.getNumber())
+                .size(nodePage.getSize())
+                .totalElements(nodePage.getTotalElements())
+                .totalPages(nodePage.getTotalPages())
+                .first(nodePage.isFirst())
+                .last(nodePage.isLast())
+                .build();
+    }
+}
@@ -3,6 +3,7 @@ package com.yoga.youjia.controller;
 import com.yoga.youjia.common.ApiResponse;
 import com.yoga.youjia.common.enums.ErrorCode;
 import com.yoga.youjia.dto.request.CreateTestStepRequestDTO;
+import com.yoga.youjia.dto.request.ReorderTestStepsRequestDTO;
 import com.yoga.youjia.dto.response.TestStepResponseDTO;
 import com.yoga.youjia.entity.TestStep;
 import com.yoga.youjia.service.TestStepService;
@@ -153,6 +154,28 @@ public class TestStepController {
         return ApiResponse.success(null, "步骤顺序调整成功");
     }
     
+    /**
+     * 整体调整步骤顺序
+     */
+    @Operation(summary = "整体调整步骤顺序", description = "按给定的完整步骤ID顺序重排测试用例的全部步骤")
+    @PutMapping("/order")
+    public ApiResponse<List<TestStepResponseDTO>> reorderTestSteps(
+            @Parameter(description = "项目ID", required = true) @PathVariable Long projectId,
+            @Parameter(description = "测试用例ID", required = true) @PathVariable Long testCaseId,
+            @Parameter(description = "步骤顺序", required = true) @Valid @RequestBody ReorderTestStepsRequestDTO requestDTO,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        
+        log.info("整体调整步骤顺序: projectId={}, testCaseId={}, count={}, user={}", 
+                projectId, testCaseId, requestDTO.getStepIds().size(), userDetails.getUsername());
+        
+        List<TestStep> testSteps = testStepService.reorderTestSteps(testCaseId, requestDTO.getStepIds());
+        List<TestStepResponseDTO> responseDTOs = testSteps.stream()
+                .map(TestStepResponseDTO::from)
+                .collect(Collectors.toList());
+        
+        return ApiResponse.success(responseDTOs, "步骤顺序调整成功");
+    }
+    
     /**
      * 获取关键步骤
      */
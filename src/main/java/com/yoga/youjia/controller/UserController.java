@@ -4,9 +4,14 @@ import com.yoga.youjia.common.ApiResponse;
 import com.yoga.youjia.common.enums.UserStatus;
 import com.yoga.youjia.common.exception.ResourceNotFoundException;
 import com.yoga.youjia.dto.request.UserQueryDTO;
+import com.yoga.youjia.dto.response.CursorPageResponseDTO;
 import com.yoga.youjia.dto.response.PageResponseDTO;
+import com.yoga.youjia.dto.response.UserCardDTO;
+import com.yoga.youjia.dto.response.UserDirectorySnapshotDTO;
 import com.yoga.youjia.dto.response.UserResponseDTO;
 import com.yoga.youjia.entity.User;
+import com.yoga.youjia.service.UserDirectoryService;
+import com.yoga.youjia.service.UserLookupService;
 import com.yoga.youjia.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -16,7 +21,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -35,6 +45,11 @@ import java.util.stream.Collectors;
  * - PUT /api/users/{id} - 更新指定用户信息
  * - DELETE /api/users/{id} - 删除指定用户
  * - POST /api/users/search - 条件查询用户列表
+ * - GET /api/users - 游标分页获取用户列表
+ * - GET /api/users/export - NDJSON 流式导出用户
+ * - GET /api/users/directory - 用户名片快照（支持增量）
+ * - GET /api/users/suggest - 用户联想
+ * - POST /api/users/lookup - 按ID批量获取用户名片（支持ETag）
  */
 @Tag(name = "用户管理", description = "用户信息的增删改查接口")
 @RestController
@@ -43,9 +58,20 @@ public class UserController {
 
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
 
+    /**
+     * 游标分页的最大每页大小
+     */
+    private static final int MAX_PAGE_SIZE = 500;
+
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserDirectoryService userDirectoryService;
+
+    @Autowired
+    private UserLookupService userLookupService;
+
     /**
      * 获取用户信息
      *
@@ -175,22 +201,116 @@ public class UserController {
     }
 
     /**
-     * 获取所有用户列表
+     * 用户联想
      *
-     * @return 所有用户列表
+     * @param keyword 关键词（用户名、姓名或邮箱的任意片段）
+     * @param limit 最多返回数量
+     * @return 按匹配程度排序的用户列表
      */
-    @Operation(summary = "获取所有用户", description = "获取系统中所有用户的列表")
+    @Operation(summary = "用户联想", description = "根据用户名、姓名、邮箱片段联想用户，用于成员选择器")
+    @GetMapping("/suggest")
+    public ApiResponse<List<UserResponseDTO>> suggestUsers(
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "10") int limit) {
+        logger.debug("用户联想: keyword={}, limit={}", keyword, limit);
+
+        List<UserResponseDTO> userDTOs = userService.suggestUsers(keyword, limit).stream()
+                .map(UserResponseDTO::from)
+                .collect(Collectors.toList());
+
+        return ApiResponse.success(userDTOs, "查询成功");
+    }
+
+    /**
+     * 游标分页获取用户列表
+     *
+     * @param cursor 上一页返回的 nextCursor，为空时从第一页开始
+     * @param size 每页大小（1-500）
+     * @return 一页用户
+     */
+    @Operation(summary = "获取用户列表", description = "按用户ID游标分页获取用户列表，不统计总数")
     @GetMapping
-    public ApiResponse<List<UserResponseDTO>> getAllUsers() {
-        logger.info("获取所有用户列表");
-        
-        List<User> users = userService.getAllUsers();
+    public ApiResponse<CursorPageResponseDTO<UserResponseDTO>> getUsers(
+            @RequestParam(required = false) Long cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        logger.debug("游标分页获取用户列表: cursor={}, size={}", cursor, pageSize);
+
+        List<User> users = userService.getUsersAfter(cursor, pageSize);
+        boolean hasMore = users.size() > pageSize;
+        if (hasMore) {
+            users = users.subList(0, pageSize);
+        }
         List<UserResponseDTO> userDTOs = users.stream()
                 .map(UserResponseDTO::from)
                 .collect(Collectors.toList());
-        
-        logger.info("获取所有用户成功: 共{}个用户", userDTOs.size());
-        return ApiResponse.success(userDTOs, "查询成功");
+
+        CursorPageResponseDTO<UserResponseDTO> pageResponse = CursorPageResponseDTO.<UserResponseDTO>builder()
+                .content(userDTOs)
+                .size(pageSize)
+                .nextCursor(hasMore ? users.get(users.size() - 1).getId() : null)
+                .hasMore(hasMore)
+                .build();
+        return ApiResponse.success(pageResponse, "查询成功");
+    }
+
+    /**
+     * 流式导出全部用户
+     *
+     * @return NDJSON 格式的用户数据，每行一个用户
+     */
+    @Operation(summary = "导出用户", description = "以NDJSON格式（每行一个JSON对象）流式导出全部用户")
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        logger.info("流式导出用户");
+
+        StreamingResponseBody body = userDirectoryService::writeUsers;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * 获取用户名片快照
+     *
+     * @param since 上次快照的版本号，为空时返回完整快照
+     * @return 完整快照或该版本之后的变化
+     */
+    @Operation(summary = "用户名片快照", description = "获取用户ID到用户名、姓名、头像、状态的快照；传入上次的版本号时只返回此后的变化")
+    @GetMapping("/directory")
+    public ApiResponse<UserDirectorySnapshotDTO> getUserDirectory(
+            @RequestParam(required = false) Long since) {
+        logger.debug("获取用户名片快照: since={}", since);
+
+        UserDirectorySnapshotDTO snapshot = userDirectoryService.getSnapshot(since);
+        return ApiResponse.success(snapshot, "查询成功");
+    }
+
+    /**
+     * 按ID批量获取用户名片
+     *
+     * 响应带有 ETag，客户端再次查询同一批用户时在 If-None-Match 中带上，内容未变化时返回 304。
+     * If-None-Match 可以带多个 ETag，按弱比较匹配，* 不视为匹配
+     *
+     * @param userIds 用户ID列表（最多1000个）
+     * @param ifNoneMatch 上次响应的 ETag
+     * @return 按请求顺序排列的用户名片，不存在的用户不返回
+     */
+    @Operation(summary = "批量获取用户名片", description = "根据用户ID列表批量获取用户名、姓名、头像、状态，支持 If-None-Match 协商缓存")
+    @PostMapping("/lookup")
+    public ResponseEntity<ApiResponse<List<UserCardDTO>>> lookupUsers(
+            @RequestBody List<Long> userIds,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        logger.debug("批量获取用户名片: count={}", userIds.size());
+
+        List<UserCardDTO> cards = userLookupService.lookup(userIds);
+        String etag = userLookupService.computeETag(cards);
+        if (userLookupService.matchesIfNoneMatch(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .body(ApiResponse.success(cards, "查询成功"));
     }
 
     /**
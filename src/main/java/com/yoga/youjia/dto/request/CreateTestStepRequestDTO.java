@@ -1,5 +1,6 @@
 package com.yoga.youjia.dto.request;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.*;
 import lombok.AllArgsConstructor;
@@ -17,13 +18,20 @@ import lombok.NoArgsConstructor;
 @Schema(description = "创建测试步骤请求")
 public class CreateTestStepRequestDTO {
     
-    @Schema(description = "步骤序号", example = "1")
-    @NotNull(message = "步骤序号不能为空")
+    @Schema(description = "步骤序号，为空时自动分配", example = "1")
     @Positive(message = "步骤序号必须为正数")
     private Integer stepOrder;
     
+    @Schema(description = "引用的共享步骤ID，指定时下列正文字段为可选的覆盖内容", example = "12")
+    private Long sharedBodyId;
+    
+    @Schema(description = "仅更新时有效：解除共享步骤引用，请求中的正文（未填写的字段取当前生效内容）保存为本步骤的独立正文", example = "false")
+    private Boolean detachSharedBody;
+    
+    @Schema(description = "仅更新时有效：清除本用例的覆盖内容，步骤完全使用共享步骤的内容，忽略请求中的正文", example = "false")
+    private Boolean clearOverrides;
+    
     @Schema(description = "步骤描述", example = "打开登录页面")
-    @NotBlank(message = "步骤描述不能为空")
     @Size(max = 2000, message = "步骤描述长度不能超过2000字符")
     private String stepDescription;
     
@@ -32,7 +40,6 @@ public class CreateTestStepRequestDTO {
     private String testData;
     
     @Schema(description = "预期结果", example = "登录页面正常显示")
-    @NotBlank(message = "预期结果不能为空")
     @Size(max = 2000, message = "预期结果长度不能超过2000字符")
     private String expectedResult;
     
@@ -54,4 +61,16 @@ public class CreateTestStepRequestDTO {
     @Min(value = 1, message = "预估执行时间不能小于1秒")
     @Max(value = 3600, message = "预估执行时间不能超过1小时")
     private Integer estimatedTime = 30;
-}
\ No newline at end of file
+    
+    /**
+     * 未引用共享步骤时，步骤描述和预期结果必须填写；解除引用或清除覆盖内容时正文可以为空
+     */
+    @JsonIgnore
+    @Schema(hidden = true)
+    @AssertTrue(message = "步骤描述和预期结果不能为空")
+    public boolean isContentProvided() {
+        return sharedBodyId != null || Boolean.TRUE.equals(detachSharedBody) || Boolean.TRUE.equals(clearOverrides) ||
+               (stepDescription != null && !stepDescription.trim().isEmpty() &&
+                expectedResult != null && !expectedResult.trim().isEmpty());
+    }
+}
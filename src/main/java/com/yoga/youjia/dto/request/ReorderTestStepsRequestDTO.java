@@ -0,0 +1,28 @@
+package com.yoga.youjia.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 测试步骤整体排序请求DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "测试步骤整体排序请求")
+public class ReorderTestStepsRequestDTO {
+    
+    @Schema(description = "按新顺序排列的全部步骤ID", example = "[3, 1, 2]")
+    @NotEmpty(message = "步骤ID列表不能为空")
+    @Size(max = 1000, message = "单个用例的步骤数量不能超过1000")
+    private List<@NotNull(message = "步骤ID不能为空") Long> stepIds;
+}
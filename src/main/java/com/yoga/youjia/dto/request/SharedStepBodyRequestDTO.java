@@ -0,0 +1,38 @@
+package com.yoga.youjia.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 共享步骤内容请求DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "共享步骤内容请求")
+public class SharedStepBodyRequestDTO {
+    
+    @Schema(description = "步骤描述", example = "使用管理员账号登录系统")
+    @NotBlank(message = "步骤描述不能为空")
+    @Size(max = 2000, message = "步骤描述长度不能超过2000字符")
+    private String stepDescription;
+    
+    @Schema(description = "测试数据", example = "用户名: admin, 密码: admin123")
+    @Size(max = 2000, message = "测试数据长度不能超过2000字符")
+    private String testData;
+    
+    @Schema(description = "预期结果", example = "登录成功并进入首页")
+    @NotBlank(message = "预期结果不能为空")
+    @Size(max = 2000, message = "预期结果长度不能超过2000字符")
+    private String expectedResult;
+    
+    @Schema(description = "自动化脚本代码")
+    @Size(max = 5000, message = "自动化脚本代码长度不能超过5000字符")
+    private String automationCode;
+}
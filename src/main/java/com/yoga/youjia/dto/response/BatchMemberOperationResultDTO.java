@@ -0,0 +1,87 @@
+package com.yoga.youjia.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 批量成员操作结果DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "批量成员操作结果")
+public class BatchMemberOperationResultDTO {
+
+    @Schema(description = "项目ID", example = "1")
+    private Long projectId;
+
+    @Schema(description = "请求的用户数（去重后）", example = "500")
+    private Integer requested;
+
+    @Schema(description = "实际变更的用户数", example = "480")
+    private Integer changed;
+
+    @Schema(description = "未变更的用户数", example = "20")
+    private Integer skipped;
+
+    @Schema(description = "每个用户的处理结果")
+    private List<MemberOutcome> results;
+
+    /**
+     * 单个用户的处理结果
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    @Schema(description = "用户处理结果")
+    public static class MemberOutcome {
+
+        @Schema(description = "用户ID", example = "2")
+        private Long userId;
+
+        @Schema(description = "处理结果", example = "ADDED")
+        private Outcome outcome;
+
+        @Schema(description = "说明", example = "已添加")
+        private String message;
+    }
+
+    /**
+     * 处理结果类型
+     */
+    public enum Outcome {
+        ADDED(true, "已添加"),
+        REACTIVATED(true, "已重新加入"),
+        REMOVED(true, "已移除"),
+        ROLE_CHANGED(true, "角色已更新"),
+        ALREADY_MEMBER(false, "已是项目成员"),
+        UNCHANGED(false, "角色未变化"),
+        USER_NOT_FOUND(false, "用户不存在"),
+        NOT_MEMBER(false, "不是项目成员"),
+        SELF(false, "不能移除自己，请先转移项目经理权限"),
+        LAST_MANAGER(false, "项目必须至少保留一个项目经理");
+
+        private final boolean changed;
+        private final String message;
+
+        Outcome(boolean changed, String message) {
+            this.changed = changed;
+            this.message = message;
+        }
+
+        public boolean isChanged() {
+            return changed;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.yoga.youjia.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 游标分页响应DTO
+ *
+ * 按主键递增翻页，不统计总数；下一页请求时把 nextCursor 作为游标传回
+ *
+ * @param <T> 列表项类型
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResponseDTO<T> {
+    
+    /**
+     * 数据列表
+     */
+    private List<T> content;
+    
+    /**
+     * 每页大小
+     */
+    private int size;
+    
+    /**
+     * 下一页的游标（本页最后一条记录的ID），没有下一页时为null
+     */
+    private Long nextCursor;
+    
+    /**
+     * 是否还有下一页
+     */
+    private boolean hasMore;
+}
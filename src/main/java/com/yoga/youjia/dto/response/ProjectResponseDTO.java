@@ -158,10 +158,19 @@ public class ProjectResponseDTO {
      * 将Project实体转换为ProjectResponseDTO
      */
     public static ProjectResponseDTO from(Project project) {
+        return project != null ? from(project, project.getMemberCount()) : null;
+    }
+    
+    /**
+     * 从项目实体创建响应DTO，成员数量由调用方批量查询后传入，不加载成员集合
+     */
+    public static ProjectResponseDTO from(Project project, Integer memberCount) {
         if (project == null) {
             return null;
         }
         
+        // 逾期和时间进度按同一时刻计算
+        LocalDateTime now = LocalDateTime.now();
         return ProjectResponseDTO.builder()
                 .id(project.getId())
                 .code(project.getCode())
@@ -181,10 +190,10 @@ public class ProjectResponseDTO {
                 .enabled(project.getEnabled())
                 .active(project.isActive())
                 .finished(project.isFinished())
-                .overdue(project.isOverdue())
-                .timeProgress(project.getTimeProgress())
+                .overdue(project.isOverdue(now))
+                .timeProgress(project.getTimeProgress(now))
                 .durationInDays(project.getDurationInDays())
-                .memberCount(project.getMemberCount())
+                .memberCount(memberCount)
                 .createdBy(project.getCreatedBy())
                 .updatedBy(project.getUpdatedBy())
                 .createdAt(project.getCreatedAt())
@@ -196,6 +205,13 @@ public class ProjectResponseDTO {
      * 创建简化版的项目响应DTO（仅包含基本信息）
      */
     public static ProjectResponseDTO simple(Project project) {
+        return project != null ? simple(project, project.getMemberCount()) : null;
+    }
+    
+    /**
+     * 创建简化版的项目响应DTO，成员数量由调用方批量查询后传入，不加载成员集合
+     */
+    public static ProjectResponseDTO simple(Project project, Integer memberCount) {
         if (project == null) {
             return null;
         }
@@ -216,7 +232,7 @@ public class ProjectResponseDTO {
                 .active(project.isActive())
                 .finished(project.isFinished())
                 .overdue(project.isOverdue())
-                .memberCount(project.getMemberCount())
+                .memberCount(memberCount)
                 .createdAt(project.getCreatedAt())
                 .updatedAt(project.getUpdatedAt())
                 .build();
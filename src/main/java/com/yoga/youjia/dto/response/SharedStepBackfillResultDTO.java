@@ -0,0 +1,39 @@
+package com.yoga.youjia.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 共享步骤回填结果DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "共享步骤回填结果")
+public class SharedStepBackfillResultDTO {
+    
+    @Schema(description = "项目ID", example = "1")
+    private Long projectId;
+    
+    @Schema(description = "扫描的独立步骤数", example = "52000")
+    private Long scannedSteps;
+    
+    @Schema(description = "改为引用共享内容的步骤数", example = "51800")
+    private Long linkedSteps;
+    
+    @Schema(description = "新建的共享步骤数", example = "1300")
+    private Long createdBodies;
+    
+    @Schema(description = "与其他步骤共用同一共享步骤的步骤数（去重命中次数），不含新建共享步骤时作为其来源的步骤", example = "50500")
+    private Long deduplicatedSteps;
+    
+    @Schema(description = "本次节省的正文字符数", example = "8600000")
+    private Long savedChars;
+    
+    @Schema(description = "耗时（毫秒）", example = "4200")
+    private Long durationMs;
+}
@@ -0,0 +1,76 @@
+package com.yoga.youjia.dto.response;
+
+import com.yoga.youjia.entity.SharedStepBody;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 共享步骤内容响应DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "共享步骤信息")
+public class SharedStepBodyResponseDTO {
+    
+    @Schema(description = "共享步骤ID", example = "1")
+    private Long id;
+    
+    @Schema(description = "所属项目ID", example = "1")
+    private Long projectId;
+    
+    @Schema(description = "内容哈希（SHA-256）")
+    private String contentHash;
+    
+    @Schema(description = "步骤描述", example = "使用管理员账号登录系统")
+    private String stepDescription;
+    
+    @Schema(description = "测试数据", example = "用户名: admin, 密码: admin123")
+    private String testData;
+    
+    @Schema(description = "预期结果", example = "登录成功并进入首页")
+    private String expectedResult;
+    
+    @Schema(description = "自动化脚本代码")
+    private String automationCode;
+    
+    @Schema(description = "引用该共享步骤的测试步骤数量", example = "320")
+    private Long referenceCount;
+    
+    @Schema(description = "创建时间", example = "2024-01-15T09:00:00")
+    private LocalDateTime createdAt;
+    
+    @Schema(description = "更新时间", example = "2024-01-15T10:30:00")
+    private LocalDateTime updatedAt;
+    
+    /**
+     * 从实体类转换为响应DTO
+     *
+     * @param body 共享步骤
+     * @param referenceCount 引用次数
+     */
+    public static SharedStepBodyResponseDTO from(SharedStepBody body, long referenceCount) {
+        if (body == null) {
+            return null;
+        }
+        
+        return SharedStepBodyResponseDTO.builder()
+                .id(body.getId())
+                .projectId(body.getProjectId())
+                .contentHash(body.getContentHash())
+                .stepDescription(body.getStepDescription())
+                .testData(body.getTestData())
+                .expectedResult(body.getExpectedResult())
+                .automationCode(body.getAutomationCode())
+                .referenceCount(referenceCount)
+                .createdAt(body.getCreatedAt())
+                .updatedAt(body.getUpdatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,44 @@
+package com.yoga.youjia.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 共享步骤存储报告DTO
+ *
+ * logicalChars 为引用步骤展开后的正文字符数，storedChars 为共享步骤实际保存的字符数，两者之差即节省的空间
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "共享步骤存储报告")
+public class SharedStepStorageReportDTO {
+    
+    @Schema(description = "项目ID", example = "1")
+    private Long projectId;
+    
+    @Schema(description = "共享步骤数", example = "1300")
+    private Long sharedBodyCount;
+    
+    @Schema(description = "未被引用的共享步骤数", example = "12")
+    private Long unreferencedBodyCount;
+    
+    @Schema(description = "引用共享内容的步骤数", example = "51800")
+    private Long referencingStepCount;
+    
+    @Schema(description = "展开后的正文字符数", example = "8800000")
+    private Long logicalChars;
+    
+    @Schema(description = "实际保存的正文字符数", example = "200000")
+    private Long storedChars;
+    
+    @Schema(description = "节省的正文字符数", example = "8600000")
+    private Long savedChars;
+    
+    @Schema(description = "平均每个共享步骤被引用的次数", example = "39.8")
+    private Double deduplicationRatio;
+}
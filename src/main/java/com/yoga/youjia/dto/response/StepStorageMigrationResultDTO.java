@@ -0,0 +1,43 @@
+package com.yoga.youjia.dto.response;
+
+import com.yoga.youjia.common.enums.StepStorageMigrationStatus;
+import com.yoga.youjia.common.enums.StepStorageMode;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 步骤存储模式迁移结果DTO
+ *
+ * 迁移在后台执行，转换数量和耗时随进度更新
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "步骤存储模式迁移结果")
+public class StepStorageMigrationResultDTO {
+    
+    @Schema(description = "项目ID", example = "1")
+    private Long projectId;
+    
+    @Schema(description = "目标存储模式", example = "DOCUMENT")
+    private StepStorageMode targetMode;
+    
+    @Schema(description = "迁移状态", example = "RUNNING")
+    private StepStorageMigrationStatus status;
+    
+    @Schema(description = "转换的测试用例数", example = "1200")
+    private Long convertedCases;
+    
+    @Schema(description = "转换的测试步骤数", example = "9800")
+    private Long convertedSteps;
+    
+    @Schema(description = "耗时（毫秒）", example = "3500")
+    private Long durationMs;
+    
+    @Schema(description = "失败原因，未失败时为空")
+    private String errorMessage;
+}
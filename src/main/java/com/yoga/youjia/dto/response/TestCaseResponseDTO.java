@@ -4,6 +4,7 @@ import com.yoga.youjia.common.enums.TestCasePriority;
 import com.yoga.youjia.common.enums.TestCaseStatus;
 import com.yoga.youjia.common.enums.TestCaseType;
 import com.yoga.youjia.entity.TestCase;
+import com.yoga.youjia.entity.TestStep;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -172,7 +173,6 @@ public class TestCaseResponseDTO {
                 .reviewComment(testCase.getReviewComment())
                 .createdAt(testCase.getCreatedAt())
                 .updatedAt(testCase.getUpdatedAt())
-                .stepCount(testCase.getStepCount())
                 .canExecute(testCase.canExecute())
                 .canEdit(testCase.canEdit())
                 .canReview(testCase.canReview());
@@ -197,13 +197,13 @@ public class TestCaseResponseDTO {
             builder.reviewedByName(testCase.getReviewer().getRealName());
         }
         
-        // 转换测试步骤
-        if (testCase.getTestSteps() != null) {
-            List<TestStepResponseDTO> stepDTOs = testCase.getTestSteps().stream()
-                    .map(TestStepResponseDTO::from)
-                    .collect(Collectors.toList());
-            builder.testSteps(stepDTOs);
-        }
+        // 转换测试步骤（文档模式下直接从用例行解码，不再加载步骤表）
+        List<TestStep> testSteps = testCase.getEffectiveTestSteps();
+        List<TestStepResponseDTO> stepDTOs = testSteps.stream()
+                .map(TestStepResponseDTO::from)
+                .collect(Collectors.toList());
+        builder.testSteps(stepDTOs)
+                .stepCount(stepDTOs.size());
         
         return builder.build();
     }
@@ -0,0 +1,69 @@
+package com.yoga.youjia.dto.response;
+
+import com.yoga.youjia.entity.TestModule;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 测试模块树节点DTO（懒加载）
+ *
+ * 只包含渲染树节点所需的字段，子模块按需展开，不触发实体上的懒加载集合
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "测试模块树节点")
+public class TestModuleTreeNodeDTO {
+
+    @Schema(description = "模块ID", example = "1")
+    private Long id;
+
+    @Schema(description = "模块名称", example = "用户管理模块")
+    private String name;
+
+    @Schema(description = "父模块ID", example = "1")
+    private Long parentId;
+
+    @Schema(description = "模块层级深度", example = "2")
+    private Integer depth;
+
+    @Schema(description = "排序序号", example = "1")
+    private Integer sortOrder;
+
+    @Schema(description = "直接子模块数量", example = "5")
+    private Long childCount;
+
+    @Schema(description = "是否存在子模块", example = "true")
+    private Boolean hasChildren;
+
+    @Schema(description = "已加载的子模块（未展开时为空）")
+    private List<TestModuleTreeNodeDTO> children;
+
+    /**
+     * 从实体类转换为树节点DTO
+     *
+     * @param testModule 测试模块
+     * @param childCount 直接子模块数量
+     */
+    public static TestModuleTreeNodeDTO from(TestModule testModule, long childCount) {
+        if (testModule == null) {
+            return null;
+        }
+
+        return TestModuleTreeNodeDTO.builder()
+                .id(testModule.getId())
+                .name(testModule.getName())
+                .parentId(testModule.getParentId())
+                .depth(testModule.getDepth())
+                .sortOrder(testModule.getSortOrder())
+                .childCount(childCount)
+                .hasChildren(childCount > 0)
+                .build();
+    }
+}
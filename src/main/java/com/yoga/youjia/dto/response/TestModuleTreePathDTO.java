@@ -0,0 +1,31 @@
+package com.yoga.youjia.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 展开到指定模块的树路径DTO
+ *
+ * 只包含从根到目标模块的祖先链以及链上每一层的兄弟节点
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Schema(description = "模块树展开路径")
+public class TestModuleTreePathDTO {
+
+    @Schema(description = "目标模块ID", example = "12")
+    private Long targetId;
+
+    @Schema(description = "从根模块到目标模块的ID链", example = "[1, 5, 12]")
+    private List<Long> path;
+
+    @Schema(description = "根层节点，路径上的节点已展开其子节点")
+    private List<TestModuleTreeNodeDTO> nodes;
+}
@@ -28,6 +28,9 @@ public class TestStepResponseDTO {
     @Schema(description = "步骤序号", example = "1")
     private Integer stepOrder;
     
+    @Schema(description = "引用的共享步骤ID（为空表示独立步骤）", example = "12")
+    private Long sharedBodyId;
+    
     @Schema(description = "步骤描述", example = "打开登录页面")
     private String stepDescription;
     
@@ -85,13 +88,14 @@ public class TestStepResponseDTO {
                 .id(testStep.getId())
                 .testCaseId(testStep.getTestCaseId())
                 .stepOrder(testStep.getStepOrder())
-                .stepDescription(testStep.getStepDescription())
-                .testData(testStep.getTestData())
-                .expectedResult(testStep.getExpectedResult())
+                .sharedBodyId(testStep.getSharedBodyId())
+                .stepDescription(testStep.getEffectiveStepDescription())
+                .testData(testStep.getEffectiveTestData())
+                .expectedResult(testStep.getEffectiveExpectedResult())
                 .remark(testStep.getRemark())
                 .isKeyStep(testStep.getIsKeyStep())
                 .automated(testStep.getAutomated())
-                .automationCode(testStep.getAutomationCode())
+                .automationCode(testStep.getEffectiveAutomationCode())
                 .estimatedTime(testStep.getEstimatedTime())
                 .enabled(testStep.getEnabled())
                 .createdAt(testStep.getCreatedAt())
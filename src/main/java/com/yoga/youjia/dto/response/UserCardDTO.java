@@ -0,0 +1,75 @@
+package com.yoga.youjia.dto.response;
+
+import com.yoga.youjia.common.enums.UserStatus;
+import com.yoga.youjia.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 用户名片DTO
+ *
+ * 只包含列表中显示用户所需的字段（ID、用户名、姓名、头像、状态），用于用户目录快照和批量查询
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserCardDTO {
+    
+    /**
+     * 用户ID
+     */
+    private Long id;
+    
+    /**
+     * 用户名
+     */
+    private String username;
+    
+    /**
+     * 真实姓名
+     */
+    private String realName;
+    
+    /**
+     * 用户头像
+     */
+    private String avatar;
+    
+    /**
+     * 用户状态代码
+     */
+    private String status;
+    
+    /**
+     * 从 [ID, 用户名, 姓名, 头像, 状态] 查询结果行创建名片
+     */
+    public static UserCardDTO fromRow(Object[] row) {
+        UserStatus status = (UserStatus) row[4];
+        return UserCardDTO.builder()
+                .id((Long) row[0])
+                .username((String) row[1])
+                .realName((String) row[2])
+                .avatar((String) row[3])
+                .status(status != null ? status.name() : null)
+                .build();
+    }
+    
+    /**
+     * 从用户实体创建名片
+     */
+    public static UserCardDTO from(User user) {
+        if (user == null) {
+            return null;
+        }
+        return UserCardDTO.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .realName(user.getRealName())
+                .avatar(user.getAvatar())
+                .status(user.getStatus() != null ? user.getStatus().name() : null)
+                .build();
+    }
+}
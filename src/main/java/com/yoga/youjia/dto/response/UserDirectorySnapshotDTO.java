@@ -0,0 +1,41 @@
+package com.yoga.youjia.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 用户目录快照DTO
+ *
+ * 客户端缓存用户名片并记下 version，下次带上 since=version 只获取此后的变化；
+ * full 为 true 时是完整快照，客户端应丢弃本地缓存
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserDirectorySnapshotDTO {
+    
+    /**
+     * 快照版本号，下次增量请求时作为 since 传回
+     */
+    private long version;
+    
+    /**
+     * 是否为完整快照
+     */
+    private boolean full;
+    
+    /**
+     * 新增或变化的用户名片（完整快照时为全部用户）
+     */
+    private List<UserCardDTO> users;
+    
+    /**
+     * 已删除的用户ID（仅增量快照）
+     */
+    private List<Long> removedIds;
+}
@@ -2,6 +2,7 @@ package com.yoga.youjia.entity;
 
 import com.yoga.youjia.common.enums.ProjectPriority;
 import com.yoga.youjia.common.enums.ProjectStatus;
+import com.yoga.youjia.common.enums.StepStorageMode;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -120,6 +121,14 @@ public class Project {
     @Column(name = "settings", columnDefinition = "TEXT")
     private String settings;
     
+    /**
+     * 测试步骤存储模式
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "step_storage_mode", nullable = false, length = 20)
+    @Builder.Default
+    private StepStorageMode stepStorageMode = StepStorageMode.ROW;
+    
     /**
      * 是否启用
      */
@@ -195,21 +204,34 @@ public class Project {
      * 检查项目是否逾期
      */
     public boolean isOverdue() {
+        return isOverdue(LocalDateTime.now());
+    }
+    
+    /**
+     * 检查项目在指定时刻是否逾期
+     */
+    public boolean isOverdue(LocalDateTime now) {
         if (endDate == null || isFinished()) {
             return false;
         }
-        return LocalDateTime.now().isAfter(endDate);
+        return now.isAfter(endDate);
     }
     
     /**
      * 获取项目进度百分比（基于时间）
      */
     public Double getTimeProgress() {
+        return getTimeProgress(LocalDateTime.now());
+    }
+    
+    /**
+     * 获取项目在指定时刻的进度百分比（基于时间）
+     */
+    public Double getTimeProgress(LocalDateTime now) {
         if (startDate == null || endDate == null) {
             return 0.0;
         }
         
-        LocalDateTime now = LocalDateTime.now();
         LocalDateTime actualStart = startDate;
         LocalDateTime actualEnd = actualEndDate != null ? actualEndDate : endDate;
         
@@ -0,0 +1,76 @@
+package com.yoga.youjia.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * 已吊销令牌实体类
+ *
+ * 两种记录：按令牌ID（jti）吊销单个令牌；按用户吊销某一时刻及之前签发的全部令牌（tokenId 为空，revokedBefore 有值）。
+ * 记录在对应令牌全部过期后即无意义，由定时任务按 expiresAt 清理，因此表始终很小
+ */
+@Entity
+@Table(name = "revoked_tokens",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_revoked_token_id", columnNames = {"token_id"})
+    },
+    indexes = {
+        @Index(name = "idx_revoked_token_subject", columnList = "subject"),
+        @Index(name = "idx_revoked_token_expires", columnList = "expires_at")
+    })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedToken {
+
+    /**
+     * 主键ID
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 令牌ID（jti），按用户吊销时为空
+     */
+    @Column(name = "token_id", length = 36)
+    private String tokenId;
+
+    /**
+     * 令牌主题（用户名）
+     */
+    @Column(name = "subject", nullable = false, length = 50)
+    private String subject;
+
+    /**
+     * 用户ID
+     */
+    @Column(name = "user_id")
+    private Long userId;
+
+    /**
+     * 按用户吊销时的截止时间，签发时间不晚于此时间的令牌全部失效
+     */
+    @Column(name = "revoked_before")
+    private LocalDateTime revokedBefore;
+
+    /**
+     * 记录失效时间，此后受影响的令牌均已自然过期，记录可以删除
+     */
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    /**
+     * 创建时间
+     */
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
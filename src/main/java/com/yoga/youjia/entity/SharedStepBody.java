@@ -0,0 +1,159 @@
+package com.yoga.youjia.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+
+/**
+ * 共享步骤内容实体类
+ *
+ * 步骤的正文（描述、测试数据、预期结果、自动化脚本）在项目内只保存一份，按内容哈希去重，
+ * 测试步骤通过 sharedBodyId 引用它，并各自保存序号、备注等用例级属性以及可选的覆盖内容。
+ * 修改共享步骤即对所有引用它的步骤生效，不需要逐行更新
+ */
+@Entity
+@Table(name = "shared_step_bodies",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_shared_step_body_project_hash", columnNames = {"project_id", "content_hash"})
+    },
+    indexes = {
+        @Index(name = "idx_shared_step_body_project", columnList = "project_id")
+    })
+@BatchSize(size = 100)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SharedStepBody {
+
+    /**
+     * 主键ID
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 所属项目ID
+     */
+    @Column(name = "project_id", nullable = false)
+    private Long projectId;
+
+    /**
+     * 内容哈希（SHA-256 十六进制），项目内唯一
+     */
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    /**
+     * 步骤描述（操作内容）
+     */
+    @Column(name = "step_description", nullable = false, columnDefinition = "TEXT")
+    private String stepDescription;
+
+    /**
+     * 测试数据
+     */
+    @Column(name = "test_data", columnDefinition = "TEXT")
+    private String testData;
+
+    /**
+     * 预期结果
+     */
+    @Column(name = "expected_result", nullable = false, columnDefinition = "TEXT")
+    private String expectedResult;
+
+    /**
+     * 自动化脚本代码
+     */
+    @Column(name = "automation_code", columnDefinition = "TEXT")
+    private String automationCode;
+
+    /**
+     * 创建人ID（回填任务生成时为空）
+     */
+    @Column(name = "created_by")
+    private Long createdBy;
+
+    /**
+     * 更新人ID
+     */
+    @Column(name = "updated_by")
+    private Long updatedBy;
+
+    /**
+     * 创建时间
+     */
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * 更新时间
+     */
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // ========== 业务方法 ==========
+
+    /**
+     * 根据当前内容重新计算内容哈希
+     */
+    public void refreshContentHash() {
+        this.contentHash = calculateContentHash(stepDescription, testData, expectedResult, automationCode);
+    }
+
+    /**
+     * 内容占用的字符数（用于统计节省的存储空间）
+     */
+    public long getContentLength() {
+        return lengthOf(stepDescription) + lengthOf(testData) + lengthOf(expectedResult) + lengthOf(automationCode);
+    }
+
+    /**
+     * 计算步骤内容哈希
+     *
+     * 每个字段写入长度前缀后再拼接，区分空值与空串，避免不同字段组合拼出相同的输入
+     */
+    public static String calculateContentHash(String stepDescription, String testData,
+                                              String expectedResult, String automationCode) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+        for (String field : new String[]{stepDescription, testData, expectedResult, automationCode}) {
+            if (field == null) {
+                digest.update("-1:".getBytes(StandardCharsets.UTF_8));
+            } else {
+                byte[] bytes = field.getBytes(StandardCharsets.UTF_8);
+                digest.update((bytes.length + ":").getBytes(StandardCharsets.UTF_8));
+                digest.update(bytes);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static long lengthOf(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "SharedStepBody{" +
+                "id=" + id +
+                ", projectId=" + projectId +
+                ", contentHash='" + contentHash + '\'' +
+                '}';
+    }
+}
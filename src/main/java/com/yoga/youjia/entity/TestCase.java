@@ -3,6 +3,7 @@ package com.yoga.youjia.entity;
 import com.yoga.youjia.common.enums.TestCasePriority;
 import com.yoga.youjia.common.enums.TestCaseStatus;
 import com.yoga.youjia.common.enums.TestCaseType;
+import com.yoga.youjia.common.utils.StepDocumentCodec;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
@@ -167,6 +168,14 @@ public class TestCase {
     @Builder.Default
     private Integer version = 1;
     
+    /**
+     * 测试步骤文档（文档存储模式下使用，行存储模式下为空）
+     *
+     * @see StepDocumentCodec
+     */
+    @Column(name = "steps_document", columnDefinition = "LONGTEXT")
+    private String stepsDocument;
+    
     /**
      * 是否启用
      */
@@ -329,10 +338,34 @@ public class TestCase {
         return getTagList().contains(tag);
     }
     
+    /**
+     * 是否使用文档模式存储步骤
+     */
+    public boolean isDocumentStorage() {
+        return stepsDocument != null;
+    }
+    
+    /**
+     * 获取当前存储模式下的步骤列表
+     *
+     * 文档模式下从 steps_document 解码，不访问 test_steps 表
+     */
+    public List<TestStep> getEffectiveTestSteps() {
+        if (isDocumentStorage()) {
+            return StepDocumentCodec.decode(stepsDocument, id);
+        }
+        return testSteps != null ? testSteps : new ArrayList<>();
+    }
+    
     /**
      * 获取用例步骤总数
+     *
+     * 文档模式下只读取文档中的步骤数量，不解码步骤
      */
     public int getStepCount() {
+        if (isDocumentStorage()) {
+            return StepDocumentCodec.countSteps(stepsDocument);
+        }
         return testSteps != null ? testSteps.size() : 0;
     }
     
@@ -458,12 +491,13 @@ public class TestCase {
                 .moduleId(this.moduleId)
                 .requirementId(this.requirementId)
                 .estimatedTime(this.estimatedTime)
+                .stepsDocument(this.stepsDocument)
                 .version(1)
                 .enabled(true)
                 .build();
         
-        // 复制测试步骤
-        if (this.testSteps != null) {
+        // 复制测试步骤（文档模式下步骤已随文档一起复制）
+        if (!isDocumentStorage() && this.testSteps != null) {
             for (TestStep step : this.testSteps) {
                 TestStep copyStep = step.copy();
                 copy.addTestStep(copyStep);
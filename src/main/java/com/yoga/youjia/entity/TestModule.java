@@ -18,7 +18,8 @@ import java.util.List;
 @Table(name = "test_modules", indexes = {
     @Index(name = "idx_test_module_project_id", columnList = "project_id"),
     @Index(name = "idx_test_module_parent_id", columnList = "parent_id"),
-    @Index(name = "idx_test_module_path", columnList = "module_path")
+    @Index(name = "idx_test_module_path", columnList = "module_path"),
+    @Index(name = "idx_test_module_project_parent_sort", columnList = "project_id, parent_id, sort_order")
 })
 @Data
 @NoArgsConstructor
@@ -15,7 +15,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "test_steps", indexes = {
     @Index(name = "idx_test_step_case_id", columnList = "test_case_id"),
-    @Index(name = "idx_test_step_order", columnList = "step_order")
+    @Index(name = "idx_test_step_order", columnList = "step_order"),
+    @Index(name = "idx_test_step_shared_body", columnList = "shared_body_id")
 })
 @Data
 @NoArgsConstructor
@@ -44,21 +45,27 @@ public class TestStep {
     private Integer stepOrder;
     
     /**
-     * 步骤描述（操作内容）
+     * 引用的共享步骤内容ID（为空表示步骤内容保存在本行）
      */
-    @Column(name = "step_description", nullable = false, columnDefinition = "TEXT")
+    @Column(name = "shared_body_id")
+    private Long sharedBodyId;
+    
+    /**
+     * 步骤描述（操作内容）；引用共享步骤时为覆盖内容，为空则使用共享内容
+     */
+    @Column(name = "step_description", columnDefinition = "TEXT")
     private String stepDescription;
     
     /**
-     * 测试数据
+     * 测试数据；引用共享步骤时为覆盖内容
      */
     @Column(name = "test_data", columnDefinition = "TEXT")
     private String testData;
     
     /**
-     * 预期结果
+     * 预期结果；引用共享步骤时为覆盖内容
      */
-    @Column(name = "expected_result", nullable = false, columnDefinition = "TEXT")
+    @Column(name = "expected_result", columnDefinition = "TEXT")
     private String expectedResult;
     
     /**
@@ -82,7 +89,7 @@ public class TestStep {
     private Boolean automated = false;
     
     /**
-     * 自动化脚本代码
+     * 自动化脚本代码；引用共享步骤时为覆盖内容
      */
     @Column(name = "automation_code", columnDefinition = "TEXT")
     private String automationCode;
@@ -124,54 +131,105 @@ public class TestStep {
     @JoinColumn(name = "test_case_id", insertable = false, updatable = false)
     private TestCase testCase;
     
+    /**
+     * 引用的共享步骤内容（多对一）
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "shared_body_id", insertable = false, updatable = false)
+    private SharedStepBody sharedBody;
+    
     // ========== 业务方法 ==========
     
+    /**
+     * 是否引用共享步骤内容
+     */
+    public boolean isShared() {
+        return sharedBodyId != null;
+    }
+    
+    /**
+     * 获取生效的步骤描述（覆盖内容优先，其次为共享内容）
+     */
+    public String getEffectiveStepDescription() {
+        return stepDescription != null || sharedBody == null ? stepDescription : sharedBody.getStepDescription();
+    }
+    
+    /**
+     * 获取生效的测试数据
+     */
+    public String getEffectiveTestData() {
+        return testData != null || sharedBody == null ? testData : sharedBody.getTestData();
+    }
+    
+    /**
+     * 获取生效的预期结果
+     */
+    public String getEffectiveExpectedResult() {
+        return expectedResult != null || sharedBody == null ? expectedResult : sharedBody.getExpectedResult();
+    }
+    
+    /**
+     * 获取生效的自动化脚本代码
+     */
+    public String getEffectiveAutomationCode() {
+        return automationCode != null || sharedBody == null ? automationCode : sharedBody.getAutomationCode();
+    }
+    
     /**
      * 检查步骤是否完整
      */
     public boolean isComplete() {
-        return stepDescription != null && !stepDescription.trim().isEmpty() &&
-               expectedResult != null && !expectedResult.trim().isEmpty();
+        String description = getEffectiveStepDescription();
+        String expected = getEffectiveExpectedResult();
+        return description != null && !description.trim().isEmpty() &&
+               expected != null && !expected.trim().isEmpty();
     }
     
     /**
      * 检查是否可以自动化
      */
     public boolean canAutomate() {
-        return automationCode != null && !automationCode.trim().isEmpty();
+        String code = getEffectiveAutomationCode();
+        return code != null && !code.trim().isEmpty();
     }
     
     /**
      * 获取步骤的简短描述（用于列表显示）
      */
     public String getShortDescription() {
-        if (stepDescription == null) {
+        String description = getEffectiveStepDescription();
+        if (description == null) {
             return "";
         }
-        if (stepDescription.length() <= 50) {
-            return stepDescription;
+        if (description.length() <= 50) {
+            return description;
         }
-        return stepDescription.substring(0, 47) + "...";
+        return description.substring(0, 47) + "...";
     }
     
     /**
      * 获取预期结果的简短描述
      */
     public String getShortExpectedResult() {
-        if (expectedResult == null) {
+        String expected = getEffectiveExpectedResult();
+        if (expected == null) {
             return "";
         }
-        if (expectedResult.length() <= 50) {
-            return expectedResult;
+        if (expected.length() <= 50) {
+            return expected;
         }
-        return expectedResult.substring(0, 47) + "...";
+        return expected.substring(0, 47) + "...";
     }
     
     /**
      * 复制步骤（创建副本）
+     * 
+     * 引用共享内容的步骤只复制引用和覆盖内容，不复制共享正文
      */
     public TestStep copy() {
         return TestStep.builder()
+                .sharedBodyId(this.sharedBodyId)
+                .sharedBody(this.sharedBody)
                 .stepOrder(this.stepOrder)
                 .stepDescription(this.stepDescription)
                 .testData(this.testData)
@@ -228,6 +286,7 @@ public class TestStep {
                 "id=" + id +
                 ", testCaseId=" + testCaseId +
                 ", stepOrder=" + stepOrder +
+                ", sharedBodyId=" + sharedBodyId +
                 ", stepDescription='" + getShortDescription() + '\'' +
                 ", isKeyStep=" + isKeyStep +
                 ", automated=" + automated +
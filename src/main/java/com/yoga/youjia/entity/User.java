@@ -25,13 +25,24 @@ import java.time.LocalDateTime;
     @Index(name = "idx_username", columnList = "username"),
     @Index(name = "idx_email", columnList = "email"),
     @Index(name = "idx_status", columnList = "status"),
-    @Index(name = "idx_role", columnList = "role")
+    @Index(name = "idx_role", columnList = "role"),
+    @Index(name = "idx_updated_at", columnList = "updated_at")
 })
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class User {
 
+    /**
+     * 连续密码错误达到该次数时锁定账户
+     */
+    public static final int MAX_PASSWORD_ERROR_COUNT = 5;
+
+    /**
+     * 密码错误锁定时长（分钟）
+     */
+    public static final int PASSWORD_LOCK_MINUTES = 30;
+
     /**
      * 用户主键ID，自动生成
      */
@@ -124,6 +135,13 @@ public class User {
      */
     private LocalDateTime lockExpireTime;
 
+    /**
+     * 令牌版本号，项目成员关系变化时递增，用于判断令牌中的项目角色是否过期
+     * 只通过 UserRepository.incrementTokenVersions 修改，保存用户实体时不会覆盖
+     */
+    @Column(nullable = false, updatable = false, columnDefinition = "bigint default 0")
+    private Long tokenVersion = 0L;
+
     /**
      * 创建者ID（由哪个管理员创建）
      */
@@ -145,6 +163,7 @@ public class User {
      * 账户最后修改时间，自动更新
      */
     @UpdateTimestamp
+    @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
     // ========== 业务方法 ==========
@@ -207,9 +226,9 @@ public class User {
         this.passwordErrorCount = (this.passwordErrorCount == null ? 0 : this.passwordErrorCount) + 1;
         
         // 如果密码错误次数超过5次，锁定账户30分钟
-        if (this.passwordErrorCount >= 5) {
+        if (this.passwordErrorCount >= MAX_PASSWORD_ERROR_COUNT) {
             this.status = UserStatus.LOCKED;
-            this.lockExpireTime = LocalDateTime.now().plusMinutes(30);
+            this.lockExpireTime = LocalDateTime.now().plusMinutes(PASSWORD_LOCK_MINUTES);
         }
     }
     
@@ -0,0 +1,77 @@
+package com.yoga.youjia.entity;
+
+import com.yoga.youjia.common.enums.ProjectStatus;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户-项目索引实体类
+ *
+ * project_members 与 projects 的反范式投影，每个（用户, 项目）一行，冗余项目状态和更新时间。
+ * “我的项目”分页和按用户的状态统计只需在 (user_id, active, updated_at) 覆盖索引上做一次范围扫描，
+ * 不再需要 DISTINCT 连接查询。由 UserProjectIndexService 在成员和项目变更时维护
+ */
+@Entity
+@Table(name = "user_project_index",
+    uniqueConstraints = {
+        @UniqueConstraint(name = "uk_user_project_index", columnNames = {"user_id", "project_id"})
+    },
+    indexes = {
+        @Index(name = "idx_user_project_index_scan", columnList = "user_id, active, updated_at, project_id, project_status"),
+        @Index(name = "idx_user_project_index_project", columnList = "project_id")
+    })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserProjectIndex {
+
+    /**
+     * 主键ID
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 用户ID
+     */
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    /**
+     * 项目ID
+     */
+    @Column(name = "project_id", nullable = false)
+    private Long projectId;
+
+    /**
+     * 是否有效：成员活跃且项目启用
+     */
+    @Column(name = "active", nullable = false)
+    private Boolean active;
+
+    /**
+     * 成员是否活跃（项目重新启用时据此恢复 active）
+     */
+    @Column(name = "member_active", nullable = false)
+    private Boolean memberActive;
+
+    /**
+     * 项目状态
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "project_status", nullable = false, length = 20)
+    private ProjectStatus projectStatus;
+
+    /**
+     * 项目更新时间（“我的项目”按此倒序）
+     */
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
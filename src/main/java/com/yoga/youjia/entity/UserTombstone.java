@@ -0,0 +1,46 @@
+package com.yoga.youjia.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户删除记录实体类
+ *
+ * 与删除用户在同一个事务中写入，用户名片增量快照据此返回删除的用户ID，所有节点看到的删除记录一致，重启后也不会丢失。
+ * 超过保留天数的记录由定时任务清理，早于保留范围的版本号改为返回完整快照
+ */
+@Entity
+@Table(name = "user_tombstones",
+    indexes = {
+        @Index(name = "idx_user_tombstone_deleted_at", columnList = "deleted_at")
+    })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserTombstone {
+
+    /**
+     * 主键ID
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 被删除的用户ID
+     */
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    /**
+     * 删除时间
+     */
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+}
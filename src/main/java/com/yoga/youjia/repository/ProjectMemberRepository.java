@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,6 +34,11 @@ public interface ProjectMemberRepository extends JpaRepository<ProjectMember, Lo
      */
     List<ProjectMember> findByProject_Id(Long projectId);
     
+    /**
+     * 根据项目ID和用户ID批量查找成员
+     */
+    List<ProjectMember> findByProject_IdAndUserIdIn(Long projectId, Collection<Long> userIds);
+    
     /**
      * 根据项目ID查找活跃成员
      */
@@ -102,6 +108,41 @@ public interface ProjectMemberRepository extends JpaRepository<ProjectMember, Lo
            "AND pm.active = true AND pm.role = 'PROJECT_MANAGER'")
     List<ProjectMember> findProjectManagersByProjectId(@Param("projectId") Long projectId);
     
+    /**
+     * 锁定项目中活跃的项目经理行并返回其用户ID
+     * 
+     * 按主键顺序加行锁，移除成员和调整角色时先调用，使“至少保留一个项目经理”的检查在并发事务间串行执行
+     */
+    @Query(value = "SELECT user_id FROM project_members WHERE project_id = :projectId " +
+                   "AND active = TRUE AND role = 'PROJECT_MANAGER' ORDER BY id FOR UPDATE",
+           nativeQuery = true)
+    List<Long> lockProjectManagerUserIds(@Param("projectId") Long projectId);
+    
+    /**
+     * 锁定项目中指定用户的成员行并查询成员状态
+     * 
+     * 按主键顺序加行锁。只查询标量列，不把成员实体载入持久化上下文，调用方随后用 JDBC 批量更新时不会留下过期实体
+     * 
+     * @return [用户ID, 角色名称, 是否活跃] 列表
+     */
+    @Query(value = "SELECT user_id, role, active FROM project_members " +
+                   "WHERE project_id = :projectId AND user_id IN (:userIds) ORDER BY id FOR UPDATE",
+           nativeQuery = true)
+    List<Object[]> lockMemberStatesByProjectIdAndUserIdIn(@Param("projectId") Long projectId,
+                                                          @Param("userIds") Collection<Long> userIds);
+    
+    /**
+     * 查询项目中指定用户的成员是否活跃
+     * 
+     * 只查询标量列，读到的是数据库中的当前状态，不受持久化上下文中过期实体的影响
+     * 
+     * @return [用户ID, 是否活跃] 列表
+     */
+    @Query(value = "SELECT user_id, active FROM project_members WHERE project_id = :projectId AND user_id IN (:userIds)",
+           nativeQuery = true)
+    List<Object[]> findActiveStatesByProjectIdAndUserIdIn(@Param("projectId") Long projectId,
+                                                          @Param("userIds") Collection<Long> userIds);
+    
     /**
      * 检查用户是否为项目管理员
      */
@@ -157,6 +198,23 @@ public interface ProjectMemberRepository extends JpaRepository<ProjectMember, Lo
            "AND pm.project.id IN :projectIds AND pm.active = true")
     List<ProjectMember> findUserRolesInProjects(@Param("userId") Long userId, @Param("projectIds") List<Long> projectIds);
     
+    /**
+     * 查询用户参与的所有项目及角色（仅活跃成员，不加载项目实体）
+     *
+     * @return [项目ID, 角色] 列表
+     */
+    @Query("SELECT pm.project.id, pm.role FROM ProjectMember pm " +
+           "WHERE pm.userId = :userId AND pm.active = true AND pm.leftAt IS NULL")
+    List<Object[]> findActiveProjectRolesByUserId(@Param("userId") Long userId);
+    
+    /**
+     * 按项目分组统计成员记录数量（与 Project.getMemberCount 口径一致，包括已离开的成员）
+     *
+     * @return [项目ID, 成员数] 列表，没有成员的项目不在结果中
+     */
+    @Query("SELECT pm.project.id, COUNT(pm) FROM ProjectMember pm WHERE pm.project.id IN :projectIds GROUP BY pm.project.id")
+    List<Object[]> countMembersByProjectIds(@Param("projectIds") Collection<Long> projectIds);
+    
     /**
      * 删除项目的所有成员
      */
@@ -1,10 +1,12 @@
 package com.yoga.youjia.repository;
 
 import com.yoga.youjia.common.enums.ProjectStatus;
+import com.yoga.youjia.common.enums.StepStorageMode;
 import com.yoga.youjia.entity.Project;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -95,6 +97,15 @@ public interface ProjectRepository extends JpaRepository<Project, Long> {
            "AND p.endDate IS NOT NULL AND p.endDate < :now")
     List<Project> findOverdueProjects(@Param("now") LocalDateTime now);
     
+    /**
+     * 查询需要跟踪截止时间的项目（启用、规划中或进行中、设置了结束时间）
+     * 
+     * @return [项目ID, 预计结束时间] 列表
+     */
+    @Query("SELECT p.id, p.endDate FROM Project p WHERE p.enabled = true AND p.status IN ('PLANNING', 'ACTIVE') " +
+           "AND p.endDate IS NOT NULL")
+    List<Object[]> findDeadlineTrackedProjects();
+    
     /**
      * 根据用户ID查找用户参与的项目
      */
@@ -135,6 +146,17 @@ public interface ProjectRepository extends JpaRepository<Project, Long> {
     @Query("SELECT p.status, COUNT(p) FROM Project p WHERE p.enabled = true GROUP BY p.status")
     List<Object[]> countProjectsByStatus();
     
+    /**
+     * 一次扫描统计各状态的项目数量，以及其中已逾期和在截止时间前到期的数量
+     *
+     * @return [状态, 项目数, 逾期数, 即将到期数] 列表
+     */
+    @Query("SELECT p.status, COUNT(p), " +
+           "SUM(CASE WHEN p.endDate < :now THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN p.endDate BETWEEN :now AND :deadline THEN 1 ELSE 0 END) " +
+           "FROM Project p WHERE p.enabled = true GROUP BY p.status")
+    List<Object[]> summarizeProjectsByStatus(@Param("now") LocalDateTime now, @Param("deadline") LocalDateTime deadline);
+    
     /**
      * 统计指定用户各状态的项目数量
      */
@@ -171,4 +193,17 @@ public interface ProjectRepository extends JpaRepository<Project, Long> {
         @Param("endDate") LocalDateTime endDate,
         Pageable pageable
     );
-}
\ No newline at end of file
+    
+    /**
+     * 查询项目的测试步骤存储模式
+     */
+    @Query("SELECT p.stepStorageMode FROM Project p WHERE p.id = :projectId")
+    Optional<StepStorageMode> findStepStorageModeById(@Param("projectId") Long projectId);
+    
+    /**
+     * 切换项目的测试步骤存储模式
+     */
+    @Modifying
+    @Query("UPDATE Project p SET p.stepStorageMode = :mode WHERE p.id = :projectId")
+    int updateStepStorageMode(@Param("projectId") Long projectId, @Param("mode") StepStorageMode mode);
+}
@@ -0,0 +1,47 @@
+package com.yoga.youjia.repository;
+
+import com.yoga.youjia.entity.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 已吊销令牌数据访问层接口
+ */
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+    /**
+     * 令牌ID是否已被吊销
+     */
+    boolean existsByTokenId(String tokenId);
+
+    /**
+     * 查询全部已吊销的令牌ID
+     */
+    @Query("SELECT r.tokenId FROM RevokedToken r WHERE r.tokenId IS NOT NULL")
+    List<String> findAllTokenIds();
+
+    /**
+     * 查询每个用户最近一次按用户吊销的截止时间
+     *
+     * @return [用户名, 截止时间] 列表
+     */
+    @Query("SELECT r.subject, MAX(r.revokedBefore) FROM RevokedToken r " +
+           "WHERE r.revokedBefore IS NOT NULL GROUP BY r.subject")
+    List<Object[]> findLatestRevokedBeforeBySubject();
+
+    /**
+     * 删除已失效的吊销记录
+     *
+     * @return 删除的记录数
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
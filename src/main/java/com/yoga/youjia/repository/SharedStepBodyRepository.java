@@ -0,0 +1,53 @@
+package com.yoga.youjia.repository;
+
+import com.yoga.youjia.entity.SharedStepBody;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 共享步骤内容数据访问层接口
+ */
+public interface SharedStepBodyRepository extends JpaRepository<SharedStepBody, Long> {
+    
+    /**
+     * 根据项目ID和ID查找共享步骤
+     */
+    Optional<SharedStepBody> findByIdAndProjectId(Long id, Long projectId);
+    
+    /**
+     * 根据项目ID和ID批量查找共享步骤
+     */
+    List<SharedStepBody> findByProjectIdAndIdIn(Long projectId, Collection<Long> ids);
+    
+    /**
+     * 根据内容哈希查找共享步骤
+     */
+    Optional<SharedStepBody> findByProjectIdAndContentHash(Long projectId, String contentHash);
+    
+    /**
+     * 根据内容哈希批量查找共享步骤
+     */
+    List<SharedStepBody> findByProjectIdAndContentHashIn(Long projectId, Collection<String> contentHashes);
+    
+    /**
+     * 分页查询项目下的共享步骤
+     */
+    Page<SharedStepBody> findByProjectId(Long projectId, Pageable pageable);
+    
+    /**
+     * 统计项目下共享步骤的数量和实际存储的字符数
+     *
+     * @return 单行 [count, chars]
+     */
+    @Query("SELECT COUNT(b), COALESCE(SUM(LENGTH(b.stepDescription) + LENGTH(b.expectedResult) + " +
+           "COALESCE(LENGTH(b.testData), 0) + COALESCE(LENGTH(b.automationCode), 0)), 0) " +
+           "FROM SharedStepBody b WHERE b.projectId = :projectId")
+    List<Object[]> summarizeBodiesByProjectId(@Param("projectId") Long projectId);
+}
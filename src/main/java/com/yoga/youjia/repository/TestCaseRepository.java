@@ -6,11 +6,15 @@ import com.yoga.youjia.common.enums.TestCaseType;
 import com.yoga.youjia.entity.TestCase;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -218,4 +222,53 @@ public interface TestCaseRepository extends JpaRepository<TestCase, Long> {
     List<TestCase> findSimilarTestCases(@Param("projectId") Long projectId, 
                                        @Param("excludeId") Long excludeId, 
                                        @Param("titleKeyword") String titleKeyword);
-}
\ No newline at end of file
+    
+    /**
+     * 根据ID查找测试用例并加行锁（用于串行化同一用例下的步骤调整）
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT tc FROM TestCase tc WHERE tc.id = :id")
+    Optional<TestCase> findByIdForUpdate(@Param("id") Long id);
+    
+    // ========== 步骤存储模式 ==========
+    
+    /**
+     * 查询测试用例的步骤文档（行存储模式下为空）
+     */
+    @Query("SELECT tc.stepsDocument FROM TestCase tc WHERE tc.id = :id")
+    Optional<String> findStepsDocumentById(@Param("id") Long id);
+    
+    /**
+     * 按ID递增分批查询仍使用行存储的用例ID
+     */
+    @Query("SELECT tc.id FROM TestCase tc WHERE " +
+           "tc.projectId = :projectId AND tc.id > :afterId AND tc.stepsDocument IS NULL " +
+           "ORDER BY tc.id")
+    List<Long> findRowStorageCaseIds(@Param("projectId") Long projectId,
+                                     @Param("afterId") Long afterId,
+                                     Pageable pageable);
+    
+    /**
+     * 按ID递增分批查询使用文档存储的用例ID
+     */
+    @Query("SELECT tc.id FROM TestCase tc WHERE " +
+           "tc.projectId = :projectId AND tc.id > :afterId AND tc.stepsDocument IS NOT NULL " +
+           "ORDER BY tc.id")
+    List<Long> findDocumentStorageCaseIds(@Param("projectId") Long projectId,
+                                          @Param("afterId") Long afterId,
+                                          Pageable pageable);
+    
+    /**
+     * 按ID顺序批量查询测试用例并加行锁（存储模式迁移期间阻止并发的步骤写入）
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT tc FROM TestCase tc WHERE tc.id IN :ids ORDER BY tc.id")
+    List<TestCase> findAllByIdInForUpdate(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * 批量清空用例的步骤文档（切回行存储）
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE TestCase tc SET tc.stepsDocument = NULL WHERE tc.id IN :ids")
+    int clearStepsDocuments(@Param("ids") Collection<Long> ids);
+}
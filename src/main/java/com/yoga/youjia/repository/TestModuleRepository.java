@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -126,4 +127,67 @@ public interface TestModuleRepository extends JpaRepository<TestModule, Long> {
            "tm.enabled = true " +
            "ORDER BY tm.depth, tm.modulePath, tm.sortOrder, tm.id")
     List<TestModule> findModuleTreeByProjectId(@Param("projectId") Long projectId);
-}
\ No newline at end of file
+    
+    // ========== 懒加载树查询 ==========
+    
+    /**
+     * 分页查询根模块（懒加载树）
+     */
+    Page<TestModule> findByProjectIdAndParentIdIsNullAndEnabledTrue(Long projectId, Pageable pageable);
+    
+    /**
+     * 分页查询指定父模块下的子模块（懒加载树）
+     */
+    Page<TestModule> findByProjectIdAndParentIdAndEnabledTrue(Long projectId, Long parentId, Pageable pageable);
+    
+    /**
+     * 批量统计各父模块下的子模块数量
+     *
+     * @return 每行为 [parentId, count]
+     */
+    @Query("SELECT tm.parentId, COUNT(tm) FROM TestModule tm WHERE " +
+           "tm.projectId = :projectId AND " +
+           "tm.enabled = true AND " +
+           "tm.parentId IN :parentIds " +
+           "GROUP BY tm.parentId")
+    List<Object[]> countChildrenByParentIds(@Param("projectId") Long projectId,
+                                            @Param("parentIds") Collection<Long> parentIds);
+    
+    /**
+     * 批量查询多个父模块下排序靠前的子模块，每个父模块最多返回 limit 个
+     */
+    @Query(value = "SELECT tm.* FROM test_modules tm WHERE tm.id IN (" +
+                   "SELECT ranked.id FROM (" +
+                   "SELECT c.id, ROW_NUMBER() OVER (PARTITION BY c.parent_id ORDER BY c.sort_order, c.id) AS rn " +
+                   "FROM test_modules c " +
+                   "WHERE c.project_id = :projectId AND c.enabled = TRUE AND c.parent_id IN (:parentIds)" +
+                   ") ranked WHERE ranked.rn <= :limit) " +
+                   "ORDER BY tm.parent_id, tm.sort_order, tm.id",
+           nativeQuery = true)
+    List<TestModule> findTopChildrenByParentIds(@Param("projectId") Long projectId,
+                                                @Param("parentIds") Collection<Long> parentIds,
+                                                @Param("limit") int limit);
+    
+    /**
+     * 查询模块的祖先链（按从根到自身的顺序返回ID）
+     *
+     * 每一级都限定在同一项目内且已启用；祖先中有禁用的模块或链条未到达根节点时返回空列表
+     */
+    @Query(value = "WITH RECURSIVE ancestors (id, parent_id, lvl) AS (" +
+                   "SELECT m.id, m.parent_id, 0 FROM test_modules m " +
+                   "WHERE m.id = :moduleId AND m.project_id = :projectId AND m.enabled = TRUE " +
+                   "UNION ALL " +
+                   "SELECT p.id, p.parent_id, a.lvl + 1 FROM test_modules p " +
+                   "JOIN ancestors a ON p.id = a.parent_id " +
+                   "WHERE p.project_id = :projectId AND p.enabled = TRUE AND a.lvl < 64" +
+                   ") SELECT a.id FROM ancestors a " +
+                   "WHERE EXISTS (SELECT 1 FROM ancestors r WHERE r.parent_id IS NULL) " +
+                   "ORDER BY a.lvl DESC",
+           nativeQuery = true)
+    List<Long> findAncestorIdsFromRoot(@Param("projectId") Long projectId, @Param("moduleId") Long moduleId);
+    
+    /**
+     * 按ID批量查询项目内启用的模块
+     */
+    List<TestModule> findByProjectIdAndIdInAndEnabledTrue(Long projectId, Collection<Long> ids);
+}
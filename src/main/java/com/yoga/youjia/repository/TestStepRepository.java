@@ -1,20 +1,27 @@
 package com.yoga.youjia.repository;
 
 import com.yoga.youjia.entity.TestStep;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * 测试步骤数据访问层接口
  */
-public interface TestStepRepository extends JpaRepository<TestStep, Long> {
+public interface TestStepRepository extends JpaRepository<TestStep, Long>, TestStepRepositoryCustom {
     
     /**
      * 根据测试用例ID查找所有步骤
      */
+    @EntityGraph(attributePaths = "sharedBody")
     List<TestStep> findByTestCaseIdAndEnabledTrueOrderByStepOrderAsc(Long testCaseId);
     
     /**
@@ -25,11 +32,13 @@ public interface TestStepRepository extends JpaRepository<TestStep, Long> {
     /**
      * 根据测试用例ID获取关键步骤
      */
+    @EntityGraph(attributePaths = "sharedBody")
     List<TestStep> findByTestCaseIdAndIsKeyStepTrueAndEnabledTrueOrderByStepOrderAsc(Long testCaseId);
     
     /**
      * 根据测试用例ID获取自动化步骤
      */
+    @EntityGraph(attributePaths = "sharedBody")
     List<TestStep> findByTestCaseIdAndAutomatedTrueAndEnabledTrueOrderByStepOrderAsc(Long testCaseId);
     
     /**
@@ -48,6 +57,7 @@ public interface TestStepRepository extends JpaRepository<TestStep, Long> {
     /**
      * 批量更新步骤序号
      */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
     @Query("UPDATE TestStep ts SET ts.stepOrder = :newOrder WHERE ts.id = :stepId")
     void updateStepOrder(@Param("stepId") Long stepId, @Param("newOrder") Integer newOrder);
     
@@ -94,4 +104,93 @@ public interface TestStepRepository extends JpaRepository<TestStep, Long> {
     @Query("SELECT COUNT(ts) FROM TestStep ts JOIN ts.testCase tc WHERE " +
            "tc.projectId = :projectId AND ts.enabled = true AND tc.enabled = true AND ts.isKeyStep = true")
     Long countKeyStepsByProjectId(@Param("projectId") Long projectId);
-}
\ No newline at end of file
+    
+    /**
+     * 按当前顺序获取用例下所有有效步骤的ID
+     */
+    @Query("SELECT ts.id FROM TestStep ts WHERE " +
+           "ts.testCaseId = :testCaseId AND ts.enabled = true " +
+           "ORDER BY ts.stepOrder, ts.id")
+    List<Long> findStepIdsByTestCaseId(@Param("testCaseId") Long testCaseId);
+    
+    /**
+     * 获取用例下所有有效步骤的序号
+     */
+    @Query("SELECT ts.stepOrder FROM TestStep ts WHERE ts.testCaseId = :testCaseId AND ts.enabled = true")
+    List<Integer> findStepOrdersByTestCaseId(@Param("testCaseId") Long testCaseId);
+    
+    /**
+     * 获取步骤所属的测试用例ID，不加载步骤实体
+     */
+    @Query("SELECT ts.testCaseId FROM TestStep ts WHERE ts.id = :stepId")
+    Optional<Long> findTestCaseIdById(@Param("stepId") Long stepId);
+    
+    /**
+     * 获取步骤当前序号
+     */
+    @Query("SELECT ts.stepOrder FROM TestStep ts WHERE ts.id = :stepId")
+    Integer findStepOrderById(@Param("stepId") Long stepId);
+    
+    /**
+     * 区间平移步骤序号（一条语句完成）
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE TestStep ts SET ts.stepOrder = ts.stepOrder + :delta, ts.updatedAt = :updatedAt WHERE " +
+           "ts.testCaseId = :testCaseId AND ts.enabled = true AND " +
+           "ts.stepOrder BETWEEN :fromOrder AND :toOrder")
+    int shiftStepOrders(@Param("testCaseId") Long testCaseId,
+                        @Param("fromOrder") Integer fromOrder,
+                        @Param("toOrder") Integer toOrder,
+                        @Param("delta") int delta,
+                        @Param("updatedAt") LocalDateTime updatedAt);
+    
+    /**
+     * 批量查询多个用例的有效步骤
+     */
+    @EntityGraph(attributePaths = "sharedBody")
+    List<TestStep> findByTestCaseIdInAndEnabledTrueOrderByTestCaseIdAscStepOrderAsc(Collection<Long> testCaseIds);
+    
+    /**
+     * 批量软删除多个用例的有效步骤，已禁用的历史步骤保持不变
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE TestStep ts SET ts.enabled = false, ts.updatedAt = :now " +
+           "WHERE ts.testCaseId IN :testCaseIds AND ts.enabled = true")
+    int softDeleteByTestCaseIds(@Param("testCaseIds") Collection<Long> testCaseIds,
+                                @Param("now") LocalDateTime now);
+    
+    // ========== 共享步骤 ==========
+    
+    /**
+     * 按ID游标查询项目中尚未引用共享内容的行存储步骤（共享步骤回填）
+     */
+    @Query("SELECT ts FROM TestStep ts WHERE " +
+           "ts.testCaseId IN (SELECT tc.id FROM TestCase tc WHERE tc.projectId = :projectId AND tc.stepsDocument IS NULL) AND " +
+           "ts.sharedBodyId IS NULL AND ts.enabled = true AND ts.id > :afterId " +
+           "ORDER BY ts.id")
+    List<TestStep> findUnsharedStepsByProjectId(@Param("projectId") Long projectId,
+                                                @Param("afterId") Long afterId,
+                                                Pageable pageable);
+    
+    /**
+     * 批量统计共享步骤的引用次数
+     *
+     * @return 每行为 [sharedBodyId, count]
+     */
+    @Query("SELECT ts.sharedBodyId, COUNT(ts) FROM TestStep ts WHERE " +
+           "ts.sharedBodyId IN :sharedBodyIds AND ts.enabled = true " +
+           "GROUP BY ts.sharedBodyId")
+    List<Object[]> countReferencesBySharedBodyIds(@Param("sharedBodyIds") Collection<Long> sharedBodyIds);
+    
+    /**
+     * 统计项目中引用共享内容的步骤数、被引用的共享步骤数，以及这些步骤展开后的字符数
+     *
+     * @return 单行 [stepCount, distinctBodyCount, chars]
+     */
+    @Query("SELECT COUNT(ts), COUNT(DISTINCT ts.sharedBodyId), " +
+           "COALESCE(SUM(LENGTH(b.stepDescription) + LENGTH(b.expectedResult) + " +
+           "COALESCE(LENGTH(b.testData), 0) + COALESCE(LENGTH(b.automationCode), 0)), 0) " +
+           "FROM TestStep ts JOIN ts.sharedBody b WHERE " +
+           "b.projectId = :projectId AND ts.enabled = true")
+    List<Object[]> summarizeSharedReferencesByProjectId(@Param("projectId") Long projectId);
+}
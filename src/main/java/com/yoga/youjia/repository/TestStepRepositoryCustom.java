@@ -0,0 +1,34 @@
+package com.yoga.youjia.repository;
+
+import com.yoga.youjia.entity.TestStep;
+
+import java.util.List;
+
+/**
+ * 测试步骤数据访问层的自定义扩展
+ *
+ * 放置 Spring Data 派生查询无法表达的集合式写操作
+ */
+public interface TestStepRepositoryCustom {
+    
+    /**
+     * 按给定的步骤ID顺序重写步骤序号（序号从1开始）
+     *
+     * 使用 UPDATE ... SET step_order = CASE id WHEN ... END 一次写入，而不是逐行保存
+     *
+     * @param testCaseId 测试用例ID
+     * @param orderedStepIds 按新顺序排列的步骤ID
+     * @return 更新的行数
+     */
+    int applyStepOrder(Long testCaseId, List<Long> orderedStepIds);
+    
+    /**
+     * 批量插入测试步骤
+     *
+     * 使用 JDBC 批处理按块插入并回填自增ID，语句数量与步骤数量无关，只与分块数有关
+     *
+     * @param testSteps 待插入的步骤（ID为空）
+     * @return 插入的行数
+     */
+    int batchInsert(List<TestStep> testSteps);
+}
@@ -0,0 +1,160 @@
+package com.yoga.youjia.repository;
+
+import com.yoga.youjia.entity.TestStep;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 测试步骤数据访问层自定义扩展的实现
+ */
+public class TestStepRepositoryCustomImpl implements TestStepRepositoryCustom {
+    
+    /**
+     * 单条 CASE 语句包含的最大步骤数，避免超出数据库的参数个数限制
+     */
+    private static final int MAX_CASE_SIZE = 500;
+    
+    /**
+     * 批量插入时每次 executeBatch 的行数
+     */
+    private static final int INSERT_BATCH_SIZE = 500;
+    
+    private static final String INSERT_STEP_SQL =
+            "INSERT INTO test_steps (test_case_id, shared_body_id, step_order, step_description, test_data, " +
+            "expected_result, remark, is_key_step, automated, automation_code, estimated_time, enabled, " +
+            "created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Override
+    public int applyStepOrder(Long testCaseId, List<Long> orderedStepIds) {
+        if (orderedStepIds.isEmpty()) {
+            return 0;
+        }
+        
+        // 先把持久化上下文中的修改刷到数据库，更新后清空，避免读到旧的序号
+        entityManager.flush();
+        
+        LocalDateTime now = LocalDateTime.now();
+        int updated = 0;
+        for (int from = 0; from < orderedStepIds.size(); from += MAX_CASE_SIZE) {
+            int to = Math.min(from + MAX_CASE_SIZE, orderedStepIds.size());
+            updated += applyChunk(testCaseId, orderedStepIds, from, to, now);
+        }
+        
+        entityManager.clear();
+        return updated;
+    }
+    
+    private int applyChunk(Long testCaseId, List<Long> orderedStepIds, int from, int to, LocalDateTime now) {
+        StringBuilder sql = new StringBuilder("UPDATE test_steps SET step_order = CASE id");
+        int position = 1;
+        for (int i = from; i < to; i++) {
+            sql.append(" WHEN ?").append(position++).append(" THEN ?").append(position++);
+        }
+        sql.append(" END, updated_at = ?").append(position++)
+           .append(" WHERE test_case_id = ?").append(position++)
+           .append(" AND id IN (");
+        for (int i = from; i < to; i++) {
+            sql.append(i > from ? ", ?" : "?").append(position++);
+        }
+        sql.append(")");
+        
+        Query query = entityManager.createNativeQuery(sql.toString());
+        position = 1;
+        for (int i = from; i < to; i++) {
+            query.setParameter(position++, orderedStepIds.get(i));
+            query.setParameter(position++, i + 1);
+        }
+        query.setParameter(position++, now);
+        query.setParameter(position++, testCaseId);
+        for (int i = from; i < to; i++) {
+            query.setParameter(position++, orderedStepIds.get(i));
+        }
+        return query.executeUpdate();
+    }
+    
+    @Override
+    public int batchInsert(List<TestStep> testSteps) {
+        if (testSteps.isEmpty()) {
+            return 0;
+        }
+        
+        entityManager.flush();
+        
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp timestamp = Timestamp.valueOf(now);
+        Integer inserted = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            int rows = 0;
+            try (PreparedStatement ps = connection.prepareStatement(INSERT_STEP_SQL, Statement.RETURN_GENERATED_KEYS)) {
+                for (int from = 0; from < testSteps.size(); from += INSERT_BATCH_SIZE) {
+                    int to = Math.min(from + INSERT_BATCH_SIZE, testSteps.size());
+                    for (int i = from; i < to; i++) {
+                        bindStep(ps, testSteps.get(i), timestamp);
+                        ps.addBatch();
+                    }
+                    for (int count : ps.executeBatch()) {
+                        rows += count == Statement.SUCCESS_NO_INFO ? 1 : count;
+                    }
+                    
+                    // 按插入顺序回填自增ID
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        int i = from;
+                        while (keys.next() && i < to) {
+                            testSteps.get(i++).setId(keys.getLong(1));
+                        }
+                    }
+                }
+            }
+            return rows;
+        });
+        
+        for (TestStep testStep : testSteps) {
+            testStep.setCreatedAt(now);
+            testStep.setUpdatedAt(now);
+        }
+        return inserted != null ? inserted : 0;
+    }
+    
+    private void bindStep(PreparedStatement ps, TestStep step, Timestamp timestamp) throws SQLException {
+        ps.setLong(1, step.getTestCaseId());
+        if (step.getSharedBodyId() != null) {
+            ps.setLong(2, step.getSharedBodyId());
+        } else {
+            ps.setNull(2, Types.BIGINT);
+        }
+        ps.setInt(3, step.getStepOrder());
+        ps.setString(4, step.getStepDescription());
+        ps.setString(5, step.getTestData());
+        ps.setString(6, step.getExpectedResult());
+        ps.setString(7, step.getRemark());
+        ps.setBoolean(8, Boolean.TRUE.equals(step.getIsKeyStep()));
+        ps.setBoolean(9, Boolean.TRUE.equals(step.getAutomated()));
+        ps.setString(10, step.getAutomationCode());
+        if (step.getEstimatedTime() != null) {
+            ps.setInt(11, step.getEstimatedTime());
+        } else {
+            ps.setNull(11, Types.INTEGER);
+        }
+        ps.setBoolean(12, !Boolean.FALSE.equals(step.getEnabled()));
+        ps.setTimestamp(13, timestamp);
+        ps.setTimestamp(14, timestamp);
+    }
+}
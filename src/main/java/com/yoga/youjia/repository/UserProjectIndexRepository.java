@@ -0,0 +1,67 @@
+package com.yoga.youjia.repository;
+
+import com.yoga.youjia.common.enums.ProjectStatus;
+import com.yoga.youjia.entity.UserProjectIndex;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 用户-项目索引数据访问层接口
+ */
+public interface UserProjectIndexRepository extends JpaRepository<UserProjectIndex, Long> {
+
+    /**
+     * 分页查询用户参与的有效项目ID，按项目更新时间倒序
+     */
+    @Query(value = "SELECT i.projectId FROM UserProjectIndex i WHERE i.userId = :userId AND i.active = true " +
+                   "ORDER BY i.updatedAt DESC, i.projectId DESC",
+           countQuery = "SELECT COUNT(i) FROM UserProjectIndex i WHERE i.userId = :userId AND i.active = true")
+    Page<Long> findActiveProjectIdsByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * 统计用户参与的有效项目中各状态的数量
+     *
+     * @return [项目状态, 数量] 列表
+     */
+    @Query("SELECT i.projectStatus, COUNT(i) FROM UserProjectIndex i WHERE i.userId = :userId AND i.active = true " +
+           "GROUP BY i.projectStatus")
+    List<Object[]> countActiveProjectsByStatus(@Param("userId") Long userId);
+
+    /**
+     * 查询项目中指定用户的索引行
+     */
+    List<UserProjectIndex> findByProjectIdAndUserIdIn(Long projectId, Collection<Long> userIds);
+
+    /**
+     * 查询项目中已有索引行的用户ID
+     */
+    @Query("SELECT i.userId FROM UserProjectIndex i WHERE i.projectId = :projectId AND i.userId IN :userIds")
+    List<Long> findUserIdsByProjectIdAndUserIdIn(@Param("projectId") Long projectId,
+                                                 @Param("userIds") Collection<Long> userIds);
+
+    /**
+     * 同步启用项目的状态和更新时间，有效标记恢复为成员是否活跃
+     */
+    @Modifying
+    @Query("UPDATE UserProjectIndex i SET i.projectStatus = :status, i.active = i.memberActive, i.updatedAt = :updatedAt " +
+           "WHERE i.projectId = :projectId")
+    int syncEnabledProject(@Param("projectId") Long projectId, @Param("status") ProjectStatus status,
+                           @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * 同步停用项目的状态和更新时间，全部标记为无效
+     */
+    @Modifying
+    @Query("UPDATE UserProjectIndex i SET i.projectStatus = :status, i.active = false, i.updatedAt = :updatedAt " +
+           "WHERE i.projectId = :projectId")
+    int syncDisabledProject(@Param("projectId") Long projectId, @Param("status") ProjectStatus status,
+                            @Param("updatedAt") LocalDateTime updatedAt);
+}
@@ -6,9 +6,14 @@ import com.yoga.youjia.common.enums.UserRole;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -79,4 +84,83 @@ public interface UserRepository extends JpaRepository<User, Long> {
             @Param("status") UserStatus status,
             @Param("role") UserRole role,
             Pageable pageable);
+
+    /**
+     * 按主键游标翻页查询用户，不统计总数
+     *
+     * @param afterId 上一页最后一个用户的ID
+     * @param pageable 只使用其中的每页大小
+     */
+    List<User> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    /**
+     * 查询全部用户的名片字段，不加载实体
+     *
+     * @return [ID, 用户名, 姓名, 头像, 状态] 列表
+     */
+    @Query("SELECT u.id, u.username, u.realName, u.avatar, u.status FROM User u ORDER BY u.id")
+    List<Object[]> findAllUserCards();
+
+    /**
+     * 按ID批量查询用户的名片字段
+     *
+     * @return [ID, 用户名, 姓名, 头像, 状态] 列表
+     */
+    @Query("SELECT u.id, u.username, u.realName, u.avatar, u.status FROM User u WHERE u.id IN :ids")
+    List<Object[]> findUserCardsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 查询指定时间及之后修改过的用户的名片字段
+     *
+     * @return [ID, 用户名, 姓名, 头像, 状态] 列表
+     */
+    @Query("SELECT u.id, u.username, u.realName, u.avatar, u.status FROM User u " +
+           "WHERE u.updatedAt >= :since ORDER BY u.id")
+    List<Object[]> findUserCardsUpdatedSince(@Param("since") LocalDateTime since);
+
+    /**
+     * 查询给定ID中实际存在的用户ID
+     */
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 查询用户当前的令牌版本号
+     *
+     * @param id 用户ID
+     * @return 令牌版本号，用户不存在时返回null
+     */
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+    Long findTokenVersionById(@Param("id") Long id);
+
+    /**
+     * 递增用户的令牌版本号，使已签发令牌中的项目角色失效
+     *
+     * 不清空持久化上下文，调用方事务中已加载的成员实体仍可继续使用；
+     * tokenVersion 列不可通过实体更新，上下文中旧的版本号不会被写回
+     *
+     * @param ids 用户ID集合
+     * @return 更新的行数
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE User u SET u.tokenVersion = u.tokenVersion + 1 WHERE u.id IN :ids")
+    int incrementTokenVersions(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 因密码错误锁定用户，已锁定的用户不更新
+     *
+     * @param id 用户ID
+     * @param passwordErrorCount 锁定时的密码错误次数
+     * @param lockExpireTime 锁定到期时间
+     * @return 更新的行数
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.status = com.yoga.youjia.common.enums.UserStatus.LOCKED, " +
+           "u.passwordErrorCount = :passwordErrorCount, u.lockExpireTime = :lockExpireTime, " +
+           "u.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE u.id = :id AND u.status <> com.yoga.youjia.common.enums.UserStatus.LOCKED")
+    int lockForPasswordErrors(@Param("id") Long id,
+                              @Param("passwordErrorCount") Integer passwordErrorCount,
+                              @Param("lockExpireTime") LocalDateTime lockExpireTime);
 }
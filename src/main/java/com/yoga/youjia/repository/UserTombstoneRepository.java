@@ -0,0 +1,33 @@
+package com.yoga.youjia.repository;
+
+import com.yoga.youjia.entity.UserTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 用户删除记录数据访问层接口
+ */
+public interface UserTombstoneRepository extends JpaRepository<UserTombstone, Long> {
+
+    /**
+     * 查询指定时间及之后删除的用户ID
+     */
+    @Query("SELECT t.userId FROM UserTombstone t WHERE t.deletedAt >= :since ORDER BY t.id")
+    List<Long> findUserIdsDeletedSince(@Param("since") LocalDateTime since);
+
+    /**
+     * 删除指定时间之前的删除记录
+     *
+     * @return 删除的记录数
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM UserTombstone t WHERE t.deletedAt < :before")
+    int deleteDeletedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,32 @@
+package com.yoga.youjia.security.annotation;
+
+import com.yoga.youjia.common.enums.ProjectMemberRole;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 声明式项目角色检查
+ *
+ * 标注在控制器或服务方法（或类）上，调用前检查当前登录用户在项目中的角色不低于指定角色，
+ * 项目ID取自名为 projectId 的方法参数。例如 @RequireProjectRole(ProjectMemberRole.TEST_MANAGER)
+ * 允许项目经理和测试经理调用
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RequireProjectRole {
+
+    /**
+     * 要求的最低角色，默认任意活跃成员
+     */
+    ProjectMemberRole value() default ProjectMemberRole.VIEWER;
+
+    /**
+     * 项目ID所在的方法参数名
+     */
+    String projectIdParam() default "projectId";
+}
@@ -0,0 +1,179 @@
+package com.yoga.youjia.security.aspect;
+
+import com.yoga.youjia.common.enums.ErrorCode;
+import com.yoga.youjia.common.enums.ProjectMemberRole;
+import com.yoga.youjia.common.exception.BusinessException;
+import com.yoga.youjia.security.annotation.RequireProjectRole;
+import com.yoga.youjia.security.service.CurrentUserResolver;
+import com.yoga.youjia.security.service.ProjectAccessCache;
+import com.yoga.youjia.security.service.ProjectAccessCache.ProjectAccess;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 项目角色检查切面
+ *
+ * 处理 @RequireProjectRole：从安全上下文解析当前用户，检查其在项目中的角色。
+ * 检查结果按 (项目ID, 用户ID, 要求角色) 记在当前请求中，同一请求内嵌套的服务调用直接复用；
+ * 检查耗时以 project.authorization.check 计时器记录，按结果和是否复用打标签
+ */
+@Slf4j
+@Aspect
+@Component
+public class ProjectRoleAuthorizationAspect {
+
+    private static final String DECISIONS_ATTRIBUTE = ProjectRoleAuthorizationAspect.class.getName() + ".decisions";
+
+    private static final String TIMER_NAME = "project.authorization.check";
+
+    @Autowired
+    private CurrentUserResolver currentUserResolver;
+
+    @Autowired
+    private ProjectAccessCache projectAccessCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 检查耗时计时器，按 [是否通过][是否复用] 预先注册，避免每次检查都查找注册表
+     */
+    private final Timer[][] checkTimers = new Timer[2][2];
+
+    @PostConstruct
+    public void registerTimers() {
+        for (int granted = 0; granted < 2; granted++) {
+            for (int memoized = 0; memoized < 2; memoized++) {
+                checkTimers[granted][memoized] = Timer.builder(TIMER_NAME)
+                        .description("项目角色检查耗时")
+                        .tag("result", granted == 1 ? "granted" : "denied")
+                        .tag("memoized", String.valueOf(memoized == 1))
+                        .register(meterRegistry);
+            }
+        }
+    }
+
+    @Around("@annotation(com.yoga.youjia.security.annotation.RequireProjectRole) || " +
+            "@within(com.yoga.youjia.security.annotation.RequireProjectRole)")
+    public Object checkProjectRole(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        Method method = signature.getMethod();
+        RequireProjectRole requireProjectRole = AnnotationUtils.findAnnotation(method, RequireProjectRole.class);
+        if (requireProjectRole == null) {
+            requireProjectRole = AnnotationUtils.findAnnotation(joinPoint.getTarget().getClass(), RequireProjectRole.class);
+        }
+
+        long startTime = System.nanoTime();
+        Long projectId = resolveProjectId(joinPoint, requireProjectRole.projectIdParam());
+        Long userId = currentUserResolver.getCurrentUserId();
+        ProjectMemberRole required = requireProjectRole.value();
+
+        String decisionKey = projectId + ":" + userId + ":" + required.name();
+        Map<String, Decision> decisions = getRequestDecisions();
+        Decision decision = decisions != null ? decisions.get(decisionKey) : null;
+        boolean memoized = decision != null;
+        if (decision == null) {
+            decision = evaluate(projectAccessCache.getAccess(projectId, userId), required);
+            if (decisions != null) {
+                decisions.put(decisionKey, decision);
+            }
+        }
+
+        checkTimers[decision == Decision.GRANTED ? 1 : 0][memoized ? 1 : 0]
+                .record(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
+
+        switch (decision) {
+            case NOT_MEMBER:
+                log.debug("项目角色检查未通过，不是项目成员: projectId={}, userId={}", projectId, userId);
+                throw new BusinessException(ErrorCode.PROJECT_ACCESS_DENIED, "您不是该项目的成员，无法执行此操作");
+            case ROLE_TOO_LOW:
+                log.debug("项目角色检查未通过: projectId={}, userId={}, required={}", projectId, userId, required.name());
+                throw new BusinessException(ErrorCode.PROJECT_PERMISSION_DENIED,
+                        "该操作要求项目角色不低于" + required.getDisplayName());
+            default:
+                return joinPoint.proceed();
+        }
+    }
+
+    private static Decision evaluate(ProjectAccess access, ProjectMemberRole required) {
+        ProjectMemberRole role = access.getActiveRole();
+        if (role == null) {
+            return Decision.NOT_MEMBER;
+        }
+        return role.isAtLeast(required) ? Decision.GRANTED : Decision.ROLE_TOO_LOW;
+    }
+
+    /**
+     * 获取当前请求的检查结果表，不在请求中（如异步任务）时返回null，不做复用
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Decision> getRequestDecisions() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return null;
+        }
+        Map<String, Decision> decisions =
+                (Map<String, Decision>) attributes.getAttribute(DECISIONS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (decisions == null) {
+            decisions = new HashMap<>();
+            attributes.setAttribute(DECISIONS_ATTRIBUTE, decisions, RequestAttributes.SCOPE_REQUEST);
+        }
+        return decisions;
+    }
+
+    /**
+     * 按参数名或 @PathVariable/@RequestParam 名称找到项目ID参数
+     */
+    private static Long resolveProjectId(ProceedingJoinPoint joinPoint, String parameterName) {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        String[] parameterNames = signature.getParameterNames();
+        Annotation[][] parameterAnnotations = signature.getMethod().getParameterAnnotations();
+        Object[] args = joinPoint.getArgs();
+
+        for (int i = 0; i < args.length; i++) {
+            boolean matched = parameterNames != null && parameterName.equals(parameterNames[i]);
+            for (Annotation annotation : parameterAnnotations[i]) {
+                if (annotation instanceof PathVariable pathVariable) {
+                    matched |= parameterName.equals(pathVariable.value()) || parameterName.equals(pathVariable.name());
+                } else if (annotation instanceof RequestParam requestParam) {
+                    matched |= parameterName.equals(requestParam.value()) || parameterName.equals(requestParam.name());
+                }
+            }
+            if (matched) {
+                if (!(args[i] instanceof Number projectId)) {
+                    throw new BusinessException(ErrorCode.PARAM_INVALID, "项目ID不能为空");
+                }
+                return projectId.longValue();
+            }
+        }
+        throw new IllegalStateException("方法缺少项目ID参数 " + parameterName + ": " + signature.getMethod());
+    }
+
+    /**
+     * 检查结果
+     */
+    private enum Decision {
+        GRANTED,
+        NOT_MEMBER,
+        ROLE_TOO_LOW
+    }
+}
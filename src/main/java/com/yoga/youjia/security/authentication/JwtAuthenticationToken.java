@@ -0,0 +1,27 @@
+package com.yoga.youjia.security.authentication;
+
+import lombok.Getter;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+
+/**
+ * JWT认证信息
+ *
+ * 在用户名密码认证信息的基础上附带令牌中的用户ID和项目角色，令牌未携带或已过期时为null
+ */
+@Getter
+public class JwtAuthenticationToken extends UsernamePasswordAuthenticationToken {
+
+    private final Long userId;
+
+    private final transient ProjectRoleClaims projectRoleClaims;
+
+    public JwtAuthenticationToken(Object principal, Collection<? extends GrantedAuthority> authorities,
+                                  Long userId, ProjectRoleClaims projectRoleClaims) {
+        super(principal, null, authorities);
+        this.userId = userId;
+        this.projectRoleClaims = projectRoleClaims;
+    }
+}
@@ -0,0 +1,104 @@
+package com.yoga.youjia.security.authentication;
+
+import com.yoga.youjia.common.enums.ProjectMemberRole;
+import com.yoga.youjia.common.enums.UserRole;
+import io.jsonwebtoken.Claims;
+import lombok.Getter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 令牌中携带的用户与项目角色信息
+ *
+ * 签发令牌时写入用户ID、全局角色、令牌版本号和 项目ID -> 角色级别 的紧凑映射。
+ * 过滤器确认令牌版本号仍是最新后才把它挂到认证信息上，项目权限检查据此直接判断，不再查询 project_members
+ */
+@Getter
+public class ProjectRoleClaims {
+
+    public static final String CLAIM_USER_ID = "uid";
+
+    public static final String CLAIM_USER_ROLE = "role";
+
+    public static final String CLAIM_TOKEN_VERSION = "tv";
+
+    public static final String CLAIM_PROJECT_ROLES = "prj";
+
+    private final Long userId;
+
+    private final UserRole userRole;
+
+    private final long tokenVersion;
+
+    private final Map<Long, ProjectMemberRole> projectRoles;
+
+    private ProjectRoleClaims(Long userId, UserRole userRole, long tokenVersion, Map<Long, ProjectMemberRole> projectRoles) {
+        this.userId = userId;
+        this.userRole = userRole;
+        this.tokenVersion = tokenVersion;
+        this.projectRoles = Collections.unmodifiableMap(projectRoles);
+    }
+
+    /**
+     * 从令牌声明中解析项目角色信息
+     *
+     * @return 令牌未携带项目角色（未开启或项目过多时签发的令牌）时返回null
+     */
+    public static ProjectRoleClaims from(Claims claims) {
+        Object userId = claims.get(CLAIM_USER_ID);
+        Object tokenVersion = claims.get(CLAIM_TOKEN_VERSION);
+        Object projectRoles = claims.get(CLAIM_PROJECT_ROLES);
+        if (!(userId instanceof Number) || !(tokenVersion instanceof Number) || !(projectRoles instanceof Map)) {
+            return null;
+        }
+
+        Map<Long, ProjectMemberRole> roles = new HashMap<>();
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) projectRoles).entrySet()) {
+            roles.put(Long.valueOf(entry.getKey().toString()),
+                    ProjectMemberRole.fromLevel(((Number) entry.getValue()).intValue()));
+        }
+
+        Object userRole = claims.get(CLAIM_USER_ROLE);
+        return new ProjectRoleClaims(((Number) userId).longValue(),
+                userRole != null ? UserRole.valueOf(userRole.toString()) : null,
+                ((Number) tokenVersion).longValue(), roles);
+    }
+
+    /**
+     * 从令牌声明中读取用户ID
+     *
+     * @return 令牌未携带用户ID时返回null
+     */
+    public static Long userIdOf(Claims claims) {
+        Object userId = claims.get(CLAIM_USER_ID);
+        return userId instanceof Number number ? number.longValue() : null;
+    }
+
+    /**
+     * 获取当前请求令牌中指定用户的项目角色信息
+     *
+     * @param userId 需要检查权限的用户ID，与令牌中的用户不一致时不使用令牌信息
+     * @return 不可用时返回null，调用方应回退到数据库查询
+     */
+    public static ProjectRoleClaims current(Long userId) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!(authentication instanceof JwtAuthenticationToken jwtAuthentication)) {
+            return null;
+        }
+        ProjectRoleClaims claims = jwtAuthentication.getProjectRoleClaims();
+        return claims != null && claims.getUserId().equals(userId) ? claims : null;
+    }
+
+    /**
+     * 获取用户在项目中的角色
+     *
+     * @return 不是项目成员时返回null
+     */
+    public ProjectMemberRole getProjectRole(Long projectId) {
+        return projectRoles.get(projectId);
+    }
+}
@@ -1,13 +1,17 @@
 package com.yoga.youjia.security.filter;
 
+import com.yoga.youjia.security.authentication.JwtAuthenticationToken;
+import com.yoga.youjia.security.authentication.ProjectRoleClaims;
 import com.yoga.youjia.security.service.JWTService;
+import com.yoga.youjia.security.service.PrincipalCache;
+import com.yoga.youjia.security.service.TokenRevocationService;
+import com.yoga.youjia.security.service.TokenVersionService;
 import com.yoga.youjia.service.UserService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -16,6 +20,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,6 +34,25 @@ public class  JWTAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private UserDetailsService userDetailsService;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private TokenVersionService tokenVersionService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    /**
+     * 令牌中的项目角色已过期时返回的响应头
+     */
+    public static final String TOKEN_STALE_HEADER = "X-Token-Stale";
+
+    /**
+     * 令牌中的项目角色已过期时，携带按当前成员关系重新签发的令牌，客户端应用它替换原令牌
+     */
+    public static final String REFRESHED_TOKEN_HEADER = "X-Refreshed-Token";
+
     private static final Logger log = LoggerFactory.getLogger(JWTAuthenticationFilter.class);
 
     @Override
@@ -48,16 +72,26 @@ public class  JWTAuthenticationFilter extends OncePerRequestFilter {
         try {
             // 提取JWT令牌
             jwt = authHeader.substring(7);
-            username = jwtService.extractUsername(jwt);
+            // 验签并解析一次，后续只使用解析出的声明
+            Claims claims = jwtService.verify(jwt);
+            username = claims.getSubject();
+
+            // 已吊销的令牌不建立认证，未吊销时只需一次布隆过滤器判断
+            boolean revoked = tokenRevocationService.isRevoked(claims);
+            if (revoked) {
+                log.debug("JWT令牌已吊销: subject={}, jti={}", username, claims.getId());
+            }
 
-            // 如果用户名不为空且当前没有认证信息
-            if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+            // 如果令牌未吊销、用户名不为空且当前没有认证信息
+            if (!revoked && username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+                // 从缓存获取用户信息，未命中时才查询数据库
+                UserDetails userDetails = principalCache.get(username, this.userDetailsService::loadUserByUsername);
 
-                // 验证JWT令牌
-                if (jwtService.validateToken(jwt, userDetails.getUsername())) {
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails, null, userDetails.getAuthorities());
+                // 已锁定或停用的用户不建立认证
+                if (userDetails.isAccountNonLocked() && userDetails.isEnabled()) {
+                    ProjectRoleClaims projectRoleClaims = resolveProjectRoleClaims(claims, response);
+                    JwtAuthenticationToken authToken = new JwtAuthenticationToken(userDetails,
+                            userDetails.getAuthorities(), ProjectRoleClaims.userIdOf(claims), projectRoleClaims);
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authToken);
                 }
@@ -72,4 +106,36 @@ public class  JWTAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    /**
+     * 解析令牌中的项目角色
+     *
+     * 令牌版本号落后时按当前成员关系重新签发令牌，通过响应头返回给客户端，本次请求使用新令牌中的项目角色；
+     * 重新签发失败时本次请求不使用令牌中的项目角色，权限检查回退到数据库查询
+     */
+    private ProjectRoleClaims resolveProjectRoleClaims(Claims claims, HttpServletResponse response) {
+        ProjectRoleClaims projectRoleClaims = ProjectRoleClaims.from(claims);
+        if (projectRoleClaims == null) {
+            return null;
+        }
+        if (isCurrentVersion(projectRoleClaims)) {
+            return projectRoleClaims;
+        }
+
+        log.debug("令牌中的项目角色已过期，重新签发令牌: userId={}", projectRoleClaims.getUserId());
+        response.setHeader(TOKEN_STALE_HEADER, "true");
+        try {
+            String refreshedToken = jwtService.reissueToken(claims);
+            response.setHeader(REFRESHED_TOKEN_HEADER, refreshedToken);
+            ProjectRoleClaims refreshedClaims = ProjectRoleClaims.from(jwtService.verify(refreshedToken));
+            return refreshedClaims != null && isCurrentVersion(refreshedClaims) ? refreshedClaims : null;
+        } catch (Exception e) {
+            log.warn("重新签发令牌失败: userId={}, error={}", projectRoleClaims.getUserId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean isCurrentVersion(ProjectRoleClaims projectRoleClaims) {
+        return projectRoleClaims.getTokenVersion() == tokenVersionService.getCurrentVersion(projectRoleClaims.getUserId());
+    }
 }
@@ -0,0 +1,85 @@
+package com.yoga.youjia.security.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yoga.youjia.common.ApiResponse;
+import com.yoga.youjia.common.enums.ErrorCode;
+import com.yoga.youjia.config.RequestLogInterceptor;
+import com.yoga.youjia.security.authentication.JwtAuthenticationToken;
+import com.yoga.youjia.security.service.TokenBucketRateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 接口限流过滤器
+ *
+ * 位于JWT认证过滤器之后：已登录请求按用户ID限流，未登录请求（如登录接口）按客户端IP限流。
+ * 超出限制时直接返回429和 Retry-After 响应头，响应体格式与全局异常处理一致
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    @Autowired
+    private TokenBucketRateLimiter rateLimiter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        TokenBucketRateLimiter.BucketRule rule = rateLimiter.match(request);
+        if (rule == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String key = resolveClientKey(request);
+        long waitNanos = rateLimiter.tryAcquire(rule, key);
+        if (waitNanos == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        log.warn("请求被限流: rule={}, key={}, {} {}, retryAfter={}s",
+                rule.getName(), key, request.getMethod(), request.getRequestURI(), retryAfterSeconds);
+
+        ApiResponse<Object> body = ApiResponse.error(ErrorCode.RATE_LIMIT_EXCEEDED);
+        response.setStatus(ErrorCode.RATE_LIMIT_EXCEEDED.getHttpStatus().value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getWriter(), body);
+    }
+
+    /**
+     * 客户端标识：已认证时使用用户ID（令牌中没有用户ID时使用用户名），否则使用客户端IP
+     */
+    private String resolveClientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication instanceof JwtAuthenticationToken jwtToken) {
+            return jwtToken.getUserId() != null
+                    ? "user:" + jwtToken.getUserId()
+                    : "user:" + jwtToken.getName();
+        }
+        return "ip:" + RequestLogInterceptor.getClientIpAddress(request);
+    }
+}
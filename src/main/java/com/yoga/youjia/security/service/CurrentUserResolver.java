@@ -0,0 +1,60 @@
+package com.yoga.youjia.security.service;
+
+import com.yoga.youjia.common.enums.ErrorCode;
+import com.yoga.youjia.common.exception.BusinessException;
+import com.yoga.youjia.entity.User;
+import com.yoga.youjia.repository.UserRepository;
+import com.yoga.youjia.security.authentication.JwtAuthenticationToken;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * 当前登录用户解析器
+ *
+ * 从安全上下文获取当前用户ID：令牌中带有用户ID时直接使用，否则按用户名查询一次并在本次请求内复用
+ */
+@Component
+public class CurrentUserResolver {
+
+    private static final String CURRENT_USER_ID_ATTRIBUTE = CurrentUserResolver.class.getName() + ".userId";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    /**
+     * 获取当前登录用户ID
+     *
+     * @throws BusinessException 未登录时抛出
+     */
+    public Long getCurrentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            throw new BusinessException(ErrorCode.UNAUTHORIZED, "请先登录");
+        }
+        if (authentication instanceof JwtAuthenticationToken jwtAuthentication && jwtAuthentication.getUserId() != null) {
+            return jwtAuthentication.getUserId();
+        }
+
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            Object cached = attributes.getAttribute(CURRENT_USER_ID_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (cached != null) {
+                return (Long) cached;
+            }
+        }
+
+        Long userId = userRepository.findByUsername(authentication.getName())
+                .map(User::getId)
+                .orElseThrow(() -> new BusinessException(ErrorCode.UNAUTHORIZED, "当前登录用户不存在"));
+        if (attributes != null) {
+            attributes.setAttribute(CURRENT_USER_ID_ATTRIBUTE, userId, RequestAttributes.SCOPE_REQUEST);
+        }
+        return userId;
+    }
+}
@@ -25,6 +25,8 @@ public class CustomUserDetailsService implements UserDetailsService {
                 .username(user.getUsername())
                 .password(user.getPassword())
                 .authorities(new ArrayList<>()) // 可以根据用户角色设置权限
+                .accountLocked(user.isLocked())
+                .disabled(!user.canLogin())
                 .build();
     }
 }
\ No newline at end of file
@@ -1,28 +1,49 @@
 package com.yoga.youjia.security.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 /**
  * JWT服务类
  *
- * 负责JWT令牌的生成、解析和验证
+ * 负责JWT令牌的生成、解析和验证。
+ * 签名密钥和解析器在启动时构建一次；验签通过的令牌按摘要缓存到过期为止，
+ * 同一令牌的后续请求只需计算一次摘要，不再重复验签和解析
  */
 @Service
 public class JWTService {
 
+    /**
+     * 毫秒精度的签发时间，标准的 iat 只精确到秒，按用户吊销时用它判断令牌是否签发于吊销之前
+     */
+    public static final String ISSUED_AT_MILLIS_CLAIM = "iat_ms";
+
     /**
      * JWT密钥和过期时间配置
      * 这些配置通常在application.properties或application.yml文件中定义。
@@ -40,17 +61,97 @@ public class JWTService {
     @Value("${jwt.expirationTime}")
     private long expirationTime; // JWT过期时间（单位：毫秒）
 
+    @Value("${jwt.verified-cache.maximum-size:10000}")
+    private long verifiedCacheMaximumSize; // 已验证令牌缓存容量
+
+    @Value("${jwt.project-roles.enabled:false}")
+    private boolean embedProjectRoles; // 是否在令牌中携带用户ID、全局角色和项目角色
+
+    @Autowired(required = false)
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TokenClaimsProvider tokenClaimsProvider;
+
+    private Key signingKey;
+
+    private JwtParser jwtParser;
+
+    /**
+     * 已验证令牌缓存：令牌摘要 -> 声明，条目在令牌过期时失效
+     */
+    private Cache<String, Claims> verifiedTokens;
+
+    /**
+     * 构建签名密钥、解析器和已验证令牌缓存
+     */
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secretKey.getBytes(StandardCharsets.UTF_8));
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheMaximumSize)
+                .expireAfter(new Expiry<String, Claims>() {
+                    @Override
+                    public long expireAfterCreate(String key, Claims claims, long currentTime) {
+                        long remainingMillis = claims.getExpiration().getTime() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        if (meterRegistry != null) {
+            CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "verifiedTokenCache");
+        }
+    }
+
     /**
      * 生成JWT令牌
      *
+     * 每个令牌带有唯一的令牌ID（jti），用于单独吊销。
+     * 开启 jwt.project-roles.enabled 时，令牌携带用户ID、全局角色、令牌版本号和项目角色映射，
+     * 项目权限检查可以直接使用令牌中的信息
+     *
      * @param username 用户名
      * @return 生成的JWT令牌，格式为"Bearer xxxxxx"
      */
     public String generateToken(String username) {
         Map<String, Object> claims = new HashMap<>();
+        if (embedProjectRoles) {
+            claims.putAll(tokenClaimsProvider.buildClaims(username));
+        }
         return createToken(claims, username);
     }
 
+    /**
+     * 按当前的项目成员关系重新签发令牌
+     *
+     * 令牌中的项目角色过期（令牌版本号落后）时由过滤器调用。新令牌的过期时间与原令牌相同，
+     * 成员关系变化不会延长登录有效期
+     *
+     * @param claims 原令牌中已验证的声明
+     * @return 新的JWT令牌，格式为"Bearer xxxxxx"
+     */
+    public String reissueToken(Claims claims) {
+        Map<String, Object> newClaims = new HashMap<>();
+        if (embedProjectRoles) {
+            newClaims.putAll(tokenClaimsProvider.buildClaims(claims.getSubject()));
+        }
+        return createToken(newClaims, claims.getSubject(), new Date(), claims.getExpiration());
+    }
+
     /**
      * 创建JWT令牌
      *
@@ -60,19 +161,53 @@ public class JWTService {
      */
     private String createToken(Map<String, Object> claims, String subject) {
         Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + expirationTime);
+        return createToken(claims, subject, now, new Date(now.getTime() + expirationTime));
+    }
 
+    private String createToken(Map<String, Object> claims, String subject, Date now, Date expiryDate) {
         String token = Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(subject)
                 .setIssuedAt(now)
+                .claim(ISSUED_AT_MILLIS_CLAIM, now.getTime())
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
 
         return "Bearer " + token;
     }
 
+    /**
+     * 验证JWT令牌并返回其声明
+     *
+     * 先按令牌摘要查缓存，未命中时验签并解析一次，成功后缓存到令牌过期为止
+     *
+     * @param token JWT令牌（可以包含或不包含Bearer前缀）
+     * @return 令牌中的声明
+     * @throws io.jsonwebtoken.JwtException 令牌无效或已过期时抛出
+     */
+    public Claims verify(String token) {
+        token = removeBearer(token);
+        String digest = digest(token);
+
+        Claims claims = verifiedTokens.getIfPresent(digest);
+        if (claims != null) {
+            // 缓存按过期时间失效，这里再做一次廉价的时间检查，避免边界上的过期令牌通过
+            if (claims.getExpiration().after(new Date())) {
+                return claims;
+            }
+            verifiedTokens.invalidate(digest);
+            throw new ExpiredJwtException(null, claims, "JWT令牌已过期");
+        }
+
+        claims = jwtParser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() != null) {
+            verifiedTokens.put(digest, claims);
+        }
+        return claims;
+    }
+
     /**
      * 从JWT令牌中提取用户名
      *
@@ -80,7 +215,6 @@ public class JWTService {
      * @return 用户名
      */
     public String extractUsername(String token) {
-        token = removeBearer(token);
         return extractClaim(token, Claims::getSubject);
     }
 
@@ -91,7 +225,6 @@ public class JWTService {
      * @return 过期时间
      */
     public Date extractExpiration(String token) {
-        token = removeBearer(token);
         return extractClaim(token, Claims::getExpiration);
     }
 
@@ -103,35 +236,10 @@ public class JWTService {
      * @return 解析后的声明
      */
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = verify(token);
         return claimsResolver.apply(claims);
     }
 
-    /**
-     * 从JWT令牌中提取所有声明
-     *
-     * @param token JWT令牌
-     * @return 所有声明
-     */
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    /**
-     * 检查JWT令牌是否已过期
-     *
-     * @param token JWT令牌
-     * @return 如果令牌已过期，则返回true；否则返回false
-     */
-    private Boolean isTokenExpired(String token) {
-        final Date expiration = extractExpiration(token);
-        return expiration.before(new Date());
-    }
-
     /**
      * 验证JWT令牌
      *
@@ -140,19 +248,21 @@ public class JWTService {
      * @return 如果令牌有效，则返回true；否则返回false
      */
     public Boolean validateToken(String token, String username) {
-        token = removeBearer(token);
-        final String extractedUsername = extractUsername(token);
-        return (extractedUsername.equals(username) && !isTokenExpired(token));
+        final Claims claims = verify(token);
+        return claims.getSubject().equals(username);
     }
 
     /**
-     * 获取签名密钥
-     *
-     * @return 签名密钥
+     * 计算令牌摘要，作为已验证令牌缓存的键
      */
-    private Key getSigningKey() {
-        byte[] keyBytes = secretKey.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    private String digest(String token) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = messageDigest.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
     }
 
     /**
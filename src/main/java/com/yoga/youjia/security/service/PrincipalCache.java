@@ -0,0 +1,82 @@
+package com.yoga.youjia.security.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * 已认证用户信息缓存
+ *
+ * JWT过滤器每个请求都需要 UserDetails，这里按用户名缓存，容量和存活时间有上限。
+ * 用户信息、状态变更或删除时由 UserService 立即失效对应条目；命中率等指标以 principalCache 名称注册到 Micrometer
+ */
+@Component
+public class PrincipalCache {
+
+    private static final Logger log = LoggerFactory.getLogger(PrincipalCache.class);
+
+    private static final String CACHE_NAME = "principalCache";
+
+    private final Cache<String, UserDetails> cache;
+
+    public PrincipalCache(MeterRegistry meterRegistry,
+                          @Value("${security.principal-cache.maximum-size:10000}") long maximumSize,
+                          @Value("${security.principal-cache.ttl:5m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * 获取用户信息，未命中时通过 loader 加载并缓存
+     *
+     * @param username 用户名
+     * @param loader 加载函数（通常为 UserDetailsService::loadUserByUsername），抛出的异常原样传出且不缓存
+     */
+    public UserDetails get(String username, Function<String, UserDetails> loader) {
+        return cache.get(username, loader);
+    }
+
+    /**
+     * 立即失效指定用户的缓存
+     *
+     * 处于事务中时在提交后再失效一次，避免提交前有并发请求把旧数据重新载入缓存
+     */
+    public void invalidate(String username) {
+        if (username == null) {
+            return;
+        }
+        cache.invalidate(username);
+        log.debug("失效用户信息缓存: username={}", username);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(username);
+                }
+            });
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
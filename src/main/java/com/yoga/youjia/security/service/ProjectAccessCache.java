@@ -0,0 +1,156 @@
+package com.yoga.youjia.security.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yoga.youjia.common.enums.ProjectMemberRole;
+import com.yoga.youjia.entity.ProjectMember;
+import com.yoga.youjia.repository.ProjectMemberRepository;
+import com.yoga.youjia.security.authentication.ProjectRoleClaims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 项目访问权限缓存
+ *
+ * 按 (项目ID, 用户ID) 缓存活跃成员的角色，非成员和已离开的成员同样缓存为无权限，项目权限检查统一从这里取数。
+ * 成员添加、移除、角色变更时由 ProjectMemberService 精确失效对应条目；命中率等指标以 projectAccessCache 名称注册到 Micrometer
+ */
+@Component
+public class ProjectAccessCache {
+
+    private static final Logger log = LoggerFactory.getLogger(ProjectAccessCache.class);
+
+    private static final String CACHE_NAME = "projectAccessCache";
+
+    private final ProjectMemberRepository projectMemberRepository;
+
+    private final Cache<AccessKey, ProjectAccess> cache;
+
+    public ProjectAccessCache(ProjectMemberRepository projectMemberRepository, MeterRegistry meterRegistry,
+                              @Value("${project.access-cache.maximum-size:50000}") long maximumSize,
+                              @Value("${project.access-cache.ttl:10m}") Duration ttl) {
+        this.projectMemberRepository = projectMemberRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * 获取用户在项目中的访问权限
+     *
+     * 当前请求令牌中带有该用户的有效项目角色时直接使用，否则查缓存，未命中时查询一次成员表
+     */
+    public ProjectAccess getAccess(Long projectId, Long userId) {
+        ProjectRoleClaims claims = ProjectRoleClaims.current(userId);
+        if (claims != null) {
+            return ProjectAccess.of(claims.getProjectRole(projectId));
+        }
+        return cache.get(new AccessKey(projectId, userId), key ->
+                projectMemberRepository.findByProject_IdAndUserId(key.projectId(), key.userId())
+                        .map(ProjectAccess::of)
+                        .orElse(ProjectAccess.NONE));
+    }
+
+    /**
+     * 失效指定项目中一批用户的缓存
+     *
+     * 处于事务中时在提交后再失效一次，避免提交前有并发请求把旧数据重新载入缓存
+     */
+    public void invalidate(Long projectId, Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        List<AccessKey> keys = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            keys.add(new AccessKey(projectId, userId));
+        }
+        cache.invalidateAll(keys);
+        log.debug("失效项目访问权限缓存: projectId={}, userIds={}", projectId, userIds);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidateAll(keys);
+                }
+            });
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private record AccessKey(Long projectId, Long userId) {
+    }
+
+    /**
+     * 用户在项目中的访问权限
+     */
+    public static final class ProjectAccess {
+
+        /**
+         * 不是项目成员或已离开
+         */
+        public static final ProjectAccess NONE = new ProjectAccess(null);
+
+        private final ProjectMemberRole activeRole;
+
+        private ProjectAccess(ProjectMemberRole activeRole) {
+            this.activeRole = activeRole;
+        }
+
+        static ProjectAccess of(ProjectMember member) {
+            return member.isActive() ? new ProjectAccess(member.getRole()) : NONE;
+        }
+
+        static ProjectAccess of(ProjectMemberRole activeRole) {
+            return activeRole != null ? new ProjectAccess(activeRole) : NONE;
+        }
+
+        /**
+         * 是否为活跃成员，已离开的成员与非成员相同，与令牌中的项目角色一致
+         */
+        public boolean isMember() {
+            return activeRole != null;
+        }
+
+        /**
+         * 活跃成员的角色，不是成员或已离开时为null
+         */
+        public ProjectMemberRole getActiveRole() {
+            return activeRole;
+        }
+
+        /**
+         * 是否为项目管理员（项目经理或测试经理）
+         */
+        public boolean isManager() {
+            return activeRole != null && activeRole.isManager();
+        }
+
+        /**
+         * 是否为项目经理
+         */
+        public boolean isOwner() {
+            return activeRole == ProjectMemberRole.PROJECT_MANAGER;
+        }
+    }
+}
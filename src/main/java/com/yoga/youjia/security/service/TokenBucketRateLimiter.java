@@ -0,0 +1,170 @@
+package com.yoga.youjia.security.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yoga.youjia.config.RateLimitProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.core.instrument.config.MeterFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 令牌桶限流器
+ *
+ * 每个（规则, 客户端）对应一个桶，桶只保存一个 long：下一个令牌的理论到达时间（GCRA 算法），
+ * 通过 CAS 更新，不加锁。桶保存在有容量上限的缓存中，空闲超过整桶补满所需时间后淘汰，
+ * 淘汰后重新创建的桶与补满的桶等价，不影响限流结果。
+ * 按规则统计通过/拒绝次数，按客户端统计拒绝次数（客户端标签数量有上限）
+ */
+@Component
+public class TokenBucketRateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenBucketRateLimiter.class);
+
+    private static final String CACHE_NAME = "rateLimitBuckets";
+
+    private static final String REQUESTS_METRIC = "rate.limit.requests";
+
+    private static final String REJECTED_METRIC = "rate.limit.rejected";
+
+    private final MeterRegistry meterRegistry;
+
+    private final boolean enabled;
+
+    private final List<BucketRule> rules = new ArrayList<>();
+
+    private final Cache<String, AtomicLong> buckets;
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    /**
+     * 单调时钟（纳秒），测试中可替换
+     */
+    private final LongSupplier nanoClock;
+
+    @Autowired
+    public TokenBucketRateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.meterRegistry = meterRegistry;
+        this.nanoClock = nanoClock;
+        this.enabled = properties.isEnabled();
+
+        long idleNanos = 0;
+        for (RateLimitProperties.Rule rule : properties.getRules()) {
+            BucketRule bucketRule = new BucketRule(rule);
+            rules.add(bucketRule);
+            idleNanos = Math.max(idleNanos, bucketRule.burstToleranceNanos);
+        }
+
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumBuckets())
+                .expireAfterAccess(Duration.ofNanos(Math.max(idleNanos, Duration.ofSeconds(1).toNanos())))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, buckets, CACHE_NAME);
+
+        // 按客户端的拒绝指标只保留前 N 个客户端，避免标签数量无限增长
+        meterRegistry.config().meterFilter(MeterFilter.maximumAllowableTags(
+                REJECTED_METRIC, "key", properties.getMaximumMetricKeys(), MeterFilter.deny()));
+
+        log.info("接口限流已{}: rules={}", enabled ? "启用" : "停用", rules.size());
+    }
+
+    /**
+     * 查找请求匹配的第一条限流规则
+     *
+     * @return 匹配的规则，未启用限流或没有匹配规则时返回 null
+     */
+    public BucketRule match(HttpServletRequest request) {
+        if (!enabled || rules.isEmpty()) {
+            return null;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (BucketRule rule : rules) {
+            if ((rule.method == null || rule.method.equalsIgnoreCase(request.getMethod()))
+                    && pathMatcher.match(rule.pattern, path)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 尝试从桶中取一个令牌
+     *
+     * @param rule 限流规则
+     * @param key 客户端标识（user:用户ID 或 ip:客户端IP）
+     * @return 0 表示放行；大于 0 表示被拒绝，值为下一个令牌可用前需要等待的纳秒数
+     */
+    public long tryAcquire(BucketRule rule, String key) {
+        AtomicLong theoreticalArrival = buckets.get(rule.name + '|' + key, k -> new AtomicLong(nanoClock.getAsLong()));
+
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long current = theoreticalArrival.get();
+            long next = (current - now > 0 ? current : now) + rule.emissionIntervalNanos;
+            long waitNanos = next - now - rule.burstToleranceNanos;
+            if (waitNanos > 0) {
+                meterRegistry.counter(REQUESTS_METRIC, "rule", rule.name, "result", "rejected").increment();
+                meterRegistry.counter(REJECTED_METRIC, "rule", rule.name, "key", key).increment();
+                return waitNanos;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                meterRegistry.counter(REQUESTS_METRIC, "rule", rule.name, "result", "allowed").increment();
+                return 0L;
+            }
+        }
+    }
+
+    /**
+     * 预处理后的限流规则
+     */
+    public static class BucketRule {
+
+        private final String name;
+
+        private final String pattern;
+
+        private final String method;
+
+        /**
+         * 每个令牌的补充间隔
+         */
+        private final long emissionIntervalNanos;
+
+        /**
+         * 允许的突发量，等于桶容量乘以补充间隔
+         */
+        private final long burstToleranceNanos;
+
+        BucketRule(RateLimitProperties.Rule rule) {
+            if (!StringUtils.hasText(rule.getPattern()) || rule.getCapacity() <= 0 || rule.getRefillTokens() <= 0) {
+                throw new IllegalArgumentException("限流规则配置无效: " + rule);
+            }
+            this.pattern = rule.getPattern();
+            this.name = StringUtils.hasText(rule.getName()) ? rule.getName() : rule.getPattern();
+            this.method = StringUtils.hasText(rule.getMethod()) ? rule.getMethod() : null;
+            this.emissionIntervalNanos = Math.max(rule.getRefillPeriod().toNanos() / rule.getRefillTokens(), 1L);
+            this.burstToleranceNanos = emissionIntervalNanos * rule.getCapacity();
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.yoga.youjia.security.service;
+
+import com.yoga.youjia.common.enums.ProjectMemberRole;
+import com.yoga.youjia.entity.User;
+import com.yoga.youjia.repository.ProjectMemberRepository;
+import com.yoga.youjia.repository.UserRepository;
+import com.yoga.youjia.security.authentication.ProjectRoleClaims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 令牌声明提供者
+ *
+ * 签发令牌时查询用户和项目成员关系，生成 ProjectRoleClaims 所需的声明
+ */
+@Component
+public class TokenClaimsProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenClaimsProvider.class);
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProjectMemberRepository projectMemberRepository;
+
+    @Value("${jwt.project-roles.max-projects:200}")
+    private int maxProjects; // 令牌中最多携带的项目数量，超过时不携带项目角色
+
+    /**
+     * 生成用户的令牌声明
+     *
+     * @param username 用户名
+     * @return 令牌声明，用户不存在时为空
+     */
+    public Map<String, Object> buildClaims(String username) {
+        Map<String, Object> claims = new HashMap<>();
+        User user = userRepository.findByUsername(username).orElse(null);
+        if (user == null) {
+            return claims;
+        }
+
+        claims.put(ProjectRoleClaims.CLAIM_USER_ID, user.getId());
+        claims.put(ProjectRoleClaims.CLAIM_USER_ROLE, user.getRole().name());
+
+        // 先取版本号再查成员关系：期间若有变更，令牌只会被判定为过期，不会带着新角色和旧版本号
+        claims.put(ProjectRoleClaims.CLAIM_TOKEN_VERSION, user.getTokenVersion());
+
+        List<Object[]> rows = projectMemberRepository.findActiveProjectRolesByUserId(user.getId());
+        if (rows.size() > maxProjects) {
+            log.debug("用户参与的项目过多，令牌不携带项目角色: username={}, projects={}", username, rows.size());
+            return claims;
+        }
+
+        Map<String, Integer> projectRoles = new HashMap<>();
+        for (Object[] row : rows) {
+            projectRoles.put(String.valueOf(row[0]), ((ProjectMemberRole) row[1]).getLevel());
+        }
+        claims.put(ProjectRoleClaims.CLAIM_PROJECT_ROLES, projectRoles);
+        return claims;
+    }
+}
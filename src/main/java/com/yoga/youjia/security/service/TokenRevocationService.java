@@ -0,0 +1,201 @@
+package com.yoga.youjia.security.service;
+
+import com.yoga.youjia.common.utils.BloomFilter;
+import com.yoga.youjia.entity.RevokedToken;
+import com.yoga.youjia.repository.RevokedTokenRepository;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 令牌吊销服务
+ *
+ * 支持按令牌ID（jti）吊销单个令牌，以及吊销某用户在某一时刻及之前签发的全部令牌。
+ * 吊销记录持久化在 revoked_tokens 表中。令牌ID放入内存中的布隆过滤器：
+ * 未被吊销的令牌（绝大多数请求）只需一次哈希判断，过滤器判断可能存在时才查询数据库确认；
+ * 按用户吊销的记录每个用户只需保留最近的截止时间，直接保存在内存映射中。
+ * 定时任务删除已过期的记录并重建过滤器和映射，同时同步其他节点写入的吊销记录
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${jwt.expirationTime}")
+    private long expirationTime; // 令牌有效期（毫秒），按用户吊销的记录保留这么久
+
+    @Value("${jwt.revocation.expected-entries:10000}")
+    private long expectedEntries; // 布隆过滤器预计容量
+
+    @Value("${jwt.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate; // 布隆过滤器期望误判率
+
+    /**
+     * 当前布隆过滤器，重建时整体替换
+     */
+    private volatile BloomFilter filter;
+
+    /**
+     * 用户名 -> 最近一次按用户吊销的截止时间，重建时整体替换
+     */
+    private volatile Map<String, LocalDateTime> revokedBeforeBySubject = new ConcurrentHashMap<>();
+
+    private Counter revokedCounter;
+
+    private Counter falsePositiveCounter;
+
+    @PostConstruct
+    public void init() {
+        revokedCounter = Counter.builder("jwt.revocation.rejected")
+                .description("因已吊销被拒绝的令牌次数")
+                .register(meterRegistry);
+        falsePositiveCounter = Counter.builder("jwt.revocation.false.positive")
+                .description("布隆过滤器误判后经数据库确认未吊销的次数")
+                .register(meterRegistry);
+        rebuild();
+    }
+
+    /**
+     * 判断令牌是否已被吊销
+     *
+     * @param claims 已验签的令牌声明
+     */
+    public boolean isRevoked(Claims claims) {
+        String tokenId = claims.getId();
+        if (tokenId != null && filter.mightContain(tokenId)) {
+            if (revokedTokenRepository.existsByTokenId(tokenId)) {
+                revokedCounter.increment();
+                return true;
+            }
+            falsePositiveCounter.increment();
+        }
+
+        String subject = claims.getSubject();
+        LocalDateTime revokedBefore = subject != null ? revokedBeforeBySubject.get(subject) : null;
+        LocalDateTime issuedAt = revokedBefore != null ? issuedAt(claims) : null;
+        if (issuedAt != null && !issuedAt.isAfter(revokedBefore)) {
+            revokedCounter.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 吊销单个令牌
+     *
+     * @param claims 已验签的令牌声明
+     * @param userId 用户ID（可为空）
+     */
+    public synchronized void revokeToken(Claims claims, Long userId) {
+        String tokenId = claims.getId();
+        if (tokenId == null) {
+            // 早期签发的令牌没有 jti，只能按用户吊销
+            revokeAllForUser(claims.getSubject(), userId);
+            return;
+        }
+        if (!revokedTokenRepository.existsByTokenId(tokenId)) {
+            revokedTokenRepository.save(RevokedToken.builder()
+                    .tokenId(tokenId)
+                    .subject(claims.getSubject())
+                    .userId(userId)
+                    .expiresAt(toLocalDateTime(claims.getExpiration()))
+                    .build());
+        }
+        filter.put(tokenId);
+        log.info("令牌已吊销: subject={}, jti={}", claims.getSubject(), tokenId);
+    }
+
+    /**
+     * 吊销用户在当前时刻及之前签发的全部令牌
+     *
+     * 截止时间精确到毫秒，与令牌中毫秒精度的签发时间比较，吊销后立即重新登录签发的令牌不受影响；
+     * 早期签发的令牌只有精确到秒的签发时间，与吊销同一秒签发的也会失效
+     *
+     * @param username 用户名
+     * @param userId 用户ID（可为空）
+     */
+    public synchronized void revokeAllForUser(String username, Long userId) {
+        LocalDateTime revokedBefore = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        revokedTokenRepository.save(RevokedToken.builder()
+                .subject(username)
+                .userId(userId)
+                .revokedBefore(revokedBefore)
+                .expiresAt(revokedBefore.plus(expirationTime, ChronoUnit.MILLIS))
+                .build());
+        revokedBeforeBySubject.merge(username, revokedBefore, (a, b) -> a.isAfter(b) ? a : b);
+        log.info("用户全部令牌已吊销: username={}, revokedBefore={}", username, revokedBefore);
+    }
+
+    /**
+     * 删除已过期的吊销记录并重建布隆过滤器
+     *
+     * 布隆过滤器不支持删除，重建后过期记录不再占位；同时载入其他节点写入的吊销记录
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh-interval-ms:60000}",
+               initialDelayString = "${jwt.revocation.refresh-interval-ms:60000}")
+    public void pruneAndRebuild() {
+        int deleted = revokedTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            log.info("清理已过期的令牌吊销记录: {}条", deleted);
+        }
+        rebuild();
+    }
+
+    /**
+     * 从数据库重建布隆过滤器和按用户吊销的截止时间
+     *
+     * 与吊销操作互斥，避免重建期间写入的记录丢失
+     */
+    private synchronized void rebuild() {
+        List<String> tokenIds = revokedTokenRepository.findAllTokenIds();
+        BloomFilter rebuilt = BloomFilter.create(Math.max(expectedEntries, tokenIds.size() * 2L), falsePositiveRate);
+        tokenIds.forEach(rebuilt::put);
+
+        Map<String, LocalDateTime> subjects = new ConcurrentHashMap<>();
+        for (Object[] row : revokedTokenRepository.findLatestRevokedBeforeBySubject()) {
+            subjects.put((String) row[0], (LocalDateTime) row[1]);
+        }
+
+        filter = rebuilt;
+        revokedBeforeBySubject = subjects;
+
+        log.debug("令牌吊销记录已重建: tokenIds={}, subjects={}", tokenIds.size(), subjects.size());
+    }
+
+    /**
+     * 令牌签发时间，优先使用毫秒精度的签发时间声明
+     */
+    private static LocalDateTime issuedAt(Claims claims) {
+        Long issuedAtMillis = claims.get(JWTService.ISSUED_AT_MILLIS_CLAIM, Long.class);
+        if (issuedAtMillis != null) {
+            return toLocalDateTime(new Date(issuedAtMillis));
+        }
+        Date issuedAt = claims.getIssuedAt();
+        return issuedAt != null ? toLocalDateTime(issuedAt) : null;
+    }
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        return LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+    }
+}
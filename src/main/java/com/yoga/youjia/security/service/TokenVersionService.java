@@ -0,0 +1,84 @@
+package com.yoga.youjia.security.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yoga.youjia.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 令牌版本号服务
+ *
+ * 用户的项目成员关系变化时递增其令牌版本号，令牌中记录的版本号落后即说明其中的项目角色已过期。
+ * 当前版本号按用户缓存，本节点的变更立即失效对应条目，其他节点的变更最迟在缓存存活时间后生效
+ */
+@Component
+public class TokenVersionService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenVersionService.class);
+
+    private static final String CACHE_NAME = "tokenVersionCache";
+
+    private final UserRepository userRepository;
+
+    private final Cache<Long, Long> versions;
+
+    public TokenVersionService(UserRepository userRepository, MeterRegistry meterRegistry,
+                               @Value("${jwt.project-roles.version-cache.maximum-size:10000}") long maximumSize,
+                               @Value("${jwt.project-roles.version-cache.ttl:30s}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, versions, CACHE_NAME);
+    }
+
+    /**
+     * 获取用户当前的令牌版本号
+     *
+     * @return 用户不存在时返回 -1，任何令牌都不会与之匹配
+     */
+    public long getCurrentVersion(Long userId) {
+        return versions.get(userId, id -> {
+            Long version = userRepository.findTokenVersionById(id);
+            return version != null ? version : -1L;
+        });
+    }
+
+    /**
+     * 递增用户的令牌版本号，使其已签发令牌中的项目角色失效
+     *
+     * 需要在修改成员关系的事务中调用；事务提交后再失效一次缓存，避免提交前有并发请求把旧版本号重新载入
+     */
+    public void incrementVersions(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = new TreeSet<>(userIds);
+        userRepository.incrementTokenVersions(ids);
+        versions.invalidateAll(ids);
+        log.debug("递增令牌版本号: userIds={}", ids);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    versions.invalidateAll(ids);
+                }
+            });
+        }
+    }
+}
@@ -5,9 +5,14 @@ import com.yoga.youjia.common.enums.UserStatus;
 import com.yoga.youjia.entity.User;
 import com.yoga.youjia.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 /**
  * 认证服务类
  *
@@ -26,6 +31,22 @@ public class AuthService {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private LoginActivityRecorder loginActivityRecorder;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    /**
+     * 哈希完成后的数据库写入在应用任务线程池中执行，不占用密码哈希线程
+     */
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private Executor applicationTaskExecutor;
+
     /**
      * 用户注册方法
      *
@@ -40,20 +61,89 @@ public class AuthService {
      * @throws IllegalArgumentException 当用户名或邮箱已存在时抛出
      */
     public User register(User user) {
-        // 第一步：检查用户名是否已存在
+        // 第一步、第二步：检查用户名和邮箱是否已存在
+        checkRegistration(user);
+
+        // 第三步：加密密码
+        user.setPassword(passwordEncoder.encode(user.getPassword()));
+
+        // 第四步、第五步：设置默认信息并保存
+        return saveNewUser(user);
+    }
+
+    /**
+     * 异步用户注册
+     *
+     * 唯一性检查在调用线程完成，密码加密交给有界的密码哈希线程池，加密完成后在应用任务线程池中保存用户，
+     * 返回的结果也在应用任务线程池中完成
+     *
+     * @param user 要注册的用户信息
+     * @return 注册成功后的用户对象
+     * @throws IllegalArgumentException 当用户名或邮箱已存在时抛出
+     * @throws com.yoga.youjia.common.exception.RateLimitExceededException 密码哈希队列已满时抛出
+     */
+    public CompletableFuture<User> registerAsync(User user) {
+        checkRegistration(user);
+        return passwordHashingService.encode(user.getPassword())
+                .thenApplyAsync(encodedPassword -> {
+                    user.setPassword(encodedPassword);
+                    return saveNewUser(user);
+                }, applicationTaskExecutor);
+    }
+
+    /**
+     * 用户登录方法
+     *
+     * 验证用户的登录凭据（用户名和密码）
+     *
+     * @param username 用户名
+     * @param password 密码
+     * @return User 登录成功的用户对象
+     * @throws IllegalArgumentException 当登录失败时抛出
+     */
+    public User login(String username, String password) {
+        // 第一步、第二步：查找用户并检查是否存在
+        User user = findLoginUser(username);
+
+        // 第三步至第六步：验证密码、检查状态并记录登录信息
+        return completeLogin(user, passwordEncoder.matches(password, user.getPassword()));
+    }
+
+    /**
+     * 异步用户登录
+     *
+     * 用户查询在调用线程完成，密码校验交给有界的密码哈希线程池，校验结果的处理（失败计数、登录记录）
+     * 在应用任务线程池中执行，返回的结果也在应用任务线程池中完成
+     *
+     * @param username 用户名
+     * @param password 密码
+     * @return 登录成功的用户对象
+     * @throws IllegalArgumentException 当登录失败时抛出
+     * @throws com.yoga.youjia.common.exception.RateLimitExceededException 密码哈希队列已满时抛出
+     */
+    public CompletableFuture<User> loginAsync(String username, String password) {
+        User user = findLoginUser(username);
+        return passwordHashingService.matches(password, user.getPassword())
+                .thenApplyAsync(matched -> completeLogin(user, matched), applicationTaskExecutor);
+    }
+
+    /**
+     * 检查注册用户名和邮箱是否已存在
+     */
+    private void checkRegistration(User user) {
         if (userRepository.existsByUsername(user.getUsername())) {
             throw new IllegalArgumentException("用户名已存在");
         }
 
-        // 第二步：检查邮箱是否已存在
         if (userRepository.existsByEmail(user.getEmail())) {
             throw new IllegalArgumentException("邮箱已存在");
         }
+    }
 
-        // 第三步：加密密码
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
-
-        // 第四步：设置用户默认信息
+    /**
+     * 设置新用户默认信息并保存（密码已加密）
+     */
+    private User saveNewUser(User user) {
         user.setStatus(UserStatus.PENDING); // 新注册用户需要激活
         user.setRole(UserRole.USER);         // 默认为普通用户
         
@@ -64,49 +154,44 @@ public class AuthService {
             user.setRealName(null);
         }
 
-        // 第五步：保存用户到数据库
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        searchIndexService.onUserChanged(savedUser);
+        return savedUser;
     }
 
     /**
-     * 用户登录方法
-     *
-     * 验证用户的登录凭据（用户名和密码）
-     *
-     * @param username 用户名
-     * @param password 密码
-     * @return User 登录成功的用户对象
-     * @throws IllegalArgumentException 当登录失败时抛出
+     * 根据用户名查找登录用户
      */
-    public User login(String username, String password) {
-        // 第一步：根据用户名查找用户
+    private User findLoginUser(String username) {
         User user = userRepository.findByUsername(username)
                 .orElse(null);
 
-        // 第二步：检查用户是否存在
         if (user == null) {
             throw new IllegalArgumentException("用户名或密码错误");
         }
+        return user;
+    }
 
-        // 第三步：验证密码是否正确
-        if (!passwordEncoder.matches(password, user.getPassword())) {
-            // 增加密码错误次数
-            user.incrementPasswordErrorCount();
-            userRepository.save(user);
+    /**
+     * 根据密码校验结果完成登录
+     */
+    private User completeLogin(User user, boolean passwordMatched) {
+        if (!passwordMatched) {
+            // 增加密码错误次数（内存计数，达到阈值时锁定账户）
+            loginActivityRecorder.recordFailure(user);
             throw new IllegalArgumentException("用户名或密码错误");
         }
 
-        // 第四步：检查用户状态
+        // 检查用户状态
         if (!user.canLogin()) {
             String statusMessage = getStatusMessage(user.getStatus());
             throw new IllegalArgumentException(statusMessage);
         }
 
-        // 第五步：记录登录信息
+        // 记录登录信息（批量写入数据库）
         user.recordLoginInfo(null); // TODO: 获取实际IP地址
-        userRepository.save(user);
+        loginActivityRecorder.recordSuccess(user, null);
 
-        // 第六步：返回登录成功的用户信息
         user.setPassword(null); // 清除密码，不返回给前端
         return user;
     }
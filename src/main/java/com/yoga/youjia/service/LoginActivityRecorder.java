@@ -0,0 +1,192 @@
+package com.yoga.youjia.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yoga.youjia.common.enums.UserStatus;
+import com.yoga.youjia.entity.User;
+import com.yoga.youjia.repository.UserRepository;
+import com.yoga.youjia.security.service.PrincipalCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 登录记录写入服务
+ *
+ * 登录成功的最后登录时间和IP先在内存中按用户合并，由定时任务批量写入 users 表，
+ * 同一用户在一个周期内多次登录只写一次。密码错误次数只保存在内存中（按用户分桶计数，
+ * 并发更新只锁单个用户所在的桶），只有达到阈值触发锁定时才写库。
+ * 计数只在本节点有效，多节点部署时每个节点各自计数
+ */
+@Slf4j
+@Service
+public class LoginActivityRecorder {
+
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    private static final String FLUSH_LOGIN_SQL =
+            "UPDATE users SET last_login_time = ?, last_login_ip = ?, password_error_count = 0, " +
+            "lock_expire_time = NULL WHERE id = ? AND status <> 'LOCKED'";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private UserLookupService userLookupService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${security.login-attempts.window:30m}")
+    private Duration failureWindow; // 密码错误计数的统计窗口，窗口内没有新的错误时计数清零
+
+    /**
+     * 待写入的登录记录：用户ID -> 最近一次登录
+     */
+    private final Map<Long, LoginRecord> pendingLogins = new ConcurrentHashMap<>();
+
+    /**
+     * 密码错误计数：用户ID -> 连续错误次数
+     */
+    private Cache<Long, Integer> failureCounts;
+
+    private Counter flushedCounter;
+
+    private Counter lockedCounter;
+
+    @PostConstruct
+    public void init() {
+        failureCounts = Caffeine.newBuilder()
+                .expireAfterWrite(failureWindow)
+                .build();
+        meterRegistry.gauge("login.activity.pending", pendingLogins, Map::size);
+        flushedCounter = Counter.builder("login.activity.flushed")
+                .description("批量写入的登录记录数")
+                .register(meterRegistry);
+        lockedCounter = Counter.builder("login.failures.locked")
+                .description("因密码错误被锁定的账户数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 记录登录成功：清除密码错误计数，登录时间和IP等待批量写入
+     */
+    public void recordSuccess(User user, String ip) {
+        failureCounts.invalidate(user.getId());
+        pendingLogins.put(user.getId(), new LoginRecord(LocalDateTime.now(), ip));
+    }
+
+    /**
+     * 记录密码错误，达到阈值时锁定账户并立即写库
+     *
+     * 并发的错误可能越过阈值，因此按不低于阈值判断；锁定只对未锁定的用户生效，
+     * 锁定后清除计数，解锁后重新从零计数
+     *
+     * @return 本次记录后的连续错误次数
+     */
+    public int recordFailure(User user) {
+        Integer count = failureCounts.asMap().merge(user.getId(), 1, Integer::sum);
+        if (count >= User.MAX_PASSWORD_ERROR_COUNT && user.getStatus() != UserStatus.LOCKED) {
+            failureCounts.invalidate(user.getId());
+            lockUser(user, count);
+        }
+        return count;
+    }
+
+    /**
+     * 清除用户的密码错误计数，用户状态变更（如管理员解锁）时调用
+     */
+    public void clearFailures(Long userId) {
+        failureCounts.invalidate(userId);
+    }
+
+    /**
+     * 获取用户当前的连续密码错误次数
+     */
+    public int getFailureCount(Long userId) {
+        Integer count = failureCounts.getIfPresent(userId);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * 批量写入待写入的登录记录
+     */
+    @Scheduled(fixedDelayString = "${security.login-activity.flush-interval-ms:5000}")
+    public void flush() {
+        if (pendingLogins.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> batchArgs = new ArrayList<>();
+        for (Long userId : pendingLogins.keySet()) {
+            // 逐个取出，取出后新到的登录记录留到下个周期
+            LoginRecord record = pendingLogins.remove(userId);
+            if (record == null) {
+                continue;
+            }
+            batchArgs.add(new Object[]{Timestamp.valueOf(record.loginTime()), record.ip(), userId});
+            if (batchArgs.size() >= FLUSH_BATCH_SIZE) {
+                writeBatch(batchArgs);
+                batchArgs = new ArrayList<>();
+            }
+        }
+        if (!batchArgs.isEmpty()) {
+            writeBatch(batchArgs);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void writeBatch(List<Object[]> batchArgs) {
+        try {
+            jdbcTemplate.batchUpdate(FLUSH_LOGIN_SQL, batchArgs);
+            flushedCounter.increment(batchArgs.size());
+            log.debug("登录记录批量写入: count={}", batchArgs.size());
+        } catch (Exception e) {
+            // 登录记录只是统计信息，写入失败不重试，避免堆积
+            log.warn("登录记录批量写入失败: count={}, error={}", batchArgs.size(), e.getMessage());
+        }
+    }
+
+    private void lockUser(User user, int count) {
+        LocalDateTime lockExpireTime = LocalDateTime.now().plusMinutes(User.PASSWORD_LOCK_MINUTES);
+        pendingLogins.remove(user.getId());
+        if (userRepository.lockForPasswordErrors(user.getId(), count, lockExpireTime) == 0) {
+            return; // 其他请求已经锁定
+        }
+        principalCache.invalidate(user.getUsername());
+        userLookupService.invalidate(user.getId());
+        lockedCounter.increment();
+        log.warn("密码错误次数过多，账户已锁定: userId={}, username={}, count={}", user.getId(), user.getUsername(), count);
+    }
+
+    /**
+     * 待写入的登录记录
+     */
+    private record LoginRecord(LocalDateTime loginTime, String ip) {
+    }
+}
@@ -0,0 +1,121 @@
+package com.yoga.youjia.service;
+
+import com.yoga.youjia.common.exception.RateLimitExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 密码哈希服务
+ *
+ * BCrypt 计算是CPU密集操作，放在专用的有界线程池中执行，不占用Tomcat请求线程。
+ * 线程数默认等于CPU核数，等待队列有上限，队列满时立即以429拒绝，避免登录洪峰拖垮其他接口。
+ * 哈希耗时、排队耗时和拒绝次数注册到 Micrometer
+ */
+@Slf4j
+@Service
+public class PasswordHashingService {
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${security.password-hashing.threads:0}")
+    private int threads; // 哈希线程数，0表示使用CPU核数
+
+    @Value("${security.password-hashing.queue-capacity:200}")
+    private int queueCapacity; // 等待队列容量
+
+    private ThreadPoolExecutor executor;
+
+    private Timer encodeTimer;
+
+    private Timer matchesTimer;
+
+    private Timer queueWaitTimer;
+
+    private Counter rejectedCounter;
+
+    @PostConstruct
+    public void init() {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hash-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "passwordHashing", Collections.emptyList());
+
+        encodeTimer = Timer.builder("password.hash")
+                .description("密码哈希计算耗时")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        matchesTimer = Timer.builder("password.hash")
+                .description("密码哈希计算耗时")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        queueWaitTimer = Timer.builder("password.hash.queue.wait")
+                .description("密码哈希任务排队耗时")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("password.hash.rejected")
+                .description("因队列已满被拒绝的密码哈希任务数")
+                .register(meterRegistry);
+
+        log.info("密码哈希线程池已启动: threads={}, queueCapacity={}", poolSize, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 异步加密密码
+     *
+     * @throws RateLimitExceededException 等待队列已满时抛出
+     */
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword), encodeTimer);
+    }
+
+    /**
+     * 异步校验密码
+     *
+     * @throws RateLimitExceededException 等待队列已满时抛出
+     */
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        return submit(() -> passwordEncoder.matches(rawPassword, encodedPassword), matchesTimer);
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> task, Timer timer) {
+        long submittedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                queueWaitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return timer.record(task);
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            log.warn("密码哈希队列已满，拒绝请求: queueSize={}", executor.getQueue().size());
+            throw new RateLimitExceededException("当前登录请求过多，请稍后重试");
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.yoga.youjia.service;
+
+import com.yoga.youjia.common.utils.HashedTimingWheel;
+import com.yoga.youjia.entity.Project;
+import com.yoga.youjia.repository.ProjectRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 项目截止时间跟踪服务
+ *
+ * 启动时一次性载入启用的、规划中或进行中的项目的预计结束时间，每个项目在哈希时间轮上挂一个定时，
+ * 到点时在“未到期 -> 即将到期 -> 逾期”之间转换，转换时发布 {@link DeadlineEvent} 事件。
+ * 即将到期和逾期的项目ID保存在预先计算好的集合中，查询接口只遍历结果集合，不再查询数据库。
+ * 项目变更后由 {@link ProjectService} 在事务提交后更新；定时全量重载，同步其他节点的变更。
+ * 重载在锁外查询数据库，查询期间单独更新过的项目保留更新后的状态，不会被查询结果覆盖。
+ * 状态转换的精度为一个刻度，读取时再按当前时间过滤
+ */
+@Service
+public class ProjectDeadlineTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectDeadlineTracker.class);
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${project.deadline.near-days:7}")
+    private int nearDays; // 距结束时间多少天内算即将到期
+
+    @Value("${project.deadline.tick-ms:60000}")
+    private long tickMillis; // 时间轮刻度（毫秒）
+
+    @Value("${project.deadline.wheel-size:512}")
+    private int wheelSize; // 时间轮槽位数量
+
+    /**
+     * 截止时间状态
+     */
+    public enum DeadlineState {
+        UPCOMING, NEAR_DEADLINE, OVERDUE
+    }
+
+    /**
+     * 截止时间状态转换事件，只在进入即将到期或逾期状态时发布
+     */
+    public record DeadlineEvent(Long projectId, DeadlineState state, LocalDateTime endDate) {
+    }
+
+    private record Tracked(LocalDateTime endDate, DeadlineState state) {
+    }
+
+    /**
+     * 项目ID -> 跟踪状态，写操作在锁内进行，读操作不加锁
+     */
+    private final Map<Long, Tracked> tracked = new ConcurrentHashMap<>();
+
+    private final Set<Long> nearDeadline = ConcurrentHashMap.newKeySet();
+
+    private final Set<Long> overdue = ConcurrentHashMap.newKeySet();
+
+    private HashedTimingWheel<Long> wheel;
+
+    private volatile boolean loaded;
+
+    /**
+     * 单个项目更新的序号，在锁内递增
+     */
+    private long changeSequence;
+
+    /**
+     * 项目ID -> 最近一次单独更新的序号，重载时据此跳过查询之后更新过的项目，在锁内读写
+     */
+    private final Map<Long, Long> lastChanged = new HashMap<>();
+
+    /**
+     * 启动完成后载入全部需要跟踪的项目
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+    }
+
+    /**
+     * 全量重载，补上其他节点的变更和可能遗漏的更新
+     */
+    @Scheduled(fixedDelayString = "${project.deadline.reload-interval-ms:3600000}",
+               initialDelayString = "${project.deadline.reload-interval-ms:3600000}")
+    public void reload() {
+        long startTime = System.currentTimeMillis();
+        long snapshotSequence;
+        synchronized (this) {
+            // 先创建时间轮，查询期间提交的单独更新直接生效
+            if (wheel == null) {
+                wheel = new HashedTimingWheel<>(wheelSize, tickMillis, startTime);
+            }
+            snapshotSequence = changeSequence;
+        }
+        List<Object[]> rows = projectRepository.findDeadlineTrackedProjects();
+
+        List<DeadlineEvent> events = new ArrayList<>();
+        synchronized (this) {
+            // 首次载入不发布事件，之后的重载只对状态有变化的项目发布
+            boolean emit = loaded;
+            long now = System.currentTimeMillis();
+            Set<Long> projectIds = new HashSet<>();
+            for (Object[] row : rows) {
+                Long projectId = (Long) row[0];
+                projectIds.add(projectId);
+                if (!changedSince(projectId, snapshotSequence)) {
+                    addEvent(events, apply(projectId, (LocalDateTime) row[1], now, emit));
+                }
+            }
+            for (Long projectId : new ArrayList<>(tracked.keySet())) {
+                if (!projectIds.contains(projectId) && !changedSince(projectId, snapshotSequence)) {
+                    untrack(projectId);
+                }
+            }
+            lastChanged.values().removeIf(sequence -> sequence <= snapshotSequence);
+            loaded = true;
+        }
+        events.forEach(eventPublisher::publishEvent);
+
+        logger.info("项目截止时间已载入: projects={}, nearDeadline={}, overdue={}, duration={}ms",
+                    rows.size(), nearDeadline.size(), overdue.size(), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 推进时间轮，处理到点的项目
+     */
+    @Scheduled(fixedDelayString = "${project.deadline.tick-ms:60000}")
+    public void advance() {
+        List<DeadlineEvent> events = new ArrayList<>();
+        synchronized (this) {
+            if (wheel == null) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            for (Long projectId : wheel.advance(now)) {
+                Tracked current = tracked.get(projectId);
+                if (current != null) {
+                    addEvent(events, apply(projectId, current.endDate(), now, true));
+                }
+            }
+        }
+        events.forEach(eventPublisher::publishEvent);
+    }
+
+    /**
+     * 项目新增、修改、状态变更、启用/禁用或删除后调用
+     *
+     * 处于事务中时在提交后更新，回滚的修改不会进入跟踪状态
+     */
+    public void onProjectChanged(Project project) {
+        Long projectId = project.getId();
+        LocalDateTime endDate = isTrackable(project) ? project.getEndDate() : null;
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update(projectId, endDate);
+                }
+            });
+        } else {
+            update(projectId, endDate);
+        }
+    }
+
+    /**
+     * 是否可以由跟踪状态直接回答指定天数内即将到期的查询
+     *
+     * 尚未载入或天数超过跟踪范围时由调用方查询数据库
+     */
+    public boolean canServeNearDeadline(int days) {
+        return loaded && days <= nearDays;
+    }
+
+    /**
+     * 是否可以由跟踪状态直接回答逾期查询
+     */
+    public boolean canServeOverdue() {
+        return loaded;
+    }
+
+    /**
+     * 指定天数内即将到期的项目ID，按结束时间升序
+     */
+    public List<Long> getNearDeadlineProjectIds(int days) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime deadline = now.plusDays(days);
+        List<Map.Entry<Long, LocalDateTime>> matches = new ArrayList<>();
+        for (Long projectId : nearDeadline) {
+            Tracked current = tracked.get(projectId);
+            if (current != null && current.endDate().isAfter(now) && !current.endDate().isAfter(deadline)) {
+                matches.add(Map.entry(projectId, current.endDate()));
+            }
+        }
+        return sortByEndDate(matches);
+    }
+
+    /**
+     * 逾期的项目ID，按结束时间升序
+     *
+     * 包括已过结束时间、但时间轮还没推进到的即将到期项目
+     */
+    public List<Long> getOverdueProjectIds() {
+        LocalDateTime now = LocalDateTime.now();
+        List<Map.Entry<Long, LocalDateTime>> matches = new ArrayList<>();
+        for (Long projectId : overdue) {
+            Tracked current = tracked.get(projectId);
+            if (current != null) {
+                matches.add(Map.entry(projectId, current.endDate()));
+            }
+        }
+        for (Long projectId : nearDeadline) {
+            Tracked current = tracked.get(projectId);
+            if (current != null && !current.endDate().isAfter(now)) {
+                matches.add(Map.entry(projectId, current.endDate()));
+            }
+        }
+        return sortByEndDate(matches);
+    }
+
+    // ========== 私有方法 ==========
+
+    private void update(Long projectId, LocalDateTime endDate) {
+        DeadlineEvent event = null;
+        synchronized (this) {
+            if (wheel == null) {
+                // 尚未开始载入，载入时会读到最新数据
+                return;
+            }
+            lastChanged.put(projectId, ++changeSequence);
+            if (endDate == null) {
+                untrack(projectId);
+            } else {
+                event = apply(projectId, endDate, System.currentTimeMillis(), true);
+            }
+        }
+        if (event != null) {
+            eventPublisher.publishEvent(event);
+        }
+    }
+
+    /**
+     * 项目在重载查询开始之后是否单独更新过
+     */
+    private boolean changedSince(Long projectId, long snapshotSequence) {
+        Long sequence = lastChanged.get(projectId);
+        return sequence != null && sequence > snapshotSequence;
+    }
+
+    /**
+     * 按当前时间计算项目状态，更新集合并挂上下一次转换的定时
+     *
+     * @return 进入即将到期或逾期状态时的事件，否则为null
+     */
+    private DeadlineEvent apply(Long projectId, LocalDateTime endDate, long now, boolean emit) {
+        long end = endDate.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long nearAt = end - Duration.ofDays(nearDays).toMillis();
+
+        DeadlineState state;
+        if (now >= end) {
+            state = DeadlineState.OVERDUE;
+            wheel.cancel(projectId);
+            nearDeadline.remove(projectId);
+            overdue.add(projectId);
+        } else if (now >= nearAt) {
+            state = DeadlineState.NEAR_DEADLINE;
+            wheel.schedule(projectId, end);
+            overdue.remove(projectId);
+            nearDeadline.add(projectId);
+        } else {
+            state = DeadlineState.UPCOMING;
+            wheel.schedule(projectId, nearAt);
+            overdue.remove(projectId);
+            nearDeadline.remove(projectId);
+        }
+
+        Tracked previous = tracked.put(projectId, new Tracked(endDate, state));
+        if (!emit || state == DeadlineState.UPCOMING || (previous != null && previous.state() == state)) {
+            return null;
+        }
+        logger.debug("项目截止时间状态变更: projectId={}, state={}, endDate={}", projectId, state, endDate);
+        return new DeadlineEvent(projectId, state, endDate);
+    }
+
+    private void untrack(Long projectId) {
+        tracked.remove(projectId);
+        wheel.cancel(projectId);
+        nearDeadline.remove(projectId);
+        overdue.remove(projectId);
+    }
+
+    private static boolean isTrackable(Project project) {
+        return Boolean.TRUE.equals(project.getEnabled())
+                && project.getStatus() != null && project.getStatus().isActive()
+                && project.getEndDate() != null;
+    }
+
+    private static void addEvent(List<DeadlineEvent> events, DeadlineEvent event) {
+        if (event != null) {
+            events.add(event);
+        }
+    }
+
+    private static List<Long> sortByEndDate(List<Map.Entry<Long, LocalDateTime>> entries) {
+        entries.sort(Map.Entry.comparingByValue());
+        List<Long> projectIds = new ArrayList<>(entries.size());
+        entries.forEach(entry -> projectIds.add(entry.getKey()));
+        return projectIds;
+    }
+}
@@ -5,10 +5,17 @@ import com.yoga.youjia.common.enums.ProjectMemberRole;
 import com.yoga.youjia.common.exception.BusinessException;
 import com.yoga.youjia.common.exception.DataConflictException;
 import com.yoga.youjia.common.exception.ResourceNotFoundException;
+import com.yoga.youjia.dto.response.BatchMemberOperationResultDTO;
+import com.yoga.youjia.dto.response.BatchMemberOperationResultDTO.MemberOutcome;
+import com.yoga.youjia.dto.response.BatchMemberOperationResultDTO.Outcome;
 import com.yoga.youjia.entity.Project;
 import com.yoga.youjia.entity.ProjectMember;
 import com.yoga.youjia.repository.ProjectMemberRepository;
 import com.yoga.youjia.repository.ProjectRepository;
+import com.yoga.youjia.repository.UserRepository;
+import com.yoga.youjia.security.annotation.RequireProjectRole;
+import com.yoga.youjia.security.service.ProjectAccessCache;
+import com.yoga.youjia.security.service.TokenVersionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,11 +23,21 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -33,21 +50,60 @@ public class ProjectMemberService {
     
     private static final Logger logger = LoggerFactory.getLogger(ProjectMemberService.class);
     
+    /**
+     * 单次批量操作允许的最大用户数
+     */
+    private static final int MAX_BATCH_SIZE = 1000;
+    
+    private static final String INSERT_MEMBER_SQL =
+            "INSERT INTO project_members (project_id, user_id, role, active, remarks, added_by, " +
+            "joined_at, created_at, updated_at) VALUES (?, ?, ?, TRUE, ?, ?, ?, ?, ?)";
+    
+    private static final String REACTIVATE_MEMBER_SQL =
+            "UPDATE project_members SET active = TRUE, left_at = NULL, role = ?, added_by = ?, updated_at = ? " +
+            "WHERE project_id = ? AND user_id = ?";
+    
+    private static final String REMOVE_MEMBER_SQL =
+            "UPDATE project_members SET active = FALSE, left_at = ?, updated_at = ? " +
+            "WHERE project_id = ? AND user_id = ?";
+    
+    private static final String UPDATE_ROLE_SQL =
+            "UPDATE project_members SET role = ?, updated_at = ? WHERE project_id = ? AND user_id = ?";
+    
     @Autowired
     private ProjectMemberRepository projectMemberRepository;
     
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
     @Autowired
     private ProjectRepository projectRepository;
     
     @Autowired
     private ProjectService projectService;
     
+    @Autowired
+    private TokenVersionService tokenVersionService;
+    
+    @Autowired
+    private ProjectAccessCache projectAccessCache;
+
+    @Autowired
+    private ProjectStatisticsService projectStatisticsService;
+
+    @Autowired
+    private UserProjectIndexService userProjectIndexService;
+    
     // ========== 成员基本操作 ==========
     
     /**
      * 添加项目成员
      */
     @Transactional
+    @RequireProjectRole(ProjectMemberRole.TEST_MANAGER)
     public ProjectMember addProjectMember(Long projectId, Long userId, ProjectMemberRole role, 
                                          String remarks, Long operatorId) {
         logger.info("添加项目成员: projectId={}, userId={}, role={}, operator={}", 
@@ -56,9 +112,6 @@ public class ProjectMemberService {
         // 检查项目是否存在
         Project project = projectService.getProjectById(projectId);
         
-        // 检查操作权限
-        projectService.checkProjectManagePermission(projectId, operatorId);
-        
         // 检查成员是否已存在
         if (projectMemberRepository.existsByProject_IdAndUserId(projectId, userId)) {
             throw new DataConflictException(ErrorCode.PROJECT_MEMBER_ALREADY_EXISTS, 
@@ -76,6 +129,7 @@ public class ProjectMemberService {
                 .build();
         
         ProjectMember savedMember = projectMemberRepository.save(member);
+        onMembershipChanged(projectId, List.of(userId));
         logger.info("项目成员添加成功: id={}, projectId={}, userId={}", 
                    savedMember.getId(), projectId, userId);
         return savedMember;
@@ -85,12 +139,10 @@ public class ProjectMemberService {
      * 移除项目成员
      */
     @Transactional
+    @RequireProjectRole(ProjectMemberRole.TEST_MANAGER)
     public void removeProjectMember(Long projectId, Long userId, Long operatorId) {
         logger.info("移除项目成员: projectId={}, userId={}, operator={}", projectId, userId, operatorId);
         
-        // 检查操作权限
-        projectService.checkProjectManagePermission(projectId, operatorId);
-        
         // 查找成员记录
         ProjectMember member = projectMemberRepository.findByProject_IdAndUserId(projectId, userId)
                 .orElseThrow(() -> new BusinessException(ErrorCode.PROJECT_MEMBER_NOT_FOUND, 
@@ -98,7 +150,7 @@ public class ProjectMemberService {
         
         // 检查是否为最后一个项目经理
         if (member.getRole() == ProjectMemberRole.PROJECT_MANAGER) {
-            long managerCount = projectMemberRepository.findProjectManagersByProjectId(projectId).size();
+            long managerCount = projectMemberRepository.lockProjectManagerUserIds(projectId).size();
             if (managerCount <= 1) {
                 throw new BusinessException(ErrorCode.PROJECT_MANAGER_REQUIRED, "项目必须至少保留一个项目经理");
             }
@@ -112,6 +164,7 @@ public class ProjectMemberService {
         // 逻辑删除
         member.leaveProject();
         projectMemberRepository.save(member);
+        onMembershipChanged(projectId, List.of(userId));
         
         logger.info("项目成员移除成功: projectId={}, userId={}", projectId, userId);
     }
@@ -120,13 +173,11 @@ public class ProjectMemberService {
      * 更新成员角色
      */
     @Transactional
+    @RequireProjectRole(ProjectMemberRole.TEST_MANAGER)
     public ProjectMember updateMemberRole(Long projectId, Long userId, ProjectMemberRole newRole, Long operatorId) {
         logger.info("更新成员角色: projectId={}, userId={}, newRole={}, operator={}", 
                    projectId, userId, newRole, operatorId);
         
-        // 检查操作权限
-        projectService.checkProjectManagePermission(projectId, operatorId);
-        
         // 查找成员记录
         ProjectMember member = projectMemberRepository.findByProject_IdAndUserId(projectId, userId)
                 .orElseThrow(() -> new BusinessException(ErrorCode.PROJECT_MEMBER_NOT_FOUND, 
@@ -134,7 +185,7 @@ public class ProjectMemberService {
         
         // 检查是否为最后一个项目经理
         if (member.getRole() == ProjectMemberRole.PROJECT_MANAGER && newRole != ProjectMemberRole.PROJECT_MANAGER) {
-            long managerCount = projectMemberRepository.findProjectManagersByProjectId(projectId).size();
+            long managerCount = projectMemberRepository.lockProjectManagerUserIds(projectId).size();
             if (managerCount <= 1) {
                 throw new BusinessException(ErrorCode.PROJECT_MANAGER_REQUIRED, "项目必须至少保留一个项目经理");
             }
@@ -143,6 +194,7 @@ public class ProjectMemberService {
         // 更新角色
         member.changeRole(newRole);
         ProjectMember savedMember = projectMemberRepository.save(member);
+        onMembershipChanged(projectId, List.of(userId));
         
         logger.info("成员角色更新成功: id={}, newRole={}", savedMember.getId(), newRole);
         return savedMember;
@@ -152,12 +204,10 @@ public class ProjectMemberService {
      * 更新成员备注
      */
     @Transactional
+    @RequireProjectRole(ProjectMemberRole.TEST_MANAGER)
     public ProjectMember updateMemberRemarks(Long projectId, Long userId, String remarks, Long operatorId) {
         logger.info("更新成员备注: projectId={}, userId={}, operator={}", projectId, userId, operatorId);
         
-        // 检查操作权限
-        projectService.checkProjectManagePermission(projectId, operatorId);
-        
         // 查找成员记录
         ProjectMember member = projectMemberRepository.findByProject_IdAndUserId(projectId, userId)
                 .orElseThrow(() -> new BusinessException(ErrorCode.PROJECT_MEMBER_NOT_FOUND, 
@@ -255,39 +305,37 @@ public class ProjectMemberService {
      * 检查用户是否为项目成员
      */
     public boolean isProjectMember(Long projectId, Long userId) {
-        return projectMemberRepository.existsByProject_IdAndUserId(projectId, userId);
+        return projectAccessCache.getAccess(projectId, userId).isMember();
     }
     
     /**
      * 检查用户是否为项目管理员
      */
     public boolean isProjectManager(Long projectId, Long userId) {
-        return projectMemberRepository.isProjectManager(projectId, userId);
+        return projectAccessCache.getAccess(projectId, userId).isManager();
     }
     
     /**
      * 检查用户是否为项目经理
      */
     public boolean isProjectOwner(Long projectId, Long userId) {
-        return projectMemberRepository.isProjectOwner(projectId, userId);
+        return projectAccessCache.getAccess(projectId, userId).isOwner();
     }
     
     /**
      * 获取用户在项目中的角色
      */
     public ProjectMemberRole getUserRoleInProject(Long projectId, Long userId) {
-        ProjectMember member = projectMemberRepository.findByProject_IdAndUserId(projectId, userId)
-                .orElse(null);
-        return member != null && member.isActive() ? member.getRole() : null;
+        return projectAccessCache.getAccess(projectId, userId).getActiveRole();
     }
     
     /**
      * 检查用户在项目中的权限
      */
     public Map<String, Boolean> getUserPermissionsInProject(Long projectId, Long userId) {
-        ProjectMember member = getUserProjectMember(projectId, userId);
+        ProjectMemberRole role = getUserRoleInProject(projectId, userId);
         
-        if (member == null || !member.isActive()) {
+        if (role == null) {
             return Map.of(
                 "canView", false,
                 "canEdit", false,
@@ -301,12 +349,12 @@ public class ProjectMemberService {
         
         return Map.of(
             "canView", true,
-            "canEdit", member.canEdit(),
-            "canDelete", member.canDelete(),
-            "canManageMembers", member.canManageMembers(),
-            "canCreateTestCases", member.canCreateTestCases(),
-            "canExecuteTests", member.canExecuteTests(),
-            "canManageBugs", member.canManageBugs()
+            "canEdit", role.canEdit(),
+            "canDelete", role.canDelete(),
+            "canManageMembers", role.canManageMembers(),
+            "canCreateTestCases", role.canCreateTestCases(),
+            "canExecuteTests", role.canExecuteTests(),
+            "canManageBugs", role.canManageBugs()
         );
     }
     
@@ -314,53 +362,214 @@ public class ProjectMemberService {
     
     /**
      * 批量添加项目成员
+     * 
+     * 用户存在性和已有成员关系（加行锁）各用一次查询校验，新成员用 JDBC 批量插入，已离开的成员重新加入并更新角色，
+     * 已是活跃成员或用户不存在的跳过，返回每个用户的处理结果
      */
     @Transactional
-    public List<ProjectMember> addProjectMembers(Long projectId, List<Long> userIds, 
-                                               ProjectMemberRole role, Long operatorId) {
+    @RequireProjectRole(ProjectMemberRole.TEST_MANAGER)
+    public BatchMemberOperationResultDTO addProjectMembers(Long projectId, Collection<Long> userIds,
+                                                           ProjectMemberRole role, String remarks, Long operatorId) {
+        Set<Long> requested = normalizeUserIds(userIds);
         logger.info("批量添加项目成员: projectId={}, userCount={}, role={}, operator={}", 
-                   projectId, userIds.size(), role, operatorId);
+                   projectId, requested.size(), role, operatorId);
+        
+        // 检查项目是否存在
+        projectService.getProjectById(projectId);
         
-        // 检查操作权限
-        projectService.checkProjectManagePermission(projectId, operatorId);
+        Set<Long> existingUsers = new HashSet<>(userRepository.findExistingIds(requested));
+        Map<Long, MemberState> states = lockMemberStates(projectId, requested);
         
-        Project project = projectService.getProjectById(projectId);
+        List<MemberOutcome> results = new ArrayList<>(requested.size());
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> reactivations = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (Long userId : requested) {
+            MemberState state = states.get(userId);
+            Outcome outcome;
+            if (!existingUsers.contains(userId)) {
+                outcome = Outcome.USER_NOT_FOUND;
+            } else if (state == null) {
+                inserts.add(new Object[]{projectId, userId, role.name(), remarks, operatorId, now, now, now});
+                outcome = Outcome.ADDED;
+            } else if (!state.active()) {
+                reactivations.add(new Object[]{role.name(), operatorId, now, projectId, userId});
+                outcome = Outcome.REACTIVATED;
+            } else {
+                outcome = Outcome.ALREADY_MEMBER;
+            }
+            results.add(toOutcome(userId, outcome));
+        }
         
-        return userIds.stream()
-                .filter(userId -> !projectMemberRepository.existsByProject_IdAndUserId(projectId, userId))
-                .map(userId -> {
-                    ProjectMember member = ProjectMember.builder()
-                            .project(project)
-                            .userId(userId)
-                            .role(role)
-                            .addedBy(operatorId)
-                            .active(true)
-                            .build();
-                    return projectMemberRepository.save(member);
-                })
-                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(INSERT_MEMBER_SQL, inserts);
+        jdbcTemplate.batchUpdate(REACTIVATE_MEMBER_SQL, reactivations);
+        
+        return completeBatch(projectId, requested, results);
     }
     
     /**
      * 批量移除项目成员
+     * 
+     * 先锁定项目经理行再锁定请求的成员行，按请求顺序校验：不能移除自己，也不能移除最后一个项目经理。
+     * 并发的移除或降级在锁上排队，后执行的事务看到的是已提交的项目经理数量。
+     * 通过校验的成员用 JDBC 批量逻辑删除，返回每个用户的处理结果
      */
     @Transactional
-    public void removeProjectMembers(Long projectId, List<Long> userIds, Long operatorId) {
+    @RequireProjectRole(ProjectMemberRole.TEST_MANAGER)
+    public BatchMemberOperationResultDTO removeProjectMembers(Long projectId, Collection<Long> userIds, Long operatorId) {
+        Set<Long> requested = normalizeUserIds(userIds);
         logger.info("批量移除项目成员: projectId={}, userCount={}, operator={}", 
-                   projectId, userIds.size(), operatorId);
-        
-        // 检查操作权限
-        projectService.checkProjectManagePermission(projectId, operatorId);
-        
-        userIds.forEach(userId -> {
-            if (!userId.equals(operatorId)) { // 不能移除自己
-                try {
-                    removeProjectMember(projectId, userId, operatorId);
-                } catch (Exception e) {
-                    logger.warn("移除项目成员失败: projectId={}, userId={}, error={}", 
-                               projectId, userId, e.getMessage());
+                   projectId, requested.size(), operatorId);
+        
+        long remainingManagers = projectMemberRepository.lockProjectManagerUserIds(projectId).size();
+        Map<Long, MemberState> states = lockMemberStates(projectId, requested);
+        
+        List<MemberOutcome> results = new ArrayList<>(requested.size());
+        List<Object[]> removals = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (Long userId : requested) {
+            MemberState state = states.get(userId);
+            Outcome outcome;
+            if (state == null || !state.active()) {
+                outcome = Outcome.NOT_MEMBER;
+            } else if (userId.equals(operatorId)) {
+                outcome = Outcome.SELF;
+            } else if (state.role() == ProjectMemberRole.PROJECT_MANAGER && remainingManagers <= 1) {
+                outcome = Outcome.LAST_MANAGER;
+            } else {
+                if (state.role() == ProjectMemberRole.PROJECT_MANAGER) {
+                    remainingManagers--;
+                }
+                removals.add(new Object[]{now, now, projectId, userId});
+                outcome = Outcome.REMOVED;
+            }
+            results.add(toOutcome(userId, outcome));
+        }
+        
+        jdbcTemplate.batchUpdate(REMOVE_MEMBER_SQL, removals);
+        
+        return completeBatch(projectId, requested, results);
+    }
+    
+    /**
+     * 批量更新成员角色
+     * 
+     * 加锁和校验方式与批量移除相同：项目经理数量只查询一次，降级会导致没有项目经理的成员跳过
+     */
+    @Transactional
+    @RequireProjectRole(ProjectMemberRole.TEST_MANAGER)
+    public BatchMemberOperationResultDTO updateMemberRoles(Long projectId, Collection<Long> userIds,
+                                                           ProjectMemberRole newRole, Long operatorId) {
+        Set<Long> requested = normalizeUserIds(userIds);
+        logger.info("批量更新成员角色: projectId={}, userCount={}, newRole={}, operator={}", 
+                   projectId, requested.size(), newRole, operatorId);
+        
+        long remainingManagers = projectMemberRepository.lockProjectManagerUserIds(projectId).size();
+        Map<Long, MemberState> states = lockMemberStates(projectId, requested);
+        
+        List<MemberOutcome> results = new ArrayList<>(requested.size());
+        List<Object[]> updates = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (Long userId : requested) {
+            MemberState state = states.get(userId);
+            Outcome outcome;
+            if (state == null || !state.active()) {
+                outcome = Outcome.NOT_MEMBER;
+            } else if (state.role() == newRole) {
+                outcome = Outcome.UNCHANGED;
+            } else if (state.role() == ProjectMemberRole.PROJECT_MANAGER && remainingManagers <= 1) {
+                outcome = Outcome.LAST_MANAGER;
+            } else {
+                if (state.role() == ProjectMemberRole.PROJECT_MANAGER) {
+                    remainingManagers--;
                 }
+                updates.add(new Object[]{newRole.name(), now, projectId, userId});
+                outcome = Outcome.ROLE_CHANGED;
             }
-        });
+            results.add(toOutcome(userId, outcome));
+        }
+        
+        jdbcTemplate.batchUpdate(UPDATE_ROLE_SQL, updates);
+        
+        return completeBatch(projectId, requested, results);
+    }
+    
+    // ========== 私有方法 ==========
+    
+    /**
+     * 去掉空值和重复的用户ID并检查数量上限，保持请求顺序
+     */
+    private Set<Long> normalizeUserIds(Collection<Long> userIds) {
+        Set<Long> requested = new LinkedHashSet<>();
+        if (userIds != null) {
+            userIds.stream().filter(Objects::nonNull).forEach(requested::add);
+        }
+        if (requested.isEmpty()) {
+            throw new BusinessException(ErrorCode.PARAM_MISSING, "用户ID列表不能为空");
+        }
+        if (requested.size() > MAX_BATCH_SIZE) {
+            throw new BusinessException(ErrorCode.PARAM_INVALID,
+                String.format("单次最多处理%d个用户", MAX_BATCH_SIZE));
+        }
+        return requested;
+    }
+    
+    /**
+     * 锁定并查询请求用户的成员状态，校验结果在本事务提交前不会被其他批量操作改变
+     */
+    private Map<Long, MemberState> lockMemberStates(Long projectId, Collection<Long> userIds) {
+        Map<Long, MemberState> states = new HashMap<>();
+        for (Object[] row : projectMemberRepository.lockMemberStatesByProjectIdAndUserIdIn(projectId, userIds)) {
+            states.put(((Number) row[0]).longValue(),
+                    new MemberState(ProjectMemberRole.valueOf((String) row[1]), Boolean.TRUE.equals(row[2])));
+        }
+        return states;
+    }
+    
+    private static MemberOutcome toOutcome(Long userId, Outcome outcome) {
+        return MemberOutcome.builder()
+                .userId(userId)
+                .outcome(outcome)
+                .message(outcome.getMessage())
+                .build();
+    }
+    
+    /**
+     * 对实际变更的用户统一执行一次成员关系变更处理，并汇总结果
+     */
+    private BatchMemberOperationResultDTO completeBatch(Long projectId, Set<Long> requested, List<MemberOutcome> results) {
+        List<Long> changedUserIds = results.stream()
+                .filter(result -> result.getOutcome().isChanged())
+                .map(MemberOutcome::getUserId)
+                .collect(Collectors.toList());
+        if (!changedUserIds.isEmpty()) {
+            onMembershipChanged(projectId, changedUserIds);
+        }
+        
+        logger.info("批量成员操作完成: projectId={}, requested={}, changed={}", 
+                   projectId, requested.size(), changedUserIds.size());
+        return BatchMemberOperationResultDTO.builder()
+                .projectId(projectId)
+                .requested(requested.size())
+                .changed(changedUserIds.size())
+                .skipped(requested.size() - changedUserIds.size())
+                .results(results)
+                .build();
+    }
+    
+    /**
+     * 批量操作前的成员状态
+     */
+    private record MemberState(ProjectMemberRole role, boolean active) {
+    }
+    
+    /**
+     * 成员关系变化后失效访问权限缓存和用户项目统计，同步用户-项目索引，并使相关用户令牌中的项目角色过期
+     */
+    private void onMembershipChanged(Long projectId, Collection<Long> userIds) {
+        projectAccessCache.invalidate(projectId, userIds);
+        tokenVersionService.incrementVersions(userIds);
+        userProjectIndexService.syncMembers(projectId, userIds);
+        projectStatisticsService.onMembershipChanged(userIds);
     }
-}
\ No newline at end of file
+}
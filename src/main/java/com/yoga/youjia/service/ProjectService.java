@@ -10,10 +10,15 @@ import com.yoga.youjia.entity.Project;
 import com.yoga.youjia.entity.ProjectMember;
 import com.yoga.youjia.repository.ProjectMemberRepository;
 import com.yoga.youjia.repository.ProjectRepository;
+import com.yoga.youjia.repository.UserProjectIndexRepository;
+import com.yoga.youjia.security.service.ProjectAccessCache;
+import com.yoga.youjia.security.service.ProjectAccessCache.ProjectAccess;
+import com.yoga.youjia.security.service.TokenVersionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -21,8 +26,12 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -41,6 +50,27 @@ public class ProjectService {
     @Autowired
     private ProjectMemberRepository projectMemberRepository;
     
+    @Autowired
+    private UserProjectIndexRepository userProjectIndexRepository;
+    
+    @Autowired
+    private TokenVersionService tokenVersionService;
+    
+    @Autowired
+    private ProjectAccessCache projectAccessCache;
+    
+    @Autowired
+    private ProjectStatisticsService projectStatisticsService;
+    
+    @Autowired
+    private UserProjectIndexService userProjectIndexService;
+    
+    @Autowired
+    private ProjectDeadlineTracker projectDeadlineTracker;
+    
+    @Autowired
+    private SearchIndexService searchIndexService;
+    
     // ========== 项目基本操作 ==========
     
     /**
@@ -72,6 +102,12 @@ public class ProjectService {
                 .build();
         
         projectMemberRepository.save(creator);
+        tokenVersionService.incrementVersions(List.of(creatorId));
+        projectAccessCache.invalidate(savedProject.getId(), List.of(creatorId));
+        userProjectIndexService.syncMembers(savedProject.getId(), List.of(creatorId));
+        projectStatisticsService.onProjectsChanged();
+        projectDeadlineTracker.onProjectChanged(savedProject);
+        searchIndexService.onProjectChanged(savedProject);
         
         logger.info("项目创建成功: id={}, code={}", savedProject.getId(), savedProject.getCode());
         return savedProject;
@@ -124,6 +160,10 @@ public class ProjectService {
         existingProject.setUpdatedBy(operatorId);
         
         Project savedProject = projectRepository.save(existingProject);
+        userProjectIndexService.syncProject(savedProject);
+        projectStatisticsService.onProjectsChanged();
+        projectDeadlineTracker.onProjectChanged(savedProject);
+        searchIndexService.onProjectChanged(savedProject);
         logger.info("项目更新成功: id={}", savedProject.getId());
         return savedProject;
     }
@@ -144,6 +184,10 @@ public class ProjectService {
         project.changeStatus(newStatus, operatorId);
         
         Project savedProject = projectRepository.save(project);
+        userProjectIndexService.syncProject(savedProject);
+        projectStatisticsService.onProjectsChanged();
+        projectDeadlineTracker.onProjectChanged(savedProject);
+        searchIndexService.onProjectChanged(savedProject);
         logger.info("项目状态更新成功: id={}, status={}", savedProject.getId(), savedProject.getStatus());
         return savedProject;
     }
@@ -164,6 +208,10 @@ public class ProjectService {
         project.setUpdatedBy(operatorId);
         
         Project savedProject = projectRepository.save(project);
+        userProjectIndexService.syncProject(savedProject);
+        projectStatisticsService.onProjectsChanged();
+        projectDeadlineTracker.onProjectChanged(savedProject);
+        searchIndexService.onProjectChanged(savedProject);
         logger.info("项目{}成功: id={}", enabled ? "启用" : "禁用", savedProject.getId());
         return savedProject;
     }
@@ -190,6 +238,10 @@ public class ProjectService {
         project.setUpdatedBy(operatorId);
         
         projectRepository.save(project);
+        userProjectIndexService.syncProject(project);
+        projectStatisticsService.onProjectsChanged();
+        projectDeadlineTracker.onProjectChanged(project);
+        searchIndexService.onProjectChanged(project);
         logger.info("项目删除成功: id={}", projectId);
     }
     
@@ -208,8 +260,10 @@ public class ProjectService {
      * 根据用户ID分页查询用户参与的项目
      */
     public Page<Project> getProjectsByUser(Long userId, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size, Sort.by("updatedAt").descending());
-        return projectRepository.findProjectsByMemberId(userId, pageable);
+        // 在用户-项目索引上按更新时间倒序取一页项目ID，再按主键批量加载项目
+        Page<Long> projectIdPage = userProjectIndexRepository.findActiveProjectIdsByUserId(userId, PageRequest.of(page, size));
+        List<Project> content = findAllByIdInOrder(projectIdPage.getContent());
+        return new PageImpl<>(content, projectIdPage.getPageable(), projectIdPage.getTotalElements());
     }
     
     /**
@@ -226,19 +280,46 @@ public class ProjectService {
     }
     
     /**
-     * 搜索项目（根据编码或名称）
+     * 搜索项目（根据编码或名称），按匹配程度返回前若干条，关键词为空时返回空列表
      */
-    public List<Project> searchProjectsByKeyword(String keyword) {
+    public List<Project> searchProjectsByKeyword(String keyword, int limit) {
         if (keyword == null || keyword.trim().isEmpty()) {
-            return projectRepository.findByEnabledTrue();
+            return List.of();
+        }
+        if (searchIndexService.isLoaded()) {
+            return findAllByIdInOrder(searchIndexService.searchProjectIds(keyword, limit));
+        }
+        // 索引载入完成前回退到数据库模糊查询
+        return projectRepository.findByCodeOrNameContaining(keyword.trim()).stream()
+                .limit(searchIndexService.clampLimit(limit))
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * 批量统计项目成员数量，一次 GROUP BY 查询，不加载成员集合
+     *
+     * @return 项目ID到成员数量的映射，没有成员的项目为 0
+     */
+    public Map<Long, Integer> getMemberCounts(Collection<Long> projectIds) {
+        Map<Long, Integer> counts = new HashMap<>();
+        if (projectIds.isEmpty()) {
+            return counts;
         }
-        return projectRepository.findByCodeOrNameContaining(keyword.trim());
+        projectIds.forEach(projectId -> counts.put(projectId, 0));
+        for (Object[] row : projectMemberRepository.countMembersByProjectIds(projectIds)) {
+            counts.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        return counts;
     }
     
     /**
      * 查找即将到期的项目
      */
     public List<Project> getProjectsNearDeadline(int days) {
+        // 跟踪服务已载入且天数在跟踪范围内时直接取预先计算好的项目ID
+        if (projectDeadlineTracker.canServeNearDeadline(days)) {
+            return findAllByIdInOrder(projectDeadlineTracker.getNearDeadlineProjectIds(days));
+        }
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime deadline = now.plusDays(days);
         return projectRepository.findProjectsNearDeadline(now, deadline);
@@ -248,63 +329,32 @@ public class ProjectService {
      * 查找逾期的项目
      */
     public List<Project> getOverdueProjects() {
+        if (projectDeadlineTracker.canServeOverdue()) {
+            return findAllByIdInOrder(projectDeadlineTracker.getOverdueProjectIds());
+        }
         return projectRepository.findOverdueProjects(LocalDateTime.now());
     }
     
-    /**
-     * 获取项目统计信息
-     */
-    public Map<String, Object> getProjectStatistics() {
-        List<Object[]> statusCounts = projectRepository.countProjectsByStatus();
-        Map<String, Long> statusMap = statusCounts.stream()
-                .collect(Collectors.toMap(
-                    arr -> ((ProjectStatus) arr[0]).getDisplayName(),
-                    arr -> (Long) arr[1]
-                ));
-        
-        return Map.of(
-            "statusCounts", statusMap,
-            "totalProjects", projectRepository.countByEnabledTrue(),
-            "overdueProjects", getOverdueProjects().size(),
-            "nearDeadlineProjects", getProjectsNearDeadline(7).size()
-        );
-    }
-    
-    /**
-     * 获取用户项目统计信息
-     */
-    public Map<String, Object> getUserProjectStatistics(Long userId) {
-        List<Object[]> statusCounts = projectRepository.countProjectsByStatusAndMemberId(userId);
-        Map<String, Long> statusMap = statusCounts.stream()
-                .collect(Collectors.toMap(
-                    arr -> ((ProjectStatus) arr[0]).getDisplayName(),
-                    arr -> (Long) arr[1]
-                ));
-        
-        return Map.of(
-            "statusCounts", statusMap,
-            "totalProjects", projectRepository.countProjectsByMemberId(userId),
-            "managedProjects", projectMemberRepository.countByUserIdAndActiveTrue(userId)
-        );
-    }
-    
     // ========== 权限检查方法 ==========
     
     /**
      * 检查项目查看权限
      */
     public boolean checkProjectViewPermission(Long projectId, Long userId) {
-        return projectMemberRepository.existsByProject_IdAndUserId(projectId, userId);
+        return projectAccessCache.getAccess(projectId, userId).isMember();
     }
     
     /**
      * 检查项目编辑权限
      */
     public void checkProjectEditPermission(Long projectId, Long userId) {
-        ProjectMember member = projectMemberRepository.findByProject_IdAndUserId(projectId, userId)
-                .orElseThrow(() -> new BusinessException(ErrorCode.PROJECT_ACCESS_DENIED, "您不是该项目的成员，无法执行此操作"));
+        ProjectAccess access = projectAccessCache.getAccess(projectId, userId);
+        if (!access.isMember()) {
+            throw new BusinessException(ErrorCode.PROJECT_ACCESS_DENIED, "您不是该项目的成员，无法执行此操作");
+        }
         
-        if (!member.canEdit()) {
+        ProjectMemberRole role = access.getActiveRole();
+        if (role == null || !role.canEdit()) {
             throw new BusinessException(ErrorCode.PROJECT_PERMISSION_DENIED, "您没有编辑该项目的权限");
         }
     }
@@ -313,7 +363,7 @@ public class ProjectService {
      * 检查项目管理权限
      */
     public void checkProjectManagePermission(Long projectId, Long userId) {
-        if (!projectMemberRepository.isProjectManager(projectId, userId)) {
+        if (!projectAccessCache.getAccess(projectId, userId).isManager()) {
             throw new BusinessException(ErrorCode.PROJECT_PERMISSION_DENIED, "您没有管理该项目的权限");
         }
     }
@@ -322,8 +372,25 @@ public class ProjectService {
      * 检查项目所有者权限
      */
     public void checkProjectOwnerPermission(Long projectId, Long userId) {
-        if (!projectMemberRepository.isProjectOwner(projectId, userId)) {
+        if (!projectAccessCache.getAccess(projectId, userId).isOwner()) {
             throw new BusinessException(ErrorCode.PROJECT_PERMISSION_DENIED, "只有项目经理可以执行此操作");
         }
     }
-}
\ No newline at end of file
+    
+    // ========== 私有方法 ==========
+    
+    /**
+     * 按主键批量加载项目，并按传入的ID顺序返回
+     */
+    private List<Project> findAllByIdInOrder(List<Long> projectIds) {
+        if (projectIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Project> projects = projectRepository.findAllById(projectIds).stream()
+                .collect(Collectors.toMap(Project::getId, Function.identity()));
+        return projectIds.stream()
+                .map(projects::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,221 @@
+package com.yoga.youjia.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yoga.youjia.common.enums.ProjectStatus;
+import com.yoga.youjia.repository.ProjectMemberRepository;
+import com.yoga.youjia.repository.ProjectRepository;
+import com.yoga.youjia.repository.UserProjectIndexRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 项目统计快照服务
+ *
+ * 全局统计和按用户统计都只用 COUNT/GROUP BY 查询计算（按用户统计走用户-项目索引），结果作为快照保存在内存中，
+ * 统计接口直接返回快照（带 generatedAt 生成时间），不在请求线程上查询数据库。
+ * 全局快照按固定间隔重算，项目变更后在下一次检查时重算；按用户的快照首次访问时计算并缓存，
+ * 项目或成员变更时失效
+ */
+@Service
+public class ProjectStatisticsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProjectStatisticsService.class);
+
+    private static final String CACHE_NAME = "userProjectStatistics";
+
+    /**
+     * 即将到期的统计范围（天）
+     */
+    private static final int NEAR_DEADLINE_DAYS = 7;
+
+    private final ProjectRepository projectRepository;
+
+    private final ProjectMemberRepository projectMemberRepository;
+
+    private final UserProjectIndexRepository userProjectIndexRepository;
+
+    private final Duration refreshInterval;
+
+    private final Cache<Long, Map<String, Object>> userSnapshots;
+
+    /**
+     * 是否有项目变更尚未反映到全局快照
+     */
+    private final AtomicBoolean dirty = new AtomicBoolean(true);
+
+    private volatile Map<String, Object> globalSnapshot;
+
+    private volatile long globalGeneratedNanos;
+
+    public ProjectStatisticsService(ProjectRepository projectRepository,
+                                    ProjectMemberRepository projectMemberRepository,
+                                    UserProjectIndexRepository userProjectIndexRepository,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${project.statistics.refresh-interval:5m}") Duration refreshInterval,
+                                    @Value("${project.statistics.user-cache.maximum-size:10000}") long maximumSize) {
+        this.projectRepository = projectRepository;
+        this.projectMemberRepository = projectMemberRepository;
+        this.userProjectIndexRepository = userProjectIndexRepository;
+        this.refreshInterval = refreshInterval;
+        this.userSnapshots = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(refreshInterval)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, userSnapshots, CACHE_NAME);
+    }
+
+    /**
+     * 获取全局项目统计快照
+     */
+    public Map<String, Object> getProjectStatistics() {
+        Map<String, Object> snapshot = globalSnapshot;
+        if (snapshot == null) {
+            // 启动后定时任务尚未执行时同步计算一次
+            snapshot = refreshGlobalSnapshot();
+        }
+        return snapshot;
+    }
+
+    /**
+     * 获取用户项目统计快照
+     */
+    public Map<String, Object> getUserProjectStatistics(Long userId) {
+        return userSnapshots.get(userId, this::computeUserSnapshot);
+    }
+
+    /**
+     * 项目新增、修改、状态变更或删除后调用
+     *
+     * 全局快照在下一次检查时重算，按用户的快照全部失效；处于事务中时提交后再标记一次，
+     * 避免提交前重算读到旧数据
+     */
+    public void onProjectsChanged() {
+        dirty.set(true);
+        userSnapshots.invalidateAll();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    dirty.set(true);
+                    userSnapshots.invalidateAll();
+                }
+            });
+        }
+    }
+
+    /**
+     * 项目成员变更后调用，失效相关用户的快照
+     */
+    public void onMembershipChanged(Collection<Long> userIds) {
+        userSnapshots.invalidateAll(userIds);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    userSnapshots.invalidateAll(userIds);
+                }
+            });
+        }
+    }
+
+    /**
+     * 项目进入即将到期或逾期状态后，全局快照中的逾期和即将到期数量在下一次检查时重算
+     */
+    @EventListener
+    public void onDeadlineChanged(ProjectDeadlineTracker.DeadlineEvent event) {
+        dirty.set(true);
+    }
+
+    /**
+     * 有项目变更或快照超过刷新间隔时重算全局快照
+     */
+    @Scheduled(fixedDelayString = "${project.statistics.check-interval-ms:1000}")
+    public void refreshIfStale() {
+        boolean expired = System.nanoTime() - globalGeneratedNanos >= refreshInterval.toNanos();
+        if (dirty.get() || expired || globalSnapshot == null) {
+            refreshGlobalSnapshot();
+        }
+    }
+
+    // ========== 私有方法 ==========
+
+    private Map<String, Object> refreshGlobalSnapshot() {
+        dirty.set(false);
+        long startTime = System.currentTimeMillis();
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> rows = projectRepository.summarizeProjectsByStatus(now, now.plusDays(NEAR_DEADLINE_DAYS));
+
+        Map<String, Long> statusMap = new LinkedHashMap<>();
+        long totalProjects = 0;
+        long overdueProjects = 0;
+        long nearDeadlineProjects = 0;
+        for (Object[] row : rows) {
+            ProjectStatus status = (ProjectStatus) row[0];
+            long count = toLong(row[1]);
+            statusMap.put(status.getDisplayName(), count);
+            totalProjects += count;
+            // 只有规划中和进行中的项目计入逾期和即将到期
+            if (status.isActive()) {
+                overdueProjects += toLong(row[2]);
+                nearDeadlineProjects += toLong(row[3]);
+            }
+        }
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("statusCounts", Collections.unmodifiableMap(statusMap));
+        snapshot.put("totalProjects", totalProjects);
+        snapshot.put("overdueProjects", overdueProjects);
+        snapshot.put("nearDeadlineProjects", nearDeadlineProjects);
+        snapshot.put("generatedAt", now);
+
+        Map<String, Object> result = Collections.unmodifiableMap(snapshot);
+        globalSnapshot = result;
+        globalGeneratedNanos = System.nanoTime();
+
+        logger.debug("项目统计快照已更新: totalProjects={}, duration={}ms", totalProjects, System.currentTimeMillis() - startTime);
+        return result;
+    }
+
+    private Map<String, Object> computeUserSnapshot(Long userId) {
+        Map<String, Long> statusMap = new LinkedHashMap<>();
+        long totalProjects = 0;
+        for (Object[] row : userProjectIndexRepository.countActiveProjectsByStatus(userId)) {
+            long count = toLong(row[1]);
+            statusMap.put(((ProjectStatus) row[0]).getDisplayName(), count);
+            totalProjects += count;
+        }
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("statusCounts", Collections.unmodifiableMap(statusMap));
+        snapshot.put("totalProjects", totalProjects);
+        snapshot.put("managedProjects", projectMemberRepository.countByUserIdAndActiveTrue(userId));
+        snapshot.put("generatedAt", LocalDateTime.now());
+        return Collections.unmodifiableMap(snapshot);
+    }
+
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+}
@@ -0,0 +1,268 @@
+package com.yoga.youjia.service;
+
+import com.yoga.youjia.common.utils.NGramIndex;
+import com.yoga.youjia.entity.Project;
+import com.yoga.youjia.entity.User;
+import com.yoga.youjia.repository.ProjectRepository;
+import com.yoga.youjia.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 搜索联想索引服务
+ *
+ * 为全局搜索框和成员选择器提供输入联想：项目按编码、名称，用户按用户名、姓名、邮箱建立内存 N-gram 索引，
+ * 查询只返回得分最高的前若干条。启动时分批载入，之后由 {@link ProjectService}、{@link UserService}
+ * 和注册流程在事务提交后增量维护；载入完成前由调用方回退到数据库查询。
+ * 载入期间提交的增量更新记录序号，载入时跳过查询开始之后更新过的记录，避免分页读到的旧数据覆盖新数据
+ */
+@Service
+public class SearchIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndexService.class);
+
+    /**
+     * 载入时每批读取的记录数
+     */
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${search.index.max-candidates:5000}")
+    private int maxCandidates; // 单次查询最多检查的候选数
+
+    @Value("${search.index.max-results:50}")
+    private int maxResults; // 单次查询最多返回的结果数
+
+    private NGramIndex projectIndex;
+
+    private NGramIndex userIndex;
+
+    private Timer projectSearchTimer;
+
+    private Timer userSearchTimer;
+
+    private volatile boolean loaded;
+
+    /**
+     * 载入期间增量更新的序号，在锁内递增
+     */
+    private long changeSequence;
+
+    /**
+     * 项目ID -> 载入期间最近一次增量更新的序号，在锁内读写，载入完成后清空
+     */
+    private final Map<Long, Long> projectChanged = new HashMap<>();
+
+    /**
+     * 用户ID -> 载入期间最近一次增量更新的序号，在锁内读写，载入完成后清空
+     */
+    private final Map<Long, Long> userChanged = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        projectIndex = new NGramIndex(maxCandidates);
+        userIndex = new NGramIndex(maxCandidates);
+        projectSearchTimer = Timer.builder("search.index.query")
+                .description("搜索联想索引查询耗时")
+                .tag("index", "project")
+                .register(meterRegistry);
+        userSearchTimer = Timer.builder("search.index.query")
+                .description("搜索联想索引查询耗时")
+                .tag("index", "user")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 启动完成后分批载入启用的项目和全部用户
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long startTime = System.currentTimeMillis();
+        long snapshotSequence;
+        synchronized (this) {
+            snapshotSequence = changeSequence;
+        }
+
+        Page<Project> projects;
+        int page = 0;
+        do {
+            projects = projectRepository.findByEnabledTrue(PageRequest.of(page++, LOAD_BATCH_SIZE, Sort.by("id")));
+            synchronized (this) {
+                for (Project project : projects) {
+                    if (!changedSince(projectChanged, project.getId(), snapshotSequence)) {
+                        indexProject(project);
+                    }
+                }
+            }
+        } while (projects.hasNext());
+
+        Page<User> users;
+        page = 0;
+        do {
+            users = userRepository.findAll(PageRequest.of(page++, LOAD_BATCH_SIZE, Sort.by("id")));
+            synchronized (this) {
+                for (User user : users) {
+                    if (!changedSince(userChanged, user.getId(), snapshotSequence)) {
+                        indexUser(user);
+                    }
+                }
+            }
+        } while (users.hasNext());
+
+        synchronized (this) {
+            projectChanged.clear();
+            userChanged.clear();
+            loaded = true;
+        }
+        logger.info("搜索联想索引载入完成: projects={}, users={}, duration={}ms",
+                    projectIndex.size(), userIndex.size(), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 索引是否已载入
+     */
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * 按关键词联想项目
+     *
+     * @return 项目ID，按匹配程度排序
+     */
+    public List<Long> searchProjectIds(String keyword, int limit) {
+        return projectSearchTimer.record(() -> projectIndex.search(keyword, clampLimit(limit)));
+    }
+
+    /**
+     * 按关键词联想用户
+     *
+     * @return 用户ID，按匹配程度排序
+     */
+    public List<Long> searchUserIds(String keyword, int limit) {
+        return userSearchTimer.record(() -> userIndex.search(keyword, clampLimit(limit)));
+    }
+
+    /**
+     * 将查询数量限制在 1 到 maxResults 之间
+     */
+    public int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, maxResults));
+    }
+
+    /**
+     * 项目新增、修改、启用/禁用或删除后调用
+     */
+    public void onProjectChanged(Project project) {
+        Long projectId = project.getId();
+        boolean enabled = Boolean.TRUE.equals(project.getEnabled());
+        String code = project.getCode();
+        String name = project.getName();
+        afterCommit(() -> {
+            synchronized (this) {
+                recordChange(projectChanged, projectId);
+                if (enabled) {
+                    projectIndex.put(projectId, code, name);
+                } else {
+                    projectIndex.remove(projectId);
+                }
+            }
+        });
+    }
+
+    /**
+     * 用户新增或修改后调用
+     */
+    public void onUserChanged(User user) {
+        Long userId = user.getId();
+        String username = user.getUsername();
+        String realName = user.getRealName();
+        String email = user.getEmail();
+        afterCommit(() -> {
+            synchronized (this) {
+                recordChange(userChanged, userId);
+                userIndex.put(userId, username, realName, email);
+            }
+        });
+    }
+
+    /**
+     * 用户删除后调用
+     */
+    public void onUserDeleted(Long userId) {
+        afterCommit(() -> {
+            synchronized (this) {
+                recordChange(userChanged, userId);
+                userIndex.remove(userId);
+            }
+        });
+    }
+
+    // ========== 私有方法 ==========
+
+    private void indexProject(Project project) {
+        projectIndex.put(project.getId(), project.getCode(), project.getName());
+    }
+
+    private void indexUser(User user) {
+        userIndex.put(user.getId(), user.getUsername(), user.getRealName(), user.getEmail());
+    }
+
+    /**
+     * 载入完成前记录增量更新的序号，在锁内调用
+     */
+    private void recordChange(Map<Long, Long> changed, Long id) {
+        if (!loaded) {
+            changed.put(id, ++changeSequence);
+        }
+    }
+
+    /**
+     * 记录在载入查询开始之后是否增量更新过，在锁内调用
+     */
+    private static boolean changedSince(Map<Long, Long> changed, Long id, long snapshotSequence) {
+        Long sequence = changed.get(id);
+        return sequence != null && sequence > snapshotSequence;
+    }
+
+    /**
+     * 处于事务中时在提交后执行，回滚的修改不会进入索引
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
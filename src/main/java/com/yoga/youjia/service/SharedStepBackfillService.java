@@ -0,0 +1,214 @@
+package com.yoga.youjia.service;
+
+import com.yoga.youjia.common.enums.ErrorCode;
+import com.yoga.youjia.common.exception.ResourceNotFoundException;
+import com.yoga.youjia.dto.response.SharedStepBackfillResultDTO;
+import com.yoga.youjia.entity.SharedStepBody;
+import com.yoga.youjia.entity.TestStep;
+import com.yoga.youjia.repository.ProjectRepository;
+import com.yoga.youjia.repository.SharedStepBodyRepository;
+import com.yoga.youjia.repository.TestStepRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 共享步骤回填服务
+ *
+ * 按步骤ID递增分批扫描项目中的独立步骤，按内容哈希归并到共享步骤库：已有相同内容的复用，
+ * 没有的新建一条，然后把步骤改为引用共享内容并清空本行正文。每批一个独立事务，
+ * 已回填的步骤不会被再次扫描，中途失败后可以直接重新执行
+ */
+@Slf4j
+@Service
+public class SharedStepBackfillService {
+
+    /**
+     * 每批扫描的步骤数量
+     */
+    private static final int BATCH_SIZE = 500;
+
+    private static final String LINK_STEP_SQL =
+            "UPDATE test_steps SET shared_body_id = ?, step_description = NULL, test_data = NULL, " +
+            "expected_result = NULL, automation_code = NULL, updated_at = ? " +
+            "WHERE id = ? AND shared_body_id IS NULL";
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private SharedStepBodyRepository sharedStepBodyRepository;
+
+    @Autowired
+    private TestStepRepository testStepRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 对项目执行共享步骤回填
+     *
+     * @param projectId 项目ID
+     * @return 回填结果
+     */
+    public SharedStepBackfillResultDTO backfill(Long projectId) {
+        log.info("开始共享步骤回填: projectId={}", projectId);
+        long startTime = System.currentTimeMillis();
+
+        if (!projectRepository.existsById(projectId)) {
+            throw new ResourceNotFoundException(ErrorCode.PROJECT_NOT_FOUND, "项目不存在");
+        }
+
+        BackfillCounter counter = new BackfillCounter();
+        Long afterId = 0L;
+        while (true) {
+            final Long cursor = afterId;
+            Long lastId = transactionTemplate.execute(status -> backfillBatch(projectId, cursor, counter));
+            if (lastId == null) {
+                break;
+            }
+            afterId = lastId;
+
+            log.debug("共享步骤回填进度: projectId={}, scanned={}, linked={}", projectId, counter.scannedSteps, counter.linkedSteps);
+        }
+
+        long duration = System.currentTimeMillis() - startTime;
+        log.info("共享步骤回填完成: projectId={}, scanned={}, linked={}, created={}, deduplicated={}, savedChars={}, duration={}ms",
+                projectId, counter.scannedSteps, counter.linkedSteps, counter.createdBodies, counter.deduplicatedSteps,
+                counter.savedChars, duration);
+
+        return SharedStepBackfillResultDTO.builder()
+                .projectId(projectId)
+                .scannedSteps(counter.scannedSteps)
+                .linkedSteps(counter.linkedSteps)
+                .createdBodies(counter.createdBodies)
+                .deduplicatedSteps(counter.deduplicatedSteps)
+                .savedChars(counter.savedChars)
+                .durationMs(duration)
+                .build();
+    }
+
+    /**
+     * 回填一批步骤
+     *
+     * @return 本批最后一个步骤ID，没有剩余步骤时返回 null
+     */
+    private Long backfillBatch(Long projectId, Long afterId, BackfillCounter counter) {
+        List<TestStep> steps = testStepRepository.findUnsharedStepsByProjectId(projectId, afterId, PageRequest.of(0, BATCH_SIZE));
+        if (steps.isEmpty()) {
+            return null;
+        }
+
+        // 按内容哈希分组，缺少描述或预期结果的步骤不能成为共享内容，保持原样
+        Map<String, TestStep> firstStepByHash = new LinkedHashMap<>();
+        Map<Long, String> hashByStepId = new LinkedHashMap<>();
+        for (TestStep step : steps) {
+            if (isBlank(step.getStepDescription()) || isBlank(step.getExpectedResult())) {
+                continue;
+            }
+            String contentHash = SharedStepBody.calculateContentHash(step.getStepDescription(), step.getTestData(),
+                    step.getExpectedResult(), step.getAutomationCode());
+            hashByStepId.put(step.getId(), contentHash);
+            firstStepByHash.putIfAbsent(contentHash, step);
+        }
+
+        Map<String, SharedStepBody> bodyByHash = new HashMap<>();
+        if (!firstStepByHash.isEmpty()) {
+            for (SharedStepBody body : sharedStepBodyRepository.findByProjectIdAndContentHashIn(projectId, firstStepByHash.keySet())) {
+                bodyByHash.put(body.getContentHash(), body);
+            }
+        }
+
+        List<SharedStepBody> newBodies = new ArrayList<>();
+        for (Map.Entry<String, TestStep> entry : firstStepByHash.entrySet()) {
+            if (!bodyByHash.containsKey(entry.getKey())) {
+                TestStep step = entry.getValue();
+                newBodies.add(SharedStepBody.builder()
+                        .projectId(projectId)
+                        .contentHash(entry.getKey())
+                        .stepDescription(step.getStepDescription())
+                        .testData(step.getTestData())
+                        .expectedResult(step.getExpectedResult())
+                        .automationCode(step.getAutomationCode())
+                        .build());
+            }
+        }
+        Set<String> createdHashes = new HashSet<>();
+        for (SharedStepBody body : sharedStepBodyRepository.saveAll(newBodies)) {
+            bodyByHash.put(body.getContentHash(), body);
+            createdHashes.add(body.getContentHash());
+            counter.createdBodies++;
+            counter.savedChars -= body.getContentLength();
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Map.Entry<Long, String>> links = new ArrayList<>(hashByStepId.entrySet());
+        List<Object[]> batchArgs = new ArrayList<>(links.size());
+        for (Map.Entry<Long, String> entry : links) {
+            batchArgs.add(new Object[]{bodyByHash.get(entry.getValue()).getId(), now, entry.getKey()});
+        }
+        // 先把新建的共享步骤写入数据库，再批量改写步骤引用
+        sharedStepBodyRepository.flush();
+        int[] updateCounts = jdbcTemplate.batchUpdate(LINK_STEP_SQL, batchArgs);
+
+        // 只统计实际改写的步骤：期间被其他操作改为引用的步骤不会再次更新。
+        // 引用的共享步骤已存在，或者由本批其他步骤新建时，才算一次去重
+        for (int i = 0; i < links.size(); i++) {
+            if (updateCounts[i] == 0) {
+                continue;
+            }
+            Map.Entry<Long, String> entry = links.get(i);
+            SharedStepBody body = bodyByHash.get(entry.getValue());
+            counter.linkedSteps++;
+            counter.savedChars += body.getContentLength();
+            boolean createdForThisStep = createdHashes.contains(entry.getValue())
+                    && firstStepByHash.get(entry.getValue()).getId().equals(entry.getKey());
+            if (!createdForThisStep) {
+                counter.deduplicatedSteps++;
+            }
+        }
+
+        counter.scannedSteps += steps.size();
+        return steps.get(steps.size() - 1).getId();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+
+    /**
+     * 回填过程中的累计计数
+     */
+    private static class BackfillCounter {
+        private long scannedSteps;
+        private long linkedSteps;
+        private long createdBodies;
+        private long deduplicatedSteps;
+        private long savedChars;
+    }
+}
@@ -0,0 +1,206 @@
+package com.yoga.youjia.service;
+
+import com.yoga.youjia.common.constants.SystemConstants;
+import com.yoga.youjia.common.enums.ErrorCode;
+import com.yoga.youjia.common.exception.BusinessException;
+import com.yoga.youjia.common.exception.ResourceNotFoundException;
+import com.yoga.youjia.dto.request.SharedStepBodyRequestDTO;
+import com.yoga.youjia.dto.response.SharedStepBodyResponseDTO;
+import com.yoga.youjia.dto.response.SharedStepStorageReportDTO;
+import com.yoga.youjia.entity.SharedStepBody;
+import com.yoga.youjia.repository.SharedStepBodyRepository;
+import com.yoga.youjia.repository.TestStepRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * 共享步骤库服务类
+ *
+ * 管理按内容哈希去重的共享步骤。测试步骤只保存对共享步骤的引用，
+ * 因此编辑共享步骤只改一行，所有引用它的步骤在下次读取时即看到新内容
+ */
+@Slf4j
+@Service
+@Transactional
+public class SharedStepLibraryService {
+
+    @Autowired
+    private SharedStepBodyRepository sharedStepBodyRepository;
+
+    @Autowired
+    private TestStepRepository testStepRepository;
+
+    /**
+     * 将步骤内容加入共享步骤库，内容相同时返回已有的共享步骤
+     *
+     * @param projectId 项目ID
+     * @param requestDTO 步骤内容
+     * @param operatorId 操作人ID
+     */
+    public SharedStepBody internSharedStepBody(Long projectId, SharedStepBodyRequestDTO requestDTO, Long operatorId) {
+        String contentHash = SharedStepBody.calculateContentHash(requestDTO.getStepDescription(),
+                requestDTO.getTestData(), requestDTO.getExpectedResult(), requestDTO.getAutomationCode());
+
+        Optional<SharedStepBody> existing = sharedStepBodyRepository.findByProjectIdAndContentHash(projectId, contentHash);
+        if (existing.isPresent()) {
+            log.debug("共享步骤已存在: projectId={}, id={}", projectId, existing.get().getId());
+            return existing.get();
+        }
+
+        SharedStepBody body = SharedStepBody.builder()
+                .projectId(projectId)
+                .contentHash(contentHash)
+                .stepDescription(requestDTO.getStepDescription())
+                .testData(requestDTO.getTestData())
+                .expectedResult(requestDTO.getExpectedResult())
+                .automationCode(requestDTO.getAutomationCode())
+                .createdBy(operatorId)
+                .build();
+
+        body = sharedStepBodyRepository.save(body);
+        log.info("共享步骤创建成功: projectId={}, id={}", projectId, body.getId());
+        return body;
+    }
+
+    /**
+     * 修改共享步骤内容
+     *
+     * 只更新共享步骤本身，引用它的测试步骤通过引用读取新内容
+     */
+    public SharedStepBody updateSharedStepBody(Long projectId, Long id, SharedStepBodyRequestDTO requestDTO, Long operatorId) {
+        log.info("修改共享步骤: projectId={}, id={}", projectId, id);
+
+        SharedStepBody body = getSharedStepBody(projectId, id);
+        String contentHash = SharedStepBody.calculateContentHash(requestDTO.getStepDescription(),
+                requestDTO.getTestData(), requestDTO.getExpectedResult(), requestDTO.getAutomationCode());
+        if (contentHash.equals(body.getContentHash())) {
+            return body;
+        }
+
+        Optional<SharedStepBody> duplicate = sharedStepBodyRepository.findByProjectIdAndContentHash(projectId, contentHash);
+        if (duplicate.isPresent()) {
+            throw new BusinessException(ErrorCode.DATA_EXISTS, "已存在内容相同的共享步骤: " + duplicate.get().getId());
+        }
+
+        body.setStepDescription(requestDTO.getStepDescription());
+        body.setTestData(requestDTO.getTestData());
+        body.setExpectedResult(requestDTO.getExpectedResult());
+        body.setAutomationCode(requestDTO.getAutomationCode());
+        body.setContentHash(contentHash);
+        body.setUpdatedBy(operatorId);
+
+        body = sharedStepBodyRepository.save(body);
+        log.info("共享步骤修改成功: projectId={}, id={}", projectId, id);
+        return body;
+    }
+
+    /**
+     * 获取项目下的共享步骤
+     */
+    @Transactional(readOnly = true)
+    public SharedStepBody getSharedStepBody(Long projectId, Long id) {
+        return sharedStepBodyRepository.findByIdAndProjectId(id, projectId)
+                .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.DATA_NOT_FOUND, "共享步骤不存在"));
+    }
+
+    /**
+     * 批量获取项目下的共享步骤，任意一个不存在时抛出异常
+     *
+     * @return 共享步骤ID到共享步骤的映射
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, SharedStepBody> getSharedStepBodiesByIds(Long projectId, Collection<Long> ids) {
+        Map<Long, SharedStepBody> bodies = new HashMap<>();
+        if (ids.isEmpty()) {
+            return bodies;
+        }
+        for (SharedStepBody body : sharedStepBodyRepository.findByProjectIdAndIdIn(projectId, ids)) {
+            bodies.put(body.getId(), body);
+        }
+        for (Long id : ids) {
+            if (!bodies.containsKey(id)) {
+                throw new ResourceNotFoundException(ErrorCode.DATA_NOT_FOUND, "共享步骤不存在: " + id);
+            }
+        }
+        return bodies;
+    }
+
+    /**
+     * 获取共享步骤详情（包含引用次数）
+     */
+    @Transactional(readOnly = true)
+    public SharedStepBodyResponseDTO getSharedStepBodyDetail(Long projectId, Long id) {
+        SharedStepBody body = getSharedStepBody(projectId, id);
+        return SharedStepBodyResponseDTO.from(body, countReferences(List.of(id)).getOrDefault(id, 0L));
+    }
+
+    /**
+     * 分页查询共享步骤（包含引用次数）
+     */
+    @Transactional(readOnly = true)
+    public Page<SharedStepBodyResponseDTO> getSharedStepBodies(Long projectId, int page, int size) {
+        int pageSize = size <= 0 ? SystemConstants.DEFAULT_PAGE_SIZE : Math.min(size, SystemConstants.MAX_PAGE_SIZE);
+        Page<SharedStepBody> bodyPage = sharedStepBodyRepository.findByProjectId(projectId,
+                PageRequest.of(Math.max(page, 0), pageSize, Sort.by(Sort.Direction.DESC, "id")));
+
+        Map<Long, Long> referenceCounts = countReferences(bodyPage.getContent().stream()
+                .map(SharedStepBody::getId)
+                .collect(Collectors.toList()));
+        return bodyPage.map(body -> SharedStepBodyResponseDTO.from(body, referenceCounts.getOrDefault(body.getId(), 0L)));
+    }
+
+    /**
+     * 统计项目的共享步骤存储情况
+     */
+    @Transactional(readOnly = true)
+    public SharedStepStorageReportDTO getStorageReport(Long projectId) {
+        Object[] bodySummary = sharedStepBodyRepository.summarizeBodiesByProjectId(projectId).get(0);
+        Object[] referenceSummary = testStepRepository.summarizeSharedReferencesByProjectId(projectId).get(0);
+
+        long bodyCount = toLong(bodySummary[0]);
+        long storedChars = toLong(bodySummary[1]);
+        long referencingSteps = toLong(referenceSummary[0]);
+        long referencedBodies = toLong(referenceSummary[1]);
+        long logicalChars = toLong(referenceSummary[2]);
+
+        return SharedStepStorageReportDTO.builder()
+                .projectId(projectId)
+                .sharedBodyCount(bodyCount)
+                .unreferencedBodyCount(Math.max(0, bodyCount - referencedBodies))
+                .referencingStepCount(referencingSteps)
+                .logicalChars(logicalChars)
+                .storedChars(storedChars)
+                .savedChars(logicalChars - storedChars)
+                .deduplicationRatio(bodyCount > 0 ? (double) referencingSteps / bodyCount : 0D)
+                .build();
+    }
+
+    // ========== 私有方法 ==========
+
+    private Map<Long, Long> countReferences(List<Long> bodyIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        if (bodyIds.isEmpty()) {
+            return counts;
+        }
+        for (Object[] row : testStepRepository.countReferencesBySharedBodyIds(bodyIds)) {
+            counts.put((Long) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+
+    private static long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+}
@@ -1,19 +1,24 @@
 package com.yoga.youjia.service;
 
 import com.yoga.youjia.common.enums.TestCasePriority;
+import com.yoga.youjia.common.enums.ProjectMemberRole;
 import com.yoga.youjia.common.enums.TestCaseStatus;
 import com.yoga.youjia.common.enums.TestCaseType;
 import com.yoga.youjia.common.exception.BusinessException;
 import com.yoga.youjia.common.exception.ResourceNotFoundException;
 import com.yoga.youjia.common.enums.ErrorCode;
+import com.yoga.youjia.common.enums.StepStorageMode;
+import com.yoga.youjia.common.utils.StepDocumentCodec;
 import com.yoga.youjia.dto.request.CreateTestCaseRequestDTO;
 import com.yoga.youjia.dto.request.TestCaseQueryRequestDTO;
 import com.yoga.youjia.entity.TestCase;
 import com.yoga.youjia.entity.TestModule;
 import com.yoga.youjia.entity.TestStep;
+import com.yoga.youjia.repository.ProjectRepository;
 import com.yoga.youjia.repository.TestCaseRepository;
 import com.yoga.youjia.repository.TestModuleRepository;
 import com.yoga.youjia.repository.TestStepRepository;
+import com.yoga.youjia.security.annotation.RequireProjectRole;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -25,6 +30,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -47,9 +53,13 @@ public class TestCaseService {
     @Autowired
     private TestStepRepository testStepRepository;
     
+    @Autowired
+    private ProjectRepository projectRepository;
+    
     /**
      * 创建测试用例
      */
+    @RequireProjectRole(ProjectMemberRole.TESTER)
     public TestCase createTestCase(CreateTestCaseRequestDTO requestDTO, Long projectId, Long createdBy) {
         log.info("创建测试用例: projectId={}, moduleId={}, title={}", 
                 projectId, requestDTO.getModuleId(), requestDTO.getTitle());
@@ -102,26 +112,19 @@ public class TestCaseService {
             testCase.setTagList(requestDTO.getTags());
         }
         
+        // 文档模式下步骤随用例一起写入，只需保存一行
+        StepStorageMode storageMode = projectRepository.findStepStorageModeById(projectId)
+                .orElse(StepStorageMode.ROW);
+        if (storageMode == StepStorageMode.DOCUMENT) {
+            testCase.setStepsDocument(StepDocumentCodec.encode(buildTestSteps(requestDTO.getTestSteps(), null)));
+        }
+        
         // 保存测试用例
         testCase = testCaseRepository.save(testCase);
         
         // 创建测试步骤
-        if (requestDTO.getTestSteps() != null && !requestDTO.getTestSteps().isEmpty()) {
-            for (CreateTestCaseRequestDTO.CreateTestStepRequestDTO stepDTO : requestDTO.getTestSteps()) {
-                TestStep testStep = TestStep.builder()
-                        .testCaseId(testCase.getId())
-                        .stepOrder(stepDTO.getStepOrder())
-                        .stepDescription(stepDTO.getStepDescription())
-                        .testData(stepDTO.getTestData())
-                        .expectedResult(stepDTO.getExpectedResult())
-                        .remark(stepDTO.getRemark())
-                        .isKeyStep(stepDTO.getIsKeyStep() != null ? stepDTO.getIsKeyStep() : false)
-                        .automated(stepDTO.getAutomated() != null ? stepDTO.getAutomated() : false)
-                        .automationCode(stepDTO.getAutomationCode())
-                        .estimatedTime(stepDTO.getEstimatedTime() != null ? stepDTO.getEstimatedTime() : 30)
-                        .enabled(true)
-                        .build();
-                
+        if (storageMode == StepStorageMode.ROW && requestDTO.getTestSteps() != null && !requestDTO.getTestSteps().isEmpty()) {
+            for (TestStep testStep : buildTestSteps(requestDTO.getTestSteps(), testCase.getId())) {
                 testStepRepository.save(testStep);
             }
         }
@@ -186,7 +189,10 @@ public class TestCaseService {
     public TestCase updateTestCase(Long id, CreateTestCaseRequestDTO requestDTO, Long updatedBy) {
         log.info("更新测试用例: id={}, title={}", id, requestDTO.getTitle());
         
-        TestCase testCase = getTestCaseById(id);
+        // 加行锁读取，与步骤存储模式迁移互斥，避免按迁移前的存储状态写入步骤
+        TestCase testCase = testCaseRepository.findByIdForUpdate(id)
+                .filter(TestCase::getEnabled)
+                .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.DATA_NOT_FOUND, "测试用例不存在"));
         
         // 检查是否可以编辑
         if (!testCase.canEdit()) {
@@ -215,26 +221,17 @@ public class TestCaseService {
         
         // 更新测试步骤
         if (requestDTO.getTestSteps() != null) {
-            // 删除现有步骤
-            testStepRepository.softDeleteByTestCaseId(testCase.getId());
-            
-            // 创建新步骤
-            for (CreateTestCaseRequestDTO.CreateTestStepRequestDTO stepDTO : requestDTO.getTestSteps()) {
-                TestStep testStep = TestStep.builder()
-                        .testCaseId(testCase.getId())
-                        .stepOrder(stepDTO.getStepOrder())
-                        .stepDescription(stepDTO.getStepDescription())
-                        .testData(stepDTO.getTestData())
-                        .expectedResult(stepDTO.getExpectedResult())
-                        .remark(stepDTO.getRemark())
-                        .isKeyStep(stepDTO.getIsKeyStep() != null ? stepDTO.getIsKeyStep() : false)
-                        .automated(stepDTO.getAutomated() != null ? stepDTO.getAutomated() : false)
-                        .automationCode(stepDTO.getAutomationCode())
-                        .estimatedTime(stepDTO.getEstimatedTime() != null ? stepDTO.getEstimatedTime() : 30)
-                        .enabled(true)
-                        .build();
+            if (testCase.isDocumentStorage()) {
+                // 文档模式：整体替换步骤文档，随用例一起写入
+                testCase.setStepsDocument(StepDocumentCodec.encode(buildTestSteps(requestDTO.getTestSteps(), null)));
+            } else {
+                // 删除现有步骤
+                testStepRepository.softDeleteByTestCaseId(testCase.getId());
                 
-                testStepRepository.save(testStep);
+                // 创建新步骤
+                for (TestStep testStep : buildTestSteps(requestDTO.getTestSteps(), testCase.getId())) {
+                    testStepRepository.save(testStep);
+                }
             }
         }
         
@@ -395,6 +392,33 @@ public class TestCaseService {
         return prefix + String.format("%03d", nextNumber);
     }
     
+    /**
+     * 根据请求构建测试步骤
+     */
+    private List<TestStep> buildTestSteps(List<CreateTestCaseRequestDTO.CreateTestStepRequestDTO> stepDTOs, Long testCaseId) {
+        List<TestStep> testSteps = new ArrayList<>();
+        if (stepDTOs == null) {
+            return testSteps;
+        }
+        
+        for (CreateTestCaseRequestDTO.CreateTestStepRequestDTO stepDTO : stepDTOs) {
+            testSteps.add(TestStep.builder()
+                    .testCaseId(testCaseId)
+                    .stepOrder(stepDTO.getStepOrder())
+                    .stepDescription(stepDTO.getStepDescription())
+                    .testData(stepDTO.getTestData())
+                    .expectedResult(stepDTO.getExpectedResult())
+                    .remark(stepDTO.getRemark())
+                    .isKeyStep(stepDTO.getIsKeyStep() != null ? stepDTO.getIsKeyStep() : false)
+                    .automated(stepDTO.getAutomated() != null ? stepDTO.getAutomated() : false)
+                    .automationCode(stepDTO.getAutomationCode())
+                    .estimatedTime(stepDTO.getEstimatedTime() != null ? stepDTO.getEstimatedTime() : 30)
+                    .enabled(true)
+                    .build());
+        }
+        return testSteps;
+    }
+    
     /**
      * 构建排序对象
      */
@@ -1,18 +1,34 @@
 package com.yoga.youjia.service;
 
 import com.yoga.youjia.common.enums.ErrorCode;
+import com.yoga.youjia.common.enums.ProjectMemberRole;
 import com.yoga.youjia.common.exception.BusinessException;
 import com.yoga.youjia.common.exception.ResourceNotFoundException;
+import com.yoga.youjia.common.constants.SystemConstants;
 import com.yoga.youjia.dto.request.CreateTestModuleRequestDTO;
+import com.yoga.youjia.dto.response.TestModuleTreeNodeDTO;
+import com.yoga.youjia.dto.response.TestModuleTreePathDTO;
 import com.yoga.youjia.entity.TestModule;
 import com.yoga.youjia.repository.TestCaseRepository;
 import com.yoga.youjia.repository.TestModuleRepository;
+import com.yoga.youjia.security.annotation.RequireProjectRole;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * 测试模块服务类
@@ -24,6 +40,15 @@ import java.util.List;
 @Transactional
 public class TestModuleService {
     
+    /**
+     * 树节点的同级排序规则，与 (project_id, parent_id, sort_order) 索引一致
+     */
+    private static final Sort TREE_NODE_SORT = Sort.by("sortOrder", "id");
+    
+    private static final Comparator<TestModule> TREE_NODE_ORDER = Comparator
+            .comparing(TestModule::getSortOrder, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(TestModule::getId);
+    
     @Autowired
     private TestModuleRepository testModuleRepository;
     
@@ -33,6 +58,7 @@ public class TestModuleService {
     /**
      * 创建测试模块
      */
+    @RequireProjectRole(ProjectMemberRole.TESTER)
     public TestModule createTestModule(CreateTestModuleRequestDTO requestDTO, Long projectId, Long createdBy) {
         log.info("创建测试模块: projectId={}, name={}, parentId={}", 
                 projectId, requestDTO.getName(), requestDTO.getParentId());
@@ -114,6 +140,116 @@ public class TestModuleService {
         return testModuleRepository.findByProjectIdAndParentIdAndEnabledTrueOrderBySortOrderAscIdAsc(projectId, parentId);
     }
     
+    /**
+     * 懒加载获取模块树：分页返回根模块，并附带每个根模块排序靠前的第一层子模块
+     *
+     * @param childLimit 每个根模块预加载的子模块数量，0 表示不预加载
+     */
+    @Transactional(readOnly = true)
+    public Page<TestModuleTreeNodeDTO> getLazyModuleTree(Long projectId, int page, int size, int childLimit) {
+        log.debug("懒加载获取模块树: projectId={}, page={}, size={}, childLimit={}", projectId, page, size, childLimit);
+        
+        Page<TestModule> rootPage = testModuleRepository.findByProjectIdAndParentIdIsNullAndEnabledTrue(
+                projectId, PageRequest.of(Math.max(page, 0), clampPageSize(size), TREE_NODE_SORT));
+        Map<Long, Long> rootChildCounts = countChildren(projectId, rootPage.getContent());
+        
+        // 只为存在子模块的根模块预加载第一层，一次查询完成
+        List<Long> expandableRootIds = rootPage.getContent().stream()
+                .map(TestModule::getId)
+                .filter(id -> rootChildCounts.getOrDefault(id, 0L) > 0)
+                .collect(Collectors.toList());
+        
+        Map<Long, List<TestModuleTreeNodeDTO>> firstLevel = new HashMap<>();
+        int limit = clampPageSize(childLimit);
+        if (!expandableRootIds.isEmpty() && childLimit > 0) {
+            List<TestModule> children = testModuleRepository.findTopChildrenByParentIds(projectId, expandableRootIds, limit);
+            Map<Long, Long> grandChildCounts = countChildren(projectId, children);
+            for (TestModule child : children) {
+                firstLevel.computeIfAbsent(child.getParentId(), key -> new ArrayList<>())
+                        .add(TestModuleTreeNodeDTO.from(child, grandChildCounts.getOrDefault(child.getId(), 0L)));
+            }
+        }
+        
+        return rootPage.map(root -> {
+            TestModuleTreeNodeDTO node = TestModuleTreeNodeDTO.from(root, rootChildCounts.getOrDefault(root.getId(), 0L));
+            node.setChildren(firstLevel.get(root.getId()));
+            return node;
+        });
+    }
+    
+    /**
+     * 懒加载分页获取子模块（展开节点时调用）
+     */
+    @Transactional(readOnly = true)
+    public Page<TestModuleTreeNodeDTO> getLazyChildNodes(Long projectId, Long parentId, int page, int size) {
+        log.debug("懒加载获取子模块: projectId={}, parentId={}, page={}, size={}", projectId, parentId, page, size);
+        
+        Page<TestModule> childPage = testModuleRepository.findByProjectIdAndParentIdAndEnabledTrue(
+                projectId, parentId, PageRequest.of(Math.max(page, 0), clampPageSize(size), TREE_NODE_SORT));
+        Map<Long, Long> childCounts = countChildren(projectId, childPage.getContent());
+        
+        return childPage.map(child -> TestModuleTreeNodeDTO.from(child, childCounts.getOrDefault(child.getId(), 0L)));
+    }
+    
+    /**
+     * 展开到指定模块：只返回祖先链以及链上每一层的兄弟节点
+     *
+     * @param siblingLimit 每一层最多返回的兄弟节点数量（路径上的节点总会包含在内）
+     */
+    @Transactional(readOnly = true)
+    public TestModuleTreePathDTO expandPathToModule(Long projectId, Long moduleId, int siblingLimit) {
+        log.debug("展开模块路径: projectId={}, moduleId={}, siblingLimit={}", projectId, moduleId, siblingLimit);
+        
+        List<Long> path = testModuleRepository.findAncestorIdsFromRoot(projectId, moduleId);
+        if (path.isEmpty()) {
+            throw new ResourceNotFoundException(ErrorCode.DATA_NOT_FOUND, "测试模块不存在");
+        }
+        
+        int limit = clampPageSize(siblingLimit);
+        List<TestModule> levelModules = new ArrayList<>(testModuleRepository.findByProjectIdAndParentIdIsNullAndEnabledTrue(
+                projectId, PageRequest.of(0, limit, TREE_NODE_SORT)).getContent());
+        
+        // 目标模块自身不展开，因此只查询路径上祖先的子节点
+        List<Long> expandedIds = path.subList(0, path.size() - 1);
+        if (!expandedIds.isEmpty()) {
+            levelModules.addAll(testModuleRepository.findTopChildrenByParentIds(projectId, expandedIds, limit));
+        }
+        
+        // 路径上的节点可能排在兄弟节点数量限制之外，需要补齐
+        Set<Long> loadedIds = levelModules.stream().map(TestModule::getId).collect(Collectors.toSet());
+        List<Long> missingIds = path.stream().filter(id -> !loadedIds.contains(id)).collect(Collectors.toList());
+        if (!missingIds.isEmpty()) {
+            levelModules.addAll(testModuleRepository.findByProjectIdAndIdInAndEnabledTrue(projectId, missingIds));
+        }
+        levelModules.sort(TREE_NODE_ORDER);
+        
+        Map<Long, Long> childCounts = countChildren(projectId, levelModules);
+        Map<Long, TestModuleTreeNodeDTO> nodesById = new LinkedHashMap<>();
+        List<TestModuleTreeNodeDTO> roots = new ArrayList<>();
+        Map<Long, List<TestModuleTreeNodeDTO>> childrenByParent = new HashMap<>();
+        for (TestModule module : levelModules) {
+            TestModuleTreeNodeDTO node = TestModuleTreeNodeDTO.from(module, childCounts.getOrDefault(module.getId(), 0L));
+            nodesById.put(module.getId(), node);
+            if (module.getParentId() == null) {
+                roots.add(node);
+            } else {
+                childrenByParent.computeIfAbsent(module.getParentId(), key -> new ArrayList<>()).add(node);
+            }
+        }
+        for (Long expandedId : expandedIds) {
+            TestModuleTreeNodeDTO node = nodesById.get(expandedId);
+            if (node != null) {
+                node.setChildren(childrenByParent.getOrDefault(expandedId, new ArrayList<>()));
+            }
+        }
+        
+        return TestModuleTreePathDTO.builder()
+                .targetId(moduleId)
+                .path(path)
+                .nodes(roots)
+                .build();
+    }
+    
     /**
      * 根据ID获取测试模块
      */
@@ -294,6 +430,29 @@ public class TestModuleService {
         return false;
     }
     
+    /**
+     * 批量统计模块的直接子模块数量（一次 GROUP BY 查询）
+     */
+    private Map<Long, Long> countChildren(Long projectId, Collection<TestModule> modules) {
+        if (modules.isEmpty()) {
+            return new HashMap<>();
+        }
+        
+        List<Long> parentIds = modules.stream().map(TestModule::getId).collect(Collectors.toList());
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : testModuleRepository.countChildrenByParentIds(projectId, parentIds)) {
+            counts.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+    
+    /**
+     * 限制懒加载树的分页大小
+     */
+    private int clampPageSize(int size) {
+        return Math.max(1, Math.min(size, SystemConstants.MAX_PAGE_SIZE));
+    }
+    
     /**
      * 更新子模块路径
      */
@@ -0,0 +1,199 @@
+package com.yoga.youjia.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yoga.youjia.common.enums.ErrorCode;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * 测试模块树导出服务
+ *
+ * 按先序遍历顺序逐行读取模块（只取树节点所需的列），用 JsonGenerator 直接把嵌套 JSON 写到输出流，
+ * 不构造实体、DTO 或完整的 JSON 字符串，内存占用与树的规模无关，只与树的深度有关
+ */
+@Slf4j
+@Service
+public class TestModuleTreeExportService {
+
+    /**
+     * 单层排序键长度：sort_order 偏移后补齐 10 位 + id 补齐 19 位
+     */
+    private static final int SORT_KEY_LENGTH = 29;
+
+    /**
+     * 排序路径的最大长度，决定了可导出的最大层级
+     */
+    private static final int SORT_PATH_LENGTH = 2000;
+
+    private static final int MAX_DEPTH = SORT_PATH_LENGTH / SORT_KEY_LENGTH;
+
+    /**
+     * sort_order 加上 2^31 后落在 [0, 2^32)，补齐 10 位后负数也能按字典序正确排序
+     */
+    private static final String SORT_ORDER_OFFSET = "2147483648";
+
+    private static final int FETCH_SIZE = 500;
+
+    /**
+     * 递归查询模块树，sort_path 由每一层的 (sort_order, id) 定长拼接而成，按它排序即为先序遍历顺序。
+     * 每层键定长，父节点的路径是子节点路径的前缀，因此排在子节点之前。
+     * 锚点用 CAST 声明列的最大长度，MySQL 只支持 CAST 为 CHAR(n)；H2 默认模式下 CHAR 会用空格补齐，
+     * 递归部分先 RTRIM 再拼接，补齐的空格小于数字，按路径排序时父节点仍在子节点之前
+     */
+    private static final String MODULE_TREE_SQL =
+            "WITH RECURSIVE module_tree (id, parent_id, name, sort_order, depth, sort_path) AS (" +
+            "SELECT m.id, m.parent_id, m.name, m.sort_order, 0, " +
+            "CAST(CONCAT(" + sortKey("m") + ") AS CHAR(" + SORT_PATH_LENGTH + ")) " +
+            "FROM test_modules m " +
+            "WHERE m.project_id = ? AND m.parent_id IS NULL AND m.enabled = TRUE " +
+            "UNION ALL " +
+            "SELECT c.id, c.parent_id, c.name, c.sort_order, t.depth + 1, " +
+            "CONCAT(RTRIM(t.sort_path), " + sortKey("c") + ") " +
+            "FROM test_modules c JOIN module_tree t ON c.parent_id = t.id " +
+            "WHERE c.project_id = ? AND c.enabled = TRUE AND t.depth < " + (MAX_DEPTH - 1) +
+            ") " +
+            "SELECT t.id, t.parent_id, t.name, t.sort_order, t.depth, " +
+            "COALESCE(cc.child_count, 0) AS child_count, COALESCE(tc.case_count, 0) AS case_count " +
+            "FROM module_tree t " +
+            "LEFT JOIN (SELECT parent_id, COUNT(*) AS child_count FROM test_modules " +
+            "WHERE project_id = ? AND enabled = TRUE AND parent_id IS NOT NULL GROUP BY parent_id) cc ON cc.parent_id = t.id " +
+            "LEFT JOIN (SELECT module_id, COUNT(*) AS case_count FROM test_cases " +
+            "WHERE project_id = ? AND enabled = TRUE GROUP BY module_id) tc ON tc.module_id = t.id " +
+            "ORDER BY t.sort_path";
+
+    private static String sortKey(String alias) {
+        return "LPAD(COALESCE(" + alias + ".sort_order, 0) + " + SORT_ORDER_OFFSET + ", 10, '0'), " +
+               "LPAD(" + alias + ".id, 19, '0')";
+    }
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void init() {
+        // 独立的 JdbcTemplate，设置 fetchSize 让驱动分批拉取结果集（MySQL 需开启 useCursorFetch）
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    /**
+     * 将项目的完整模块树以 ApiResponse 格式流式写入输出流
+     *
+     * @param projectId 项目ID
+     * @param outputStream 响应输出流
+     */
+    public void writeModuleTree(Long projectId, OutputStream outputStream) throws IOException {
+        log.debug("流式导出模块树: projectId={}", projectId);
+        long startTime = System.currentTimeMillis();
+
+        try (JsonGenerator generator = objectMapper.createGenerator(outputStream, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeBooleanField("success", true);
+            generator.writeStringField("code", ErrorCode.SUCCESS.getCode());
+            generator.writeStringField("message", "获取成功");
+            generator.writeFieldName("timestamp");
+            generator.writeObject(LocalDateTime.now());
+            generator.writeArrayFieldStart("data");
+            // 先把响应头部写出去，降低首字节时间
+            generator.flush();
+
+            TreeWriter treeWriter = new TreeWriter(generator);
+            try {
+                jdbcTemplate.query(MODULE_TREE_SQL, (RowCallbackHandler) treeWriter::writeRow, projectId, projectId, projectId, projectId);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            treeWriter.closeAll();
+
+            generator.writeEndArray();
+            generator.writeEndObject();
+
+            log.debug("模块树导出完成: projectId={}, nodes={}, duration={}ms",
+                    projectId, treeWriter.nodeCount, System.currentTimeMillis() - startTime);
+        }
+    }
+
+    /**
+     * 按先序行流写出嵌套 JSON
+     *
+     * 栈中只保存尚未闭合的祖先节点，以及它们是否已经开始写 children 数组
+     */
+    private static class TreeWriter {
+
+        private final JsonGenerator generator;
+
+        private final Deque<Boolean> openNodes = new ArrayDeque<>();
+
+        private long nodeCount;
+
+        TreeWriter(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        void writeRow(ResultSet rs) throws SQLException {
+            int depth = rs.getInt("depth");
+            try {
+                // 关闭不再是当前节点祖先的节点
+                while (openNodes.size() > depth) {
+                    closeNode(openNodes.pop());
+                }
+                // 父节点的第一个子节点，开始写 children 数组
+                if (!openNodes.isEmpty() && !openNodes.peek()) {
+                    openNodes.pop();
+                    openNodes.push(true);
+                    generator.writeArrayFieldStart("children");
+                }
+
+                generator.writeStartObject();
+                generator.writeNumberField("id", rs.getLong("id"));
+                long parentId = rs.getLong("parent_id");
+                if (!rs.wasNull()) {
+                    generator.writeNumberField("parentId", parentId);
+                }
+                generator.writeStringField("name", rs.getString("name"));
+                generator.writeNumberField("sortOrder", rs.getInt("sort_order"));
+                generator.writeNumberField("depth", depth);
+                generator.writeNumberField("childCount", rs.getLong("child_count"));
+                generator.writeNumberField("testCaseCount", rs.getLong("case_count"));
+                openNodes.push(false);
+                nodeCount++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void closeAll() throws IOException {
+            while (!openNodes.isEmpty()) {
+                closeNode(openNodes.pop());
+            }
+        }
+
+        private void closeNode(boolean childrenOpened) throws IOException {
+            if (childrenOpened) {
+                generator.writeEndArray();
+            }
+            generator.writeEndObject();
+        }
+    }
+}
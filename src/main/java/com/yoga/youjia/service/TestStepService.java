@@ -3,16 +3,28 @@ package com.yoga.youjia.service;
 import com.yoga.youjia.common.enums.ErrorCode;
 import com.yoga.youjia.common.exception.BusinessException;
 import com.yoga.youjia.common.exception.ResourceNotFoundException;
+import com.yoga.youjia.common.utils.StepDocumentCodec;
 import com.yoga.youjia.dto.request.CreateTestStepRequestDTO;
+import com.yoga.youjia.entity.SharedStepBody;
+import com.yoga.youjia.entity.TestCase;
 import com.yoga.youjia.entity.TestStep;
+import com.yoga.youjia.repository.TestCaseRepository;
 import com.yoga.youjia.repository.TestStepRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
 
 /**
  * 测试步骤服务类
@@ -24,35 +36,52 @@ import java.util.List;
 @Transactional
 public class TestStepService {
     
+    /**
+     * 单次批量创建的最大步骤数
+     */
+    private static final int MAX_BATCH_CREATE_SIZE = 5000;
+    
     @Autowired
     private TestStepRepository testStepRepository;
     
+    @Autowired
+    private TestCaseRepository testCaseRepository;
+    
+    @Autowired
+    private SharedStepLibraryService sharedStepLibraryService;
+    
     /**
      * 创建测试步骤
      */
     public TestStep createTestStep(CreateTestStepRequestDTO requestDTO, Long testCaseId) {
         log.info("创建测试步骤: testCaseId={}, stepOrder={}", testCaseId, requestDTO.getStepOrder());
         
-        // 检查步骤序号是否重复
-        if (testStepRepository.existsByTestCaseIdAndStepOrderAndEnabledTrueAndIdNot(
-                testCaseId, requestDTO.getStepOrder(), -1L)) {
-            throw new BusinessException(ErrorCode.DATA_EXISTS, "步骤序号已存在: " + requestDTO.getStepOrder());
+        if (Boolean.TRUE.equals(requestDTO.getDetachSharedBody()) || Boolean.TRUE.equals(requestDTO.getClearOverrides())) {
+            throw new BusinessException(ErrorCode.PARAM_INVALID, "解除共享引用和清除覆盖内容只能在更新步骤时使用");
+        }
+        lockTestCase(testCaseId);
+        assertRowStorage(testCaseId);
+        
+        // 未指定序号时追加到末尾，否则检查步骤序号是否重复
+        Integer stepOrder = requestDTO.getStepOrder();
+        if (stepOrder == null) {
+            stepOrder = testStepRepository.findMaxStepOrderByTestCase(testCaseId) + 1;
+        } else if (testStepRepository.existsByTestCaseIdAndStepOrderAndEnabledTrueAndIdNot(
+                testCaseId, stepOrder, -1L)) {
+            throw new BusinessException(ErrorCode.DATA_EXISTS, "步骤序号已存在: " + stepOrder);
         }
         
         // 构建测试步骤
         TestStep testStep = TestStep.builder()
                 .testCaseId(testCaseId)
-                .stepOrder(requestDTO.getStepOrder())
-                .stepDescription(requestDTO.getStepDescription())
-                .testData(requestDTO.getTestData())
-                .expectedResult(requestDTO.getExpectedResult())
+                .stepOrder(stepOrder)
                 .remark(requestDTO.getRemark())
                 .isKeyStep(requestDTO.getIsKeyStep() != null ? requestDTO.getIsKeyStep() : false)
                 .automated(requestDTO.getAutomated() != null ? requestDTO.getAutomated() : false)
-                .automationCode(requestDTO.getAutomationCode())
                 .estimatedTime(requestDTO.getEstimatedTime() != null ? requestDTO.getEstimatedTime() : 30)
                 .enabled(true)
                 .build();
+        applyStepContent(testStep, requestDTO, resolveSharedBody(testCaseId, requestDTO.getSharedBodyId()));
         
         testStep = testStepRepository.save(testStep);
         log.info("测试步骤创建成功: id={}, stepOrder={}", testStep.getId(), testStep.getStepOrder());
@@ -65,6 +94,11 @@ public class TestStepService {
     @Transactional(readOnly = true)
     public List<TestStep> getTestStepsByTestCaseId(Long testCaseId) {
         log.debug("获取测试步骤列表: testCaseId={}", testCaseId);
+        
+        Optional<String> stepsDocument = testCaseRepository.findStepsDocumentById(testCaseId);
+        if (stepsDocument.isPresent()) {
+            return StepDocumentCodec.decode(stepsDocument.get(), testCaseId);
+        }
         return testStepRepository.findByTestCaseIdAndEnabledTrueOrderByStepOrderAsc(testCaseId);
     }
     
@@ -84,24 +118,34 @@ public class TestStepService {
     public TestStep updateTestStep(Long id, CreateTestStepRequestDTO requestDTO) {
         log.info("更新测试步骤: id={}, stepOrder={}", id, requestDTO.getStepOrder());
         
+        lockTestCaseOfStep(id);
         TestStep testStep = getTestStepById(id);
         
-        // 检查步骤序号是否重复（排除自己）
-        if (!requestDTO.getStepOrder().equals(testStep.getStepOrder()) &&
+        // 检查步骤序号是否重复（排除自己），未指定序号时保持原序号
+        Integer stepOrder = requestDTO.getStepOrder() != null ? requestDTO.getStepOrder() : testStep.getStepOrder();
+        if (!stepOrder.equals(testStep.getStepOrder()) &&
             testStepRepository.existsByTestCaseIdAndStepOrderAndEnabledTrueAndIdNot(
-                testStep.getTestCaseId(), requestDTO.getStepOrder(), id)) {
-            throw new BusinessException(ErrorCode.DATA_EXISTS, "步骤序号已存在: " + requestDTO.getStepOrder());
+                testStep.getTestCaseId(), stepOrder, id)) {
+            throw new BusinessException(ErrorCode.DATA_EXISTS, "步骤序号已存在: " + stepOrder);
         }
         
         // 更新步骤信息
-        testStep.setStepOrder(requestDTO.getStepOrder());
-        testStep.setStepDescription(requestDTO.getStepDescription());
-        testStep.setTestData(requestDTO.getTestData());
-        testStep.setExpectedResult(requestDTO.getExpectedResult());
+        testStep.setStepOrder(stepOrder);
+        if (Boolean.TRUE.equals(requestDTO.getDetachSharedBody())) {
+            detachSharedBody(testStep, requestDTO);
+        } else {
+            // 已引用共享步骤时，未指定新的共享步骤则保持引用，请求中的正文与共享内容不同的部分作为本用例的覆盖内容
+            Long sharedBodyId = requestDTO.getSharedBodyId() != null ? requestDTO.getSharedBodyId() : testStep.getSharedBodyId();
+            SharedStepBody sharedBody = resolveSharedBody(testStep.getTestCaseId(), sharedBodyId);
+            if (Boolean.TRUE.equals(requestDTO.getClearOverrides())) {
+                clearOverrides(testStep, sharedBody);
+            } else {
+                applyStepContent(testStep, requestDTO, sharedBody);
+            }
+        }
         testStep.setRemark(requestDTO.getRemark());
         testStep.setIsKeyStep(requestDTO.getIsKeyStep() != null ? requestDTO.getIsKeyStep() : testStep.getIsKeyStep());
         testStep.setAutomated(requestDTO.getAutomated() != null ? requestDTO.getAutomated() : testStep.getAutomated());
-        testStep.setAutomationCode(requestDTO.getAutomationCode());
         testStep.setEstimatedTime(requestDTO.getEstimatedTime() != null ? requestDTO.getEstimatedTime() : testStep.getEstimatedTime());
         
         testStep = testStepRepository.save(testStep);
@@ -115,6 +159,7 @@ public class TestStepService {
     public void deleteTestStep(Long id) {
         log.info("删除测试步骤: id={}", id);
         
+        lockTestCaseOfStep(id);
         TestStep testStep = getTestStepById(id);
         
         // 软删除
@@ -126,26 +171,68 @@ public class TestStepService {
     
     /**
      * 调整步骤顺序
+     *
+     * 将步骤移动到新位置，中间的步骤整体平移一位，只执行一条区间更新语句
      */
     public void reorderTestStep(Long stepId, Integer newOrder) {
         log.info("调整步骤顺序: stepId={}, newOrder={}", stepId, newOrder);
         
-        TestStep testStep = getTestStepById(stepId);
+        if (newOrder == null) {
+            throw new BusinessException(ErrorCode.PARAM_INVALID, "新的步骤序号不能为空");
+        }
+        Long testCaseId = getTestStepById(stepId).getTestCaseId();
+        lockTestCase(testCaseId);
         
-        // 检查新序号是否重复
-        if (testStepRepository.existsByTestCaseIdAndStepOrderAndEnabledTrueAndIdNot(
-                testStep.getTestCaseId(), newOrder, stepId)) {
-            throw new BusinessException(ErrorCode.DATA_EXISTS, "目标位置已存在步骤");
+        // 加锁后重新读取序号，避免使用并发调整前的旧值
+        Integer oldOrder = testStepRepository.findStepOrderById(stepId);
+        Integer maxOrder = testStepRepository.findMaxStepOrderByTestCase(testCaseId);
+        int targetOrder = Math.max(1, Math.min(newOrder, maxOrder));
+        if (oldOrder == targetOrder) {
+            return;
         }
         
-        Integer oldOrder = testStep.getStepOrder();
-        testStep.setStepOrder(newOrder);
-        testStepRepository.save(testStep);
+        LocalDateTime now = LocalDateTime.now();
+        if (oldOrder < targetOrder) {
+            // 向后移动，中间的步骤序号减1
+            testStepRepository.shiftStepOrders(testCaseId, oldOrder + 1, targetOrder, -1, now);
+        } else {
+            // 向前移动，中间的步骤序号加1
+            testStepRepository.shiftStepOrders(testCaseId, targetOrder, oldOrder - 1, 1, now);
+        }
+        testStepRepository.updateStepOrder(stepId, targetOrder);
         
-        // 调整其他步骤的序号
-        adjustStepOrders(testStep.getTestCaseId(), oldOrder, newOrder);
+        log.info("步骤顺序调整成功: stepId={}, {} -> {}", stepId, oldOrder, targetOrder);
+    }
+    
+    /**
+     * 按完整排列重排测试用例的全部步骤
+     *
+     * @param testCaseId 测试用例ID
+     * @param orderedStepIds 按新顺序排列的全部步骤ID
+     * @return 重排后的步骤列表
+     */
+    public List<TestStep> reorderTestSteps(Long testCaseId, List<Long> orderedStepIds) {
+        if (orderedStepIds == null || orderedStepIds.isEmpty() || orderedStepIds.contains(null)) {
+            throw new BusinessException(ErrorCode.PARAM_INVALID, "步骤ID列表不能为空且不能包含空值");
+        }
+        log.info("整体调整步骤顺序: testCaseId={}, count={}", testCaseId, orderedStepIds.size());
+        
+        lockTestCase(testCaseId);
+        assertRowStorage(testCaseId);
         
-        log.info("步骤顺序调整成功: stepId={}", stepId);
+        List<Long> currentStepIds = testStepRepository.findStepIdsByTestCaseId(testCaseId);
+        Set<Long> requestedStepIds = new HashSet<>(orderedStepIds);
+        if (requestedStepIds.size() != orderedStepIds.size()) {
+            throw new BusinessException(ErrorCode.PARAM_INVALID, "步骤ID列表中存在重复项");
+        }
+        if (currentStepIds.size() != orderedStepIds.size() || !requestedStepIds.containsAll(currentStepIds)) {
+            throw new BusinessException(ErrorCode.PARAM_INVALID, "步骤ID列表必须包含该测试用例的全部步骤");
+        }
+        
+        int updated = testStepRepository.applyStepOrder(testCaseId, orderedStepIds);
+        log.info("整体调整步骤顺序成功: testCaseId={}, updated={}", testCaseId, updated);
+        
+        return testStepRepository.findByTestCaseIdAndEnabledTrueOrderByStepOrderAsc(testCaseId);
     }
     
     /**
@@ -154,6 +241,13 @@ public class TestStepService {
     @Transactional(readOnly = true)
     public List<TestStep> getKeyStepsByTestCaseId(Long testCaseId) {
         log.debug("获取关键步骤: testCaseId={}", testCaseId);
+        
+        Optional<String> stepsDocument = testCaseRepository.findStepsDocumentById(testCaseId);
+        if (stepsDocument.isPresent()) {
+            return StepDocumentCodec.decode(stepsDocument.get(), testCaseId).stream()
+                    .filter(TestStep::getIsKeyStep)
+                    .collect(Collectors.toList());
+        }
         return testStepRepository.findByTestCaseIdAndIsKeyStepTrueAndEnabledTrueOrderByStepOrderAsc(testCaseId);
     }
     
@@ -163,78 +257,253 @@ public class TestStepService {
     @Transactional(readOnly = true)
     public List<TestStep> getAutomatedStepsByTestCaseId(Long testCaseId) {
         log.debug("获取自动化步骤: testCaseId={}", testCaseId);
+        
+        Optional<String> stepsDocument = testCaseRepository.findStepsDocumentById(testCaseId);
+        if (stepsDocument.isPresent()) {
+            return StepDocumentCodec.decode(stepsDocument.get(), testCaseId).stream()
+                    .filter(TestStep::getAutomated)
+                    .collect(Collectors.toList());
+        }
         return testStepRepository.findByTestCaseIdAndAutomatedTrueAndEnabledTrueOrderByStepOrderAsc(testCaseId);
     }
     
     /**
      * 批量创建测试步骤
+     * 
+     * 一次读取用例已有的步骤序号，在内存中校验整批请求（与已有步骤冲突、批内重复），
+     * 未指定序号的步骤依次填入最小的空闲序号，最后通过 JDBC 批处理插入。
+     * 语句数量与步骤数量无关，只随插入分块数增长
      */
     public List<TestStep> batchCreateTestSteps(List<CreateTestStepRequestDTO> requestDTOs, Long testCaseId) {
         log.info("批量创建测试步骤: testCaseId={}, count={}", testCaseId, requestDTOs.size());
         
-        List<TestStep> testSteps = new ArrayList<>();
+        if (requestDTOs.size() > MAX_BATCH_CREATE_SIZE) {
+            throw new BusinessException(ErrorCode.PARAM_INVALID, "单次最多创建 " + MAX_BATCH_CREATE_SIZE + " 个测试步骤");
+        }
+        validateBatchStepRequests(requestDTOs);
         
-        for (CreateTestStepRequestDTO requestDTO : requestDTOs) {
-            // 检查步骤序号是否重复
-            if (testStepRepository.existsByTestCaseIdAndStepOrderAndEnabledTrueAndIdNot(
-                    testCaseId, requestDTO.getStepOrder(), -1L)) {
-                throw new BusinessException(ErrorCode.DATA_EXISTS, "步骤序号已存在: " + requestDTO.getStepOrder());
-            }
-            
+        TestCase testCase = lockTestCase(testCaseId);
+        assertRowStorage(testCaseId);
+        
+        List<Integer> stepOrders = assignBatchStepOrders(requestDTOs,
+                new HashSet<>(testStepRepository.findStepOrdersByTestCaseId(testCaseId)));
+        
+        Set<Long> sharedBodyIds = requestDTOs.stream()
+                .map(CreateTestStepRequestDTO::getSharedBodyId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, SharedStepBody> sharedBodies =
+                sharedStepLibraryService.getSharedStepBodiesByIds(testCase.getProjectId(), sharedBodyIds);
+        
+        List<TestStep> testSteps = new ArrayList<>(requestDTOs.size());
+        for (int i = 0; i < requestDTOs.size(); i++) {
+            CreateTestStepRequestDTO requestDTO = requestDTOs.get(i);
             TestStep testStep = TestStep.builder()
                     .testCaseId(testCaseId)
-                    .stepOrder(requestDTO.getStepOrder())
-                    .stepDescription(requestDTO.getStepDescription())
-                    .testData(requestDTO.getTestData())
-                    .expectedResult(requestDTO.getExpectedResult())
+                    .stepOrder(stepOrders.get(i))
                     .remark(requestDTO.getRemark())
                     .isKeyStep(requestDTO.getIsKeyStep() != null ? requestDTO.getIsKeyStep() : false)
                     .automated(requestDTO.getAutomated() != null ? requestDTO.getAutomated() : false)
-                    .automationCode(requestDTO.getAutomationCode())
                     .estimatedTime(requestDTO.getEstimatedTime() != null ? requestDTO.getEstimatedTime() : 30)
                     .enabled(true)
                     .build();
-            
+            applyStepContent(testStep, requestDTO, sharedBodies.get(requestDTO.getSharedBodyId()));
             testSteps.add(testStep);
         }
         
-        testSteps = testStepRepository.saveAll(testSteps);
-        log.info("批量创建测试步骤成功: count={}", testSteps.size());
+        int inserted = testStepRepository.batchInsert(testSteps);
+        log.info("批量创建测试步骤成功: testCaseId={}, count={}", testCaseId, inserted);
         return testSteps;
     }
     
     // ========== 私有方法 ==========
     
     /**
-     * 调整其他步骤的序号
+     * 锁定测试用例行，串行化同一用例下的步骤调整
      */
-    private void adjustStepOrders(Long testCaseId, Integer oldOrder, Integer newOrder) {
-        if (oldOrder.equals(newOrder)) {
-            return;
+    private TestCase lockTestCase(Long testCaseId) {
+        return testCaseRepository.findByIdForUpdate(testCaseId)
+                .filter(TestCase::getEnabled)
+                .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.DATA_NOT_FOUND, "测试用例不存在"));
+    }
+    
+    /**
+     * 锁住步骤所属的测试用例并确认其使用行存储
+     *
+     * 先于读取步骤实体加锁，加锁后读到的步骤不会早于并发的存储模式迁移
+     */
+    private void lockTestCaseOfStep(Long stepId) {
+        Long testCaseId = testStepRepository.findTestCaseIdById(stepId)
+                .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.DATA_NOT_FOUND, "测试步骤不存在"));
+        lockTestCase(testCaseId);
+        assertRowStorage(testCaseId);
+    }
+    
+    /**
+     * 确认测试用例使用行存储，文档模式下的步骤只能随用例整体更新
+     */
+    private void assertRowStorage(Long testCaseId) {
+        if (testCaseRepository.findStepsDocumentById(testCaseId).isPresent()) {
+            throw new BusinessException(ErrorCode.TEST_STEP_STORAGE_MODE_UNSUPPORTED,
+                    "该测试用例使用文档模式存储步骤，请通过更新测试用例接口编辑步骤");
+        }
+    }
+    
+    /**
+     * 逐个校验批量请求中的步骤，规则与单个创建相同
+     * 
+     * 控制器未开启方法校验时，列表请求体中元素上的约束不会生效，这里不依赖 DTO 上的注解：
+     * 创建时不能解除共享引用或清除覆盖内容，不引用共享步骤时步骤描述和预期结果不能为空
+     */
+    private void validateBatchStepRequests(List<CreateTestStepRequestDTO> requestDTOs) {
+        for (int i = 0; i < requestDTOs.size(); i++) {
+            CreateTestStepRequestDTO requestDTO = requestDTOs.get(i);
+            if (requestDTO == null) {
+                throw new BusinessException(ErrorCode.PARAM_INVALID, "第 " + (i + 1) + " 个步骤不能为空");
+            }
+            if (Boolean.TRUE.equals(requestDTO.getDetachSharedBody()) || Boolean.TRUE.equals(requestDTO.getClearOverrides())) {
+                throw new BusinessException(ErrorCode.PARAM_INVALID,
+                        "第 " + (i + 1) + " 个步骤: 解除共享引用和清除覆盖内容只能在更新步骤时使用");
+            }
+            if (requestDTO.getSharedBodyId() == null &&
+                (isBlank(requestDTO.getStepDescription()) || isBlank(requestDTO.getExpectedResult()))) {
+                throw new BusinessException(ErrorCode.PARAM_INVALID, "第 " + (i + 1) + " 个步骤: 步骤描述和预期结果不能为空");
+            }
+        }
+    }
+    
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+    
+    /**
+     * 为整批步骤确定序号
+     * 
+     * 指定了序号的步骤不能与已有步骤或批内其他步骤重复；未指定序号的步骤按请求顺序填入最小的空闲序号
+     *
+     * @param requestDTOs 步骤请求
+     * @param usedOrders 用例中已被占用的序号
+     * @return 与请求一一对应的步骤序号
+     */
+    private List<Integer> assignBatchStepOrders(List<CreateTestStepRequestDTO> requestDTOs, Set<Integer> usedOrders) {
+        Set<Integer> conflicts = new TreeSet<>();
+        Set<Integer> duplicates = new TreeSet<>();
+        Set<Integer> requestedOrders = new HashSet<>();
+        for (CreateTestStepRequestDTO requestDTO : requestDTOs) {
+            Integer stepOrder = requestDTO.getStepOrder();
+            if (stepOrder == null) {
+                continue;
+            }
+            if (usedOrders.contains(stepOrder)) {
+                conflicts.add(stepOrder);
+            } else if (!requestedOrders.add(stepOrder)) {
+                duplicates.add(stepOrder);
+            }
+        }
+        if (!conflicts.isEmpty()) {
+            throw new BusinessException(ErrorCode.DATA_EXISTS, "步骤序号已存在: " + conflicts);
+        }
+        if (!duplicates.isEmpty()) {
+            throw new BusinessException(ErrorCode.DATA_EXISTS, "批量步骤中存在重复的步骤序号: " + duplicates);
         }
         
-        List<TestStep> stepsToAdjust;
-        
-        if (oldOrder < newOrder) {
-            // 向后移动，前面的步骤序号减1
-            stepsToAdjust = testStepRepository.findByTestCaseIdAndStepOrderGreaterThanAndEnabledTrueOrderByStepOrderAsc(
-                    testCaseId, oldOrder);
-            for (TestStep step : stepsToAdjust) {
-                if (step.getStepOrder() <= newOrder) {
-                    step.setStepOrder(step.getStepOrder() - 1);
-                    testStepRepository.save(step);
-                }
+        Set<Integer> occupied = new HashSet<>(usedOrders);
+        occupied.addAll(requestedOrders);
+        List<Integer> stepOrders = new ArrayList<>(requestDTOs.size());
+        int nextFree = 1;
+        for (CreateTestStepRequestDTO requestDTO : requestDTOs) {
+            if (requestDTO.getStepOrder() != null) {
+                stepOrders.add(requestDTO.getStepOrder());
+                continue;
             }
-        } else {
-            // 向前移动，后面的步骤序号加1
-            stepsToAdjust = testStepRepository.findByTestCaseIdAndStepOrderLessThanAndEnabledTrueOrderByStepOrderAsc(
-                    testCaseId, oldOrder);
-            for (TestStep step : stepsToAdjust) {
-                if (step.getStepOrder() >= newOrder) {
-                    step.setStepOrder(step.getStepOrder() + 1);
-                    testStepRepository.save(step);
-                }
+            while (occupied.contains(nextFree)) {
+                nextFree++;
             }
+            stepOrders.add(nextFree);
+            occupied.add(nextFree);
         }
+        return stepOrders;
+    }
+    
+    /**
+     * 查找测试用例所在项目中的共享步骤
+     */
+    private SharedStepBody resolveSharedBody(Long testCaseId, Long sharedBodyId) {
+        if (sharedBodyId == null) {
+            return null;
+        }
+        Long projectId = testCaseRepository.findById(testCaseId)
+                .map(TestCase::getProjectId)
+                .orElseThrow(() -> new ResourceNotFoundException(ErrorCode.DATA_NOT_FOUND, "测试用例不存在"));
+        return sharedStepLibraryService.getSharedStepBody(projectId, sharedBodyId);
+    }
+    
+    /**
+     * 设置步骤正文
+     * 
+     * 引用共享步骤时只保存与共享内容不同的字段作为覆盖内容，其余字段为空，读取时使用共享内容
+     */
+    private void applyStepContent(TestStep testStep, CreateTestStepRequestDTO requestDTO, SharedStepBody sharedBody) {
+        if (sharedBody == null) {
+            testStep.setSharedBodyId(null);
+            testStep.setSharedBody(null);
+            testStep.setStepDescription(requestDTO.getStepDescription());
+            testStep.setTestData(requestDTO.getTestData());
+            testStep.setExpectedResult(requestDTO.getExpectedResult());
+            testStep.setAutomationCode(requestDTO.getAutomationCode());
+            return;
+        }
+        
+        testStep.setSharedBodyId(sharedBody.getId());
+        testStep.setSharedBody(sharedBody);
+        testStep.setStepDescription(overrideOf(requestDTO.getStepDescription(), sharedBody.getStepDescription()));
+        testStep.setTestData(overrideOf(requestDTO.getTestData(), sharedBody.getTestData()));
+        testStep.setExpectedResult(overrideOf(requestDTO.getExpectedResult(), sharedBody.getExpectedResult()));
+        testStep.setAutomationCode(overrideOf(requestDTO.getAutomationCode(), sharedBody.getAutomationCode()));
+    }
+    
+    /**
+     * 解除共享步骤引用
+     * 
+     * 请求中填写的正文优先，未填写的字段取解除前的生效内容（覆盖内容或共享内容），解除后步骤内容保持不变
+     */
+    private void detachSharedBody(TestStep testStep, CreateTestStepRequestDTO requestDTO) {
+        if (testStep.getSharedBodyId() == null) {
+            throw new BusinessException(ErrorCode.PARAM_INVALID, "该步骤没有引用共享步骤");
+        }
+        if (requestDTO.getSharedBodyId() != null || Boolean.TRUE.equals(requestDTO.getClearOverrides())) {
+            throw new BusinessException(ErrorCode.PARAM_INVALID, "解除共享引用时不能同时指定共享步骤或清除覆盖内容");
+        }
+        
+        testStep.setStepDescription(valueOrDefault(requestDTO.getStepDescription(), testStep.getEffectiveStepDescription()));
+        testStep.setTestData(valueOrDefault(requestDTO.getTestData(), testStep.getEffectiveTestData()));
+        testStep.setExpectedResult(valueOrDefault(requestDTO.getExpectedResult(), testStep.getEffectiveExpectedResult()));
+        testStep.setAutomationCode(valueOrDefault(requestDTO.getAutomationCode(), testStep.getEffectiveAutomationCode()));
+        testStep.setSharedBodyId(null);
+        testStep.setSharedBody(null);
+    }
+    
+    /**
+     * 清除本用例的覆盖内容，步骤完全使用共享步骤的内容
+     */
+    private void clearOverrides(TestStep testStep, SharedStepBody sharedBody) {
+        if (sharedBody == null) {
+            throw new BusinessException(ErrorCode.PARAM_INVALID, "该步骤没有引用共享步骤，无法清除覆盖内容");
+        }
+        
+        testStep.setSharedBodyId(sharedBody.getId());
+        testStep.setSharedBody(sharedBody);
+        testStep.setStepDescription(null);
+        testStep.setTestData(null);
+        testStep.setExpectedResult(null);
+        testStep.setAutomationCode(null);
+    }
+    
+    private static String valueOrDefault(String value, String defaultValue) {
+        return value == null || value.trim().isEmpty() ? defaultValue : value;
+    }
+    
+    private static String overrideOf(String value, String sharedValue) {
+        return value == null || value.trim().isEmpty() || value.equals(sharedValue) ? null : value;
     }
-}
\ No newline at end of file
+}
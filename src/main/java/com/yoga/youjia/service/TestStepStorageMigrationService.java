@@ -0,0 +1,254 @@
+package com.yoga.youjia.service;
+
+import com.yoga.youjia.common.enums.ErrorCode;
+import com.yoga.youjia.common.enums.StepStorageMigrationStatus;
+import com.yoga.youjia.common.enums.StepStorageMode;
+import com.yoga.youjia.common.exception.BusinessException;
+import com.yoga.youjia.common.exception.ResourceNotFoundException;
+import com.yoga.youjia.common.utils.StepDocumentCodec;
+import com.yoga.youjia.dto.response.StepStorageMigrationResultDTO;
+import com.yoga.youjia.entity.TestCase;
+import com.yoga.youjia.entity.TestStep;
+import com.yoga.youjia.repository.ProjectRepository;
+import com.yoga.youjia.repository.TestCaseRepository;
+import com.yoga.youjia.repository.TestStepRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+
+/**
+ * 测试步骤存储模式迁移服务
+ * 
+ * 在行存储与文档存储之间切换项目，并分批转换已有用例。先切换项目开关使新写入立即使用目标模式，
+ * 再由后台线程按用例ID递增分批转换存量数据，请求线程不等待转换完成。每批一个独立事务，
+ * 事务内先按ID顺序锁住本批用例，再按加锁后读到的存储状态转换，与同一用例上的步骤写入互斥；
+ * 迁移期间读取按每个用例自身的存储状态进行，因此中途失败后可以直接重新执行。
+ * 转为文档存储时原步骤行只做软删除，保留历史步骤和已有引用
+ */
+@Slf4j
+@Service
+public class TestStepStorageMigrationService {
+    
+    /**
+     * 每批转换的用例数量
+     */
+    private static final int BATCH_SIZE = 200;
+    
+    @Autowired
+    private ProjectRepository projectRepository;
+    
+    @Autowired
+    private TestCaseRepository testCaseRepository;
+    
+    @Autowired
+    private TestStepRepository testStepRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    private ExecutorService executor;
+    
+    /**
+     * 各项目最近一次迁移的进度
+     */
+    private final Map<Long, StepStorageMigrationResultDTO> migrations = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("step-storage-migration-"));
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+    
+    /**
+     * 切换项目的步骤存储模式，并在后台迁移已有用例
+     *
+     * @param projectId 项目ID
+     * @param targetMode 目标存储模式
+     * @return 迁移进度，状态为迁移中
+     * @throws BusinessException 该项目已有迁移正在进行时抛出
+     */
+    public StepStorageMigrationResultDTO switchStorageMode(Long projectId, StepStorageMode targetMode) {
+        log.info("切换步骤存储模式: projectId={}, targetMode={}", projectId, targetMode);
+        
+        if (!projectRepository.existsById(projectId)) {
+            throw new ResourceNotFoundException(ErrorCode.PROJECT_NOT_FOUND, "项目不存在");
+        }
+        
+        StepStorageMigrationResultDTO started = progress(projectId, targetMode, StepStorageMigrationStatus.RUNNING,
+                0, 0, System.currentTimeMillis(), null);
+        StepStorageMigrationResultDTO current = migrations.compute(projectId, (id, previous) ->
+                previous != null && previous.getStatus() == StepStorageMigrationStatus.RUNNING ? previous : started);
+        if (current != started) {
+            throw new BusinessException(ErrorCode.TEST_STEP_STORAGE_MIGRATION_RUNNING,
+                    "该项目的步骤存储模式迁移正在进行，请稍后再试");
+        }
+        
+        try {
+            // 先切换开关，之后新建的用例直接使用目标模式
+            transactionTemplate.executeWithoutResult(status -> projectRepository.updateStepStorageMode(projectId, targetMode));
+            executor.execute(() -> migrate(projectId, targetMode));
+        } catch (RuntimeException e) {
+            migrations.remove(projectId, started);
+            throw e;
+        }
+        return started;
+    }
+    
+    /**
+     * 查询项目最近一次迁移的进度
+     *
+     * @param projectId 项目ID
+     * @return 迁移进度
+     */
+    public StepStorageMigrationResultDTO getMigrationStatus(Long projectId) {
+        StepStorageMigrationResultDTO result = migrations.get(projectId);
+        if (result == null) {
+            throw new ResourceNotFoundException(ErrorCode.DATA_NOT_FOUND, "该项目没有步骤存储模式迁移记录");
+        }
+        return result;
+    }
+    
+    /**
+     * 按用例ID递增分批转换存量用例，在后台线程执行
+     */
+    private void migrate(Long projectId, StepStorageMode targetMode) {
+        long startTime = System.currentTimeMillis();
+        long convertedCases = 0;
+        long convertedSteps = 0;
+        Long afterId = 0L;
+        try {
+            while (true) {
+                final Long cursor = afterId;
+                List<Long> caseIds = targetMode == StepStorageMode.DOCUMENT
+                        ? testCaseRepository.findRowStorageCaseIds(projectId, cursor, PageRequest.of(0, BATCH_SIZE))
+                        : testCaseRepository.findDocumentStorageCaseIds(projectId, cursor, PageRequest.of(0, BATCH_SIZE));
+                if (caseIds.isEmpty()) {
+                    break;
+                }
+                
+                BatchResult batch = transactionTemplate.execute(status -> targetMode == StepStorageMode.DOCUMENT
+                        ? convertToDocuments(caseIds)
+                        : convertToRows(caseIds));
+                if (batch != null) {
+                    convertedCases += batch.cases();
+                    convertedSteps += batch.steps();
+                }
+                afterId = caseIds.get(caseIds.size() - 1);
+                migrations.put(projectId, progress(projectId, targetMode, StepStorageMigrationStatus.RUNNING,
+                        convertedCases, convertedSteps, startTime, null));
+                
+                log.debug("步骤存储模式迁移进度: projectId={}, cases={}, steps={}", projectId, convertedCases, convertedSteps);
+            }
+        } catch (RuntimeException e) {
+            log.error("步骤存储模式迁移失败: projectId={}, targetMode={}, cases={}", projectId, targetMode, convertedCases, e);
+            migrations.put(projectId, progress(projectId, targetMode, StepStorageMigrationStatus.FAILED,
+                    convertedCases, convertedSteps, startTime, e.getMessage()));
+            return;
+        }
+        
+        StepStorageMigrationResultDTO result = progress(projectId, targetMode, StepStorageMigrationStatus.COMPLETED,
+                convertedCases, convertedSteps, startTime, null);
+        migrations.put(projectId, result);
+        log.info("步骤存储模式切换完成: projectId={}, targetMode={}, cases={}, steps={}, duration={}ms",
+                projectId, targetMode, convertedCases, convertedSteps, result.getDurationMs());
+    }
+    
+    /**
+     * 行存储转文档存储：编码有效步骤写入用例行，然后软删除步骤行
+     */
+    private BatchResult convertToDocuments(List<Long> caseIds) {
+        // 加锁后重新确认存储状态，跳过已被其他操作转换的用例
+        List<Long> rowCaseIds = testCaseRepository.findAllByIdInForUpdate(caseIds).stream()
+                .filter(testCase -> !testCase.isDocumentStorage())
+                .map(TestCase::getId)
+                .collect(Collectors.toList());
+        if (rowCaseIds.isEmpty()) {
+            return new BatchResult(0, 0);
+        }
+        
+        Map<Long, List<TestStep>> stepsByCase = new HashMap<>();
+        List<TestStep> steps = testStepRepository.findByTestCaseIdInAndEnabledTrueOrderByTestCaseIdAscStepOrderAsc(rowCaseIds);
+        for (TestStep step : steps) {
+            stepsByCase.computeIfAbsent(step.getTestCaseId(), key -> new ArrayList<>()).add(step);
+        }
+        
+        List<Object[]> batchArgs = new ArrayList<>(rowCaseIds.size());
+        for (Long caseId : rowCaseIds) {
+            String document = StepDocumentCodec.encode(stepsByCase.getOrDefault(caseId, new ArrayList<>()));
+            batchArgs.add(new Object[]{document, caseId});
+        }
+        jdbcTemplate.batchUpdate("UPDATE test_cases SET steps_document = ? WHERE id = ?", batchArgs);
+        testStepRepository.softDeleteByTestCaseIds(rowCaseIds, LocalDateTime.now());
+        
+        return new BatchResult(rowCaseIds.size(), steps.size());
+    }
+    
+    /**
+     * 文档存储转行存储：解码文档插入步骤行，然后清空文档
+     */
+    private BatchResult convertToRows(List<Long> caseIds) {
+        List<Long> documentCaseIds = new ArrayList<>();
+        List<TestStep> steps = new ArrayList<>();
+        for (TestCase testCase : testCaseRepository.findAllByIdInForUpdate(caseIds)) {
+            if (testCase.isDocumentStorage()) {
+                documentCaseIds.add(testCase.getId());
+                steps.addAll(StepDocumentCodec.decode(testCase.getStepsDocument(), testCase.getId()));
+            }
+        }
+        if (documentCaseIds.isEmpty()) {
+            return new BatchResult(0, 0);
+        }
+        
+        testStepRepository.saveAll(steps);
+        testCaseRepository.clearStepsDocuments(documentCaseIds);
+        
+        return new BatchResult(documentCaseIds.size(), steps.size());
+    }
+    
+    private StepStorageMigrationResultDTO progress(Long projectId, StepStorageMode targetMode,
+                                                   StepStorageMigrationStatus status, long convertedCases,
+                                                   long convertedSteps, long startTime, String errorMessage) {
+        return StepStorageMigrationResultDTO.builder()
+                .projectId(projectId)
+                .targetMode(targetMode)
+                .status(status)
+                .convertedCases(convertedCases)
+                .convertedSteps(convertedSteps)
+                .durationMs(System.currentTimeMillis() - startTime)
+                .errorMessage(errorMessage)
+                .build();
+    }
+    
+    /**
+     * 一批用例的转换结果
+     */
+    private record BatchResult(int cases, int steps) {
+    }
+}
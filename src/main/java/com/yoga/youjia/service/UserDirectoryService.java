@@ -0,0 +1,206 @@
+package com.yoga.youjia.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yoga.youjia.dto.response.UserCardDTO;
+import com.yoga.youjia.dto.response.UserDirectorySnapshotDTO;
+import com.yoga.youjia.entity.UserTombstone;
+import com.yoga.youjia.repository.UserRepository;
+import com.yoga.youjia.repository.UserTombstoneRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 用户目录服务
+ *
+ * 提供两种不需要一次性加载全部用户实体的读取方式：
+ * - NDJSON 流式导出：逐行读取 users 表，每个用户写一行 JSON，内存占用与用户数量无关
+ * - 用户名片快照：客户端缓存全部用户名片并记下版本号，之后只获取该版本之后修改或删除的用户。
+ *   版本号为毫秒时间戳，修改按 updated_at 判断；删除记录与删除用户在同一事务中写入 user_tombstones 表，
+ *   各节点一致，按保留天数定时清理，早于保留范围的版本号会收到完整快照
+ */
+@Service
+public class UserDirectoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDirectoryService.class);
+
+    private static final int FETCH_SIZE = 500;
+
+    private static final String EXPORT_USERS_SQL =
+            "SELECT id, username, real_name, email, avatar, role, status, created_at FROM users ORDER BY id";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserTombstoneRepository userTombstoneRepository;
+
+    @Value("${user.directory.commit-lag-ms:5000}")
+    private long commitLagMillis; // 版本号相对当前时间的回退量，覆盖尚未提交的事务
+
+    @Value("${user.directory.tombstone-retention-days:30}")
+    private int tombstoneRetentionDays; // 删除记录的保留天数
+
+    private JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void init() {
+        // 独立的 JdbcTemplate，设置 fetchSize 让驱动分批拉取结果集（MySQL 需开启 useCursorFetch）
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    /**
+     * 将全部用户以 NDJSON 格式（每行一个 JSON 对象）写入输出流
+     */
+    public void writeUsers(OutputStream outputStream) throws IOException {
+        long startTime = System.currentTimeMillis();
+
+        try (JsonGenerator generator = objectMapper.createGenerator(outputStream, JsonEncoding.UTF8)) {
+            generator.setRootValueSeparator(null);
+            long[] count = new long[1];
+            try {
+                jdbcTemplate.query(EXPORT_USERS_SQL, (RowCallbackHandler) rs -> {
+                    writeUser(generator, rs);
+                    if (++count[0] % FETCH_SIZE == 0) {
+                        flush(generator);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            logger.debug("用户导出完成: users={}, duration={}ms", count[0], System.currentTimeMillis() - startTime);
+        }
+    }
+
+    /**
+     * 获取用户名片快照
+     *
+     * @param since 客户端上次拿到的版本号，为空时返回完整快照
+     */
+    public UserDirectorySnapshotDTO getSnapshot(Long since) {
+        long version = System.currentTimeMillis() - commitLagMillis;
+
+        List<Long> removedIds = since != null ? removedSince(since) : null;
+        if (removedIds == null) {
+            return UserDirectorySnapshotDTO.builder()
+                    .version(version)
+                    .full(true)
+                    .users(toCards(userRepository.findAllUserCards()))
+                    .removedIds(List.of())
+                    .build();
+        }
+
+        return UserDirectorySnapshotDTO.builder()
+                .version(version)
+                .full(false)
+                .users(toCards(userRepository.findUserCardsUpdatedSince(toLocalDateTime(since))))
+                .removedIds(removedIds)
+                .build();
+    }
+
+    /**
+     * 用户删除时调用，在删除用户的事务中写入删除记录，回滚时一起回滚
+     */
+    public void onUserDeleted(Long userId) {
+        userTombstoneRepository.save(UserTombstone.builder()
+                .userId(userId)
+                .deletedAt(LocalDateTime.now())
+                .build());
+    }
+
+    /**
+     * 定时清理超过保留天数的删除记录
+     */
+    @Scheduled(fixedDelayString = "${user.directory.tombstone-purge-interval-ms:86400000}",
+               initialDelayString = "${user.directory.tombstone-purge-interval-ms:86400000}")
+    public void purgeTombstones() {
+        int deleted = userTombstoneRepository.deleteDeletedBefore(LocalDateTime.now().minusDays(tombstoneRetentionDays));
+        if (deleted > 0) {
+            logger.info("清理过期的用户删除记录: {}条", deleted);
+        }
+    }
+
+    // ========== 私有方法 ==========
+
+    /**
+     * 版本号之后删除的用户ID；版本号早于删除记录的保留范围时返回null，调用方改为返回完整快照
+     *
+     * 清理只删除早于保留范围的记录，保留范围内的版本号总能拿到完整的删除列表
+     */
+    private List<Long> removedSince(long since) {
+        LocalDateTime sinceTime = toLocalDateTime(since);
+        if (sinceTime.isBefore(LocalDateTime.now().minusDays(tombstoneRetentionDays))) {
+            return null;
+        }
+        return userTombstoneRepository.findUserIdsDeletedSince(sinceTime);
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private static List<UserCardDTO> toCards(List<Object[]> rows) {
+        List<UserCardDTO> cards = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            cards.add(UserCardDTO.fromRow(row));
+        }
+        return cards;
+    }
+
+    private static void writeUser(JsonGenerator generator, ResultSet rs) throws SQLException {
+        try {
+            generator.writeStartObject();
+            generator.writeNumberField("id", rs.getLong("id"));
+            generator.writeStringField("username", rs.getString("username"));
+            generator.writeStringField("realName", rs.getString("real_name"));
+            generator.writeStringField("email", rs.getString("email"));
+            generator.writeStringField("avatar", rs.getString("avatar"));
+            generator.writeStringField("role", rs.getString("role"));
+            generator.writeStringField("status", rs.getString("status"));
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            generator.writeFieldName("createdAt");
+            generator.writeObject(createdAt != null ? createdAt.toLocalDateTime() : null);
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void flush(JsonGenerator generator) {
+        try {
+            generator.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
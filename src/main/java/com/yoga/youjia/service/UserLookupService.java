@@ -0,0 +1,211 @@
+package com.yoga.youjia.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.yoga.youjia.common.enums.ErrorCode;
+import com.yoga.youjia.common.exception.BusinessException;
+import com.yoga.youjia.dto.response.UserCardDTO;
+import com.yoga.youjia.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 用户批量查询服务
+ *
+ * 前端渲染列表时需要把 createdBy、addedBy 等用户ID解析成姓名，这里一次请求批量返回用户名片。
+ * 名片按用户ID缓存在本地，未命中的ID合并成一次 IN 查询；用户信息、状态变更或删除时由 UserService 失效。
+ * 命中率等指标以 userCardCache 名称注册到 Micrometer
+ */
+@Service
+public class UserLookupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserLookupService.class);
+
+    private static final String CACHE_NAME = "userCardCache";
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final UserRepository userRepository;
+
+    private final Cache<Long, UserCardDTO> cache;
+
+    private final int maxIds;
+
+    public UserLookupService(UserRepository userRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${user.lookup.max-ids:1000}") int maxIds,
+                             @Value("${user.lookup.cache.maximum-size:50000}") long maximumSize,
+                             @Value("${user.lookup.cache.ttl:10m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.maxIds = maxIds;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * 批量获取用户名片
+     *
+     * @param userIds 用户ID，去重后最多 maxIds 个
+     * @return 按请求顺序排列的名片，不存在的用户不返回
+     */
+    public List<UserCardDTO> lookup(Collection<Long> userIds) {
+        Set<Long> requested = new LinkedHashSet<>();
+        if (userIds != null) {
+            userIds.stream().filter(Objects::nonNull).forEach(requested::add);
+        }
+        if (requested.size() > maxIds) {
+            throw new BusinessException(ErrorCode.PARAM_INVALID, String.format("单次最多查询%d个用户", maxIds));
+        }
+        if (requested.isEmpty()) {
+            return List.of();
+        }
+
+        Map<Long, UserCardDTO> cards = new HashMap<>(cache.getAllPresent(requested));
+        if (cards.size() < requested.size()) {
+            List<Long> missing = new ArrayList<>(requested.size() - cards.size());
+            for (Long userId : requested) {
+                if (!cards.containsKey(userId)) {
+                    missing.add(userId);
+                }
+            }
+            for (Object[] row : userRepository.findUserCardsByIdIn(missing)) {
+                UserCardDTO card = UserCardDTO.fromRow(row);
+                cards.put(card.getId(), card);
+                cache.put(card.getId(), card);
+            }
+            logger.debug("批量查询用户名片: requested={}, loaded={}", requested.size(), missing.size());
+        }
+
+        List<UserCardDTO> result = new ArrayList<>(requested.size());
+        for (Long userId : requested) {
+            UserCardDTO card = cards.get(userId);
+            if (card != null) {
+                result.add(card);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 计算名片列表的弱 ETag，内容相同的结果得到相同的值
+     */
+    public String computeETag(List<UserCardDTO> cards) {
+        long hash = FNV_OFFSET_BASIS;
+        for (UserCardDTO card : cards) {
+            hash = mix(hash, String.valueOf(card.getId()));
+            hash = mix(hash, card.getUsername());
+            hash = mix(hash, card.getRealName());
+            hash = mix(hash, card.getAvatar());
+            hash = mix(hash, card.getStatus());
+        }
+        return String.format("W/\"%016x\"", hash);
+    }
+
+    /**
+     * If-None-Match 请求头是否匹配给定的 ETag
+     *
+     * 按 RFC 9110 的弱比较：请求头可以是逗号分隔的多个 ETag，比较时忽略 W/ 前缀；
+     * 格式错误的部分之后不再解析，按不匹配处理。
+     * 批量查询是 POST 请求，* 表示“资源已存在”，对它总是成立，因此忽略 *，只匹配明确给出的 ETag
+     *
+     * @param ifNoneMatch 请求头的值，可以为null
+     * @param etag 当前内容的 ETag
+     */
+    public boolean matchesIfNoneMatch(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaqueTag = etag.startsWith("W/") ? etag.substring(2) : etag;
+        int length = ifNoneMatch.length();
+        int i = 0;
+        while (i < length) {
+            char c = ifNoneMatch.charAt(i);
+            if (c == ',' || Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            if (c == '*') {
+                i++;
+                continue;
+            }
+            if (ifNoneMatch.startsWith("W/", i)) {
+                i += 2;
+            }
+            if (i >= length || ifNoneMatch.charAt(i) != '"') {
+                return false;
+            }
+            int end = ifNoneMatch.indexOf('"', i + 1);
+            if (end < 0) {
+                return false;
+            }
+            if (end + 1 - i == opaqueTag.length() && ifNoneMatch.regionMatches(i, opaqueTag, 0, opaqueTag.length())) {
+                return true;
+            }
+            i = end + 1;
+        }
+        return false;
+    }
+
+    /**
+     * 立即失效指定用户的名片
+     *
+     * 处于事务中时在提交后再失效一次，避免提交前有并发请求把旧数据重新载入缓存
+     */
+    public void invalidate(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        cache.invalidate(userId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(userId);
+                }
+            });
+        }
+    }
+
+    // ========== 私有方法 ==========
+
+    /**
+     * FNV-1a 累加一个字段，字段后追加分隔字节；null 用单独的标记字节，与空串区分
+     */
+    private static long mix(long hash, String value) {
+        if (value == null) {
+            return fnv(hash, 0xff);
+        }
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash = fnv(hash, b & 0xff);
+        }
+        return fnv(hash, 0);
+    }
+
+    private static long fnv(long hash, int b) {
+        return (hash ^ b) * FNV_PRIME;
+    }
+}
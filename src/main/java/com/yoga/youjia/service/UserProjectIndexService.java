@@ -0,0 +1,192 @@
+package com.yoga.youjia.service;
+
+import com.yoga.youjia.entity.Project;
+import com.yoga.youjia.entity.ProjectMember;
+import com.yoga.youjia.repository.ProjectMemberRepository;
+import com.yoga.youjia.repository.ProjectRepository;
+import com.yoga.youjia.repository.UserProjectIndexRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 用户-项目索引维护服务
+ *
+ * 成员变更时按（项目, 用户）同步对应索引行，项目信息变更时批量更新该项目的全部索引行，
+ * 两种同步的更新时间都取项目自身的更新时间。
+ * 成员同步按索引行是否已存在分成一次批量插入和一次批量更新，批量添加大量成员时语句数不随人数增长。
+ * 启动时如果索引为空而已有成员数据（例如升级后首次启动），按项目分批重建
+ */
+@Service
+public class UserProjectIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserProjectIndexService.class);
+
+    /**
+     * 重建时每批处理的项目数量
+     */
+    private static final int REBUILD_BATCH_SIZE = 100;
+
+    private static final String INSERT_INDEX_SQL =
+            "INSERT INTO user_project_index (user_id, project_id, active, member_active, project_status, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_INDEX_SQL =
+            "UPDATE user_project_index SET active = ?, member_active = ?, project_status = ?, updated_at = ? " +
+            "WHERE user_id = ? AND project_id = ?";
+
+    @Autowired
+    private UserProjectIndexRepository userProjectIndexRepository;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private ProjectMemberRepository projectMemberRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 同步项目中指定用户的索引行
+     *
+     * 成员状态只查询标量列，调用方用 JDBC 批量写入的成员行也能读到最新状态
+     *
+     * @param projectId 项目ID
+     * @param userIds 成员关系发生变化的用户ID
+     */
+    @Transactional
+    public void syncMembers(Long projectId, Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Project project = projectRepository.findById(projectId).orElse(null);
+        if (project == null) {
+            return;
+        }
+        Map<Long, Boolean> memberStates = new LinkedHashMap<>();
+        for (Object[] row : projectMemberRepository.findActiveStatesByProjectIdAndUserIdIn(projectId, userIds)) {
+            memberStates.put(((Number) row[0]).longValue(), Boolean.TRUE.equals(row[1]));
+        }
+        syncMembers(project, memberStates);
+    }
+
+    /**
+     * 项目状态、启用状态或基本信息变更后，批量同步该项目的全部索引行
+     *
+     * 先把项目变更写入数据库，使 @UpdateTimestamp 生成新的更新时间
+     */
+    @Transactional
+    public void syncProject(Project project) {
+        projectRepository.flush();
+        LocalDateTime updatedAt = projectUpdatedAt(project);
+        if (Boolean.TRUE.equals(project.getEnabled())) {
+            userProjectIndexRepository.syncEnabledProject(project.getId(), project.getStatus(), updatedAt);
+        } else {
+            userProjectIndexRepository.syncDisabledProject(project.getId(), project.getStatus(), updatedAt);
+        }
+    }
+
+    /**
+     * 索引为空且存在成员数据时重建索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfEmpty() {
+        if (userProjectIndexRepository.count() > 0 || projectMemberRepository.count() == 0) {
+            return;
+        }
+        logger.info("开始重建用户-项目索引");
+        long startTime = System.currentTimeMillis();
+
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        int page = 0;
+        long projectCount = 0;
+        while (true) {
+            final int pageNumber = page;
+            Integer processed = transactionTemplate.execute(status -> {
+                Page<Project> projects = projectRepository.findAll(
+                        PageRequest.of(pageNumber, REBUILD_BATCH_SIZE, Sort.by("id")));
+                for (Project project : projects) {
+                    syncMembers(project, memberStates(projectMemberRepository.findByProject_Id(project.getId())));
+                }
+                return projects.getNumberOfElements();
+            });
+            if (processed == null || processed == 0) {
+                break;
+            }
+            projectCount += processed;
+            page++;
+        }
+
+        logger.info("用户-项目索引重建完成: projects={}, duration={}ms", projectCount, System.currentTimeMillis() - startTime);
+    }
+
+    // ========== 私有方法 ==========
+
+    /**
+     * 按索引行是否已存在分别批量插入和批量更新
+     *
+     * @param memberStates 用户ID -> 成员是否活跃
+     */
+    private void syncMembers(Project project, Map<Long, Boolean> memberStates) {
+        if (memberStates.isEmpty()) {
+            return;
+        }
+        Set<Long> existing = new HashSet<>(
+                userProjectIndexRepository.findUserIdsByProjectIdAndUserIdIn(project.getId(), memberStates.keySet()));
+
+        boolean projectEnabled = Boolean.TRUE.equals(project.getEnabled());
+        String projectStatus = project.getStatus().name();
+        Timestamp updatedAt = Timestamp.valueOf(projectUpdatedAt(project));
+
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> updates = new ArrayList<>();
+        for (Map.Entry<Long, Boolean> entry : memberStates.entrySet()) {
+            Long userId = entry.getKey();
+            boolean memberActive = entry.getValue();
+            boolean active = memberActive && projectEnabled;
+            if (existing.contains(userId)) {
+                updates.add(new Object[]{active, memberActive, projectStatus, updatedAt, userId, project.getId()});
+            } else {
+                inserts.add(new Object[]{userId, project.getId(), active, memberActive, projectStatus, updatedAt});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_INDEX_SQL, inserts);
+        jdbcTemplate.batchUpdate(UPDATE_INDEX_SQL, updates);
+    }
+
+    private static Map<Long, Boolean> memberStates(List<ProjectMember> members) {
+        Map<Long, Boolean> memberStates = new LinkedHashMap<>();
+        for (ProjectMember member : members) {
+            memberStates.put(member.getUserId(), Boolean.TRUE.equals(member.getActive()));
+        }
+        return memberStates;
+    }
+
+    private static LocalDateTime projectUpdatedAt(Project project) {
+        return project.getUpdatedAt() != null ? project.getUpdatedAt() : LocalDateTime.now();
+    }
+}
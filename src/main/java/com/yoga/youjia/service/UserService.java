@@ -7,6 +7,7 @@ import com.yoga.youjia.common.exception.ResourceNotFoundException;
 import com.yoga.youjia.dto.request.UserQueryDTO;
 import com.yoga.youjia.entity.User;
 import com.yoga.youjia.repository.UserRepository;
+import com.yoga.youjia.security.service.PrincipalCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -17,6 +18,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * 用户服务类
@@ -39,6 +44,21 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private SearchIndexService searchIndexService;
+
+    @Autowired
+    private UserDirectoryService userDirectoryService;
+
+    @Autowired
+    private UserLookupService userLookupService;
+
+    @Autowired
+    private LoginActivityRecorder loginActivityRecorder;
+
     /**
      * 获取用户信息
      *
@@ -81,6 +101,10 @@ public class UserService {
             }
         }
 
+        // 用户名、状态等都会影响认证信息，失效原用户名对应的缓存
+        principalCache.invalidate(existingUser.getUsername());
+        userLookupService.invalidate(existingUser.getId());
+
         // 更新字段（只更新非空字段）
         if (user.getUsername() != null) {
             existingUser.setUsername(user.getUsername());
@@ -103,6 +127,7 @@ public class UserService {
 
         logger.info("准备保存用户: {}", existingUser.getId());
         User savedUser = userRepository.save(existingUser);
+        searchIndexService.onUserChanged(savedUser);
         logger.info("用户保存成功: {}", savedUser.getId());
 
         return savedUser;
@@ -152,6 +177,32 @@ public class UserService {
         );
     }
 
+    /**
+     * 按关键词联想用户（用户名、姓名、邮箱），用于成员选择器
+     *
+     * @param keyword 关键词，为空时返回空列表
+     * @param limit 最多返回数量
+     * @return 按匹配程度排序的用户列表
+     */
+    public List<User> suggestUsers(String keyword, int limit) {
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return List.of();
+        }
+        if (!searchIndexService.isLoaded()) {
+            // 索引载入完成前回退到按姓名模糊查询
+            PageRequest pageRequest = PageRequest.of(0, searchIndexService.clampLimit(limit));
+            return userRepository.findByConditions(keyword.trim(), null, null, pageRequest).getContent();
+        }
+
+        List<Long> userIds = searchIndexService.searchUserIds(keyword, limit);
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return userIds.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     /**
      * 删除用户
      *
@@ -161,33 +212,29 @@ public class UserService {
     @Transactional
     public void deleteUser(Long userId) {
         // 先检查用户是否存在
-        if (!userRepository.existsById(userId)) {
-            throw new ResourceNotFoundException("用户", String.valueOf(userId));
-        }
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("用户", String.valueOf(userId)));
         
-        userRepository.deleteById(userId);
+        userRepository.delete(user);
+        principalCache.invalidate(user.getUsername());
+        userLookupService.invalidate(userId);
+        searchIndexService.onUserDeleted(userId);
+        userDirectoryService.onUserDeleted(userId);
         logger.info("删除用户成功: userId={}", userId);
     }
 
     /**
-     * 分页查询用户
+     * 按主键游标翻页查询用户
      *
-     * @param page 页码
-     * @param size 每页大小
-     * @return 用户列表
-     */
-    public List<User> getUsersByPage(int page, int size) {
-        PageRequest pageRequest = PageRequest.of(page - 1, size);
-        return userRepository.findAll(pageRequest).getContent();
-    }
-
-    /**
-     * 获取所有用户
+     * 不使用偏移量和总数统计，每页只扫描索引上游标之后的 size 条记录；多取一条用于判断是否还有下一页
      *
-     * @return 所有用户列表
+     * @param afterId 上一页最后一个用户的ID，为空时从头开始
+     * @param size 每页大小
+     * @return 最多 size + 1 个用户
      */
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    public List<User> getUsersAfter(Long afterId, int size) {
+        return userRepository.findByIdGreaterThanOrderByIdAsc(
+                afterId != null ? afterId : 0L, PageRequest.of(0, size + 1));
     }
 
     /**
@@ -205,6 +252,8 @@ public class UserService {
     /**
      * 更新用户状态
      *
+     * 解除锁定时同时清除锁定到期时间和密码错误计数（包括内存中的计数）
+     *
      * @param userId 用户ID
      * @param status 新状态
      * @return 更新后的用户信息
@@ -215,8 +264,14 @@ public class UserService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("用户", String.valueOf(userId)));
         
+        if (user.getStatus() == UserStatus.LOCKED && status != UserStatus.LOCKED) {
+            user.resetPasswordErrorCount();
+        }
         user.setStatus(status);
         User savedUser = userRepository.save(user);
+        loginActivityRecorder.clearFailures(userId);
+        principalCache.invalidate(user.getUsername());
+        userLookupService.invalidate(userId);
         
         logger.info("更新用户状态成功: userId={}, status={}", userId, status);
         return savedUser;
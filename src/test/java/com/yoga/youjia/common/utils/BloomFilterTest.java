@@ -0,0 +1,99 @@
+package com.yoga.youjia.common.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * BloomFilter 单元测试
+ *
+ * 验证已加入的元素一定判断为可能存在，未加入元素的误判率接近配置值，并发插入不丢失元素
+ */
+@DisplayName("布隆过滤器测试")
+class BloomFilterTest {
+
+    @Test
+    @DisplayName("已加入的元素应判断为可能存在")
+    void testNoFalseNegatives() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        List<String> values = randomValues(10_000);
+        values.forEach(filter::put);
+
+        for (String value : values) {
+            assertTrue(filter.mightContain(value), value);
+        }
+    }
+
+    @Test
+    @DisplayName("空过滤器不包含任何元素")
+    void testEmpty() {
+        BloomFilter filter = BloomFilter.create(100, 0.01);
+
+        assertFalse(filter.mightContain("jti-1"));
+        assertFalse(filter.mightContain(""));
+    }
+
+    @Test
+    @DisplayName("达到预计容量时误判率应接近配置值")
+    void testFalsePositiveRate() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        randomValues(10_000).forEach(filter::put);
+
+        int falsePositives = 0;
+        List<String> absent = randomValues(100_000);
+        for (String value : absent) {
+            if (filter.mightContain(value)) {
+                falsePositives++;
+            }
+        }
+
+        double rate = (double) falsePositives / absent.size();
+        assertTrue(rate < 0.02, "误判率过高: " + rate);
+    }
+
+    @Test
+    @DisplayName("并发插入的元素都应判断为可能存在")
+    void testConcurrentPut() throws Exception {
+        BloomFilter filter = BloomFilter.create(40_000, 0.01);
+        List<String> values = randomValues(40_000);
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            int chunk = values.size() / threads;
+            for (int t = 0; t < threads; t++) {
+                List<String> part = values.subList(t * chunk, (t + 1) * chunk);
+                executor.submit(() -> {
+                    start.await();
+                    part.forEach(filter::put);
+                    return null;
+                });
+            }
+            start.countDown();
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+
+        for (String value : values) {
+            assertTrue(filter.mightContain(value), value);
+        }
+    }
+
+    private static List<String> randomValues(int count) {
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(UUID.randomUUID().toString());
+        }
+        return values;
+    }
+}
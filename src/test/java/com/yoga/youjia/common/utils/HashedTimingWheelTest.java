@@ -0,0 +1,135 @@
+package com.yoga.youjia.common.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HashedTimingWheel 单元测试
+ *
+ * 验证到期顺序、超过一圈的定时按轮次到期、取消和重新调度，以及推进跨越多圈时不遗漏定时
+ */
+@DisplayName("哈希时间轮测试")
+class HashedTimingWheelTest {
+
+    private static final long TICK = 1000;
+
+    /**
+     * 8个槽位，一圈为8个刻度
+     */
+    private HashedTimingWheel<String> wheel;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new HashedTimingWheel<>(8, TICK, 0);
+    }
+
+    @Test
+    @DisplayName("一次推进经过多个刻度时按刻度先后返回到期的键")
+    void testAdvance_FiringOrder() {
+        wheel.schedule("third", 3 * TICK + 500);
+        wheel.schedule("first", TICK + 200);
+        wheel.schedule("second", 2 * TICK);
+
+        assertEquals(List.of("first", "second", "third"), wheel.advance(4 * TICK - 1));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("到期时间未到的键不返回，逐刻度推进时按时到期")
+    void testAdvance_OnlyExpired() {
+        wheel.schedule("a", 2 * TICK);
+        wheel.schedule("b", 5 * TICK);
+
+        assertTrue(wheel.advance(2 * TICK - 1).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(2 * TICK));
+        assertTrue(wheel.advance(4 * TICK).isEmpty());
+        assertEquals(List.of("b"), wheel.advance(5 * TICK));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("超过一圈的定时留在槽位中，到达对应轮次才到期")
+    void testAdvance_Rounds() {
+        // 刻度10与刻度2落在同一槽位
+        wheel.schedule("later", 10 * TICK);
+        wheel.schedule("sameSlot", 2 * TICK);
+
+        assertEquals(List.of("sameSlot"), wheel.advance(2 * TICK));
+        assertEquals(1, wheel.size());
+        assertTrue(wheel.advance(9 * TICK + 999).isEmpty());
+        assertEquals(List.of("later"), wheel.advance(10 * TICK));
+    }
+
+    @Test
+    @DisplayName("推进跨越多圈时每个到期的键都返回一次")
+    void testAdvance_SkipMultipleRounds() {
+        wheel.schedule("a", 3 * TICK);
+        wheel.schedule("b", 20 * TICK);
+        wheel.schedule("c", 200 * TICK);
+
+        List<String> expired = wheel.advance(100 * TICK);
+
+        assertEquals(2, expired.size());
+        assertTrue(expired.containsAll(List.of("a", "b")));
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("c"), wheel.advance(200 * TICK));
+    }
+
+    @Test
+    @DisplayName("取消后的键不再到期")
+    void testCancel() {
+        wheel.schedule("a", 2 * TICK);
+        wheel.schedule("b", 2 * TICK);
+
+        assertTrue(wheel.cancel("a"));
+        assertFalse(wheel.cancel("a"));
+        assertFalse(wheel.cancel("missing"));
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("b"), wheel.advance(3 * TICK));
+    }
+
+    @Test
+    @DisplayName("重新调度替换原来的定时")
+    void testSchedule_Replace() {
+        wheel.schedule("a", 2 * TICK);
+        wheel.schedule("a", 6 * TICK);
+
+        assertEquals(1, wheel.size());
+        assertTrue(wheel.advance(3 * TICK).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(6 * TICK));
+    }
+
+    @Test
+    @DisplayName("到期时间已过去的键在下一次推进时到期")
+    void testSchedule_PastDeadline() {
+        wheel.advance(5 * TICK);
+        wheel.schedule("late", TICK);
+
+        // 时间倒退时不推进
+        assertTrue(wheel.advance(4 * TICK).isEmpty());
+        assertEquals(List.of("late"), wheel.advance(6 * TICK));
+    }
+
+    @Test
+    @DisplayName("清空后没有挂起的定时")
+    void testClear() {
+        wheel.schedule("a", 2 * TICK);
+        wheel.schedule("b", 20 * TICK);
+
+        wheel.clear();
+
+        assertEquals(0, wheel.size());
+        assertTrue(wheel.advance(100 * TICK).isEmpty());
+    }
+
+    @Test
+    @DisplayName("刻度长度必须为正数")
+    void testInvalidTick() {
+        assertThrows(IllegalArgumentException.class, () -> new HashedTimingWheel<String>(8, 0, 0));
+    }
+}
@@ -0,0 +1,167 @@
+package com.yoga.youjia.common.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * MpscRingBuffer 单元测试
+ *
+ * 单线程验证容量取整、空队列、满队列、先进先出和多圈回绕；多个生产者并发写入时每个元素恰好被消费一次，
+ * 同一生产者的元素保持写入顺序
+ */
+@DisplayName("多生产者单消费者环形队列测试")
+class MpscRingBufferTest {
+
+    @Test
+    @DisplayName("容量向上取整为2的幂")
+    void testCapacity() {
+        assertEquals(2, new MpscRingBuffer<String>(1).capacity());
+        assertEquals(4, new MpscRingBuffer<String>(3).capacity());
+        assertEquals(8, new MpscRingBuffer<String>(8).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new MpscRingBuffer<String>(0));
+    }
+
+    @Test
+    @DisplayName("空队列取出null，不能加入null")
+    void testEmpty() {
+        MpscRingBuffer<String> buffer = new MpscRingBuffer<>(4);
+
+        assertNull(buffer.poll());
+        assertEquals(0, buffer.size());
+        assertEquals(0, buffer.drain(element -> fail("空队列不应有元素"), 10));
+        assertThrows(NullPointerException.class, () -> buffer.offer(null));
+    }
+
+    @Test
+    @DisplayName("队列满时offer返回false，取出一个后可以再加入")
+    void testFull() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+
+        assertFalse(buffer.offer(4));
+        assertEquals(4, buffer.size());
+
+        assertEquals(0, buffer.poll());
+        assertTrue(buffer.offer(4));
+        assertFalse(buffer.offer(5));
+        assertEquals(List.of(1, 2, 3, 4), drainAll(buffer));
+        assertNull(buffer.poll());
+    }
+
+    @Test
+    @DisplayName("多圈回绕后仍然先进先出")
+    void testWrapAround() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        int next = 0;
+        int expected = 0;
+        for (int round = 0; round < 100; round++) {
+            // 每轮写入的数量与取出的数量不同，写入位置在各个槽位间错开
+            int writes = 1 + round % 4;
+            for (int i = 0; i < writes && buffer.offer(next); i++) {
+                next++;
+            }
+            int reads = 1 + (round * 7) % 3;
+            for (int i = 0; i < reads; i++) {
+                Integer element = buffer.poll();
+                if (element == null) {
+                    break;
+                }
+                assertEquals(expected++, element);
+            }
+            assertEquals(next - expected, buffer.size());
+        }
+        for (Integer element : drainAll(buffer)) {
+            assertEquals(expected++, element);
+        }
+        assertEquals(next, expected);
+    }
+
+    @Test
+    @DisplayName("drain最多取出limit个元素")
+    void testDrainLimit() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(8);
+        for (int i = 0; i < 5; i++) {
+            buffer.offer(i);
+        }
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(3, buffer.drain(drained::add, 3));
+        assertEquals(List.of(0, 1, 2), drained);
+        assertEquals(2, buffer.size());
+    }
+
+    @Test
+    @DisplayName("多个生产者并发写入时每个元素恰好消费一次，同一生产者保持顺序")
+    void testMultipleProducers() throws Exception {
+        int producers = 4;
+        int perProducer = 200_000;
+        MpscRingBuffer<long[]> buffer = new MpscRingBuffer<>(1024);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                long producer = p;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    int rejected = 0;
+                    for (int i = 0; i < perProducer; i++) {
+                        long[] element = {producer, i};
+                        while (!buffer.offer(element)) {
+                            rejected++;
+                            Thread.onSpinWait();
+                        }
+                    }
+                    return rejected;
+                }));
+            }
+            start.countDown();
+
+            // 当前线程作为唯一的消费者
+            int[] nextSequence = new int[producers];
+            long received = 0;
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+            while (received < (long) producers * perProducer) {
+                long[] element = buffer.poll();
+                if (element == null) {
+                    assertTrue(System.nanoTime() < deadline, "消费超时，已收到 " + received);
+                    Thread.onSpinWait();
+                    continue;
+                }
+                int producer = (int) element[0];
+                assertEquals(nextSequence[producer], element[1], "生产者 " + producer + " 的元素乱序或重复");
+                nextSequence[producer]++;
+                received++;
+            }
+
+            for (Future<Integer> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+            for (int p = 0; p < producers; p++) {
+                assertEquals(perProducer, nextSequence[p]);
+            }
+            assertNull(buffer.poll());
+            assertEquals(0, buffer.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static <E> List<E> drainAll(MpscRingBuffer<E> buffer) {
+        List<E> elements = new ArrayList<>();
+        buffer.drain(elements::add, Integer.MAX_VALUE);
+        return elements;
+    }
+}
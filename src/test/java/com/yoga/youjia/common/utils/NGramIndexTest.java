@@ -0,0 +1,165 @@
+package com.yoga.youjia.common.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * NGramIndex 单元测试
+ *
+ * 验证结果排序（完全匹配 > 前缀 > 词首 > 其他位置，同级按字段权重和长度），候选截断时不漏掉完全匹配和前缀匹配，
+ * 删除和替换后倒排表保持一致，以及10万用户规模下的查询耗时
+ */
+@DisplayName("N-gram 子串索引测试")
+class NGramIndexTest {
+
+    @Test
+    @DisplayName("按匹配位置排序：完全匹配 > 前缀 > 词首 > 其他位置")
+    void testSearch_Ranking() {
+        NGramIndex index = new NGramIndex(1000);
+        index.put(1, "xadmin");
+        index.put(2, "team admin");
+        index.put(3, "administrator");
+        index.put(4, "admin");
+        index.put(5, "nothing");
+
+        assertEquals(List.of(4L, 3L, 2L, 1L), index.search("admin", 10));
+        assertEquals(List.of(4L, 3L), index.search("admin", 2));
+    }
+
+    @Test
+    @DisplayName("同级匹配按字段权重和字段长度排序，不区分大小写")
+    void testSearch_FieldWeightAndLength() {
+        NGramIndex index = new NGramIndex(1000);
+        index.put(1, "other", "alice@example.com");
+        index.put(2, "Alice Wang", "a@example.com");
+        index.put(3, "Alice", null);
+        index.put(4, "Alice Zhang Long Name", "z@example.com");
+
+        assertEquals(List.of(3L, 2L, 4L, 1L), index.search("ALICE", 10));
+    }
+
+    @Test
+    @DisplayName("一个字符的查询只匹配字段前缀，空白查询返回空列表")
+    void testSearch_SingleCharAndBlank() {
+        NGramIndex index = new NGramIndex(1000);
+        index.put(1, "bob");
+        index.put(2, "abby");
+
+        assertEquals(List.of(1L), index.search("b", 10));
+        assertTrue(index.search("  ", 10).isEmpty());
+        assertTrue(index.search("zzz", 10).isEmpty());
+        assertTrue(index.search("bob", 0).isEmpty());
+    }
+
+    @Test
+    @DisplayName("候选超过上限时完全匹配和前缀匹配仍然排在最前")
+    void testSearch_CappedCandidatesKeepExactAndPrefix() {
+        NGramIndex index = new NGramIndex(10);
+        for (int i = 0; i < 100; i++) {
+            index.put(i, "user" + i + "smith");
+        }
+        index.put(1000, "smithson");
+        index.put(1001, "smith");
+
+        assertEquals(List.of(1001L, 1000L), index.search("smith", 2));
+        assertEquals(1001L, index.search("smith", 1).get(0));
+    }
+
+    @Test
+    @DisplayName("删除和替换后不再匹配旧内容，共享倒排表的其他文档仍可查到")
+    void testRemoveAndReplace() {
+        NGramIndex index = new NGramIndex(1000);
+        index.put(1, "alpha");
+        index.put(2, "alpine");
+        index.put(3, "alps");
+
+        index.remove(1);
+        index.remove(1);
+        assertEquals(2, index.size());
+        assertEquals(Set.of(2L, 3L), Set.copyOf(index.search("al", 10)));
+
+        index.put(2, "beta");
+        assertEquals(List.of(3L), index.search("al", 10));
+        assertEquals(List.of(2L), index.search("beta", 10));
+
+        // 复用删除后空出的槽位
+        index.put(4, "alpaca");
+        assertEquals(Set.of(3L, 4L), Set.copyOf(index.search("alp", 10)));
+    }
+
+    @Test
+    @DisplayName("随机增删后的查询结果与逐个比对一致")
+    void testRandomOperations_MatchBruteForce() {
+        NGramIndex index = new NGramIndex(100_000);
+        Map<Long, String> expected = new HashMap<>();
+        Random random = new Random(42);
+        String[] syllables = {"an", "li", "wang", "zh", "ao", "min", "test", "er"};
+
+        for (int round = 0; round < 5000; round++) {
+            long id = random.nextInt(300);
+            if (random.nextInt(4) == 0) {
+                index.remove(id);
+                expected.remove(id);
+            } else {
+                String value = syllables[random.nextInt(syllables.length)] + syllables[random.nextInt(syllables.length)]
+                        + syllables[random.nextInt(syllables.length)];
+                index.put(id, value);
+                expected.put(id, value);
+            }
+        }
+
+        assertEquals(expected.size(), index.size());
+        for (String query : List.of("an", "wang", "minte", "zhao", "er", "testli")) {
+            Set<Long> matches = new TreeSet<>();
+            expected.forEach((id, value) -> {
+                if (value.toLowerCase(Locale.ROOT).contains(query)) {
+                    matches.add(id);
+                }
+            });
+            assertEquals(matches, new TreeSet<>(index.search(query, 1000)), query);
+        }
+    }
+
+    @Test
+    @DisplayName("10万用户时单次查询平均耗时应小于5毫秒")
+    void testSearch_Latency100kUsers() {
+        NGramIndex index = new NGramIndex(5000);
+        Random random = new Random(7);
+        String[] surnames = {"wang", "li", "zhang", "liu", "chen", "yang", "zhao", "huang", "zhou", "wu"};
+        for (int i = 0; i < 100_000; i++) {
+            String username = surnames[random.nextInt(surnames.length)] + i;
+            index.put(i, username, username + " " + surnames[random.nextInt(surnames.length)],
+                    username + "@example.com");
+        }
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            queries.add(switch (i % 4) {
+                case 0 -> surnames[i % surnames.length];
+                case 1 -> surnames[i % surnames.length].substring(0, 2);
+                case 2 -> String.valueOf(random.nextInt(100_000));
+                default -> "example";
+            });
+        }
+        // 预热
+        queries.forEach(query -> index.search(query, 20));
+
+        long startTime = System.nanoTime();
+        for (String query : queries) {
+            assertFalse(index.search(query, 20).isEmpty(), query);
+        }
+        double averageMillis = (System.nanoTime() - startTime) / 1_000_000.0 / queries.size();
+
+        assertTrue(averageMillis < 5, "平均查询耗时 " + averageMillis + "ms");
+    }
+}
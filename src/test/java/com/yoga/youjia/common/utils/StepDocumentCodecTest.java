@@ -0,0 +1,98 @@
+package com.yoga.youjia.common.utils;
+
+import com.yoga.youjia.entity.TestStep;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * StepDocumentCodec 单元测试
+ * 
+ * 验证文档模式下步骤的编码、解码和版本校验
+ */
+@DisplayName("测试步骤文档编解码测试")
+class StepDocumentCodecTest {
+
+    @Test
+    @DisplayName("编码后再解码应还原步骤内容并按序号排序")
+    void testEncodeDecodeRoundTrip() {
+        TestStep second = TestStep.builder()
+                .stepOrder(2)
+                .stepDescription("点击登录")
+                .expectedResult("进入首页")
+                .isKeyStep(true)
+                .automated(false)
+                .estimatedTime(10)
+                .build();
+        TestStep first = TestStep.builder()
+                .stepOrder(1)
+                .stepDescription("打开登录页面")
+                .testData("URL: http://localhost:8080/login")
+                .expectedResult("页面正常显示")
+                .remark("注意 \"引号\" 与换行\n")
+                .isKeyStep(false)
+                .automated(true)
+                .automationCode("driver.get(url);")
+                .build();
+
+        String document = StepDocumentCodec.encode(List.of(second, first));
+        List<TestStep> steps = StepDocumentCodec.decode(document, 99L);
+
+        assertEquals(2, steps.size());
+        TestStep decodedFirst = steps.get(0);
+        assertEquals(1, decodedFirst.getStepOrder());
+        assertEquals(99L, decodedFirst.getTestCaseId());
+        assertEquals("打开登录页面", decodedFirst.getStepDescription());
+        assertEquals("URL: http://localhost:8080/login", decodedFirst.getTestData());
+        assertEquals("注意 \"引号\" 与换行\n", decodedFirst.getRemark());
+        assertTrue(decodedFirst.getAutomated());
+        assertFalse(decodedFirst.getIsKeyStep());
+        assertEquals("driver.get(url);", decodedFirst.getAutomationCode());
+        assertNull(decodedFirst.getEstimatedTime());
+
+        TestStep decodedSecond = steps.get(1);
+        assertEquals("点击登录", decodedSecond.getStepDescription());
+        assertNull(decodedSecond.getTestData());
+        assertTrue(decodedSecond.getIsKeyStep());
+        assertEquals(10, decodedSecond.getEstimatedTime());
+    }
+
+    @Test
+    @DisplayName("空步骤列表应编码为带版本号的空文档")
+    void testEncodeEmptySteps() {
+        String document = StepDocumentCodec.encode(List.of());
+
+        assertEquals("{\"v\":1,\"n\":0,\"steps\":[]}", document);
+        assertTrue(StepDocumentCodec.decode(document, 1L).isEmpty());
+        assertEquals(0, StepDocumentCodec.countSteps(document));
+    }
+
+    @Test
+    @DisplayName("统计步骤数应读取文档中的数量字段")
+    void testCountSteps() {
+        String document = StepDocumentCodec.encode(List.of(
+                TestStep.builder().stepOrder(1).stepDescription("第一步").build(),
+                TestStep.builder().stepOrder(2).stepDescription("第二步").build()));
+
+        assertEquals(2, StepDocumentCodec.countSteps(document));
+        assertEquals(0, StepDocumentCodec.countSteps(null));
+    }
+
+    @Test
+    @DisplayName("没有数量字段的旧文档应逐个统计步骤")
+    void testCountStepsWithoutCountField() {
+        String document = "{\"v\":1,\"steps\":[{\"o\":1,\"d\":\"a\"},{\"o\":2,\"er\":{\"x\":[1]}},{\"o\":3}]}";
+
+        assertEquals(3, StepDocumentCodec.countSteps(document));
+    }
+
+    @Test
+    @DisplayName("未知版本的文档应拒绝解码")
+    void testDecodeUnknownVersion() {
+        assertThrows(IllegalStateException.class,
+                () -> StepDocumentCodec.decode("{\"v\":99,\"steps\":[]}", 1L));
+    }
+}
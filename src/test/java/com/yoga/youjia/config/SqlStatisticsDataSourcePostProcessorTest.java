@@ -0,0 +1,162 @@
+package com.yoga.youjia.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SqlStatisticsDataSourcePostProcessor SQL执行统计测试
+ *
+ * 用 H2 内存库验证包装后的数据源：
+ * - 统计语句数、读取的行数和执行次数最多的 SQL
+ * - 开启 fail-on-repeat 时，超过阈值的语句抛出 SQLException，并且不会在数据库中执行
+ * - 当前线程没有绑定统计时不记录
+ */
+@DisplayName("SQL执行统计数据源测试")
+class SqlStatisticsDataSourcePostProcessorTest {
+
+    private static final String UPDATE_SQL = "UPDATE counter SET hits = hits + 1 WHERE id = 1";
+
+    private SqlStatisticsDataSourcePostProcessor postProcessor;
+
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        postProcessor = new SqlStatisticsDataSourcePostProcessor();
+        ReflectionTestUtils.setField(postProcessor, "enabled", true);
+        ReflectionTestUtils.setField(postProcessor, "repeatThreshold", 3);
+        ReflectionTestUtils.setField(postProcessor, "failOnRepeat", false);
+
+        DriverManagerDataSource target = new DriverManagerDataSource(
+                "jdbc:h2:mem:sql_statistics_" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        try (Connection connection = target.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE counter (id BIGINT PRIMARY KEY, hits INT NOT NULL)");
+            statement.execute("INSERT INTO counter VALUES (1, 0), (2, 0), (3, 0)");
+        }
+        dataSource = target;
+    }
+
+    @AfterEach
+    void tearDown() {
+        SqlStatementStatistics.detach();
+    }
+
+    @Test
+    @DisplayName("应统计语句数、读取行数和重复次数最多的SQL")
+    void testStatistics_CountsStatementsAndRows() throws SQLException {
+        DataSource wrapped = wrap();
+        SqlStatementStatistics statistics = SqlStatementStatistics.begin();
+
+        try (Connection connection = wrapped.getConnection()) {
+            for (int i = 0; i < 2; i++) {
+                try (PreparedStatement statement = connection.prepareStatement("SELECT id FROM counter WHERE id <= ?")) {
+                    statement.setLong(1, 3);
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            resultSet.getLong(1);
+                        }
+                    }
+                }
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT hits FROM counter WHERE id = 1");
+                try (ResultSet resultSet = statement.getResultSet()) {
+                    assertTrue(resultSet.next());
+                }
+            }
+        }
+
+        assertEquals(3, statistics.getStatements());
+        assertEquals(7, statistics.getRows());
+        assertEquals("SELECT id FROM counter WHERE id <= ?", statistics.getMostRepeatedSql());
+        assertEquals(2, statistics.getMostRepeatedCount());
+        assertTrue(statistics.getDbTimeNanos() > 0);
+    }
+
+    @Test
+    @DisplayName("开启fail-on-repeat时超过阈值的语句应抛出异常且不在数据库中执行")
+    void testFailOnRepeat_RejectsBeforeExecuting() throws SQLException {
+        ReflectionTestUtils.setField(postProcessor, "failOnRepeat", true);
+        DataSource wrapped = wrap();
+        SqlStatementStatistics.begin();
+
+        try (Connection connection = wrapped.getConnection()) {
+            for (int i = 0; i < 3; i++) {
+                try (PreparedStatement statement = connection.prepareStatement(UPDATE_SQL)) {
+                    assertEquals(1, statement.executeUpdate());
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement(UPDATE_SQL)) {
+                SQLException exception = assertThrows(SQLException.class, statement::executeUpdate);
+                assertTrue(exception.getMessage().contains(UPDATE_SQL), exception.getMessage());
+            }
+        }
+
+        // 第4次更新被拒绝，没有写入数据库
+        assertEquals(3, readHits());
+    }
+
+    @Test
+    @DisplayName("未开启fail-on-repeat时超过阈值的语句照常执行")
+    void testRepeatWithoutFail_Executes() throws SQLException {
+        DataSource wrapped = wrap();
+        SqlStatementStatistics statistics = SqlStatementStatistics.begin();
+
+        try (Connection connection = wrapped.getConnection()) {
+            for (int i = 0; i < 5; i++) {
+                try (PreparedStatement statement = connection.prepareStatement(UPDATE_SQL)) {
+                    statement.executeUpdate();
+                }
+            }
+        }
+
+        assertEquals(5, readHits());
+        assertEquals(5, statistics.getMostRepeatedCount());
+    }
+
+    @Test
+    @DisplayName("当前线程没有绑定统计时不记录也不拦截")
+    void testWithoutStatistics_PassesThrough() throws SQLException {
+        ReflectionTestUtils.setField(postProcessor, "failOnRepeat", true);
+        DataSource wrapped = wrap();
+
+        try (Connection connection = wrapped.getConnection()) {
+            for (int i = 0; i < 5; i++) {
+                try (PreparedStatement statement = connection.prepareStatement(UPDATE_SQL)) {
+                    statement.executeUpdate();
+                }
+            }
+        }
+
+        assertEquals(5, readHits());
+        assertNull(SqlStatementStatistics.current());
+    }
+
+    private DataSource wrap() {
+        Object wrapped = postProcessor.postProcessAfterInitialization(dataSource, "dataSource");
+        assertNotSame(dataSource, wrapped);
+        return (DataSource) wrapped;
+    }
+
+    private int readHits() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT hits FROM counter WHERE id = 1")) {
+            assertTrue(resultSet.next());
+            return resultSet.getInt(1);
+        }
+    }
+}
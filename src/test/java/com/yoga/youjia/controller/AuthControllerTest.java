@@ -5,6 +5,7 @@ import com.yoga.youjia.common.enums.ErrorCode;
 import com.yoga.youjia.common.exception.BusinessException;
 import com.yoga.youjia.entity.User;
 import com.yoga.youjia.security.service.JWTService;
+import com.yoga.youjia.security.service.TokenRevocationService;
 import com.yoga.youjia.service.AuthService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -20,12 +21,15 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -60,6 +64,9 @@ class AuthControllerTest {
     @MockBean
     private JWTService jwtService;
 
+    @MockBean
+    private TokenRevocationService tokenRevocationService;
+
     private User testUser;
 
     /**
@@ -84,7 +91,7 @@ class AuthControllerTest {
     @DisplayName("用户注册应该成功")
     void testRegister_Success() throws Exception {
         // 模拟Service返回注册成功的用户
-        when(authService.register(any(User.class))).thenReturn(testUser);
+        when(authService.registerAsync(any(User.class))).thenReturn(CompletableFuture.completedFuture(testUser));
 
         // 准备注册请求数据
         String registerRequest = """
@@ -97,10 +104,14 @@ class AuthControllerTest {
                 }
                 """;
 
-        // 执行POST请求
-        mockMvc.perform(post("/api/auth/register")
+        // 执行POST请求，登录/注册为异步处理
+        MvcResult mvcResult = mockMvc.perform(post("/api/auth/register")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(registerRequest))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
@@ -110,7 +121,7 @@ class AuthControllerTest {
                 .andExpect(jsonPath("$.data.email").value("test@example.com"));
 
         // 验证Service方法被调用
-        verify(authService, times(1)).register(any(User.class));
+        verify(authService, times(1)).registerAsync(any(User.class));
     }
 
     @Test
@@ -136,7 +147,7 @@ class AuthControllerTest {
                 .andExpect(jsonPath("$.message").value("密码和确认密码不一致"));
 
         // 验证Service方法不应该被调用
-        verify(authService, never()).register(any(User.class));
+        verify(authService, never()).registerAsync(any(User.class));
     }
 
     @Test
@@ -160,15 +171,15 @@ class AuthControllerTest {
                 .andExpect(status().isBadRequest());
 
         // 验证Service方法不应该被调用
-        verify(authService, never()).register(any(User.class));
+        verify(authService, never()).registerAsync(any(User.class));
     }
 
     @Test
     @DisplayName("注册时用户名已存在应该返回400")
     void testRegister_UsernameExists() throws Exception {
         // 模拟Service抛出用户名已存在异常
-        when(authService.register(any(User.class)))
-                .thenThrow(new BusinessException(ErrorCode.USERNAME_ALREADY_EXISTS));
+        when(authService.registerAsync(any(User.class)))
+                .thenReturn(CompletableFuture.failedFuture(new BusinessException(ErrorCode.USERNAME_ALREADY_EXISTS)));
 
         // 准备注册请求数据
         String registerRequest = """
@@ -180,24 +191,28 @@ class AuthControllerTest {
                 }
                 """;
 
-        // 执行POST请求
-        mockMvc.perform(post("/api/auth/register")
+        // 执行POST请求，登录/注册为异步处理
+        MvcResult mvcResult = mockMvc.perform(post("/api/auth/register")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(registerRequest))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andDo(print())
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.success").value(false))
                 .andExpect(jsonPath("$.message").value("用户名已存在"));
 
         // 验证Service方法被调用
-        verify(authService, times(1)).register(any(User.class));
+        verify(authService, times(1)).registerAsync(any(User.class));
     }
 
     @Test
     @DisplayName("用户登录应该成功")
     void testLogin_Success() throws Exception {
         // 模拟Service返回登录成功的用户
-        when(authService.login("testuser", "password123")).thenReturn(testUser);
+        when(authService.loginAsync("testuser", "password123")).thenReturn(CompletableFuture.completedFuture(testUser));
         
         // 模拟JWT服务生成令牌
         when(jwtService.generateToken("testuser")).thenReturn("Bearer eyJhbGciOiJIUzI1NiJ9...");
@@ -211,10 +226,14 @@ class AuthControllerTest {
                 }
                 """;
 
-        // 执行POST请求
-        mockMvc.perform(post("/api/auth/login")
+        // 执行POST请求，登录/注册为异步处理
+        MvcResult mvcResult = mockMvc.perform(post("/api/auth/login")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(loginRequest))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
@@ -226,7 +245,7 @@ class AuthControllerTest {
                 .andExpect(jsonPath("$.data.token.expires_in").value(86400));
 
         // 验证Service方法被调用
-        verify(authService, times(1)).login("testuser", "password123");
+        verify(authService, times(1)).loginAsync("testuser", "password123");
         verify(jwtService, times(1)).generateToken("testuser");
     }
 
@@ -249,7 +268,7 @@ class AuthControllerTest {
                 .andExpect(status().isBadRequest());
 
         // 验证Service方法不应该被调用
-        verify(authService, never()).login(anyString(), anyString());
+        verify(authService, never()).loginAsync(anyString(), anyString());
         verify(jwtService, never()).generateToken(anyString());
     }
 
@@ -257,8 +276,8 @@ class AuthControllerTest {
     @DisplayName("登录时用户名或密码错误应该返回400")
     void testLogin_InvalidCredentials() throws Exception {
         // 模拟Service抛出登录失败异常
-        when(authService.login("testuser", "wrongpassword"))
-                .thenThrow(new BusinessException(ErrorCode.PASSWORD_INVALID));
+        when(authService.loginAsync("testuser", "wrongpassword"))
+                .thenReturn(CompletableFuture.failedFuture(new BusinessException(ErrorCode.PASSWORD_INVALID)));
 
         // 准备登录请求数据
         String loginRequest = """
@@ -268,17 +287,21 @@ class AuthControllerTest {
                 }
                 """;
 
-        // 执行POST请求
-        mockMvc.perform(post("/api/auth/login")
+        // 执行POST请求，登录/注册为异步处理
+        MvcResult mvcResult = mockMvc.perform(post("/api/auth/login")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(loginRequest))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andDo(print())
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.success").value(false))
                 .andExpect(jsonPath("$.message").value("密码错误"));
 
         // 验证Service方法被调用，但JWT服务不应该被调用
-        verify(authService, times(1)).login("testuser", "wrongpassword");
+        verify(authService, times(1)).loginAsync("testuser", "wrongpassword");
         verify(jwtService, never()).generateToken(anyString());
     }
 
@@ -286,8 +309,8 @@ class AuthControllerTest {
     @DisplayName("登录时用户被禁用应该返回400")
     void testLogin_UserDisabled() throws Exception {
         // 模拟Service抛出用户被禁用异常
-        when(authService.login("testuser", "password123"))
-                .thenThrow(new BusinessException(ErrorCode.USER_DISABLED));
+        when(authService.loginAsync("testuser", "password123"))
+                .thenReturn(CompletableFuture.failedFuture(new BusinessException(ErrorCode.USER_DISABLED)));
 
         // 准备登录请求数据
         String loginRequest = """
@@ -297,17 +320,21 @@ class AuthControllerTest {
                 }
                 """;
 
-        // 执行POST请求
-        mockMvc.perform(post("/api/auth/login")
+        // 执行POST请求，登录/注册为异步处理
+        MvcResult mvcResult = mockMvc.perform(post("/api/auth/login")
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(loginRequest))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(mvcResult))
                 .andDo(print())
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.success").value(false))
                 .andExpect(jsonPath("$.message").value("用户已被停用"));
 
         // 验证Service方法被调用，但JWT服务不应该被调用
-        verify(authService, times(1)).login("testuser", "password123");
+        verify(authService, times(1)).loginAsync("testuser", "password123");
         verify(jwtService, never()).generateToken(anyString());
     }
 
@@ -329,7 +356,7 @@ class AuthControllerTest {
                 .andExpect(status().isBadRequest());
 
         // 验证Service方法不应该被调用
-        verify(authService, never()).register(any(User.class));
+        verify(authService, never()).registerAsync(any(User.class));
     }
 
     @Test
@@ -350,6 +377,6 @@ class AuthControllerTest {
                 .andExpect(status().isBadRequest());
 
         // 验证Service方法不应该被调用
-        verify(authService, never()).login(anyString(), anyString());
+        verify(authService, never()).loginAsync(anyString(), anyString());
     }
 }
@@ -0,0 +1,132 @@
+package com.yoga.youjia.controller;
+
+import com.yoga.youjia.common.enums.UserStatus;
+import com.yoga.youjia.repository.UserRepository;
+import com.yoga.youjia.service.UserLookupService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * UserController批量获取用户名片接口测试
+ *
+ * 测试 ETag 协商缓存：
+ * - 首次请求返回名片和 ETag
+ * - If-None-Match 匹配（包括多个 ETag、* 和强弱形式不同）时返回 304 且没有响应体
+ * - ETag 过期或用户信息变更后返回 200 和新的 ETag
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UserController批量获取用户名片接口测试")
+class UserControllerTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private UserLookupService userLookupService;
+
+    private MockMvc mockMvc;
+
+    private final List<Object[]> rows = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        userLookupService = new UserLookupService(userRepository, new SimpleMeterRegistry(),
+                1000, 1000, Duration.ofMinutes(10));
+        UserController userController = new UserController();
+        ReflectionTestUtils.setField(userController, "userLookupService", userLookupService);
+        mockMvc = MockMvcBuilders.standaloneSetup(userController).build();
+
+        rows.add(new Object[]{1L, "alice", "Alice", null, UserStatus.ACTIVE});
+        rows.add(new Object[]{2L, "bob", "Bob", null, UserStatus.ACTIVE});
+        when(userRepository.findUserCardsByIdIn(anyCollection())).thenAnswer(invocation -> new ArrayList<>(rows));
+    }
+
+    @Test
+    @DisplayName("首次请求应返回名片和ETag")
+    void testLookupUsers_Ok() throws Exception {
+        lookup(null)
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, userLookupService.computeETag(userLookupService.lookup(List.of(1L, 2L)))))
+                .andExpect(jsonPath("$.data[0].username").value("alice"))
+                .andExpect(jsonPath("$.data[1].realName").value("Bob"));
+    }
+
+    @Test
+    @DisplayName("If-None-Match匹配时应返回304且没有响应体")
+    void testLookupUsers_NotModified() throws Exception {
+        String etag = lookup(null).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String strongForm = etag.substring(2);
+
+        for (String ifNoneMatch : List.of(etag, strongForm, "\"stale\", " + etag)) {
+            lookup(ifNoneMatch)
+                    .andExpect(status().isNotModified())
+                    .andExpect(header().string(HttpHeaders.ETAG, etag))
+                    .andExpect(content().string(""));
+        }
+        // 名片已缓存，304 请求也不再查询数据库
+        verify(userRepository, times(1)).findUserCardsByIdIn(anyCollection());
+    }
+
+    @Test
+    @DisplayName("ETag不匹配时应返回200")
+    void testLookupUsers_StaleETag() throws Exception {
+        lookup("W/\"0000000000000000\"")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(2));
+    }
+
+    @Test
+    @DisplayName("If-None-Match为*时不应返回304")
+    void testLookupUsers_WildcardIgnored() throws Exception {
+        lookup("*")
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.data.length()").value(2));
+    }
+
+    @Test
+    @DisplayName("用户信息变更并失效缓存后，旧ETag应返回200和新的ETag")
+    void testLookupUsers_ChangedAfterInvalidate() throws Exception {
+        String etag = lookup(null).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        rows.set(0, new Object[]{1L, "alice", "New Name", null, UserStatus.ACTIVE});
+        userLookupService.invalidate(1L);
+
+        String newEtag = lookup(etag)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].realName").value("New Name"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        lookup(newEtag).andExpect(status().isNotModified());
+        assertNotEquals(etag, newEtag);
+    }
+
+    private ResultActions lookup(String ifNoneMatch) throws Exception {
+        var request = post("/api/users/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1, 2]");
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return mockMvc.perform(request);
+    }
+}
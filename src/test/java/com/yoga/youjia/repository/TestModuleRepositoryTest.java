@@ -0,0 +1,108 @@
+package com.yoga.youjia.repository;
+
+import com.yoga.youjia.entity.Project;
+import com.yoga.youjia.entity.TestModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TestModuleRepository数据访问层测试
+ *
+ * 测试模块树路径查询：
+ * - 祖先链按从根到自身的顺序返回
+ * - 其他项目的模块和禁用的祖先不会出现在路径中
+ */
+@DataJpaTest
+@DisplayName("TestModuleRepository数据访问层测试")
+class TestModuleRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TestModuleRepository testModuleRepository;
+
+    private Project project;
+
+    private Project otherProject;
+
+    @BeforeEach
+    void setUp() {
+        project = entityManager.persist(Project.builder().code("P-TREE").name("模块树项目").createdBy(1L).build());
+        otherProject = entityManager.persist(Project.builder().code("P-OTHER").name("其他项目").createdBy(1L).build());
+    }
+
+    @Test
+    @DisplayName("祖先链应按从根到自身的顺序返回")
+    void testFindAncestorIdsFromRoot() {
+        TestModule root = persistModule(project, null, "根模块", true);
+        TestModule child = persistModule(project, root, "子模块", true);
+        TestModule leaf = persistModule(project, child, "叶子模块", true);
+
+        List<Long> path = testModuleRepository.findAncestorIdsFromRoot(project.getId(), leaf.getId());
+
+        assertEquals(List.of(root.getId(), child.getId(), leaf.getId()), path);
+    }
+
+    @Test
+    @DisplayName("其他项目的模块ID不应返回路径")
+    void testFindAncestorIdsFromRoot_OtherProject() {
+        TestModule root = persistModule(otherProject, null, "其他项目根模块", true);
+        TestModule leaf = persistModule(otherProject, root, "其他项目叶子模块", true);
+
+        assertTrue(testModuleRepository.findAncestorIdsFromRoot(project.getId(), leaf.getId()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("父模块属于其他项目时不应返回路径")
+    void testFindAncestorIdsFromRoot_ParentInOtherProject() {
+        TestModule foreignRoot = persistModule(otherProject, null, "其他项目根模块", true);
+        TestModule leaf = persistModule(project, foreignRoot, "错挂的模块", true);
+
+        assertTrue(testModuleRepository.findAncestorIdsFromRoot(project.getId(), leaf.getId()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("祖先被禁用时不应返回路径")
+    void testFindAncestorIdsFromRoot_DisabledAncestor() {
+        TestModule root = persistModule(project, null, "根模块", true);
+        TestModule disabled = persistModule(project, root, "禁用的模块", false);
+        TestModule leaf = persistModule(project, disabled, "叶子模块", true);
+
+        assertTrue(testModuleRepository.findAncestorIdsFromRoot(project.getId(), leaf.getId()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("按ID批量查询只返回本项目启用的模块")
+    void testFindByProjectIdAndIdInAndEnabledTrue() {
+        TestModule enabled = persistModule(project, null, "启用的模块", true);
+        TestModule disabled = persistModule(project, null, "禁用的模块", false);
+        TestModule foreign = persistModule(otherProject, null, "其他项目模块", true);
+
+        List<TestModule> modules = testModuleRepository.findByProjectIdAndIdInAndEnabledTrue(
+                project.getId(), List.of(enabled.getId(), disabled.getId(), foreign.getId()));
+
+        assertEquals(1, modules.size());
+        assertEquals(enabled.getId(), modules.get(0).getId());
+    }
+
+    private TestModule persistModule(Project owner, TestModule parent, String name, boolean enabled) {
+        TestModule module = TestModule.builder()
+                .name(name)
+                .projectId(owner.getId())
+                .parentId(parent != null ? parent.getId() : null)
+                .depth(parent != null ? parent.getDepth() + 1 : 1)
+                .enabled(enabled)
+                .createdBy(1L)
+                .build();
+        return entityManager.persistAndFlush(module);
+    }
+}
@@ -0,0 +1,98 @@
+package com.yoga.youjia.repository;
+
+import com.yoga.youjia.entity.Project;
+import com.yoga.youjia.entity.TestCase;
+import com.yoga.youjia.entity.TestStep;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TestStepRepository数据访问层测试
+ *
+ * 测试 JDBC 批量插入：
+ * - 超过一个分块（500行）时全部写入
+ * - 回填的自增ID与请求顺序一一对应
+ */
+@DataJpaTest
+@DisplayName("TestStepRepository数据访问层测试")
+class TestStepRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TestStepRepository testStepRepository;
+
+    private TestCase testCase;
+
+    @BeforeEach
+    void setUp() {
+        Project project = entityManager.persist(Project.builder().code("P-STEP").name("步骤项目").createdBy(1L).build());
+        testCase = entityManager.persist(TestCase.builder()
+                .caseId("TC-STEP-1")
+                .title("批量步骤用例")
+                .projectId(project.getId())
+                .moduleId(1L)
+                .createdBy(1L)
+                .build());
+    }
+
+    @Test
+    @DisplayName("多个分块的批量插入应写入全部步骤，并按请求顺序回填ID")
+    void testBatchInsert_MultipleChunks() {
+        List<TestStep> testSteps = new ArrayList<>();
+        for (int i = 0; i < 1203; i++) {
+            // 序号与请求顺序相反，回填错位时ID与序号对不上
+            testSteps.add(TestStep.builder()
+                    .testCaseId(testCase.getId())
+                    .stepOrder(1203 - i)
+                    .stepDescription("步骤" + i)
+                    .expectedResult("结果" + i)
+                    .isKeyStep(false)
+                    .automated(false)
+                    .enabled(true)
+                    .build());
+        }
+
+        int inserted = testStepRepository.batchInsert(testSteps);
+
+        assertEquals(1203, inserted);
+        List<Long> ids = testSteps.stream().map(TestStep::getId).collect(Collectors.toList());
+        assertFalse(ids.contains(null));
+        assertEquals(1203, new HashSet<>(ids).size());
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i) > ids.get(i - 1), "ID应按请求顺序递增: " + i);
+        }
+
+        entityManager.clear();
+        Map<Long, TestStep> stored = testStepRepository.findByTestCaseIdAndEnabledTrueOrderByStepOrderAsc(testCase.getId())
+                .stream()
+                .collect(Collectors.toMap(TestStep::getId, Function.identity()));
+        assertEquals(1203, stored.size());
+        for (TestStep testStep : testSteps) {
+            TestStep storedStep = stored.get(testStep.getId());
+            assertEquals(testStep.getStepOrder(), storedStep.getStepOrder());
+            assertEquals(testStep.getStepDescription(), storedStep.getStepDescription());
+        }
+    }
+
+    @Test
+    @DisplayName("空列表不执行插入")
+    void testBatchInsert_Empty() {
+        assertEquals(0, testStepRepository.batchInsert(List.of()));
+        assertEquals(0, testStepRepository.count());
+    }
+}
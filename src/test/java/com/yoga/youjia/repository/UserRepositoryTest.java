@@ -14,6 +14,8 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -221,6 +223,39 @@ class UserRepositoryTest {
         assertEquals(com.yoga.youjia.common.enums.UserStatus.INACTIVE, foundUser.getStatus());
     }
 
+    @Test
+    @DisplayName("按主键游标翻页应不重不漏地遍历全部用户")
+    void testFindByIdGreaterThanOrderByIdAsc() {
+        List<Long> expectedIds = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            User user = createTestUser("page" + i, "page" + i + "@example.com", "翻页用户" + i,
+                    UserStatus.ACTIVE, UserRole.DEVELOPER);
+            expectedIds.add(entityManager.persist(user).getId());
+        }
+        entityManager.flush();
+
+        List<Long> visitedIds = new ArrayList<>();
+        Long cursor = 0L;
+        int pages = 0;
+        while (true) {
+            // 与 UserService.getUsersAfter 相同，多取一条判断是否还有下一页
+            List<User> page = userRepository.findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.of(0, 3 + 1));
+            boolean hasMore = page.size() > 3;
+            List<User> content = hasMore ? page.subList(0, 3) : page;
+            content.forEach(user -> visitedIds.add(user.getId()));
+            pages++;
+            if (!hasMore) {
+                break;
+            }
+            cursor = content.get(content.size() - 1).getId();
+        }
+
+        assertEquals(expectedIds, visitedIds);
+        assertEquals(3, pages);
+        assertTrue(userRepository.findByIdGreaterThanOrderByIdAsc(
+                expectedIds.get(expectedIds.size() - 1), PageRequest.of(0, 4)).isEmpty());
+    }
+
     /**
      * 创建测试用户的辅助方法
      */
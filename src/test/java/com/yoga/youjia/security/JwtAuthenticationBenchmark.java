@@ -0,0 +1,155 @@
+package com.yoga.youjia.security;
+
+import com.yoga.youjia.repository.RevokedTokenRepository;
+import com.yoga.youjia.security.filter.JWTAuthenticationFilter;
+import com.yoga.youjia.security.service.JWTService;
+import com.yoga.youjia.security.service.PrincipalCache;
+import com.yoga.youjia.security.service.TokenRevocationService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT认证性能基准测试
+ *
+ * 对比每个请求的认证开销：
+ * - legacyTripleParse：原实现，每次重建密钥和解析器，同一令牌验签解析三次
+ * - singleParse：预构建解析器，验签解析一次
+ * - cachedVerify：JWTService.verify，命中已验证令牌缓存
+ * - filterRequest：完整经过 JWTAuthenticationFilter（令牌缓存 + 吊销检查 + 用户信息缓存）
+ *
+ * 运行方式：执行本类的 main 方法（需先编译测试代码，由 JMH 注解处理器生成基准测试类）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationBenchmark {
+
+    private static final String SECRET =
+            "YourSecureJWTSecretKeyForDevelopmentEnvironmentMustBeAtLeast256BitsLongForHS256Algorithm123456789";
+
+    private JWTService jwtService;
+
+    private JWTAuthenticationFilter filter;
+
+    private String bearerToken;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JWTService();
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRET);
+        ReflectionTestUtils.setField(jwtService, "expirationTime", 86400000L);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheMaximumSize", 10000L);
+        jwtService.init();
+
+        bearerToken = jwtService.generateToken("benchmark");
+        token = bearerToken.substring(7);
+
+        UserDetails userDetails = User.builder()
+                .username("benchmark")
+                .password("password")
+                .authorities(new ArrayList<>())
+                .build();
+        UserDetailsService userDetailsService = username -> userDetails;
+
+        // 没有吊销记录，测量的是未吊销令牌的布隆过滤器判断开销
+        TokenRevocationService tokenRevocationService = new TokenRevocationService();
+        ReflectionTestUtils.setField(tokenRevocationService, "revokedTokenRepository",
+                Mockito.mock(RevokedTokenRepository.class));
+        ReflectionTestUtils.setField(tokenRevocationService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(tokenRevocationService, "expirationTime", 86400000L);
+        ReflectionTestUtils.setField(tokenRevocationService, "expectedEntries", 10000L);
+        ReflectionTestUtils.setField(tokenRevocationService, "falsePositiveRate", 0.01D);
+        tokenRevocationService.init();
+
+        filter = new JWTAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtService", jwtService);
+        ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(filter, "principalCache",
+                new PrincipalCache(new SimpleMeterRegistry(), 1000, Duration.ofMinutes(5)));
+        ReflectionTestUtils.setField(filter, "tokenRevocationService", tokenRevocationService);
+    }
+
+    @Benchmark
+    public boolean legacyTripleParse() {
+        String username = legacyParse().getSubject();
+        String validatedUsername = legacyParse().getSubject();
+        boolean expired = legacyParse().getExpiration().before(new Date());
+        return username.equals(validatedUsername) && !expired;
+    }
+
+    @Benchmark
+    public Claims singleParse() {
+        return SingleParseHolder.PARSER.parseClaimsJws(token).getBody();
+    }
+
+    @Benchmark
+    public Claims cachedVerify() {
+        return jwtService.verify(token);
+    }
+
+    @Benchmark
+    public Object filterRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/projects");
+        request.addHeader("Authorization", bearerToken);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+
+    private Claims legacyParse() {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    private static class SingleParseHolder {
+        private static final JwtParser PARSER = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtAuthenticationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
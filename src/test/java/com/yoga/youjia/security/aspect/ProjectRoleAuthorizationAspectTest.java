@@ -0,0 +1,183 @@
+package com.yoga.youjia.security.aspect;
+
+import com.yoga.youjia.common.enums.ErrorCode;
+import com.yoga.youjia.common.enums.ProjectMemberRole;
+import com.yoga.youjia.common.exception.BusinessException;
+import com.yoga.youjia.entity.ProjectMember;
+import com.yoga.youjia.repository.ProjectMemberRepository;
+import com.yoga.youjia.security.annotation.RequireProjectRole;
+import com.yoga.youjia.security.service.CurrentUserResolver;
+import com.yoga.youjia.security.service.ProjectAccessCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ProjectRoleAuthorizationAspect项目角色检查切面测试
+ *
+ * 测试检查结果在请求内的复用：
+ * - 同一请求内相同的 (项目, 用户, 角色) 只查询一次访问权限，拒绝结果同样复用
+ * - 要求的角色不同、换了新请求或不在请求中时重新检查
+ * - 计时器按结果和是否复用分别计数
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ProjectRoleAuthorizationAspect项目角色检查切面测试")
+class ProjectRoleAuthorizationAspectTest {
+
+    private static final Long PROJECT_ID = 1L;
+
+    private static final Long USER_ID = 2L;
+
+    @Mock
+    private ProjectMemberRepository projectMemberRepository;
+
+    @Mock
+    private CurrentUserResolver currentUserResolver;
+
+    private ProjectAccessCache projectAccessCache;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ProjectOperations operations;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        projectAccessCache = spy(new ProjectAccessCache(projectMemberRepository, meterRegistry,
+                1000, Duration.ofMinutes(10)));
+
+        ProjectRoleAuthorizationAspect aspect = new ProjectRoleAuthorizationAspect();
+        ReflectionTestUtils.setField(aspect, "currentUserResolver", currentUserResolver);
+        ReflectionTestUtils.setField(aspect, "projectAccessCache", projectAccessCache);
+        ReflectionTestUtils.setField(aspect, "meterRegistry", meterRegistry);
+        aspect.registerTimers();
+
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new ProjectOperations());
+        proxyFactory.addAspect(aspect);
+        operations = proxyFactory.getProxy();
+
+        when(currentUserResolver.getCurrentUserId()).thenReturn(USER_ID);
+        startRequest();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    @DisplayName("同一请求内重复检查应只查询一次访问权限")
+    void testCheckProjectRole_MemoizedWithinRequest() {
+        givenMember(ProjectMemberRole.TESTER);
+
+        assertEquals("edited", operations.edit(PROJECT_ID));
+        assertEquals("edited", operations.edit(PROJECT_ID));
+
+        verify(projectAccessCache, times(1)).getAccess(PROJECT_ID, USER_ID);
+        assertEquals(1, timerCount("granted", false));
+        assertEquals(1, timerCount("granted", true));
+    }
+
+    @Test
+    @DisplayName("拒绝结果同样在请求内复用")
+    void testCheckProjectRole_DeniedMemoized() {
+        when(projectMemberRepository.findByProject_IdAndUserId(PROJECT_ID, USER_ID)).thenReturn(Optional.empty());
+
+        BusinessException first = assertThrows(BusinessException.class, () -> operations.view(PROJECT_ID));
+        BusinessException second = assertThrows(BusinessException.class, () -> operations.view(PROJECT_ID));
+
+        assertEquals(ErrorCode.PROJECT_ACCESS_DENIED, first.getNewErrorCode());
+        assertEquals(ErrorCode.PROJECT_ACCESS_DENIED, second.getNewErrorCode());
+        verify(projectAccessCache, times(1)).getAccess(PROJECT_ID, USER_ID);
+        assertEquals(1, timerCount("denied", false));
+        assertEquals(1, timerCount("denied", true));
+    }
+
+    @Test
+    @DisplayName("要求的角色不同时应分别检查")
+    void testCheckProjectRole_DifferentRequiredRole() {
+        givenMember(ProjectMemberRole.DEVELOPER);
+
+        assertEquals("viewed", operations.view(PROJECT_ID));
+        BusinessException exception = assertThrows(BusinessException.class, () -> operations.edit(PROJECT_ID));
+
+        assertEquals(ErrorCode.PROJECT_PERMISSION_DENIED, exception.getNewErrorCode());
+        verify(projectAccessCache, times(2)).getAccess(PROJECT_ID, USER_ID);
+    }
+
+    @Test
+    @DisplayName("新的请求应重新检查")
+    void testCheckProjectRole_NewRequest() {
+        givenMember(ProjectMemberRole.TESTER);
+
+        operations.edit(PROJECT_ID);
+        startRequest();
+        operations.edit(PROJECT_ID);
+
+        verify(projectAccessCache, times(2)).getAccess(PROJECT_ID, USER_ID);
+        assertEquals(2, timerCount("granted", false));
+        assertEquals(0, timerCount("granted", true));
+    }
+
+    @Test
+    @DisplayName("不在请求中时不复用检查结果")
+    void testCheckProjectRole_OutsideRequest() {
+        givenMember(ProjectMemberRole.TESTER);
+        RequestContextHolder.resetRequestAttributes();
+
+        operations.edit(PROJECT_ID);
+        operations.edit(PROJECT_ID);
+
+        verify(projectAccessCache, times(2)).getAccess(PROJECT_ID, USER_ID);
+        assertEquals(0, timerCount("granted", true));
+    }
+
+    private void givenMember(ProjectMemberRole role) {
+        ProjectMember member = ProjectMember.builder().userId(USER_ID).role(role).active(true).build();
+        when(projectMemberRepository.findByProject_IdAndUserId(PROJECT_ID, USER_ID)).thenReturn(Optional.of(member));
+    }
+
+    private void startRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+    }
+
+    private long timerCount(String result, boolean memoized) {
+        return meterRegistry.get("project.authorization.check")
+                .tag("result", result)
+                .tag("memoized", String.valueOf(memoized))
+                .timer()
+                .count();
+    }
+
+    /**
+     * 被切面代理的示例服务
+     */
+    static class ProjectOperations {
+
+        @RequireProjectRole
+        public String view(Long projectId) {
+            return "viewed";
+        }
+
+        @RequireProjectRole(ProjectMemberRole.TESTER)
+        public String edit(Long projectId) {
+            return "edited";
+        }
+    }
+}
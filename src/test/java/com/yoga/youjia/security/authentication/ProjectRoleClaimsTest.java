@@ -0,0 +1,103 @@
+package com.yoga.youjia.security.authentication;
+
+import com.yoga.youjia.common.enums.ProjectMemberRole;
+import com.yoga.youjia.common.enums.UserRole;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ProjectRoleClaims令牌项目角色解析测试
+ *
+ * 测试从令牌声明中解析用户和项目角色：
+ * - 签发时写入的紧凑映射（项目ID字符串 -> 角色级别）解析为项目角色
+ * - 缺少用户ID、版本号或项目映射的令牌不携带项目角色
+ * - 只有当前认证用户本人的检查才使用令牌中的信息
+ */
+@DisplayName("ProjectRoleClaims令牌项目角色解析测试")
+class ProjectRoleClaimsTest {
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("应解析用户ID、全局角色、版本号和项目角色")
+    void testFrom_FullClaims() {
+        // JSON 反序列化后的数字可能是 Integer，也可能是 Long
+        Claims claims = claims(7, 3L, Map.of("10", ProjectMemberRole.PROJECT_MANAGER.getLevel(),
+                "20", ProjectMemberRole.VIEWER.getLevel()));
+        claims.put(ProjectRoleClaims.CLAIM_USER_ROLE, UserRole.TESTER.name());
+
+        ProjectRoleClaims projectRoleClaims = ProjectRoleClaims.from(claims);
+
+        assertNotNull(projectRoleClaims);
+        assertEquals(7L, projectRoleClaims.getUserId());
+        assertEquals(UserRole.TESTER, projectRoleClaims.getUserRole());
+        assertEquals(3L, projectRoleClaims.getTokenVersion());
+        assertEquals(ProjectMemberRole.PROJECT_MANAGER, projectRoleClaims.getProjectRole(10L));
+        assertEquals(ProjectMemberRole.VIEWER, projectRoleClaims.getProjectRole(20L));
+        assertNull(projectRoleClaims.getProjectRole(30L));
+        assertThrows(UnsupportedOperationException.class,
+                () -> projectRoleClaims.getProjectRoles().put(30L, ProjectMemberRole.TESTER));
+    }
+
+    @Test
+    @DisplayName("空的项目映射表示不是任何项目的成员")
+    void testFrom_EmptyProjectRoles() {
+        ProjectRoleClaims projectRoleClaims = ProjectRoleClaims.from(claims(7L, 0L, Map.of()));
+
+        assertNotNull(projectRoleClaims);
+        assertNull(projectRoleClaims.getUserRole());
+        assertTrue(projectRoleClaims.getProjectRoles().isEmpty());
+    }
+
+    @Test
+    @DisplayName("缺少项目映射、用户ID或版本号时不携带项目角色")
+    void testFrom_MissingClaims() {
+        Claims withoutProjects = claims(7L, 1L, null);
+        assertNull(ProjectRoleClaims.from(withoutProjects));
+        assertEquals(7L, ProjectRoleClaims.userIdOf(withoutProjects));
+
+        assertNull(ProjectRoleClaims.from(claims(null, 1L, Map.of())));
+        assertNull(ProjectRoleClaims.from(claims(7L, null, Map.of())));
+        assertNull(ProjectRoleClaims.userIdOf(Jwts.claims()));
+    }
+
+    @Test
+    @DisplayName("只有检查当前认证用户本人时才使用令牌中的项目角色")
+    void testCurrent_OnlyForAuthenticatedUser() {
+        ProjectRoleClaims projectRoleClaims = ProjectRoleClaims.from(
+                claims(7L, 1L, Map.of("10", ProjectMemberRole.TESTER.getLevel())));
+        assertNull(ProjectRoleClaims.current(7L));
+
+        SecurityContextHolder.getContext().setAuthentication(
+                new JwtAuthenticationToken("tester", Collections.emptyList(), 7L, projectRoleClaims));
+
+        assertSame(projectRoleClaims, ProjectRoleClaims.current(7L));
+        assertNull(ProjectRoleClaims.current(8L));
+    }
+
+    private static Claims claims(Number userId, Number tokenVersion, Map<String, Integer> projectRoles) {
+        Claims claims = Jwts.claims();
+        if (userId != null) {
+            claims.put(ProjectRoleClaims.CLAIM_USER_ID, userId);
+        }
+        if (tokenVersion != null) {
+            claims.put(ProjectRoleClaims.CLAIM_TOKEN_VERSION, tokenVersion);
+        }
+        if (projectRoles != null) {
+            claims.put(ProjectRoleClaims.CLAIM_PROJECT_ROLES, projectRoles);
+        }
+        return claims;
+    }
+}
@@ -0,0 +1,199 @@
+package com.yoga.youjia.security.filter;
+
+import com.yoga.youjia.common.enums.ProjectMemberRole;
+import com.yoga.youjia.security.authentication.JwtAuthenticationToken;
+import com.yoga.youjia.security.authentication.ProjectRoleClaims;
+import com.yoga.youjia.security.service.JWTService;
+import com.yoga.youjia.security.service.PrincipalCache;
+import com.yoga.youjia.security.service.TokenClaimsProvider;
+import com.yoga.youjia.security.service.TokenRevocationService;
+import com.yoga.youjia.security.service.TokenVersionService;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * JWTAuthenticationFilter令牌项目角色测试
+ *
+ * 测试令牌版本号的检查：
+ * - 版本号一致时直接使用令牌中的项目角色
+ * - 版本号落后时按当前成员关系重新签发令牌，通过响应头返回，过期时间不变，本次请求使用新的项目角色
+ * - 重新签发失败时仍建立认证，但不使用令牌中的项目角色
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("JWTAuthenticationFilter令牌项目角色测试")
+class JWTAuthenticationFilterTest {
+
+    private static final Long USER_ID = 5L;
+
+    private static final Long PROJECT_ID = 10L;
+
+    @Mock
+    private TokenClaimsProvider tokenClaimsProvider;
+
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @Mock
+    private TokenVersionService tokenVersionService;
+
+    @Mock
+    private TokenRevocationService tokenRevocationService;
+
+    private JWTService jwtService;
+
+    private JWTAuthenticationFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = new JWTService();
+        ReflectionTestUtils.setField(jwtService, "secretKey",
+                "TestSecretKeyForJwtAuthenticationFilterMustBeAtLeast256BitsLong0123456789");
+        ReflectionTestUtils.setField(jwtService, "expirationTime", 3_600_000L);
+        ReflectionTestUtils.setField(jwtService, "verifiedCacheMaximumSize", 100L);
+        ReflectionTestUtils.setField(jwtService, "embedProjectRoles", true);
+        ReflectionTestUtils.setField(jwtService, "tokenClaimsProvider", tokenClaimsProvider);
+        jwtService.init();
+
+        filter = new JWTAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtService", jwtService);
+        ReflectionTestUtils.setField(filter, "userDetailsService", userDetailsService);
+        ReflectionTestUtils.setField(filter, "principalCache",
+                new PrincipalCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(5)));
+        ReflectionTestUtils.setField(filter, "tokenVersionService", tokenVersionService);
+        ReflectionTestUtils.setField(filter, "tokenRevocationService", tokenRevocationService);
+
+        lenient().when(userDetailsService.loadUserByUsername("tester"))
+                .thenReturn(User.withUsername("tester").password("encoded").authorities("ROLE_TESTER").build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("版本号一致时应直接使用令牌中的项目角色")
+    void testDoFilter_CurrentVersion() throws Exception {
+        when(tokenClaimsProvider.buildClaims("tester")).thenReturn(claims(1L, ProjectMemberRole.TESTER));
+        String token = jwtService.generateToken("tester");
+        when(tokenVersionService.getCurrentVersion(USER_ID)).thenReturn(1L);
+
+        MockHttpServletResponse response = doFilter(token);
+
+        assertEquals(ProjectMemberRole.TESTER, currentClaims().getProjectRole(PROJECT_ID));
+        assertNull(response.getHeader(JWTAuthenticationFilter.TOKEN_STALE_HEADER));
+        assertNull(response.getHeader(JWTAuthenticationFilter.REFRESHED_TOKEN_HEADER));
+        verify(tokenClaimsProvider, times(1)).buildClaims("tester");
+    }
+
+    @Test
+    @DisplayName("版本号落后时应重新签发令牌，过期时间不变，本次请求使用新的项目角色")
+    void testDoFilter_StaleVersionReissuesToken() throws Exception {
+        when(tokenClaimsProvider.buildClaims("tester"))
+                .thenReturn(claims(1L, ProjectMemberRole.TESTER), claims(2L, ProjectMemberRole.TEST_MANAGER));
+        String token = jwtService.generateToken("tester");
+        when(tokenVersionService.getCurrentVersion(USER_ID)).thenReturn(2L);
+
+        MockHttpServletResponse response = doFilter(token);
+
+        assertEquals("true", response.getHeader(JWTAuthenticationFilter.TOKEN_STALE_HEADER));
+        String refreshedToken = response.getHeader(JWTAuthenticationFilter.REFRESHED_TOKEN_HEADER);
+        assertNotNull(refreshedToken);
+        assertTrue(refreshedToken.startsWith("Bearer "));
+        Claims refreshedClaims = jwtService.verify(refreshedToken);
+        assertEquals(2L, ProjectRoleClaims.from(refreshedClaims).getTokenVersion());
+        assertEquals(jwtService.verify(token).getExpiration(), refreshedClaims.getExpiration());
+        assertNotEquals(jwtService.verify(token).getId(), refreshedClaims.getId());
+
+        assertEquals(ProjectMemberRole.TEST_MANAGER, currentClaims().getProjectRole(PROJECT_ID));
+
+        // 客户端换用新令牌后不再重新签发
+        SecurityContextHolder.clearContext();
+        MockHttpServletResponse next = doFilter(refreshedToken);
+        assertNull(next.getHeader(JWTAuthenticationFilter.REFRESHED_TOKEN_HEADER));
+        verify(tokenClaimsProvider, times(2)).buildClaims("tester");
+    }
+
+    @Test
+    @DisplayName("重新签发失败时仍建立认证，但不使用令牌中的项目角色")
+    void testDoFilter_ReissueFails() throws Exception {
+        when(tokenClaimsProvider.buildClaims("tester"))
+                .thenReturn(claims(1L, ProjectMemberRole.TESTER))
+                .thenThrow(new IllegalStateException("数据库不可用"));
+        String token = jwtService.generateToken("tester");
+        when(tokenVersionService.getCurrentVersion(USER_ID)).thenReturn(2L);
+
+        MockHttpServletResponse response = doFilter(token);
+
+        JwtAuthenticationToken authentication =
+                (JwtAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        assertEquals(USER_ID, authentication.getUserId());
+        assertNull(authentication.getProjectRoleClaims());
+        assertEquals("true", response.getHeader(JWTAuthenticationFilter.TOKEN_STALE_HEADER));
+        assertNull(response.getHeader(JWTAuthenticationFilter.REFRESHED_TOKEN_HEADER));
+    }
+
+    @Test
+    @DisplayName("已吊销的令牌不建立认证，也不重新签发")
+    void testDoFilter_Revoked() throws Exception {
+        when(tokenClaimsProvider.buildClaims("tester")).thenReturn(claims(1L, ProjectMemberRole.TESTER));
+        String token = jwtService.generateToken("tester");
+        when(tokenRevocationService.isRevoked(any())).thenReturn(true);
+
+        MockHttpServletResponse response = doFilter(token);
+
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+        assertNull(response.getHeader(JWTAuthenticationFilter.REFRESHED_TOKEN_HEADER));
+        verify(tokenClaimsProvider, times(1)).buildClaims("tester");
+        verifyNoInteractions(tokenVersionService, userDetailsService);
+    }
+
+    private MockHttpServletResponse doFilter(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/projects/10");
+        request.addHeader("Authorization", token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        assertNotNull(chain.getRequest());
+        return response;
+    }
+
+    private ProjectRoleClaims currentClaims() {
+        JwtAuthenticationToken authentication =
+                (JwtAuthenticationToken) SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        return authentication.getProjectRoleClaims();
+    }
+
+    private static Map<String, Object> claims(long tokenVersion, ProjectMemberRole role) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(ProjectRoleClaims.CLAIM_USER_ID, USER_ID);
+        claims.put(ProjectRoleClaims.CLAIM_USER_ROLE, "TESTER");
+        claims.put(ProjectRoleClaims.CLAIM_TOKEN_VERSION, tokenVersion);
+        claims.put(ProjectRoleClaims.CLAIM_PROJECT_ROLES, Map.of(PROJECT_ID.toString(), role.getLevel()));
+        return claims;
+    }
+}
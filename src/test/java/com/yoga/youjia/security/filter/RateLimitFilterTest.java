@@ -0,0 +1,140 @@
+package com.yoga.youjia.security.filter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yoga.youjia.common.enums.ErrorCode;
+import com.yoga.youjia.config.RateLimitProperties;
+import com.yoga.youjia.security.authentication.JwtAuthenticationToken;
+import com.yoga.youjia.security.service.TokenBucketRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RateLimitFilter接口限流过滤器测试
+ *
+ * 测试超出限制时的响应：
+ * - 桶内有令牌时请求继续执行
+ * - 超出限制时返回429、Retry-After 响应头和统一格式的错误响应，不再执行后续过滤器
+ * - 已登录请求按用户计数，未登录请求按IP计数，未匹配规则的请求不限流
+ */
+@DisplayName("RateLimitFilter接口限流过滤器测试")
+class RateLimitFilterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private RateLimitFilter rateLimitFilter;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties.Rule rule = new RateLimitProperties.Rule();
+        rule.setName("login");
+        rule.setPattern("/api/auth/login");
+        rule.setMethod("POST");
+        rule.setCapacity(1);
+        rule.setRefillTokens(1);
+        rule.setRefillPeriod(Duration.ofHours(1));
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setRules(List.of(rule));
+
+        rateLimitFilter = new RateLimitFilter();
+        ReflectionTestUtils.setField(rateLimitFilter, "rateLimiter",
+                new TokenBucketRateLimiter(properties, new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(rateLimitFilter, "objectMapper", objectMapper);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("超出限制时应返回429和Retry-After响应头")
+    void testDoFilter_TooManyRequests() throws Exception {
+        MockFilterChain allowedChain = new MockFilterChain();
+        rateLimitFilter.doFilter(loginRequest("10.0.0.1"), new MockHttpServletResponse(), allowedChain);
+        assertNotNull(allowedChain.getRequest());
+
+        MockFilterChain rejectedChain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        rateLimitFilter.doFilter(loginRequest("10.0.0.1"), response, rejectedChain);
+
+        assertNull(rejectedChain.getRequest());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), response.getStatus());
+        // 每小时补充一个令牌，下一个令牌约一小时后可用，向上取整到秒
+        assertEquals("3600", response.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(response.getContentType().startsWith("application/json"));
+
+        JsonNode body = objectMapper.readTree(response.getContentAsString());
+        assertFalse(body.get("success").asBoolean());
+        assertEquals(ErrorCode.RATE_LIMIT_EXCEEDED.getCode(), body.get("code").asText());
+        assertEquals(ErrorCode.RATE_LIMIT_EXCEEDED.getMessage(), body.get("message").asText());
+    }
+
+    @Test
+    @DisplayName("未登录请求按客户端IP分别计数")
+    void testDoFilter_SeparateClientIps() throws Exception {
+        rateLimitFilter.doFilter(loginRequest("10.0.0.1"), new MockHttpServletResponse(), new MockFilterChain());
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        rateLimitFilter.doFilter(loginRequest("10.0.0.2"), response, chain);
+
+        assertNotNull(chain.getRequest());
+        assertEquals(HttpStatus.OK.value(), response.getStatus());
+    }
+
+    @Test
+    @DisplayName("已登录请求按用户计数，不受同一IP上其他用户影响")
+    void testDoFilter_AuthenticatedUser() throws Exception {
+        authenticate(1L);
+        rateLimitFilter.doFilter(loginRequest("10.0.0.1"), new MockHttpServletResponse(), new MockFilterChain());
+
+        authenticate(2L);
+        MockFilterChain otherUserChain = new MockFilterChain();
+        rateLimitFilter.doFilter(loginRequest("10.0.0.1"), new MockHttpServletResponse(), otherUserChain);
+        assertNotNull(otherUserChain.getRequest());
+
+        authenticate(1L);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        rateLimitFilter.doFilter(loginRequest("10.0.0.2"), response, new MockFilterChain());
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS.value(), response.getStatus());
+    }
+
+    @Test
+    @DisplayName("未匹配规则的请求不限流")
+    void testDoFilter_NoMatchingRule() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            MockFilterChain chain = new MockFilterChain();
+            rateLimitFilter.doFilter(new MockHttpServletRequest("GET", "/api/auth/login"),
+                    new MockHttpServletResponse(), chain);
+            assertNotNull(chain.getRequest());
+        }
+    }
+
+    private MockHttpServletRequest loginRequest(String ip) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setRemoteAddr(ip);
+        return request;
+    }
+
+    private void authenticate(Long userId) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new JwtAuthenticationToken("user" + userId, Collections.emptyList(), userId, null));
+    }
+}
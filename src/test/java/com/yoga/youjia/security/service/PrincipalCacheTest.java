@@ -0,0 +1,197 @@
+package com.yoga.youjia.security.service;
+
+import com.yoga.youjia.common.enums.UserStatus;
+import com.yoga.youjia.entity.User;
+import com.yoga.youjia.repository.UserRepository;
+import com.yoga.youjia.service.LoginActivityRecorder;
+import com.yoga.youjia.service.SearchIndexService;
+import com.yoga.youjia.service.UserDirectoryService;
+import com.yoga.youjia.service.UserLookupService;
+import com.yoga.youjia.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * PrincipalCache已认证用户信息缓存测试
+ *
+ * 测试影响认证的变更会立即失效缓存的用户信息，被锁定、停用或删除的用户不能在缓存过期前继续通过认证：
+ * - 修改用户信息、修改状态、删除用户
+ * - 密码错误次数过多被锁定
+ * - 修改用户名后旧用户名的缓存失效
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PrincipalCache已认证用户信息缓存测试")
+class PrincipalCacheTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private SearchIndexService searchIndexService;
+
+    @Mock
+    private UserDirectoryService userDirectoryService;
+
+    @Mock
+    private UserLookupService userLookupService;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private PrincipalCache principalCache;
+
+    private UserService userService;
+
+    private LoginActivityRecorder loginActivityRecorder;
+
+    /**
+     * 模拟 users 表中的一行，删除后为null
+     */
+    private User storedUser;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        principalCache = new PrincipalCache(new SimpleMeterRegistry(), 1000, Duration.ofMinutes(5));
+
+        loginActivityRecorder = new LoginActivityRecorder();
+        ReflectionTestUtils.setField(loginActivityRecorder, "userRepository", userRepository);
+        ReflectionTestUtils.setField(loginActivityRecorder, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(loginActivityRecorder, "principalCache", principalCache);
+        ReflectionTestUtils.setField(loginActivityRecorder, "userLookupService", userLookupService);
+        ReflectionTestUtils.setField(loginActivityRecorder, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(loginActivityRecorder, "failureWindow", Duration.ofMinutes(30));
+        loginActivityRecorder.init();
+
+        userService = new UserService();
+        ReflectionTestUtils.setField(userService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userService, "principalCache", principalCache);
+        ReflectionTestUtils.setField(userService, "searchIndexService", searchIndexService);
+        ReflectionTestUtils.setField(userService, "userDirectoryService", userDirectoryService);
+        ReflectionTestUtils.setField(userService, "userLookupService", userLookupService);
+        ReflectionTestUtils.setField(userService, "loginActivityRecorder", loginActivityRecorder);
+
+        storedUser = new User();
+        storedUser.setId(1L);
+        storedUser.setUsername("alice");
+        storedUser.setPassword("encoded");
+        storedUser.setEmail("alice@example.com");
+        storedUser.setStatus(UserStatus.ACTIVE);
+        lenient().when(userRepository.findById(1L)).thenAnswer(invocation -> Optional.ofNullable(storedUser));
+        lenient().when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    @DisplayName("命中缓存时不再加载用户信息")
+    void testGet_CachesPrincipal() {
+        assertTrue(authenticate("alice").isAccountNonLocked());
+        assertTrue(authenticate("alice").isAccountNonLocked());
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("修改用户状态后应失效缓存，被停用的用户不能通过缓存认证")
+    void testUpdateUserStatus_Evicts() {
+        assertTrue(authenticate("alice").isEnabled());
+
+        userService.updateUserStatus(1L, UserStatus.INACTIVE);
+
+        assertFalse(authenticate("alice").isEnabled());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("修改用户信息后应失效缓存")
+    void testUpdateUser_Evicts() {
+        assertTrue(authenticate("alice").isAccountNonLocked());
+
+        User update = new User();
+        update.setId(1L);
+        update.setStatus(UserStatus.LOCKED);
+        userService.updateUser(update);
+
+        assertFalse(authenticate("alice").isAccountNonLocked());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("修改用户名后旧用户名的缓存应失效，旧用户名不能再通过认证")
+    void testUpdateUser_RenameEvictsOldUsername() {
+        authenticate("alice");
+        when(userRepository.existsByUsername("alice2")).thenReturn(false);
+
+        User update = new User();
+        update.setId(1L);
+        update.setUsername("alice2");
+        userService.updateUser(update);
+
+        assertThrows(UsernameNotFoundException.class, () -> authenticate("alice"));
+        assertEquals("alice2", authenticate("alice2").getUsername());
+    }
+
+    @Test
+    @DisplayName("删除用户后应失效缓存，已删除的用户不能通过缓存认证")
+    void testDeleteUser_Evicts() {
+        authenticate("alice");
+        doAnswer(invocation -> storedUser = null).when(userRepository).delete(any(User.class));
+
+        userService.deleteUser(1L);
+
+        assertThrows(UsernameNotFoundException.class, () -> authenticate("alice"));
+    }
+
+    @Test
+    @DisplayName("密码错误次数过多被锁定后应失效缓存")
+    void testLockout_Evicts() {
+        assertTrue(authenticate("alice").isAccountNonLocked());
+        when(userRepository.lockForPasswordErrors(eq(1L), anyInt(), any())).thenAnswer(invocation -> {
+            storedUser.setStatus(UserStatus.LOCKED);
+            return 1;
+        });
+
+        User loginUser = userRepository.findById(1L).orElseThrow();
+        for (int i = 0; i < User.MAX_PASSWORD_ERROR_COUNT; i++) {
+            loginActivityRecorder.recordFailure(loginUser);
+        }
+
+        assertFalse(authenticate("alice").isAccountNonLocked());
+        assertEquals(2, loads.get());
+    }
+
+    /**
+     * 模拟 JWT 过滤器通过缓存获取用户信息，未命中时按 users 表的当前内容加载
+     */
+    private UserDetails authenticate(String username) {
+        return principalCache.get(username, name -> {
+            loads.incrementAndGet();
+            if (storedUser == null || !name.equals(storedUser.getUsername())) {
+                throw new UsernameNotFoundException("用户不存在: " + name);
+            }
+            return org.springframework.security.core.userdetails.User.withUsername(storedUser.getUsername())
+                    .password(storedUser.getPassword())
+                    .authorities("ROLE_USER")
+                    .disabled(storedUser.getStatus() == UserStatus.INACTIVE)
+                    .accountLocked(storedUser.getStatus() == UserStatus.LOCKED)
+                    .build();
+        });
+    }
+}
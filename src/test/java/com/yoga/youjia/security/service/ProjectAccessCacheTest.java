@@ -0,0 +1,148 @@
+package com.yoga.youjia.security.service;
+
+import com.yoga.youjia.common.enums.ProjectMemberRole;
+import com.yoga.youjia.entity.ProjectMember;
+import com.yoga.youjia.repository.ProjectMemberRepository;
+import com.yoga.youjia.security.authentication.JwtAuthenticationToken;
+import com.yoga.youjia.security.authentication.ProjectRoleClaims;
+import com.yoga.youjia.security.service.ProjectAccessCache.ProjectAccess;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ProjectAccessCache项目访问权限缓存测试
+ *
+ * 测试成员状态的判定和缓存行为：
+ * - 已离开的成员与非成员相同，与令牌中的项目角色一致
+ * - 成员和非成员都会被缓存，失效后重新查询
+ * - 令牌带有项目角色时不查询成员表
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ProjectAccessCache项目访问权限缓存测试")
+class ProjectAccessCacheTest {
+
+    private static final Long PROJECT_ID = 1L;
+
+    private static final Long USER_ID = 2L;
+
+    @Mock
+    private ProjectMemberRepository projectMemberRepository;
+
+    private ProjectAccessCache projectAccessCache;
+
+    @BeforeEach
+    void setUp() {
+        projectAccessCache = new ProjectAccessCache(projectMemberRepository, new SimpleMeterRegistry(),
+                1000, Duration.ofMinutes(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("活跃成员应返回角色")
+    void testGetAccess_ActiveMember() {
+        givenMember(ProjectMemberRole.TESTER, true, null);
+
+        ProjectAccess access = projectAccessCache.getAccess(PROJECT_ID, USER_ID);
+
+        assertTrue(access.isMember());
+        assertEquals(ProjectMemberRole.TESTER, access.getActiveRole());
+        assertFalse(access.isManager());
+    }
+
+    @Test
+    @DisplayName("已离开的成员不应视为项目成员")
+    void testGetAccess_LeftMember() {
+        givenMember(ProjectMemberRole.PROJECT_MANAGER, true, LocalDateTime.now().minusDays(1));
+
+        ProjectAccess access = projectAccessCache.getAccess(PROJECT_ID, USER_ID);
+
+        assertFalse(access.isMember());
+        assertNull(access.getActiveRole());
+        assertFalse(access.isOwner());
+    }
+
+    @Test
+    @DisplayName("停用的成员不应视为项目成员")
+    void testGetAccess_InactiveMember() {
+        givenMember(ProjectMemberRole.TESTER, false, null);
+
+        assertFalse(projectAccessCache.getAccess(PROJECT_ID, USER_ID).isMember());
+    }
+
+    @Test
+    @DisplayName("成员和非成员都应缓存，只查询一次成员表")
+    void testGetAccess_Cached() {
+        givenMember(ProjectMemberRole.TESTER, true, null);
+        when(projectMemberRepository.findByProject_IdAndUserId(PROJECT_ID, 3L)).thenReturn(Optional.empty());
+
+        projectAccessCache.getAccess(PROJECT_ID, USER_ID);
+        projectAccessCache.getAccess(PROJECT_ID, USER_ID);
+        assertFalse(projectAccessCache.getAccess(PROJECT_ID, 3L).isMember());
+        assertFalse(projectAccessCache.getAccess(PROJECT_ID, 3L).isMember());
+
+        verify(projectMemberRepository, times(1)).findByProject_IdAndUserId(PROJECT_ID, USER_ID);
+        verify(projectMemberRepository, times(1)).findByProject_IdAndUserId(PROJECT_ID, 3L);
+    }
+
+    @Test
+    @DisplayName("失效后应重新查询成员表")
+    void testInvalidate() {
+        givenMember(ProjectMemberRole.TESTER, true, null);
+        projectAccessCache.getAccess(PROJECT_ID, USER_ID);
+
+        givenMember(ProjectMemberRole.TEST_MANAGER, true, null);
+        projectAccessCache.invalidate(PROJECT_ID, List.of(USER_ID));
+
+        assertEquals(ProjectMemberRole.TEST_MANAGER, projectAccessCache.getAccess(PROJECT_ID, USER_ID).getActiveRole());
+        verify(projectMemberRepository, times(2)).findByProject_IdAndUserId(PROJECT_ID, USER_ID);
+    }
+
+    @Test
+    @DisplayName("令牌带有项目角色时应直接使用，不查询成员表")
+    void testGetAccess_FromTokenClaims() {
+        Claims claims = Jwts.claims();
+        claims.put(ProjectRoleClaims.CLAIM_USER_ID, USER_ID);
+        claims.put(ProjectRoleClaims.CLAIM_TOKEN_VERSION, 1L);
+        claims.put(ProjectRoleClaims.CLAIM_PROJECT_ROLES,
+                Map.of(PROJECT_ID.toString(), ProjectMemberRole.LEAD_TESTER.getLevel()));
+        SecurityContextHolder.getContext().setAuthentication(new JwtAuthenticationToken(
+                "tester", Collections.emptyList(), USER_ID, ProjectRoleClaims.from(claims)));
+
+        assertEquals(ProjectMemberRole.LEAD_TESTER, projectAccessCache.getAccess(PROJECT_ID, USER_ID).getActiveRole());
+        assertFalse(projectAccessCache.getAccess(99L, USER_ID).isMember());
+        verifyNoInteractions(projectMemberRepository);
+    }
+
+    private void givenMember(ProjectMemberRole role, boolean active, LocalDateTime leftAt) {
+        ProjectMember member = ProjectMember.builder()
+                .userId(USER_ID)
+                .role(role)
+                .active(active)
+                .leftAt(leftAt)
+                .build();
+        when(projectMemberRepository.findByProject_IdAndUserId(PROJECT_ID, USER_ID)).thenReturn(Optional.of(member));
+    }
+}
@@ -0,0 +1,179 @@
+package com.yoga.youjia.security.service;
+
+import com.yoga.youjia.config.RateLimitProperties;
+import com.yoga.youjia.security.service.TokenBucketRateLimiter.BucketRule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TokenBucketRateLimiter令牌桶限流器测试
+ *
+ * 使用可控时钟测试 GCRA 的计算：
+ * - 突发量等于桶容量，超出后返回到下一个令牌可用的等待时间
+ * - 令牌按补充间隔逐个恢复，空闲后最多恢复到桶容量
+ * - 不同客户端、不同规则各自计数
+ * - 规则按方法和路径匹配
+ */
+@DisplayName("TokenBucketRateLimiter令牌桶限流器测试")
+class TokenBucketRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong(1_000 * SECOND);
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private TokenBucketRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setRules(List.of(
+                rule("login", "/api/auth/login", "POST", 3, 1, Duration.ofSeconds(1)),
+                rule("search", "/api/projects/*/test-cases/search", null, 10, 10, Duration.ofSeconds(1))));
+        rateLimiter = new TokenBucketRateLimiter(properties, meterRegistry, clock::get);
+    }
+
+    @Test
+    @DisplayName("突发请求数等于桶容量，超出后返回等待时间")
+    void testTryAcquire_Burst() {
+        BucketRule login = match("POST", "/api/auth/login");
+
+        assertEquals(0, rateLimiter.tryAcquire(login, "ip:1.1.1.1"));
+        assertEquals(0, rateLimiter.tryAcquire(login, "ip:1.1.1.1"));
+        assertEquals(0, rateLimiter.tryAcquire(login, "ip:1.1.1.1"));
+        assertEquals(SECOND, rateLimiter.tryAcquire(login, "ip:1.1.1.1"));
+
+        assertEquals(3, meterRegistry.get("rate.limit.requests").tag("result", "allowed").counter().count());
+        assertEquals(1, meterRegistry.get("rate.limit.requests").tag("result", "rejected").counter().count());
+        assertEquals(1, meterRegistry.get("rate.limit.rejected").tag("key", "ip:1.1.1.1").counter().count());
+    }
+
+    @Test
+    @DisplayName("被拒绝的请求不消耗令牌，等待时间随时间减少")
+    void testTryAcquire_RejectedDoesNotConsume() {
+        BucketRule login = match("POST", "/api/auth/login");
+        exhaust(login, "ip:1.1.1.1", 3);
+
+        assertEquals(SECOND, rateLimiter.tryAcquire(login, "ip:1.1.1.1"));
+        assertEquals(SECOND, rateLimiter.tryAcquire(login, "ip:1.1.1.1"));
+
+        clock.addAndGet(SECOND * 3 / 10);
+        assertEquals(SECOND * 7 / 10, rateLimiter.tryAcquire(login, "ip:1.1.1.1"));
+    }
+
+    @Test
+    @DisplayName("每过一个补充间隔恢复一个令牌")
+    void testTryAcquire_Refill() {
+        BucketRule login = match("POST", "/api/auth/login");
+        exhaust(login, "ip:1.1.1.1", 3);
+
+        clock.addAndGet(SECOND);
+        assertEquals(0, rateLimiter.tryAcquire(login, "ip:1.1.1.1"));
+        assertEquals(SECOND, rateLimiter.tryAcquire(login, "ip:1.1.1.1"));
+
+        clock.addAndGet(2 * SECOND);
+        assertEquals(0, rateLimiter.tryAcquire(login, "ip:1.1.1.1"));
+        assertEquals(0, rateLimiter.tryAcquire(login, "ip:1.1.1.1"));
+        assertTrue(rateLimiter.tryAcquire(login, "ip:1.1.1.1") > 0);
+    }
+
+    @Test
+    @DisplayName("长时间空闲后最多恢复到桶容量")
+    void testTryAcquire_IdleCapsAtCapacity() {
+        BucketRule login = match("POST", "/api/auth/login");
+        exhaust(login, "ip:1.1.1.1", 3);
+
+        clock.addAndGet(60 * SECOND);
+
+        exhaust(login, "ip:1.1.1.1", 3);
+        assertEquals(SECOND, rateLimiter.tryAcquire(login, "ip:1.1.1.1"));
+    }
+
+    @Test
+    @DisplayName("不同客户端和不同规则各自计数")
+    void testTryAcquire_SeparateBuckets() {
+        BucketRule login = match("POST", "/api/auth/login");
+        BucketRule search = match("GET", "/api/projects/1/test-cases/search");
+        exhaust(login, "ip:1.1.1.1", 3);
+
+        assertTrue(rateLimiter.tryAcquire(login, "ip:1.1.1.1") > 0);
+        assertEquals(0, rateLimiter.tryAcquire(login, "ip:2.2.2.2"));
+        assertEquals(0, rateLimiter.tryAcquire(search, "ip:1.1.1.1"));
+    }
+
+    @Test
+    @DisplayName("补充间隔按补充周期除以补充令牌数计算")
+    void testTryAcquire_EmissionInterval() {
+        BucketRule search = match("GET", "/api/projects/1/test-cases/search");
+        exhaust(search, "user:1", 10);
+
+        // 每秒10个令牌，补充间隔100毫秒
+        assertEquals(SECOND / 10, rateLimiter.tryAcquire(search, "user:1"));
+        clock.addAndGet(SECOND / 10);
+        assertEquals(0, rateLimiter.tryAcquire(search, "user:1"));
+    }
+
+    @Test
+    @DisplayName("规则按方法和路径匹配第一条")
+    void testMatch() {
+        assertEquals("login", match("POST", "/api/auth/login").getName());
+        assertNull(match("GET", "/api/auth/login"));
+        assertEquals("search", match("GET", "/api/projects/7/test-cases/search").getName());
+        assertNull(match("GET", "/api/projects/7/test-cases"));
+    }
+
+    @Test
+    @DisplayName("停用限流时不匹配任何规则")
+    void testMatch_Disabled() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setEnabled(false);
+        properties.setRules(List.of(rule("login", "/api/auth/login", "POST", 3, 1, Duration.ofSeconds(1))));
+        TokenBucketRateLimiter disabled = new TokenBucketRateLimiter(properties, new SimpleMeterRegistry(), clock::get);
+
+        assertNull(disabled.match(new MockHttpServletRequest("POST", "/api/auth/login")));
+    }
+
+    @Test
+    @DisplayName("无效的规则配置应启动失败")
+    void testInvalidRule() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setRules(List.of(rule("broken", "/api/**", null, 0, 1, Duration.ofSeconds(1))));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new TokenBucketRateLimiter(properties, new SimpleMeterRegistry(), clock::get));
+    }
+
+    private void exhaust(BucketRule rule, String key, int tokens) {
+        for (int i = 0; i < tokens; i++) {
+            assertEquals(0, rateLimiter.tryAcquire(rule, key), "第" + (i + 1) + "个令牌应放行");
+        }
+    }
+
+    private BucketRule match(String method, String path) {
+        return rateLimiter.match(new MockHttpServletRequest(method, path));
+    }
+
+    private static RateLimitProperties.Rule rule(String name, String pattern, String method,
+                                                 int capacity, int refillTokens, Duration refillPeriod) {
+        RateLimitProperties.Rule rule = new RateLimitProperties.Rule();
+        rule.setName(name);
+        rule.setPattern(pattern);
+        rule.setMethod(method);
+        rule.setCapacity(capacity);
+        rule.setRefillTokens(refillTokens);
+        rule.setRefillPeriod(refillPeriod);
+        return rule;
+    }
+}
@@ -0,0 +1,128 @@
+package com.yoga.youjia.security.service;
+
+import com.yoga.youjia.common.enums.ProjectMemberRole;
+import com.yoga.youjia.common.enums.UserRole;
+import com.yoga.youjia.entity.User;
+import com.yoga.youjia.repository.ProjectMemberRepository;
+import com.yoga.youjia.repository.UserRepository;
+import com.yoga.youjia.security.authentication.ProjectRoleClaims;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * TokenClaimsProvider令牌声明测试
+ *
+ * 测试签发令牌时写入的声明：
+ * - 用户ID、全局角色、版本号和项目角色映射，写入后能被 ProjectRoleClaims 解析
+ * - 参与的项目超过 max-projects 时不携带项目映射，只保留用户ID
+ * - 用户不存在时不写入任何声明
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TokenClaimsProvider令牌声明测试")
+class TokenClaimsProviderTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private ProjectMemberRepository projectMemberRepository;
+
+    @InjectMocks
+    private TokenClaimsProvider tokenClaimsProvider;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(tokenClaimsProvider, "maxProjects", 3);
+
+        user = new User();
+        user.setId(5L);
+        user.setUsername("tester");
+        user.setRole(UserRole.TESTER);
+        user.setTokenVersion(4L);
+    }
+
+    @Test
+    @DisplayName("应写入用户ID、全局角色、版本号和项目角色映射")
+    void testBuildClaims_WithProjectRoles() {
+        when(userRepository.findByUsername("tester")).thenReturn(Optional.of(user));
+        when(projectMemberRepository.findActiveProjectRolesByUserId(5L)).thenReturn(List.of(
+                new Object[]{10L, ProjectMemberRole.TEST_MANAGER},
+                new Object[]{20L, ProjectMemberRole.VIEWER}));
+
+        Map<String, Object> claims = tokenClaimsProvider.buildClaims("tester");
+
+        assertEquals(Map.of("10", ProjectMemberRole.TEST_MANAGER.getLevel(), "20", ProjectMemberRole.VIEWER.getLevel()),
+                claims.get(ProjectRoleClaims.CLAIM_PROJECT_ROLES));
+        ProjectRoleClaims parsed = ProjectRoleClaims.from(toClaims(claims));
+        assertEquals(5L, parsed.getUserId());
+        assertEquals(UserRole.TESTER, parsed.getUserRole());
+        assertEquals(4L, parsed.getTokenVersion());
+        assertEquals(ProjectMemberRole.TEST_MANAGER, parsed.getProjectRole(10L));
+    }
+
+    @Test
+    @DisplayName("项目数量等于上限时仍携带项目角色")
+    void testBuildClaims_AtMaxProjects() {
+        when(userRepository.findByUsername("tester")).thenReturn(Optional.of(user));
+        when(projectMemberRepository.findActiveProjectRolesByUserId(5L)).thenReturn(memberships(3));
+
+        Map<String, Object> claims = tokenClaimsProvider.buildClaims("tester");
+
+        assertEquals(3, ((Map<?, ?>) claims.get(ProjectRoleClaims.CLAIM_PROJECT_ROLES)).size());
+    }
+
+    @Test
+    @DisplayName("项目数量超过上限时不携带项目角色，权限检查回退到数据库")
+    void testBuildClaims_OverMaxProjects() {
+        when(userRepository.findByUsername("tester")).thenReturn(Optional.of(user));
+        when(projectMemberRepository.findActiveProjectRolesByUserId(5L)).thenReturn(memberships(4));
+
+        Map<String, Object> claims = tokenClaimsProvider.buildClaims("tester");
+
+        assertFalse(claims.containsKey(ProjectRoleClaims.CLAIM_PROJECT_ROLES));
+        assertEquals(5L, claims.get(ProjectRoleClaims.CLAIM_USER_ID));
+        assertNull(ProjectRoleClaims.from(toClaims(claims)));
+        assertEquals(5L, ProjectRoleClaims.userIdOf(toClaims(claims)));
+    }
+
+    @Test
+    @DisplayName("用户不存在时不写入声明")
+    void testBuildClaims_UnknownUser() {
+        when(userRepository.findByUsername("ghost")).thenReturn(Optional.empty());
+
+        assertTrue(tokenClaimsProvider.buildClaims("ghost").isEmpty());
+        verifyNoInteractions(projectMemberRepository);
+    }
+
+    private static List<Object[]> memberships(int count) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            rows.add(new Object[]{(long) i, ProjectMemberRole.TESTER});
+        }
+        return rows;
+    }
+
+    private static Claims toClaims(Map<String, Object> values) {
+        Claims claims = Jwts.claims();
+        claims.putAll(values);
+        return claims;
+    }
+}
@@ -0,0 +1,159 @@
+package com.yoga.youjia.security.service;
+
+import com.yoga.youjia.entity.RevokedToken;
+import com.yoga.youjia.repository.RevokedTokenRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * TokenRevocationService令牌吊销服务测试
+ *
+ * 测试单个令牌吊销和按用户吊销：
+ * - 未吊销的令牌只经过布隆过滤器判断，不查询数据库
+ * - 按用户吊销的截止时间精确到毫秒，吊销后签发的令牌不受影响
+ * - 早期令牌没有毫秒签发时间时按秒比较
+ * - 重建时载入其他节点写入的吊销记录
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TokenRevocationService令牌吊销服务测试")
+class TokenRevocationServiceTest {
+
+    private static final long EXPIRATION_MILLIS = 3_600_000L;
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @InjectMocks
+    private TokenRevocationService tokenRevocationService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(tokenRevocationService, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(tokenRevocationService, "expirationTime", EXPIRATION_MILLIS);
+        ReflectionTestUtils.setField(tokenRevocationService, "expectedEntries", 1000L);
+        ReflectionTestUtils.setField(tokenRevocationService, "falsePositiveRate", 0.01);
+        tokenRevocationService.init();
+    }
+
+    @Test
+    @DisplayName("未吊销的令牌不应查询数据库")
+    void testIsRevoked_NotRevoked() {
+        Claims claims = claims("jti-1", "alice", System.currentTimeMillis());
+
+        assertFalse(tokenRevocationService.isRevoked(claims));
+        verify(revokedTokenRepository, never()).existsByTokenId(any());
+    }
+
+    @Test
+    @DisplayName("吊销单个令牌后该令牌应失效，其他令牌不受影响")
+    void testRevokeToken() {
+        long now = System.currentTimeMillis();
+        Claims revoked = claims("jti-1", "alice", now);
+        when(revokedTokenRepository.existsByTokenId("jti-1")).thenReturn(false, true);
+
+        tokenRevocationService.revokeToken(revoked, 1L);
+
+        verify(revokedTokenRepository).save(argThat(token -> "jti-1".equals(token.getTokenId())
+                && "alice".equals(token.getSubject()) && Long.valueOf(1L).equals(token.getUserId())));
+        assertTrue(tokenRevocationService.isRevoked(revoked));
+        assertFalse(tokenRevocationService.isRevoked(claims("jti-2", "alice", now)));
+        assertEquals(1, meterRegistry.get("jwt.revocation.rejected").counter().count());
+    }
+
+    @Test
+    @DisplayName("按用户吊销应精确到毫秒，吊销后签发的令牌不受影响")
+    void testRevokeAllForUser_MillisecondPrecision() {
+        tokenRevocationService.revokeAllForUser("alice", 1L);
+
+        long revokedBefore = toMillis(savedRevokedBefore());
+        assertTrue(tokenRevocationService.isRevoked(claims("jti-1", "alice", revokedBefore - 500)));
+        assertTrue(tokenRevocationService.isRevoked(claims("jti-2", "alice", revokedBefore)));
+        assertFalse(tokenRevocationService.isRevoked(claims("jti-3", "alice", revokedBefore + 1)));
+        assertFalse(tokenRevocationService.isRevoked(claims("jti-4", "bob", revokedBefore - 500)));
+    }
+
+    @Test
+    @DisplayName("没有毫秒签发时间的早期令牌按秒比较，与吊销同一秒签发的也失效")
+    void testRevokeAllForUser_LegacyToken() {
+        tokenRevocationService.revokeAllForUser("alice", 1L);
+
+        long revokedBefore = toMillis(savedRevokedBefore());
+        long sameSecond = revokedBefore - revokedBefore % 1000;
+        Claims legacy = Jwts.claims().setId("jti-1").setSubject("alice").setIssuedAt(new Date(sameSecond));
+        Claims later = Jwts.claims().setId("jti-2").setSubject("alice").setIssuedAt(new Date(sameSecond + 1000));
+
+        assertTrue(tokenRevocationService.isRevoked(legacy));
+        assertFalse(tokenRevocationService.isRevoked(later));
+    }
+
+    @Test
+    @DisplayName("吊销记录的过期时间应为截止时间加令牌有效期")
+    void testRevokeAllForUser_ExpiresAt() {
+        tokenRevocationService.revokeAllForUser("alice", 1L);
+
+        ArgumentCaptor<RevokedToken> captor = ArgumentCaptor.forClass(RevokedToken.class);
+        verify(revokedTokenRepository).save(captor.capture());
+        RevokedToken saved = captor.getValue();
+        assertNull(saved.getTokenId());
+        assertEquals(saved.getRevokedBefore().plusNanos(EXPIRATION_MILLIS * 1_000_000), saved.getExpiresAt());
+    }
+
+    @Test
+    @DisplayName("重建时应载入其他节点写入的吊销记录")
+    void testPruneAndRebuild_LoadsRecords() {
+        LocalDateTime revokedBefore = LocalDateTime.now().withNano(0);
+        when(revokedTokenRepository.findAllTokenIds()).thenReturn(List.of("jti-remote"));
+        when(revokedTokenRepository.findLatestRevokedBeforeBySubject())
+                .thenReturn(List.<Object[]>of(new Object[]{"bob", revokedBefore}));
+        when(revokedTokenRepository.existsByTokenId("jti-remote")).thenReturn(true);
+
+        tokenRevocationService.pruneAndRebuild();
+
+        verify(revokedTokenRepository).deleteExpired(any(LocalDateTime.class));
+        long issuedAt = toMillis(revokedBefore);
+        assertTrue(tokenRevocationService.isRevoked(claims("jti-remote", "alice", issuedAt + 1000)));
+        assertTrue(tokenRevocationService.isRevoked(claims("jti-1", "bob", issuedAt - 1000)));
+        assertFalse(tokenRevocationService.isRevoked(claims("jti-2", "bob", issuedAt + 1000)));
+    }
+
+    private LocalDateTime savedRevokedBefore() {
+        ArgumentCaptor<RevokedToken> captor = ArgumentCaptor.forClass(RevokedToken.class);
+        verify(revokedTokenRepository).save(captor.capture());
+        return captor.getValue().getRevokedBefore();
+    }
+
+    private static Claims claims(String tokenId, String subject, long issuedAtMillis) {
+        Claims claims = Jwts.claims()
+                .setId(tokenId)
+                .setSubject(subject)
+                .setIssuedAt(new Date(issuedAtMillis));
+        claims.put(JWTService.ISSUED_AT_MILLIS_CLAIM, issuedAtMillis);
+        return claims;
+    }
+
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -12,9 +12,15 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -41,6 +47,15 @@ class AuthServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private LoginActivityRecorder loginActivityRecorder;
+
+    @Mock
+    private SearchIndexService searchIndexService;
+
+    @Mock
+    private PasswordHashingService passwordHashingService;
+
     @InjectMocks
     private AuthService authService;
 
@@ -180,6 +195,9 @@ class AuthServiceTest {
         // 验证方法调用
         verify(userRepository, times(1)).findByUsername("testuser");
         verify(passwordEncoder, times(1)).matches("password123", encodedPassword);
+        // 登录记录交给批量写入，不再同步更新用户表
+        verify(loginActivityRecorder, times(1)).recordSuccess(testUser, null);
+        verify(userRepository, never()).save(any(User.class));
     }
 
     @Test
@@ -221,6 +239,7 @@ class AuthServiceTest {
         // 验证方法调用
         verify(userRepository, times(1)).findByUsername("testuser");
         verify(passwordEncoder, times(1)).matches("wrongpassword", encodedPassword);
+        verify(loginActivityRecorder, times(1)).recordFailure(testUser);
     }
 
     @Test
@@ -303,4 +322,64 @@ class AuthServiceTest {
         // 验证realName被正确处理（去除首尾空格）
         assertEquals("测试用户", result.getRealName());
     }
+
+    @Test
+    @DisplayName("异步注册时保存用户应在应用任务线程池中执行")
+    void testRegisterAsync_SavesOnApplicationExecutor() {
+        List<Runnable> submitted = givenApplicationExecutor();
+        User registerUser = new User();
+        registerUser.setUsername("newuser");
+        registerUser.setPassword("password123");
+        registerUser.setEmail("newuser@example.com");
+
+        when(userRepository.existsByUsername("newuser")).thenReturn(false);
+        when(userRepository.existsByEmail("newuser@example.com")).thenReturn(false);
+        when(passwordHashingService.encode("password123"))
+                .thenReturn(CompletableFuture.completedFuture("$2a$10$encodedPassword"));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        CompletableFuture<User> future = authService.registerAsync(registerUser);
+
+        // 哈希完成后尚未保存，保存任务交给应用任务线程池
+        assertFalse(future.isDone());
+        verify(userRepository, never()).save(any(User.class));
+
+        submitted.forEach(Runnable::run);
+
+        assertEquals(1, submitted.size());
+        assertEquals("$2a$10$encodedPassword", future.join().getPassword());
+        verify(searchIndexService, times(1)).onUserChanged(registerUser);
+    }
+
+    @Test
+    @DisplayName("异步登录时密码错误的记录应在应用任务线程池中执行")
+    void testLoginAsync_RecordsFailureOnApplicationExecutor() {
+        List<Runnable> submitted = givenApplicationExecutor();
+        testUser.setPassword("$2a$10$encodedPassword");
+
+        when(userRepository.findByUsername("testuser")).thenReturn(Optional.of(testUser));
+        when(passwordHashingService.matches("wrongpassword", "$2a$10$encodedPassword"))
+                .thenReturn(CompletableFuture.completedFuture(false));
+
+        CompletableFuture<User> future = authService.loginAsync("testuser", "wrongpassword");
+
+        assertFalse(future.isDone());
+        verify(loginActivityRecorder, never()).recordFailure(any(User.class));
+
+        submitted.forEach(Runnable::run);
+
+        CompletionException exception = assertThrows(CompletionException.class, future::join);
+        assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+        verify(loginActivityRecorder, times(1)).recordFailure(testUser);
+    }
+
+    /**
+     * 应用任务线程池替换为只记录任务的执行器，测试中手动执行
+     */
+    private List<Runnable> givenApplicationExecutor() {
+        List<Runnable> submitted = new ArrayList<>();
+        Executor executor = submitted::add;
+        ReflectionTestUtils.setField(authService, "applicationTaskExecutor", executor);
+        return submitted;
+    }
 }
@@ -0,0 +1,147 @@
+package com.yoga.youjia.service;
+
+import com.yoga.youjia.common.enums.UserStatus;
+import com.yoga.youjia.entity.User;
+import com.yoga.youjia.repository.UserRepository;
+import com.yoga.youjia.security.service.PrincipalCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * LoginActivityRecorder登录记录服务测试
+ *
+ * 测试密码错误计数和账户锁定：
+ * - 第5次密码错误时锁定账户，锁定后计数清零
+ * - 已锁定的用户不重复锁定
+ * - 解锁后重新计数，再次达到阈值时重新锁定
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("LoginActivityRecorder登录记录服务测试")
+class LoginActivityRecorderTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PrincipalCache principalCache;
+
+    @Mock
+    private UserLookupService userLookupService;
+
+    @InjectMocks
+    private LoginActivityRecorder loginActivityRecorder;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(loginActivityRecorder, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(loginActivityRecorder, "failureWindow", Duration.ofMinutes(30));
+        loginActivityRecorder.init();
+
+        user = new User();
+        user.setId(1L);
+        user.setUsername("testuser");
+        user.setStatus(UserStatus.ACTIVE);
+    }
+
+    @Test
+    @DisplayName("第5次密码错误时应锁定账户并清除计数")
+    void testRecordFailure_LockOnFifthFailure() {
+        when(userRepository.lockForPasswordErrors(eq(1L), eq(User.MAX_PASSWORD_ERROR_COUNT), any())).thenReturn(1);
+
+        for (int i = 1; i < User.MAX_PASSWORD_ERROR_COUNT; i++) {
+            assertEquals(i, loginActivityRecorder.recordFailure(user));
+        }
+        verify(userRepository, never()).lockForPasswordErrors(any(), any(), any());
+
+        assertEquals(User.MAX_PASSWORD_ERROR_COUNT, loginActivityRecorder.recordFailure(user));
+
+        verify(userRepository, times(1)).lockForPasswordErrors(eq(1L), eq(User.MAX_PASSWORD_ERROR_COUNT), any());
+        verify(principalCache).invalidate("testuser");
+        verify(userLookupService).invalidate(1L);
+        assertEquals(0, loginActivityRecorder.getFailureCount(1L));
+        assertEquals(1, meterRegistry.get("login.failures.locked").counter().count());
+    }
+
+    @Test
+    @DisplayName("已锁定的用户继续输错密码时不应重复锁定")
+    void testRecordFailure_AlreadyLocked() {
+        user.setStatus(UserStatus.LOCKED);
+
+        for (int i = 0; i < User.MAX_PASSWORD_ERROR_COUNT + 2; i++) {
+            loginActivityRecorder.recordFailure(user);
+        }
+
+        verify(userRepository, never()).lockForPasswordErrors(any(), any(), any());
+        assertEquals(0, meterRegistry.get("login.failures.locked").counter().count());
+    }
+
+    @Test
+    @DisplayName("其他请求已锁定时不应重复清理缓存和计数")
+    void testRecordFailure_LockedConcurrently() {
+        when(userRepository.lockForPasswordErrors(eq(1L), anyInt(), any())).thenReturn(0);
+
+        for (int i = 0; i < User.MAX_PASSWORD_ERROR_COUNT; i++) {
+            loginActivityRecorder.recordFailure(user);
+        }
+
+        verify(userRepository, times(1)).lockForPasswordErrors(eq(1L), anyInt(), any());
+        verifyNoInteractions(principalCache, userLookupService);
+        assertEquals(0, meterRegistry.get("login.failures.locked").counter().count());
+    }
+
+    @Test
+    @DisplayName("解锁后再次连续输错5次应重新锁定")
+    void testRecordFailure_RelockAfterUnlock() {
+        when(userRepository.lockForPasswordErrors(eq(1L), anyInt(), any())).thenReturn(1);
+        for (int i = 0; i < User.MAX_PASSWORD_ERROR_COUNT; i++) {
+            loginActivityRecorder.recordFailure(user);
+        }
+
+        // 管理员解锁
+        loginActivityRecorder.clearFailures(1L);
+        user.setStatus(UserStatus.ACTIVE);
+
+        for (int i = 1; i < User.MAX_PASSWORD_ERROR_COUNT; i++) {
+            assertEquals(i, loginActivityRecorder.recordFailure(user));
+        }
+        verify(userRepository, times(1)).lockForPasswordErrors(eq(1L), anyInt(), any());
+
+        loginActivityRecorder.recordFailure(user);
+
+        verify(userRepository, times(2)).lockForPasswordErrors(eq(1L), eq(User.MAX_PASSWORD_ERROR_COUNT), any());
+        assertEquals(2, meterRegistry.get("login.failures.locked").counter().count());
+    }
+
+    @Test
+    @DisplayName("登录成功应清除密码错误计数")
+    void testRecordSuccess_ClearsFailures() {
+        loginActivityRecorder.recordFailure(user);
+        loginActivityRecorder.recordFailure(user);
+
+        loginActivityRecorder.recordSuccess(user, "127.0.0.1");
+
+        assertEquals(0, loginActivityRecorder.getFailureCount(1L));
+    }
+}
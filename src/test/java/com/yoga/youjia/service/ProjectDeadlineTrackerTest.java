@@ -0,0 +1,156 @@
+package com.yoga.youjia.service;
+
+import com.yoga.youjia.common.enums.ProjectStatus;
+import com.yoga.youjia.entity.Project;
+import com.yoga.youjia.repository.ProjectRepository;
+import com.yoga.youjia.service.ProjectDeadlineTracker.DeadlineEvent;
+import com.yoga.youjia.service.ProjectDeadlineTracker.DeadlineState;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * ProjectDeadlineTracker项目截止时间跟踪测试
+ *
+ * 测试全量重载和单独更新：
+ * - 载入后按结束时间区分即将到期和逾期
+ * - 重载查询期间提交的单独更新不会被查询结果覆盖，也不会被当作已删除的项目移除
+ * - 查询之前的更新照常由重载结果覆盖
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ProjectDeadlineTracker项目截止时间跟踪测试")
+class ProjectDeadlineTrackerTest {
+
+    @Mock
+    private ProjectRepository projectRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private ProjectDeadlineTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(tracker, "nearDays", 7);
+        ReflectionTestUtils.setField(tracker, "tickMillis", 60_000L);
+        ReflectionTestUtils.setField(tracker, "wheelSize", 512);
+    }
+
+    @Test
+    @DisplayName("载入后按结束时间区分即将到期和逾期的项目")
+    void testLoad() {
+        LocalDateTime now = LocalDateTime.now();
+        givenRows(row(1L, now.plusDays(3)), row(2L, now.minusDays(1)), row(3L, now.plusDays(30)));
+
+        tracker.load();
+
+        assertTrue(tracker.canServeOverdue());
+        assertEquals(List.of(1L), tracker.getNearDeadlineProjectIds(7));
+        assertEquals(List.of(2L), tracker.getOverdueProjectIds());
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+    }
+
+    @Test
+    @DisplayName("重载查询期间更新的项目应保留更新后的状态")
+    void testReload_KeepsChangeCommittedDuringQuery() {
+        LocalDateTime now = LocalDateTime.now();
+        givenRows(row(1L, now.plusDays(30)));
+        tracker.load();
+
+        // 查询返回的是旧的结束时间，查询期间另一个事务把结束时间提前并提交
+        when(projectRepository.findDeadlineTrackedProjects()).thenAnswer(invocation -> {
+            tracker.onProjectChanged(project(1L, now.plusDays(2)));
+            return rowList(row(1L, now.plusDays(30)));
+        });
+        tracker.reload();
+
+        assertEquals(List.of(1L), tracker.getNearDeadlineProjectIds(7));
+        verify(eventPublisher, times(1)).publishEvent(new DeadlineEvent(1L, DeadlineState.NEAR_DEADLINE, now.plusDays(2)));
+    }
+
+    @Test
+    @DisplayName("重载查询期间新增的项目不应被移除")
+    void testReload_KeepsProjectAddedDuringQuery() {
+        LocalDateTime now = LocalDateTime.now();
+        when(projectRepository.findDeadlineTrackedProjects()).thenAnswer(invocation -> {
+            tracker.onProjectChanged(project(5L, now.minusHours(1)));
+            return new ArrayList<Object[]>();
+        });
+
+        tracker.load();
+
+        assertEquals(List.of(5L), tracker.getOverdueProjectIds());
+    }
+
+    @Test
+    @DisplayName("重载查询期间停止跟踪的项目不应被旧的查询结果恢复")
+    void testReload_KeepsUntrackDuringQuery() {
+        LocalDateTime now = LocalDateTime.now();
+        givenRows(row(1L, now.minusDays(1)));
+        tracker.load();
+
+        Project disabled = project(1L, now.minusDays(1));
+        disabled.setEnabled(false);
+        when(projectRepository.findDeadlineTrackedProjects()).thenAnswer(invocation -> {
+            tracker.onProjectChanged(disabled);
+            return rowList(row(1L, now.minusDays(1)));
+        });
+        tracker.reload();
+
+        assertTrue(tracker.getOverdueProjectIds().isEmpty());
+    }
+
+    @Test
+    @DisplayName("查询之前的更新由重载结果覆盖")
+    void testReload_OverridesEarlierChange() {
+        LocalDateTime now = LocalDateTime.now();
+        givenRows(row(1L, now.plusDays(30)));
+        tracker.load();
+        tracker.onProjectChanged(project(1L, now.plusDays(2)));
+
+        givenRows(row(1L, now.minusDays(1)));
+        tracker.reload();
+
+        assertTrue(tracker.getNearDeadlineProjectIds(7).isEmpty());
+        assertEquals(List.of(1L), tracker.getOverdueProjectIds());
+    }
+
+    private void givenRows(Object[]... rows) {
+        when(projectRepository.findDeadlineTrackedProjects()).thenReturn(rowList(rows));
+    }
+
+    private static List<Object[]> rowList(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+
+    private static Object[] row(Long projectId, LocalDateTime endDate) {
+        return new Object[]{projectId, endDate};
+    }
+
+    private static Project project(Long projectId, LocalDateTime endDate) {
+        Project project = Project.builder()
+                .code("P-" + projectId)
+                .name("截止时间项目")
+                .status(ProjectStatus.ACTIVE)
+                .endDate(endDate)
+                .createdBy(1L)
+                .build();
+        project.setId(projectId);
+        return project;
+    }
+}
@@ -0,0 +1,339 @@
+package com.yoga.youjia.service;
+
+import com.yoga.youjia.common.enums.ProjectMemberRole;
+import com.yoga.youjia.common.enums.UserStatus;
+import com.yoga.youjia.config.SqlStatementStatistics;
+import com.yoga.youjia.config.SqlStatisticsDataSourcePostProcessor;
+import com.yoga.youjia.dto.response.BatchMemberOperationResultDTO;
+import com.yoga.youjia.dto.response.BatchMemberOperationResultDTO.MemberOutcome;
+import com.yoga.youjia.dto.response.BatchMemberOperationResultDTO.Outcome;
+import com.yoga.youjia.entity.Project;
+import com.yoga.youjia.entity.ProjectMember;
+import com.yoga.youjia.entity.User;
+import com.yoga.youjia.entity.UserProjectIndex;
+import com.yoga.youjia.repository.ProjectMemberRepository;
+import com.yoga.youjia.repository.ProjectRepository;
+import com.yoga.youjia.repository.UserProjectIndexRepository;
+import com.yoga.youjia.repository.UserRepository;
+import com.yoga.youjia.security.service.ProjectAccessCache;
+import com.yoga.youjia.security.service.TokenVersionService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * ProjectMemberService批量成员操作测试
+ *
+ * 测试批量添加、移除和调整角色：
+ * - 每个用户按当前成员状态得到对应的处理结果，只有实际变更的用户触发成员关系变更处理
+ * - 不能移除自己，也不能移除或降级最后一个项目经理
+ * - 并发降级不同的项目经理时，后执行的事务看到已提交的项目经理数量
+ * - 批量添加大量成员时，成员和用户-项目索引都批量写入，语句数不随人数增长
+ */
+@DataJpaTest
+@Import({ProjectMemberService.class, UserProjectIndexService.class, SqlStatisticsDataSourcePostProcessor.class})
+@DisplayName("ProjectMemberService批量成员操作测试")
+class ProjectMemberServiceTest {
+
+    private static final Long OPERATOR_ID = 999L;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ProjectMemberService projectMemberService;
+
+    @Autowired
+    private ProjectMemberRepository projectMemberRepository;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserProjectIndexRepository userProjectIndexRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @MockBean
+    private ProjectService projectService;
+
+    @MockBean
+    private TokenVersionService tokenVersionService;
+
+    @MockBean
+    private ProjectAccessCache projectAccessCache;
+
+    @MockBean
+    private ProjectStatisticsService projectStatisticsService;
+
+    @Test
+    @DisplayName("批量添加应插入新成员、重新加入已离开的成员并跳过其他用户")
+    void testAddProjectMembers() {
+        Project project = persistProject("P-ADD");
+        User newUser = persistUser("new_user");
+        User departed = persistUser("departed");
+        User existing = persistUser("existing");
+        persistMember(project, departed, ProjectMemberRole.VIEWER, false);
+        persistMember(project, existing, ProjectMemberRole.DEVELOPER, true);
+        entityManager.flush();
+
+        BatchMemberOperationResultDTO result = projectMemberService.addProjectMembers(project.getId(),
+                List.of(newUser.getId(), departed.getId(), existing.getId(), 12345L, newUser.getId()),
+                ProjectMemberRole.TESTER, "批量添加", OPERATOR_ID);
+
+        assertEquals(4, result.getRequested());
+        assertEquals(2, result.getChanged());
+        assertEquals(2, result.getSkipped());
+        Map<Long, Outcome> outcomes = outcomes(result);
+        assertEquals(Outcome.ADDED, outcomes.get(newUser.getId()));
+        assertEquals(Outcome.REACTIVATED, outcomes.get(departed.getId()));
+        assertEquals(Outcome.ALREADY_MEMBER, outcomes.get(existing.getId()));
+        assertEquals(Outcome.USER_NOT_FOUND, outcomes.get(12345L));
+
+        entityManager.clear();
+        ProjectMember added = member(project, newUser);
+        assertTrue(added.getActive());
+        assertEquals(ProjectMemberRole.TESTER, added.getRole());
+        assertEquals("批量添加", added.getRemarks());
+        ProjectMember reactivated = member(project, departed);
+        assertTrue(reactivated.getActive());
+        assertNull(reactivated.getLeftAt());
+        assertEquals(ProjectMemberRole.TESTER, reactivated.getRole());
+        assertEquals(ProjectMemberRole.DEVELOPER, member(project, existing).getRole());
+
+        Map<Long, UserProjectIndex> indexRows = indexRows(project);
+        assertEquals(Set.of(newUser.getId(), departed.getId()), indexRows.keySet());
+        assertTrue(indexRows.get(newUser.getId()).getActive());
+        assertTrue(indexRows.get(departed.getId()).getMemberActive());
+        verify(tokenVersionService).incrementVersions(List.of(newUser.getId(), departed.getId()));
+    }
+
+    @Test
+    @DisplayName("批量移除不能移除自己和最后一个项目经理")
+    void testRemoveProjectMembers() {
+        Project project = persistProject("P-REMOVE");
+        User manager1 = persistUser("manager1");
+        User manager2 = persistUser("manager2");
+        User tester = persistUser("tester");
+        User outsider = persistUser("outsider");
+        User operator = persistUser("operator");
+        persistMember(project, manager1, ProjectMemberRole.PROJECT_MANAGER, true);
+        persistMember(project, manager2, ProjectMemberRole.PROJECT_MANAGER, true);
+        persistMember(project, tester, ProjectMemberRole.TESTER, true);
+        persistMember(project, operator, ProjectMemberRole.TEST_MANAGER, true);
+        entityManager.flush();
+
+        BatchMemberOperationResultDTO result = projectMemberService.removeProjectMembers(project.getId(),
+                List.of(manager1.getId(), manager2.getId(), tester.getId(), outsider.getId(), operator.getId()),
+                operator.getId());
+
+        Map<Long, Outcome> outcomes = outcomes(result);
+        assertEquals(Outcome.REMOVED, outcomes.get(manager1.getId()));
+        assertEquals(Outcome.LAST_MANAGER, outcomes.get(manager2.getId()));
+        assertEquals(Outcome.REMOVED, outcomes.get(tester.getId()));
+        assertEquals(Outcome.NOT_MEMBER, outcomes.get(outsider.getId()));
+        assertEquals(Outcome.SELF, outcomes.get(operator.getId()));
+        assertEquals(2, result.getChanged());
+
+        entityManager.clear();
+        ProjectMember removed = member(project, manager1);
+        assertFalse(removed.getActive());
+        assertNotNull(removed.getLeftAt());
+        assertTrue(member(project, manager2).getActive());
+        assertFalse(member(project, tester).getActive());
+        assertEquals(List.of(manager2.getId()), projectMemberRepository.lockProjectManagerUserIds(project.getId()));
+    }
+
+    @Test
+    @DisplayName("批量调整角色不能降级最后一个项目经理，角色相同的成员跳过")
+    void testUpdateMemberRoles() {
+        Project project = persistProject("P-ROLE");
+        User manager = persistUser("manager");
+        User tester = persistUser("tester");
+        User developer = persistUser("developer");
+        persistMember(project, manager, ProjectMemberRole.PROJECT_MANAGER, true);
+        persistMember(project, tester, ProjectMemberRole.TESTER, true);
+        persistMember(project, developer, ProjectMemberRole.DEVELOPER, true);
+        entityManager.flush();
+
+        BatchMemberOperationResultDTO result = projectMemberService.updateMemberRoles(project.getId(),
+                List.of(manager.getId(), tester.getId(), developer.getId()),
+                ProjectMemberRole.TESTER, OPERATOR_ID);
+
+        Map<Long, Outcome> outcomes = outcomes(result);
+        assertEquals(Outcome.LAST_MANAGER, outcomes.get(manager.getId()));
+        assertEquals(Outcome.UNCHANGED, outcomes.get(tester.getId()));
+        assertEquals(Outcome.ROLE_CHANGED, outcomes.get(developer.getId()));
+        assertEquals(1, result.getChanged());
+
+        entityManager.clear();
+        assertEquals(ProjectMemberRole.PROJECT_MANAGER, member(project, manager).getRole());
+        assertEquals(ProjectMemberRole.TESTER, member(project, developer).getRole());
+        verify(projectAccessCache).invalidate(project.getId(), List.of(developer.getId()));
+    }
+
+    @Test
+    @DisplayName("没有实际变更时不触发成员关系变更处理")
+    void testUpdateMemberRoles_NoChange() {
+        Project project = persistProject("P-NOCHANGE");
+        User tester = persistUser("tester");
+        persistMember(project, tester, ProjectMemberRole.TESTER, true);
+        entityManager.flush();
+
+        BatchMemberOperationResultDTO result = projectMemberService.updateMemberRoles(project.getId(),
+                List.of(tester.getId()), ProjectMemberRole.TESTER, OPERATOR_ID);
+
+        assertEquals(0, result.getChanged());
+        assertTrue(indexRows(project).isEmpty());
+        verify(tokenVersionService, never()).incrementVersions(anyCollection());
+    }
+
+    @Test
+    @DisplayName("批量添加大量成员时成员和索引行都批量写入，语句数不随人数增长")
+    void testAddProjectMembers_BatchedStatements() {
+        Project project = persistProject("P-BULK");
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            userIds.add(persistUser("bulk_" + i).getId());
+        }
+        persistMember(project, userRepository.findById(userIds.get(0)).orElseThrow(), ProjectMemberRole.VIEWER, false);
+        entityManager.flush();
+        jdbcTemplate.update("INSERT INTO user_project_index (user_id, project_id, active, member_active, " +
+                "project_status, updated_at) VALUES (?, ?, FALSE, FALSE, 'PLANNING', CURRENT_TIMESTAMP)",
+                userIds.get(0), project.getId());
+
+        SqlStatementStatistics statistics = SqlStatementStatistics.begin();
+        BatchMemberOperationResultDTO result;
+        try {
+            result = projectMemberService.addProjectMembers(project.getId(), userIds,
+                    ProjectMemberRole.TESTER, null, OPERATOR_ID);
+        } finally {
+            SqlStatementStatistics.detach();
+        }
+
+        assertEquals(60, result.getChanged());
+        // 用户和成员状态查询、成员插入和重新加入、索引的成员状态和已有行查询、索引插入和更新，各一条语句
+        assertTrue(statistics.getStatements() <= 10,
+                "语句数应与成员人数无关: statements=" + statistics.getStatements());
+
+        entityManager.clear();
+        Map<Long, UserProjectIndex> indexRows = indexRows(project);
+        assertEquals(Set.copyOf(userIds), indexRows.keySet());
+        assertTrue(indexRows.values().stream().allMatch(UserProjectIndex::getActive));
+        assertTrue(indexRows.values().stream().allMatch(row -> row.getProjectStatus() == project.getStatus()));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("并发降级两个项目经理时应保留一个项目经理")
+    void testUpdateMemberRoles_ConcurrentDemotion() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<Long> ids = transactionTemplate.execute(status -> {
+            Project project = persistProject("P-CONCURRENT");
+            User manager1 = persistUser("manager1");
+            User manager2 = persistUser("manager2");
+            persistMember(project, manager1, ProjectMemberRole.PROJECT_MANAGER, true);
+            persistMember(project, manager2, ProjectMemberRole.PROJECT_MANAGER, true);
+            return List.of(project.getId(), manager1.getId(), manager2.getId());
+        });
+        Long projectId = ids.get(0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<BatchMemberOperationResultDTO>> futures = new ArrayList<>();
+            for (Long userId : ids.subList(1, 3)) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return projectMemberService.updateMemberRoles(projectId, List.of(userId),
+                            ProjectMemberRole.TESTER, OPERATOR_ID);
+                }));
+            }
+            start.countDown();
+
+            int changed = 0;
+            for (Future<BatchMemberOperationResultDTO> future : futures) {
+                changed += future.get(30, TimeUnit.SECONDS).getChanged();
+            }
+
+            assertEquals(1, changed);
+            assertEquals(1, transactionTemplate.execute(status ->
+                    projectMemberRepository.lockProjectManagerUserIds(projectId).size()));
+        } finally {
+            executor.shutdownNow();
+            jdbcTemplate.update("DELETE FROM user_project_index WHERE project_id = ?", projectId);
+            jdbcTemplate.update("DELETE FROM project_members WHERE project_id = ?", projectId);
+            jdbcTemplate.update("DELETE FROM projects WHERE id = ?", projectId);
+            jdbcTemplate.update("DELETE FROM users WHERE id IN (?, ?)", ids.get(1), ids.get(2));
+        }
+    }
+
+    private Project persistProject(String code) {
+        return projectRepository.save(Project.builder().code(code).name("批量成员项目").createdBy(OPERATOR_ID).build());
+    }
+
+    private User persistUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("password123");
+        user.setEmail(username + "@example.com");
+        user.setStatus(UserStatus.ACTIVE);
+        return userRepository.save(user);
+    }
+
+    private void persistMember(Project project, User user, ProjectMemberRole role, boolean active) {
+        projectMemberRepository.save(ProjectMember.builder()
+                .project(project)
+                .userId(user.getId())
+                .role(role)
+                .active(active)
+                .addedBy(OPERATOR_ID)
+                .build());
+    }
+
+    private ProjectMember member(Project project, User user) {
+        return projectMemberRepository.findByProject_IdAndUserId(project.getId(), user.getId()).orElseThrow();
+    }
+
+    private Map<Long, UserProjectIndex> indexRows(Project project) {
+        return userProjectIndexRepository.findAll().stream()
+                .filter(row -> row.getProjectId().equals(project.getId()))
+                .collect(Collectors.toMap(UserProjectIndex::getUserId, row -> row));
+    }
+
+    private static Map<Long, Outcome> outcomes(BatchMemberOperationResultDTO result) {
+        return result.getResults().stream()
+                .collect(Collectors.toMap(MemberOutcome::getUserId, MemberOutcome::getOutcome));
+    }
+}
@@ -0,0 +1,177 @@
+package com.yoga.youjia.service;
+
+import com.yoga.youjia.common.enums.ProjectStatus;
+import com.yoga.youjia.entity.Project;
+import com.yoga.youjia.entity.UserProjectIndex;
+import com.yoga.youjia.repository.ProjectMemberRepository;
+import com.yoga.youjia.repository.ProjectRepository;
+import com.yoga.youjia.repository.UserProjectIndexRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * ProjectStatisticsService项目统计快照测试
+ *
+ * 测试快照的统计口径和刷新：
+ * - 逾期和即将到期只统计规划中和进行中的有效项目，与 findOverdueProjects、findProjectsNearDeadline 一致
+ * - 项目变更标记快照过期后，下一次检查时重算；没有变更时返回原快照
+ * - 成员变更只失效相关用户的快照
+ */
+@DataJpaTest
+@DisplayName("ProjectStatisticsService项目统计快照测试")
+class ProjectStatisticsServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ProjectRepository projectRepository;
+
+    @Autowired
+    private ProjectMemberRepository projectMemberRepository;
+
+    @Autowired
+    private UserProjectIndexRepository userProjectIndexRepository;
+
+    private ProjectStatisticsService projectStatisticsService;
+
+    private int projectSequence;
+
+    @BeforeEach
+    void setUp() {
+        projectStatisticsService = new ProjectStatisticsService(projectRepository, projectMemberRepository,
+                userProjectIndexRepository, new SimpleMeterRegistry(), Duration.ofMinutes(5), 1000);
+    }
+
+    @Test
+    @DisplayName("逾期和即将到期只统计规划中和进行中的有效项目")
+    void testGetProjectStatistics_DeadlineCounts() {
+        LocalDateTime now = LocalDateTime.now();
+        persistProject(ProjectStatus.PLANNING, now.minusDays(1), true);
+        persistProject(ProjectStatus.ACTIVE, now.minusDays(10), true);
+        persistProject(ProjectStatus.ACTIVE, now.plusDays(3), true);
+        persistProject(ProjectStatus.ACTIVE, now.plusDays(30), true);
+        persistProject(ProjectStatus.PLANNING, null, true);
+        // 以下项目已逾期或即将到期，但状态或启用标记不计入
+        persistProject(ProjectStatus.COMPLETED, now.minusDays(2), true);
+        persistProject(ProjectStatus.ON_HOLD, now.plusDays(2), true);
+        persistProject(ProjectStatus.CANCELLED, now.minusDays(5), true);
+        persistProject(ProjectStatus.ACTIVE, now.minusDays(1), false);
+        entityManager.flush();
+
+        Map<String, Object> statistics = projectStatisticsService.getProjectStatistics();
+
+        assertEquals(2L, statistics.get("overdueProjects"));
+        assertEquals(1L, statistics.get("nearDeadlineProjects"));
+        assertEquals((long) projectRepository.findOverdueProjects(LocalDateTime.now()).size(),
+                statistics.get("overdueProjects"));
+        assertEquals((long) projectRepository.findProjectsNearDeadline(now, now.plusDays(7)).size(),
+                statistics.get("nearDeadlineProjects"));
+        assertEquals(8L, statistics.get("totalProjects"));
+        Map<?, ?> statusCounts = (Map<?, ?>) statistics.get("statusCounts");
+        assertEquals(3L, statusCounts.get(ProjectStatus.ACTIVE.getDisplayName()));
+        assertEquals(2L, statusCounts.get(ProjectStatus.PLANNING.getDisplayName()));
+        assertNotNull(statistics.get("generatedAt"));
+    }
+
+    @Test
+    @DisplayName("项目变更后下一次检查时应重算快照，没有变更时返回原快照")
+    void testRefreshIfStale_RecomputesAfterMutation() {
+        persistProject(ProjectStatus.ACTIVE, null, true);
+        entityManager.flush();
+        Map<String, Object> first = projectStatisticsService.getProjectStatistics();
+        assertEquals(1L, first.get("totalProjects"));
+
+        persistProject(ProjectStatus.ACTIVE, LocalDateTime.now().minusDays(1), true);
+        entityManager.flush();
+
+        // 未标记变更且未到刷新间隔，检查时不重算
+        projectStatisticsService.refreshIfStale();
+        assertSame(first, projectStatisticsService.getProjectStatistics());
+
+        projectStatisticsService.onProjectsChanged();
+        projectStatisticsService.refreshIfStale();
+
+        Map<String, Object> second = projectStatisticsService.getProjectStatistics();
+        assertNotSame(first, second);
+        assertEquals(2L, second.get("totalProjects"));
+        assertEquals(1L, second.get("overdueProjects"));
+
+        // 重算后清除标记，再次检查不重算
+        projectStatisticsService.refreshIfStale();
+        assertSame(second, projectStatisticsService.getProjectStatistics());
+    }
+
+    @Test
+    @DisplayName("到期事件应标记快照过期")
+    void testOnDeadlineChanged_MarksDirty() {
+        Map<String, Object> first = projectStatisticsService.getProjectStatistics();
+
+        projectStatisticsService.onDeadlineChanged(null);
+        projectStatisticsService.refreshIfStale();
+
+        assertNotSame(first, projectStatisticsService.getProjectStatistics());
+    }
+
+    @Test
+    @DisplayName("成员变更只失效相关用户的快照")
+    void testOnMembershipChanged_EvictsAffectedUsers() {
+        Project first = persistProject(ProjectStatus.ACTIVE, null, true);
+        Project second = persistProject(ProjectStatus.PLANNING, null, true);
+        persistIndex(1L, first, ProjectStatus.ACTIVE);
+        persistIndex(2L, first, ProjectStatus.ACTIVE);
+        entityManager.flush();
+
+        assertEquals(1L, projectStatisticsService.getUserProjectStatistics(1L).get("totalProjects"));
+        Map<String, Object> cachedForUser2 = projectStatisticsService.getUserProjectStatistics(2L);
+
+        persistIndex(1L, second, ProjectStatus.PLANNING);
+        persistIndex(2L, second, ProjectStatus.PLANNING);
+        entityManager.flush();
+        projectStatisticsService.onMembershipChanged(List.of(1L));
+
+        Map<String, Object> user1 = projectStatisticsService.getUserProjectStatistics(1L);
+        assertEquals(2L, user1.get("totalProjects"));
+        assertEquals(1L, ((Map<?, ?>) user1.get("statusCounts")).get(ProjectStatus.PLANNING.getDisplayName()));
+        assertSame(cachedForUser2, projectStatisticsService.getUserProjectStatistics(2L));
+
+        // 项目变更失效全部用户的快照
+        projectStatisticsService.onProjectsChanged();
+        assertEquals(2L, projectStatisticsService.getUserProjectStatistics(2L).get("totalProjects"));
+    }
+
+    private Project persistProject(ProjectStatus status, LocalDateTime endDate, boolean enabled) {
+        projectSequence++;
+        return entityManager.persist(Project.builder()
+                .code("P-STAT-" + projectSequence)
+                .name("统计项目" + projectSequence)
+                .status(status)
+                .endDate(endDate)
+                .enabled(enabled)
+                .createdBy(1L)
+                .build());
+    }
+
+    private void persistIndex(Long userId, Project project, ProjectStatus status) {
+        entityManager.persist(UserProjectIndex.builder()
+                .userId(userId)
+                .projectId(project.getId())
+                .active(true)
+                .memberActive(true)
+                .projectStatus(status)
+                .updatedAt(LocalDateTime.now())
+                .build());
+    }
+}
@@ -0,0 +1,124 @@
+package com.yoga.youjia.service;
+
+import com.yoga.youjia.entity.Project;
+import com.yoga.youjia.entity.User;
+import com.yoga.youjia.repository.ProjectRepository;
+import com.yoga.youjia.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * SearchIndexService搜索联想索引测试
+ *
+ * 测试载入和增量更新的先后顺序：
+ * - 载入查询之后、写入索引之前提交的增量更新不会被分页读到的旧数据覆盖
+ * - 载入完成后的增量更新直接生效
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SearchIndexService搜索联想索引测试")
+class SearchIndexServiceTest {
+
+    @Mock
+    private ProjectRepository projectRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    private SearchIndexService searchIndexService;
+
+    @BeforeEach
+    void setUp() {
+        searchIndexService = new SearchIndexService();
+        ReflectionTestUtils.setField(searchIndexService, "projectRepository", projectRepository);
+        ReflectionTestUtils.setField(searchIndexService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(searchIndexService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(searchIndexService, "maxCandidates", 5000);
+        ReflectionTestUtils.setField(searchIndexService, "maxResults", 50);
+        searchIndexService.init();
+    }
+
+    @Test
+    @DisplayName("载入期间被停用的项目不应被旧数据重新加入索引")
+    void testLoad_SkipsProjectDisabledDuringLoad() {
+        Project stale = project(1L, "ALPHA", "阿尔法项目", true);
+        Project other = project(2L, "BETA", "贝塔项目", true);
+        when(projectRepository.findByEnabledTrue(any(Pageable.class))).thenAnswer(invocation -> {
+            // 查询返回后、写入索引前，停用项目的事务提交
+            searchIndexService.onProjectChanged(project(1L, "ALPHA", "阿尔法项目", false));
+            return page(List.of(stale, other));
+        });
+        when(userRepository.findAll(any(Pageable.class))).thenReturn(page(List.of()));
+
+        searchIndexService.load();
+
+        assertTrue(searchIndexService.isLoaded());
+        assertTrue(searchIndexService.searchProjectIds("ALPHA", 10).isEmpty());
+        assertEquals(List.of(2L), searchIndexService.searchProjectIds("BETA", 10));
+    }
+
+    @Test
+    @DisplayName("载入期间修改或删除的用户应以增量更新为准")
+    void testLoad_KeepsUserChangesDuringLoad() {
+        when(projectRepository.findByEnabledTrue(any(Pageable.class))).thenReturn(page(List.of()));
+        when(userRepository.findAll(any(Pageable.class))).thenAnswer(invocation -> {
+            searchIndexService.onUserChanged(user(1L, "zhangsan_new"));
+            searchIndexService.onUserDeleted(2L);
+            return page(List.of(user(1L, "zhangsan_old"), user(2L, "lisi"), user(3L, "wangwu")));
+        });
+
+        searchIndexService.load();
+
+        assertEquals(List.of(1L), searchIndexService.searchUserIds("zhangsan_new", 10));
+        assertTrue(searchIndexService.searchUserIds("zhangsan_old", 10).isEmpty());
+        assertTrue(searchIndexService.searchUserIds("lisi", 10).isEmpty());
+        assertEquals(List.of(3L), searchIndexService.searchUserIds("wangwu", 10));
+    }
+
+    @Test
+    @DisplayName("载入完成后的增量更新应直接生效")
+    void testOnProjectChanged_AfterLoad() {
+        when(projectRepository.findByEnabledTrue(any(Pageable.class)))
+                .thenReturn(page(List.of(project(1L, "ALPHA", "阿尔法项目", true))));
+        when(userRepository.findAll(any(Pageable.class))).thenReturn(page(List.of()));
+        searchIndexService.load();
+
+        searchIndexService.onProjectChanged(project(1L, "ALPHA", "阿尔法项目", false));
+        assertTrue(searchIndexService.searchProjectIds("ALPHA", 10).isEmpty());
+
+        searchIndexService.onProjectChanged(project(1L, "ALPHA", "阿尔法项目", true));
+        assertEquals(List.of(1L), searchIndexService.searchProjectIds("ALPHA", 10));
+    }
+
+    private static Project project(Long id, String code, String name, boolean enabled) {
+        Project project = Project.builder().code(code).name(name).enabled(enabled).createdBy(1L).build();
+        project.setId(id);
+        return project;
+    }
+
+    private static User user(Long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        return user;
+    }
+
+    private static <T> Page<T> page(List<T> content) {
+        return new PageImpl<>(content);
+    }
+}
@@ -0,0 +1,111 @@
+package com.yoga.youjia.service;
+
+import com.yoga.youjia.dto.response.SharedStepBackfillResultDTO;
+import com.yoga.youjia.entity.Project;
+import com.yoga.youjia.entity.SharedStepBody;
+import com.yoga.youjia.entity.TestCase;
+import com.yoga.youjia.entity.TestStep;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SharedStepBackfillService共享步骤回填测试
+ *
+ * 测试回填时的去重：
+ * - 内容相同的步骤归并到同一个共享步骤
+ * - 已有相同内容的共享步骤时直接复用
+ * - 去重命中次数只统计实际与其他步骤共用共享步骤的步骤
+ */
+@DataJpaTest
+@Import(SharedStepBackfillService.class)
+@DisplayName("SharedStepBackfillService共享步骤回填测试")
+class SharedStepBackfillServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private SharedStepBackfillService sharedStepBackfillService;
+
+    private Project project;
+
+    private TestCase testCase;
+
+    @BeforeEach
+    void setUp() {
+        project = entityManager.persist(Project.builder().code("P-SHARED").name("共享步骤项目").createdBy(1L).build());
+        testCase = entityManager.persist(TestCase.builder()
+                .caseId("TC-SHARED-1")
+                .title("共享步骤用例")
+                .projectId(project.getId())
+                .moduleId(1L)
+                .createdBy(1L)
+                .build());
+    }
+
+    @Test
+    @DisplayName("内容相同的步骤应归并到同一个共享步骤，并统计去重命中次数")
+    void testBackfill_Deduplication() {
+        SharedStepBody existing = entityManager.persist(SharedStepBody.builder()
+                .projectId(project.getId())
+                .contentHash(SharedStepBody.calculateContentHash("输入密码", null, "密码掩码显示", null))
+                .stepDescription("输入密码")
+                .expectedResult("密码掩码显示")
+                .build());
+        TestStep first = persistStep(1, "打开登录页面", "页面正常显示");
+        TestStep second = persistStep(2, "打开登录页面", "页面正常显示");
+        TestStep reusing = persistStep(3, "输入密码", "密码掩码显示");
+        TestStep incomplete = persistStep(4, "只有描述的步骤", null);
+        entityManager.flush();
+
+        SharedStepBackfillResultDTO result = sharedStepBackfillService.backfill(project.getId());
+
+        assertEquals(4, result.getScannedSteps());
+        assertEquals(3, result.getLinkedSteps());
+        assertEquals(1, result.getCreatedBodies());
+        assertEquals(2, result.getDeduplicatedSteps());
+
+        entityManager.clear();
+        TestStep linkedFirst = entityManager.find(TestStep.class, first.getId());
+        TestStep linkedSecond = entityManager.find(TestStep.class, second.getId());
+        assertNotNull(linkedFirst.getSharedBodyId());
+        assertEquals(linkedFirst.getSharedBodyId(), linkedSecond.getSharedBodyId());
+        assertNull(linkedFirst.getStepDescription());
+        assertEquals("打开登录页面", linkedFirst.getEffectiveStepDescription());
+        assertEquals(existing.getId(), entityManager.find(TestStep.class, reusing.getId()).getSharedBodyId());
+        assertNull(entityManager.find(TestStep.class, incomplete.getId()).getSharedBodyId());
+    }
+
+    @Test
+    @DisplayName("再次回填时已引用共享步骤的步骤不应重复统计")
+    void testBackfill_Idempotent() {
+        persistStep(1, "打开登录页面", "页面正常显示");
+        persistStep(2, "打开登录页面", "页面正常显示");
+        entityManager.flush();
+
+        sharedStepBackfillService.backfill(project.getId());
+        entityManager.clear();
+        SharedStepBackfillResultDTO second = sharedStepBackfillService.backfill(project.getId());
+
+        assertEquals(0, second.getScannedSteps());
+        assertEquals(0, second.getLinkedSteps());
+        assertEquals(0, second.getDeduplicatedSteps());
+    }
+
+    private TestStep persistStep(int stepOrder, String description, String expectedResult) {
+        return entityManager.persist(TestStep.builder()
+                .testCaseId(testCase.getId())
+                .stepOrder(stepOrder)
+                .stepDescription(description)
+                .expectedResult(expectedResult)
+                .enabled(true)
+                .build());
+    }
+}
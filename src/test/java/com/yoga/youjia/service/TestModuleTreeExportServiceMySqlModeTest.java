@@ -0,0 +1,84 @@
+package com.yoga.youjia.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yoga.youjia.entity.Project;
+import com.yoga.youjia.entity.TestModule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TestModuleTreeExportService在MySQL兼容模式下的导出测试
+ *
+ * 生产环境使用 MySQL，模块树查询只能使用两边都支持的语法（如 CAST 为 CHAR(n)），
+ * 用 H2 的 MODE=MySQL 执行同一条递归查询，检查排序和嵌套结果
+ */
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:module_tree_mysql;MODE=MySQL;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(TestModuleTreeExportService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@DisplayName("TestModuleTreeExportService MySQL兼容模式导出测试")
+class TestModuleTreeExportServiceMySqlModeTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TestModuleTreeExportService testModuleTreeExportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @DisplayName("MySQL模式下应按排序序号导出嵌套的模块树")
+    void testWriteModuleTree_MySqlMode() throws Exception {
+        Project project = entityManager.persist(Project.builder().code("P-MYSQL").name("MySQL模式项目").createdBy(1L).build());
+        TestModule root = persistModule(project, null, "根模块", 0);
+        TestModule childB = persistModule(project, root, "子模块B", 2);
+        TestModule childA = persistModule(project, root, "子模块A", -1);
+        TestModule leaf = persistModule(project, childA, "叶子模块", 0);
+        TestModule otherRoot = persistModule(project, null, "另一个根模块", 1);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        testModuleTreeExportService.writeModuleTree(project.getId(), outputStream);
+        JsonNode data = objectMapper.readTree(outputStream.toByteArray()).get("data");
+
+        assertEquals(List.of(root.getId(), otherRoot.getId()), ids(data));
+        JsonNode children = data.get(0).get("children");
+        assertEquals(List.of(childA.getId(), childB.getId()), ids(children));
+        assertEquals(List.of(leaf.getId()), ids(children.get(0).get("children")));
+        assertEquals(2, children.get(0).get("children").get(0).get("depth").asInt());
+    }
+
+    private List<Long> ids(JsonNode nodes) {
+        List<Long> ids = new ArrayList<>();
+        nodes.forEach(node -> ids.add(node.get("id").asLong()));
+        return ids;
+    }
+
+    private TestModule persistModule(Project owner, TestModule parent, String name, int sortOrder) {
+        TestModule module = TestModule.builder()
+                .name(name)
+                .projectId(owner.getId())
+                .parentId(parent != null ? parent.getId() : null)
+                .depth(parent != null ? parent.getDepth() + 1 : 1)
+                .sortOrder(sortOrder)
+                .enabled(true)
+                .createdBy(1L)
+                .build();
+        return entityManager.persistAndFlush(module);
+    }
+}
@@ -0,0 +1,138 @@
+package com.yoga.youjia.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yoga.youjia.entity.Project;
+import com.yoga.youjia.entity.TestModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * TestModuleTreeExportService模块树导出测试
+ *
+ * 测试流式导出的顺序和嵌套结构：
+ * - 同级模块按 sort_order、id 排序，包括负数 sort_order
+ * - 子模块嵌套在父模块的 children 中
+ * - 禁用模块和其他项目的模块不会导出
+ */
+@DataJpaTest
+@Import(TestModuleTreeExportService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@DisplayName("TestModuleTreeExportService模块树导出测试")
+class TestModuleTreeExportServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TestModuleTreeExportService testModuleTreeExportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Project project;
+
+    @BeforeEach
+    void setUp() {
+        project = entityManager.persist(Project.builder().code("P-EXPORT").name("导出项目").createdBy(1L).build());
+    }
+
+    @Test
+    @DisplayName("同级模块应按排序序号导出，负数排在前面")
+    void testWriteModuleTree_SiblingOrder() throws Exception {
+        TestModule second = persistModule(project, null, "第二", 5, true);
+        TestModule first = persistModule(project, null, "第一", -3, true);
+        TestModule third = persistModule(project, null, "第三", 10, true);
+
+        JsonNode data = export(project.getId());
+
+        assertEquals(List.of(first.getId(), second.getId(), third.getId()), ids(data));
+    }
+
+    @Test
+    @DisplayName("子模块应嵌套在父模块的children中")
+    void testWriteModuleTree_Nesting() throws Exception {
+        TestModule root = persistModule(project, null, "根模块", 0, true);
+        TestModule childB = persistModule(project, root, "子模块B", 2, true);
+        TestModule childA = persistModule(project, root, "子模块A", 1, true);
+        TestModule leaf = persistModule(project, childA, "叶子模块", 0, true);
+        TestModule otherRoot = persistModule(project, null, "另一个根模块", 1, true);
+
+        JsonNode data = export(project.getId());
+
+        assertEquals(List.of(root.getId(), otherRoot.getId()), ids(data));
+        JsonNode rootNode = data.get(0);
+        assertEquals(2, rootNode.get("childCount").asLong());
+        assertEquals(List.of(childA.getId(), childB.getId()), ids(rootNode.get("children")));
+        JsonNode childANode = rootNode.get("children").get(0);
+        assertEquals(List.of(leaf.getId()), ids(childANode.get("children")));
+        assertEquals(2, childANode.get("children").get(0).get("depth").asInt());
+        assertFalse(rootNode.get("children").get(1).has("children"));
+        assertFalse(data.get(1).has("children"));
+    }
+
+    @Test
+    @DisplayName("禁用模块及其子树、其他项目的模块不应导出")
+    void testWriteModuleTree_ExcludesDisabledAndOtherProject() throws Exception {
+        Project otherProject = entityManager.persist(
+                Project.builder().code("P-EXPORT-OTHER").name("其他项目").createdBy(1L).build());
+        TestModule root = persistModule(project, null, "根模块", 0, true);
+        TestModule disabled = persistModule(project, null, "禁用的模块", 1, false);
+        persistModule(project, disabled, "禁用模块的子模块", 0, true);
+        persistModule(otherProject, null, "其他项目模块", 0, true);
+
+        JsonNode data = export(project.getId());
+
+        assertEquals(List.of(root.getId()), ids(data));
+    }
+
+    @Test
+    @DisplayName("响应应包含ApiResponse的外层结构")
+    void testWriteModuleTree_Envelope() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        testModuleTreeExportService.writeModuleTree(project.getId(), outputStream);
+
+        JsonNode response = objectMapper.readTree(outputStream.toByteArray());
+        assertTrue(response.get("success").asBoolean());
+        assertTrue(response.get("data").isArray());
+        assertEquals(0, response.get("data").size());
+    }
+
+    private JsonNode export(Long projectId) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        testModuleTreeExportService.writeModuleTree(projectId, outputStream);
+        return objectMapper.readTree(outputStream.toByteArray()).get("data");
+    }
+
+    private List<Long> ids(JsonNode nodes) {
+        List<Long> ids = new ArrayList<>();
+        nodes.forEach(node -> ids.add(node.get("id").asLong()));
+        return ids;
+    }
+
+    private TestModule persistModule(Project owner, TestModule parent, String name, int sortOrder, boolean enabled) {
+        TestModule module = TestModule.builder()
+                .name(name)
+                .projectId(owner.getId())
+                .parentId(parent != null ? parent.getId() : null)
+                .depth(parent != null ? parent.getDepth() + 1 : 1)
+                .sortOrder(sortOrder)
+                .enabled(enabled)
+                .createdBy(1L)
+                .build();
+        return entityManager.persistAndFlush(module);
+    }
+}
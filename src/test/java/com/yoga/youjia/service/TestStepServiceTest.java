@@ -0,0 +1,389 @@
+package com.yoga.youjia.service;
+
+import com.yoga.youjia.common.enums.ErrorCode;
+import com.yoga.youjia.common.exception.BusinessException;
+import com.yoga.youjia.dto.request.CreateTestStepRequestDTO;
+import com.yoga.youjia.entity.SharedStepBody;
+import com.yoga.youjia.entity.TestCase;
+import com.yoga.youjia.entity.TestStep;
+import com.yoga.youjia.repository.TestCaseRepository;
+import com.yoga.youjia.repository.TestStepRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * TestStepService测试步骤服务测试
+ *
+ * 测试步骤排序相关的业务逻辑：
+ * - 单个步骤移动时的区间平移
+ * - 整体重排的参数校验
+ * - 引用共享步骤时的覆盖内容、清除覆盖和解除引用
+ * - 批量创建时逐个校验步骤内容、填补空闲序号、拒绝冲突和重复的序号，以及单次数量上限
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TestStepService测试步骤服务测试")
+class TestStepServiceTest {
+
+    private static final Long TEST_CASE_ID = 100L;
+
+    private static final Long PROJECT_ID = 10L;
+
+    @Mock
+    private TestStepRepository testStepRepository;
+
+    @Mock
+    private TestCaseRepository testCaseRepository;
+
+    @Mock
+    private SharedStepLibraryService sharedStepLibraryService;
+
+    @InjectMocks
+    private TestStepService testStepService;
+
+    @Test
+    @DisplayName("新序号为空时应返回参数错误")
+    void testReorderTestStep_NullOrder() {
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> testStepService.reorderTestStep(1L, null));
+
+        assertEquals(ErrorCode.PARAM_INVALID, exception.getNewErrorCode());
+        verifyNoInteractions(testStepRepository, testCaseRepository);
+    }
+
+    @Test
+    @DisplayName("向前移动步骤时中间的步骤应整体后移一位")
+    void testReorderTestStep_MoveForward() {
+        givenStep(5L, 4);
+        when(testStepRepository.findMaxStepOrderByTestCase(TEST_CASE_ID)).thenReturn(6);
+
+        testStepService.reorderTestStep(5L, 2);
+
+        verify(testStepRepository).shiftStepOrders(eq(TEST_CASE_ID), eq(2), eq(3), eq(1), any());
+        verify(testStepRepository).updateStepOrder(5L, 2);
+    }
+
+    @Test
+    @DisplayName("新序号超过最大序号时应移动到末尾")
+    void testReorderTestStep_ClampToLast() {
+        givenStep(5L, 2);
+        when(testStepRepository.findMaxStepOrderByTestCase(TEST_CASE_ID)).thenReturn(4);
+
+        testStepService.reorderTestStep(5L, 99);
+
+        verify(testStepRepository).shiftStepOrders(eq(TEST_CASE_ID), eq(3), eq(4), eq(-1), any());
+        verify(testStepRepository).updateStepOrder(5L, 4);
+    }
+
+    @Test
+    @DisplayName("序号不变时不应执行更新")
+    void testReorderTestStep_SameOrder() {
+        givenStep(5L, 3);
+        when(testStepRepository.findMaxStepOrderByTestCase(TEST_CASE_ID)).thenReturn(4);
+
+        testStepService.reorderTestStep(5L, 3);
+
+        verify(testStepRepository, never()).shiftStepOrders(any(), any(), any(), anyInt(), any());
+        verify(testStepRepository, never()).updateStepOrder(any(), any());
+    }
+
+    @Test
+    @DisplayName("步骤ID列表包含空值时应返回参数错误")
+    void testReorderTestSteps_NullId() {
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> testStepService.reorderTestSteps(TEST_CASE_ID, Arrays.asList(1L, null)));
+
+        assertEquals(ErrorCode.PARAM_INVALID, exception.getNewErrorCode());
+        verifyNoInteractions(testStepRepository);
+    }
+
+    @Test
+    @DisplayName("步骤ID列表重复时应返回参数错误")
+    void testReorderTestSteps_Duplicate() {
+        givenLockedRowStorageCase();
+        when(testStepRepository.findStepIdsByTestCaseId(TEST_CASE_ID)).thenReturn(List.of(1L, 2L));
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> testStepService.reorderTestSteps(TEST_CASE_ID, List.of(1L, 1L)));
+
+        assertEquals(ErrorCode.PARAM_INVALID, exception.getNewErrorCode());
+        verify(testStepRepository, never()).applyStepOrder(any(), any());
+    }
+
+    @Test
+    @DisplayName("步骤ID列表缺少步骤时应返回参数错误")
+    void testReorderTestSteps_Incomplete() {
+        givenLockedRowStorageCase();
+        when(testStepRepository.findStepIdsByTestCaseId(TEST_CASE_ID)).thenReturn(List.of(1L, 2L, 3L));
+
+        assertThrows(BusinessException.class,
+                () -> testStepService.reorderTestSteps(TEST_CASE_ID, List.of(3L, 1L)));
+
+        verify(testStepRepository, never()).applyStepOrder(any(), any());
+    }
+
+    @Test
+    @DisplayName("完整排列应一次写入全部序号")
+    void testReorderTestSteps_Success() {
+        givenLockedRowStorageCase();
+        when(testStepRepository.findStepIdsByTestCaseId(TEST_CASE_ID)).thenReturn(List.of(1L, 2L, 3L));
+        when(testStepRepository.applyStepOrder(TEST_CASE_ID, List.of(3L, 1L, 2L))).thenReturn(3);
+
+        testStepService.reorderTestSteps(TEST_CASE_ID, List.of(3L, 1L, 2L));
+
+        verify(testStepRepository).applyStepOrder(TEST_CASE_ID, List.of(3L, 1L, 2L));
+        verify(testStepRepository).findByTestCaseIdAndEnabledTrueOrderByStepOrderAsc(TEST_CASE_ID);
+    }
+
+    @Test
+    @DisplayName("更新引用共享步骤的步骤时只保存与共享内容不同的字段")
+    void testUpdateTestStep_KeepsOnlyDifferingOverrides() {
+        SharedStepBody sharedBody = sharedBody();
+        TestStep testStep = givenSharedStepForUpdate(7L, sharedBody);
+        testStep.setExpectedResult("旧的覆盖结果");
+
+        TestStep updated = testStepService.updateTestStep(7L, CreateTestStepRequestDTO.builder()
+                .stepDescription("打开登录页面")
+                .expectedResult("显示验证码")
+                .build());
+
+        assertEquals(sharedBody.getId(), updated.getSharedBodyId());
+        assertNull(updated.getStepDescription());
+        assertEquals("显示验证码", updated.getExpectedResult());
+        assertEquals("打开登录页面", updated.getEffectiveStepDescription());
+    }
+
+    @Test
+    @DisplayName("清除覆盖内容后步骤应完全使用共享内容")
+    void testUpdateTestStep_ClearOverrides() {
+        SharedStepBody sharedBody = sharedBody();
+        TestStep testStep = givenSharedStepForUpdate(7L, sharedBody);
+        testStep.setExpectedResult("旧的覆盖结果");
+        testStep.setTestData("旧的覆盖数据");
+
+        TestStep updated = testStepService.updateTestStep(7L, CreateTestStepRequestDTO.builder()
+                .clearOverrides(true)
+                .expectedResult("请求中的正文被忽略")
+                .build());
+
+        assertEquals(sharedBody.getId(), updated.getSharedBodyId());
+        assertNull(updated.getExpectedResult());
+        assertNull(updated.getTestData());
+        assertEquals("页面正常显示", updated.getEffectiveExpectedResult());
+    }
+
+    @Test
+    @DisplayName("解除共享引用后步骤应保留解除前的生效内容")
+    void testUpdateTestStep_DetachSharedBody() {
+        SharedStepBody sharedBody = sharedBody();
+        TestStep testStep = givenSharedStepForUpdate(7L, sharedBody);
+        testStep.setExpectedResult("覆盖的预期结果");
+
+        TestStep updated = testStepService.updateTestStep(7L, CreateTestStepRequestDTO.builder()
+                .detachSharedBody(true)
+                .testData("新的测试数据")
+                .build());
+
+        assertNull(updated.getSharedBodyId());
+        assertNull(updated.getSharedBody());
+        assertEquals("打开登录页面", updated.getStepDescription());
+        assertEquals("新的测试数据", updated.getTestData());
+        assertEquals("覆盖的预期结果", updated.getExpectedResult());
+        verifyNoInteractions(sharedStepLibraryService);
+    }
+
+    @Test
+    @DisplayName("未引用共享步骤时解除引用应返回参数错误")
+    void testUpdateTestStep_DetachWithoutSharedBody() {
+        TestStep testStep = TestStep.builder().testCaseId(TEST_CASE_ID).stepOrder(1).enabled(true)
+                .stepDescription("独立步骤").expectedResult("结果").build();
+        testStep.setId(8L);
+        givenLockedStep(8L, testStep);
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> testStepService.updateTestStep(8L, CreateTestStepRequestDTO.builder().detachSharedBody(true).build()));
+
+        assertEquals(ErrorCode.PARAM_INVALID, exception.getNewErrorCode());
+        verify(testStepRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("批量创建时步骤描述为空白应返回参数错误，不写入任何步骤")
+    void testBatchCreateTestSteps_BlankContent() {
+        List<CreateTestStepRequestDTO> requestDTOs = List.of(
+                CreateTestStepRequestDTO.builder().stepDescription("打开首页").expectedResult("首页显示").build(),
+                CreateTestStepRequestDTO.builder().stepDescription("  ").expectedResult("结果").build());
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> testStepService.batchCreateTestSteps(requestDTOs, TEST_CASE_ID));
+
+        assertEquals(ErrorCode.PARAM_INVALID, exception.getNewErrorCode());
+        verify(testStepRepository, never()).batchInsert(any());
+    }
+
+    @Test
+    @DisplayName("批量创建时缺少预期结果应返回参数错误，引用共享步骤的可以不填正文")
+    void testBatchCreateTestSteps_MissingExpectedResult() {
+        List<CreateTestStepRequestDTO> requestDTOs = List.of(
+                CreateTestStepRequestDTO.builder().sharedBodyId(30L).build(),
+                CreateTestStepRequestDTO.builder().stepDescription("打开首页").build());
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> testStepService.batchCreateTestSteps(requestDTOs, TEST_CASE_ID));
+
+        assertEquals(ErrorCode.PARAM_INVALID, exception.getNewErrorCode());
+        assertTrue(exception.getMessage().contains("第 2 个步骤"), exception.getMessage());
+        verify(testStepRepository, never()).batchInsert(any());
+    }
+
+    @Test
+    @DisplayName("批量创建时不能解除共享引用或清除覆盖内容")
+    void testBatchCreateTestSteps_DetachOrClearFlags() {
+        for (CreateTestStepRequestDTO requestDTO : List.of(
+                CreateTestStepRequestDTO.builder().sharedBodyId(30L).detachSharedBody(true).build(),
+                CreateTestStepRequestDTO.builder().sharedBodyId(30L).clearOverrides(true).build())) {
+            BusinessException exception = assertThrows(BusinessException.class,
+                    () -> testStepService.batchCreateTestSteps(List.of(requestDTO), TEST_CASE_ID));
+
+            assertEquals(ErrorCode.PARAM_INVALID, exception.getNewErrorCode());
+        }
+        verifyNoInteractions(testStepRepository, testCaseRepository, sharedStepLibraryService);
+    }
+
+    @Test
+    @DisplayName("批量创建时未指定序号的步骤应按请求顺序填入已有和指定序号之间的空位")
+    void testBatchCreateTestSteps_FillsGaps() {
+        givenLockedRowStorageCase();
+        when(testStepRepository.findStepOrdersByTestCaseId(TEST_CASE_ID)).thenReturn(List.of(1, 3, 6));
+
+        List<TestStep> testSteps = testStepService.batchCreateTestSteps(List.of(
+                step(null), step(5), step(null), step(null), step(2), step(null)), TEST_CASE_ID);
+
+        assertEquals(List.of(4, 5, 7, 8, 2, 9), stepOrders(testSteps));
+        verify(testStepRepository).batchInsert(testSteps);
+    }
+
+    @Test
+    @DisplayName("批量创建时指定的序号与已有步骤冲突应返回数据已存在，不写入任何步骤")
+    void testBatchCreateTestSteps_ConflictWithExisting() {
+        givenLockedRowStorageCase();
+        when(testStepRepository.findStepOrdersByTestCaseId(TEST_CASE_ID)).thenReturn(List.of(1, 2));
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> testStepService.batchCreateTestSteps(List.of(step(3), step(2)), TEST_CASE_ID));
+
+        assertEquals(ErrorCode.DATA_EXISTS, exception.getNewErrorCode());
+        assertTrue(exception.getMessage().contains("[2]"), exception.getMessage());
+        verify(testStepRepository, never()).batchInsert(any());
+    }
+
+    @Test
+    @DisplayName("批量创建时批内指定了重复序号应返回数据已存在，不写入任何步骤")
+    void testBatchCreateTestSteps_DuplicateInBatch() {
+        givenLockedRowStorageCase();
+        when(testStepRepository.findStepOrdersByTestCaseId(TEST_CASE_ID)).thenReturn(List.of());
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> testStepService.batchCreateTestSteps(List.of(step(4), step(null), step(4)), TEST_CASE_ID));
+
+        assertEquals(ErrorCode.DATA_EXISTS, exception.getNewErrorCode());
+        assertTrue(exception.getMessage().contains("[4]"), exception.getMessage());
+        verify(testStepRepository, never()).batchInsert(any());
+    }
+
+    @Test
+    @DisplayName("批量创建超过5000个步骤应返回参数错误，正好5000个可以创建")
+    void testBatchCreateTestSteps_SizeCap() {
+        List<CreateTestStepRequestDTO> tooMany = new ArrayList<>();
+        for (int i = 0; i < 5001; i++) {
+            tooMany.add(step(null));
+        }
+
+        BusinessException exception = assertThrows(BusinessException.class,
+                () -> testStepService.batchCreateTestSteps(tooMany, TEST_CASE_ID));
+        assertEquals(ErrorCode.PARAM_INVALID, exception.getNewErrorCode());
+        verifyNoInteractions(testStepRepository, testCaseRepository);
+
+        givenLockedRowStorageCase();
+        when(testStepRepository.findStepOrdersByTestCaseId(TEST_CASE_ID)).thenReturn(List.of());
+        List<TestStep> testSteps = testStepService.batchCreateTestSteps(tooMany.subList(0, 5000), TEST_CASE_ID);
+
+        assertEquals(5000, testSteps.size());
+        assertEquals(5000, testSteps.get(4999).getStepOrder());
+    }
+
+    private SharedStepBody sharedBody() {
+        return SharedStepBody.builder()
+                .id(30L)
+                .projectId(PROJECT_ID)
+                .stepDescription("打开登录页面")
+                .testData("URL: /login")
+                .expectedResult("页面正常显示")
+                .build();
+    }
+
+    private TestStep givenSharedStepForUpdate(Long stepId, SharedStepBody sharedBody) {
+        TestStep testStep = TestStep.builder().testCaseId(TEST_CASE_ID).stepOrder(1).enabled(true)
+                .sharedBodyId(sharedBody.getId()).sharedBody(sharedBody).build();
+        testStep.setId(stepId);
+        givenLockedStep(stepId, testStep);
+        TestCase testCase = enabledTestCase();
+        testCase.setProjectId(PROJECT_ID);
+        lenient().when(testCaseRepository.findById(TEST_CASE_ID)).thenReturn(Optional.of(testCase));
+        lenient().when(sharedStepLibraryService.getSharedStepBody(PROJECT_ID, sharedBody.getId())).thenReturn(sharedBody);
+        lenient().when(testStepRepository.save(any(TestStep.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        return testStep;
+    }
+
+    private static CreateTestStepRequestDTO step(Integer stepOrder) {
+        return CreateTestStepRequestDTO.builder()
+                .stepOrder(stepOrder)
+                .stepDescription("步骤" + stepOrder)
+                .expectedResult("结果" + stepOrder)
+                .build();
+    }
+
+    private static List<Integer> stepOrders(List<TestStep> testSteps) {
+        return testSteps.stream().map(TestStep::getStepOrder).collect(Collectors.toList());
+    }
+
+    private void givenLockedStep(Long stepId, TestStep testStep) {
+        when(testStepRepository.findTestCaseIdById(stepId)).thenReturn(Optional.of(TEST_CASE_ID));
+        when(testCaseRepository.findByIdForUpdate(TEST_CASE_ID)).thenReturn(Optional.of(enabledTestCase()));
+        when(testCaseRepository.findStepsDocumentById(TEST_CASE_ID)).thenReturn(Optional.empty());
+        when(testStepRepository.findById(stepId)).thenReturn(Optional.of(testStep));
+    }
+
+    private void givenStep(Long stepId, int stepOrder) {
+        TestStep testStep = TestStep.builder().testCaseId(TEST_CASE_ID).stepOrder(stepOrder).enabled(true).build();
+        testStep.setId(stepId);
+        when(testStepRepository.findById(stepId)).thenReturn(Optional.of(testStep));
+        when(testCaseRepository.findByIdForUpdate(TEST_CASE_ID)).thenReturn(Optional.of(enabledTestCase()));
+        when(testStepRepository.findStepOrderById(stepId)).thenReturn(stepOrder);
+    }
+
+    private void givenLockedRowStorageCase() {
+        when(testCaseRepository.findByIdForUpdate(TEST_CASE_ID)).thenReturn(Optional.of(enabledTestCase()));
+        when(testCaseRepository.findStepsDocumentById(TEST_CASE_ID)).thenReturn(Optional.empty());
+    }
+
+    private TestCase enabledTestCase() {
+        TestCase testCase = new TestCase();
+        testCase.setId(TEST_CASE_ID);
+        testCase.setEnabled(true);
+        return testCase;
+    }
+}
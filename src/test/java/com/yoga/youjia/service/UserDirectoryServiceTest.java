@@ -0,0 +1,159 @@
+package com.yoga.youjia.service;
+
+import com.yoga.youjia.common.enums.UserStatus;
+import com.yoga.youjia.dto.response.UserCardDTO;
+import com.yoga.youjia.dto.response.UserDirectorySnapshotDTO;
+import com.yoga.youjia.entity.User;
+import com.yoga.youjia.entity.UserTombstone;
+import com.yoga.youjia.repository.UserRepository;
+import com.yoga.youjia.repository.UserTombstoneRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * UserDirectoryService用户名片快照测试
+ *
+ * 测试完整快照和增量快照：
+ * - 不带版本号时返回全部用户
+ * - 带版本号时只返回之后修改过的用户和删除的用户ID，删除记录保存在数据库中
+ * - 版本号早于删除记录的保留范围时返回完整快照，清理只删除保留范围之外的记录
+ */
+@DataJpaTest
+@Import(UserDirectoryService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@DisplayName("UserDirectoryService用户名片快照测试")
+class UserDirectoryServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserDirectoryService userDirectoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserTombstoneRepository userTombstoneRepository;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(userDirectoryService, "commitLagMillis", 0L);
+    }
+
+    @Test
+    @DisplayName("不带版本号时应返回全部用户的完整快照")
+    void testGetSnapshot_Full() {
+        User alice = persistUser("alice");
+        User bob = persistUser("bob");
+
+        UserDirectorySnapshotDTO snapshot = userDirectoryService.getSnapshot(null);
+
+        assertTrue(snapshot.isFull());
+        assertEquals(List.of(alice.getId(), bob.getId()), cardIds(snapshot));
+        assertTrue(snapshot.getRemovedIds().isEmpty());
+        assertTrue(snapshot.getVersion() <= System.currentTimeMillis());
+    }
+
+    @Test
+    @DisplayName("增量快照应只返回版本号之后修改和删除的用户")
+    void testGetSnapshot_Delta() throws InterruptedException {
+        User alice = persistUser("alice");
+        User bob = persistUser("bob");
+        User carol = persistUser("carol");
+        Thread.sleep(5);
+        long since = userDirectoryService.getSnapshot(null).getVersion();
+        Thread.sleep(5);
+
+        alice.setRealName("修改后的姓名");
+        entityManager.persistAndFlush(alice);
+        userRepository.delete(bob);
+        userDirectoryService.onUserDeleted(bob.getId());
+        entityManager.flush();
+        Thread.sleep(5);
+
+        UserDirectorySnapshotDTO delta = userDirectoryService.getSnapshot(since);
+
+        assertFalse(delta.isFull());
+        assertEquals(List.of(alice.getId()), cardIds(delta));
+        assertEquals("修改后的姓名", delta.getUsers().get(0).getRealName());
+        assertEquals(List.of(bob.getId()), delta.getRemovedIds());
+        assertFalse(cardIds(delta).contains(carol.getId()));
+
+        // 用新的版本号再取一次增量，没有变化
+        UserDirectorySnapshotDTO next = userDirectoryService.getSnapshot(delta.getVersion());
+        assertTrue(next.getUsers().isEmpty());
+        assertTrue(next.getRemovedIds().isEmpty());
+    }
+
+    @Test
+    @DisplayName("删除记录保存在数据库中，不依赖服务实例的内存状态")
+    void testOnUserDeleted_Persisted() {
+        long since = System.currentTimeMillis() - 1000;
+
+        userDirectoryService.onUserDeleted(42L);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<UserTombstone> tombstones = userTombstoneRepository.findAll();
+        assertEquals(1, tombstones.size());
+        assertEquals(42L, tombstones.get(0).getUserId());
+        assertEquals(List.of(42L), userDirectoryService.getSnapshot(since).getRemovedIds());
+    }
+
+    @Test
+    @DisplayName("版本号早于删除记录的保留范围时应返回完整快照")
+    void testGetSnapshot_SinceBeforeRetention() {
+        User alice = persistUser("alice");
+        long since = LocalDateTime.now().minusDays(31).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        UserDirectorySnapshotDTO snapshot = userDirectoryService.getSnapshot(since);
+
+        assertTrue(snapshot.isFull());
+        assertEquals(List.of(alice.getId()), cardIds(snapshot));
+    }
+
+    @Test
+    @DisplayName("清理只删除保留范围之外的删除记录")
+    void testPurgeTombstones() {
+        userTombstoneRepository.save(UserTombstone.builder().userId(1L).deletedAt(LocalDateTime.now().minusDays(40)).build());
+        userTombstoneRepository.save(UserTombstone.builder().userId(2L).deletedAt(LocalDateTime.now().minusDays(1)).build());
+        entityManager.flush();
+
+        userDirectoryService.purgeTombstones();
+        entityManager.clear();
+
+        List<UserTombstone> remaining = userTombstoneRepository.findAll();
+        assertEquals(1, remaining.size());
+        assertEquals(2L, remaining.get(0).getUserId());
+    }
+
+    private User persistUser(String username) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword("password123");
+        user.setRealName(username);
+        user.setEmail(username + "@example.com");
+        user.setStatus(UserStatus.ACTIVE);
+        return entityManager.persistAndFlush(user);
+    }
+
+    private static List<Long> cardIds(UserDirectorySnapshotDTO snapshot) {
+        return snapshot.getUsers().stream().map(UserCardDTO::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,190 @@
+package com.yoga.youjia.service;
+
+import com.yoga.youjia.common.enums.UserStatus;
+import com.yoga.youjia.dto.response.UserCardDTO;
+import com.yoga.youjia.entity.User;
+import com.yoga.youjia.repository.UserRepository;
+import com.yoga.youjia.security.service.PrincipalCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * UserLookupService用户批量查询测试
+ *
+ * 测试名片缓存和 ETag：
+ * - 未命中的ID合并成一次查询，命中的不再查询数据库，结果按请求顺序排列
+ * - 修改、删除用户后缓存失效，下次查询读到最新数据
+ * - If-None-Match 支持多个 ETag、* 和弱比较
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("UserLookupService用户批量查询测试")
+class UserLookupServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private PrincipalCache principalCache;
+
+    @Mock
+    private SearchIndexService searchIndexService;
+
+    @Mock
+    private UserDirectoryService userDirectoryService;
+
+    @Mock
+    private LoginActivityRecorder loginActivityRecorder;
+
+    @InjectMocks
+    private UserService userService;
+
+    private UserLookupService userLookupService;
+
+    /**
+     * 模拟 users 表：ID -> [ID, 用户名, 姓名, 头像, 状态]
+     */
+    private final Map<Long, Object[]> rows = new HashMap<>();
+
+    private final List<List<Long>> queriedIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        userLookupService = new UserLookupService(userRepository, new SimpleMeterRegistry(),
+                1000, 1000, Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(userService, "userLookupService", userLookupService);
+
+        lenient().when(userRepository.findUserCardsByIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            queriedIds.add(new ArrayList<>(ids));
+            return ids.stream().filter(rows::containsKey).map(rows::get).collect(Collectors.toList());
+        });
+        putRow(1L, "alice", "爱丽丝");
+        putRow(2L, "bob", "鲍勃");
+        putRow(3L, "carol", "卡罗尔");
+    }
+
+    @Test
+    @DisplayName("未命中的ID合并查询一次，命中的ID不再查询数据库")
+    void testLookup_CacheHitAndMiss() {
+        assertEquals(List.of(2L, 1L), ids(userLookupService.lookup(List.of(2L, 1L, 2L))));
+        assertEquals(List.of(List.of(2L, 1L)), queriedIds);
+
+        assertEquals(List.of(1L, 3L, 2L), ids(userLookupService.lookup(List.of(1L, 3L, 2L))));
+        assertEquals(List.of(3L), queriedIds.get(1));
+
+        userLookupService.lookup(List.of(3L, 1L));
+        assertEquals(2, queriedIds.size());
+    }
+
+    @Test
+    @DisplayName("不存在的用户不返回，也不缓存")
+    void testLookup_MissingUser() {
+        assertEquals(List.of(1L), ids(userLookupService.lookup(List.of(99L, 1L))));
+
+        putRow(99L, "late", "后来的用户");
+        assertEquals(List.of(99L, 1L), ids(userLookupService.lookup(List.of(99L, 1L))));
+        assertEquals(List.of(99L), queriedIds.get(1));
+    }
+
+    @Test
+    @DisplayName("修改用户后缓存失效，再次查询返回新的姓名和新的ETag")
+    void testLookup_InvalidatedByUpdateUser() {
+        List<UserCardDTO> before = userLookupService.lookup(List.of(1L, 2L));
+        String etagBefore = userLookupService.computeETag(before);
+
+        User existing = user(1L, "alice");
+        when(userRepository.findById(1L)).thenReturn(Optional.of(existing));
+        when(userRepository.save(existing)).thenAnswer(invocation -> {
+            putRow(1L, "alice", existing.getRealName());
+            return existing;
+        });
+        User update = new User();
+        update.setId(1L);
+        update.setRealName("新名字");
+        userService.updateUser(update);
+
+        List<UserCardDTO> after = userLookupService.lookup(List.of(1L, 2L));
+        assertEquals("新名字", after.get(0).getRealName());
+        assertEquals(List.of(1L), queriedIds.get(1));
+        assertNotEquals(etagBefore, userLookupService.computeETag(after));
+    }
+
+    @Test
+    @DisplayName("删除用户后缓存失效，再次查询不再返回该用户")
+    void testLookup_InvalidatedByDeleteUser() {
+        userLookupService.lookup(List.of(1L, 2L));
+
+        when(userRepository.findById(2L)).thenReturn(Optional.of(user(2L, "bob")));
+        doAnswer(invocation -> rows.remove(2L)).when(userRepository).delete(any(User.class));
+        userService.deleteUser(2L);
+
+        assertEquals(List.of(1L), ids(userLookupService.lookup(List.of(1L, 2L))));
+    }
+
+    @Test
+    @DisplayName("内容相同的结果ETag相同，内容不同时ETag不同")
+    void testComputeETag() {
+        String etag = userLookupService.computeETag(userLookupService.lookup(List.of(1L, 2L)));
+
+        assertTrue(etag.matches("W/\"[0-9a-f]{16}\""), etag);
+        assertEquals(etag, userLookupService.computeETag(userLookupService.lookup(List.of(1L, 2L))));
+        assertNotEquals(etag, userLookupService.computeETag(userLookupService.lookup(List.of(2L, 1L))));
+    }
+
+    @Test
+    @DisplayName("If-None-Match 按弱比较匹配，支持多个ETag，忽略*")
+    void testMatchesIfNoneMatch() {
+        String etag = "W/\"00000000000000ab\"";
+
+        assertTrue(userLookupService.matchesIfNoneMatch(etag, etag));
+        assertTrue(userLookupService.matchesIfNoneMatch("\"00000000000000ab\"", etag));
+        assertTrue(userLookupService.matchesIfNoneMatch("\"other\", W/\"00000000000000ab\"", etag));
+        assertTrue(userLookupService.matchesIfNoneMatch("W/\"a,b\" ,W/\"00000000000000ab\"", etag));
+        assertTrue(userLookupService.matchesIfNoneMatch("*, W/\"00000000000000ab\"", etag));
+
+        assertFalse(userLookupService.matchesIfNoneMatch(null, etag));
+        assertFalse(userLookupService.matchesIfNoneMatch("", etag));
+        assertFalse(userLookupService.matchesIfNoneMatch("*", etag));
+        assertFalse(userLookupService.matchesIfNoneMatch("W/\"00000000000000ac\"", etag));
+        assertFalse(userLookupService.matchesIfNoneMatch("\"00000000000000ab", etag));
+        assertFalse(userLookupService.matchesIfNoneMatch("00000000000000ab", etag));
+        assertFalse(userLookupService.matchesIfNoneMatch("\"00000000000000abc\"", etag));
+    }
+
+    private void putRow(Long id, String username, String realName) {
+        rows.put(id, new Object[]{id, username, realName, null, UserStatus.ACTIVE});
+    }
+
+    private static User user(Long id, String username) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setEmail(username + "@example.com");
+        user.setStatus(UserStatus.ACTIVE);
+        return user;
+    }
+
+    private static List<Long> ids(List<UserCardDTO> cards) {
+        return cards.stream().map(UserCardDTO::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,137 @@
+package com.yoga.youjia.service;
+
+import com.yoga.youjia.common.enums.ProjectMemberRole;
+import com.yoga.youjia.common.enums.ProjectStatus;
+import com.yoga.youjia.entity.Project;
+import com.yoga.youjia.entity.ProjectMember;
+import com.yoga.youjia.entity.UserProjectIndex;
+import com.yoga.youjia.repository.UserProjectIndexRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * UserProjectIndexService用户-项目索引维护测试
+ *
+ * 测试成员同步和项目同步：
+ * - 两种同步写入的更新时间都等于项目的更新时间
+ * - 成员离开或项目停用时索引行无效，项目重新启用时按成员状态恢复
+ */
+@DataJpaTest
+@Import(UserProjectIndexService.class)
+@DisplayName("UserProjectIndexService用户-项目索引维护测试")
+class UserProjectIndexServiceTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserProjectIndexService userProjectIndexService;
+
+    @Autowired
+    private UserProjectIndexRepository userProjectIndexRepository;
+
+    private Project project;
+
+    @BeforeEach
+    void setUp() {
+        project = entityManager.persistAndFlush(Project.builder().code("P-INDEX").name("索引项目").createdBy(1L).build());
+    }
+
+    @Test
+    @DisplayName("成员同步应写入项目的更新时间")
+    void testSyncMembers_UsesProjectUpdatedAt() {
+        persistMember(10L, true);
+        persistMember(11L, false);
+
+        userProjectIndexService.syncMembers(project.getId(), List.of(10L, 11L));
+
+        UserProjectIndex active = indexRow(10L);
+        UserProjectIndex departed = indexRow(11L);
+        assertTrue(active.getActive());
+        assertFalse(departed.getActive());
+        assertFalse(departed.getMemberActive());
+        assertEquals(project.getUpdatedAt(), active.getUpdatedAt());
+        assertEquals(project.getUpdatedAt(), departed.getUpdatedAt());
+    }
+
+    @Test
+    @DisplayName("项目同步应写入项目变更后的更新时间")
+    void testSyncProject_UsesProjectUpdatedAt() {
+        persistMember(10L, true);
+        userProjectIndexService.syncMembers(project.getId(), List.of(10L));
+        LocalDateTime before = indexRow(10L).getUpdatedAt();
+
+        project.setStatus(ProjectStatus.ACTIVE);
+        userProjectIndexService.syncProject(project);
+
+        UserProjectIndex row = indexRow(10L);
+        assertEquals(ProjectStatus.ACTIVE, row.getProjectStatus());
+        assertEquals(project.getUpdatedAt(), row.getUpdatedAt());
+        assertFalse(row.getUpdatedAt().isBefore(before));
+    }
+
+    @Test
+    @DisplayName("成员同步和项目同步写入的更新时间应一致")
+    void testSyncMembersAfterSyncProject_SameUpdatedAt() {
+        persistMember(10L, true);
+        userProjectIndexService.syncMembers(project.getId(), List.of(10L));
+        project.setStatus(ProjectStatus.ACTIVE);
+        userProjectIndexService.syncProject(project);
+        LocalDateTime projectSynced = indexRow(10L).getUpdatedAt();
+
+        persistMember(12L, true);
+        userProjectIndexService.syncMembers(project.getId(), List.of(12L));
+
+        assertEquals(projectSynced, indexRow(12L).getUpdatedAt());
+    }
+
+    @Test
+    @DisplayName("项目停用时索引行无效，重新启用后按成员状态恢复")
+    void testSyncProject_DisableAndEnable() {
+        persistMember(10L, true);
+        persistMember(11L, false);
+        userProjectIndexService.syncMembers(project.getId(), List.of(10L, 11L));
+
+        project.setEnabled(false);
+        userProjectIndexService.syncProject(project);
+        assertFalse(indexRow(10L).getActive());
+        assertTrue(userProjectIndexRepository.findActiveProjectIdsByUserId(10L, PageRequest.of(0, 10)).isEmpty());
+
+        project.setEnabled(true);
+        userProjectIndexService.syncProject(project);
+        assertTrue(indexRow(10L).getActive());
+        assertFalse(indexRow(11L).getActive());
+        assertEquals(List.of(project.getId()),
+                userProjectIndexRepository.findActiveProjectIdsByUserId(10L, PageRequest.of(0, 10)).getContent());
+    }
+
+    private void persistMember(Long userId, boolean active) {
+        entityManager.persistAndFlush(ProjectMember.builder()
+                .project(project)
+                .userId(userId)
+                .role(ProjectMemberRole.TESTER)
+                .active(active)
+                .addedBy(1L)
+                .build());
+    }
+
+    private UserProjectIndex indexRow(Long userId) {
+        entityManager.flush();
+        entityManager.clear();
+        project = entityManager.find(Project.class, project.getId());
+        List<UserProjectIndex> rows = userProjectIndexRepository.findByProjectIdAndUserIdIn(project.getId(), List.of(userId));
+        assertEquals(1, rows.size());
+        return rows.get(0);
+    }
+}